@@ -0,0 +1,182 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.hardware.camera2.CaptureResult;
+import android.os.PowerManager;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Decides when the preview should be stepped down to a cheaper configuration and back up, based on
+ * the delivered frames and the thermal status of the device.
+ *
+ * <p>The configurations are numbered by level, level 0 being the configuration the camera was
+ * created with and higher levels being cheaper. The controller only decides on the level, the
+ * {@link Listener} applies it.
+ *
+ * <p>Frames are evaluated in windows of {@link #WINDOW_NANOS}. A frame is late when it arrives more
+ * than 1.5 times the frame duration reported by the sensor after the previous one. The level is
+ * stepped down when more than {@link #LATE_FRAME_RATIO} of the frames of a window were late, or
+ * right away when the device reaches a severe thermal status. It is stepped back up after {@link
+ * #RECOVERY_WINDOWS} healthy windows in a row, as long as the device is not warm. The first window
+ * after a change is ignored, since the camera is still settling.
+ *
+ * <p>This class is not thread safe and must only be used from the camera background thread.
+ */
+class AdaptivePreviewController {
+  /** The length of a window of frames that are evaluated together. */
+  @VisibleForTesting static final long WINDOW_NANOS = 2_000_000_000L;
+
+  /** The share of late frames in a window above which the level is stepped down. */
+  @VisibleForTesting static final double LATE_FRAME_RATIO = 0.1;
+
+  /** The share of late frames in a window below which the window counts as healthy. */
+  @VisibleForTesting static final double HEALTHY_FRAME_RATIO = 0.02;
+
+  /** The number of healthy windows in a row after which the level is stepped up. */
+  @VisibleForTesting static final int RECOVERY_WINDOWS = 5;
+
+  /** The reason reported when the level is stepped down because of late frames. */
+  static final String REASON_FRAME_DROPS = "frameDrops";
+
+  /** The reason reported when the level is stepped down because of the thermal status. */
+  static final String REASON_THERMAL = "thermal";
+
+  /** The reason reported when the level is stepped up again. */
+  static final String REASON_RECOVERED = "recovered";
+
+  /** The reason reported when the original level is restored because adapting was stopped. */
+  static final String REASON_STOPPED = "stopped";
+
+  /** Applies the level chosen by the controller. */
+  interface Listener {
+    /**
+     * Called on the camera background thread when the level changes.
+     *
+     * @param level the new level.
+     * @param reason why the level changed, one of the {@code REASON_} constants.
+     */
+    void onLevelChanged(int level, @NonNull String reason);
+  }
+
+  private final int maxLevel;
+  private final Listener listener;
+  private int level;
+  private int thermalStatus = PowerManager.THERMAL_STATUS_NONE;
+
+  private boolean settling = true;
+  private long windowStartNanos = -1;
+  private long lastTimestampNanos = -1;
+  private int frameCount;
+  private int lateFrameCount;
+  private int healthyWindows;
+
+  /**
+   * Creates a new instance of the {@link AdaptivePreviewController}.
+   *
+   * @param maxLevel the cheapest level the preview can be stepped down to.
+   * @param listener the listener applying the chosen level.
+   */
+  AdaptivePreviewController(int maxLevel, @NonNull Listener listener) {
+    this.maxLevel = maxLevel;
+    this.listener = listener;
+  }
+
+  /** Gets the current level. */
+  int getLevel() {
+    return level;
+  }
+
+  /**
+   * Evaluates a completed capture of the repeating preview request.
+   *
+   * @param result the completed capture result.
+   */
+  void onCaptureCompleted(@NonNull CaptureResult result) {
+    Long timestamp = result.get(CaptureResult.SENSOR_TIMESTAMP);
+    Long frameDuration = result.get(CaptureResult.SENSOR_FRAME_DURATION);
+    if (timestamp != null && frameDuration != null) {
+      onFrame(timestamp, frameDuration);
+    }
+  }
+
+  /**
+   * Evaluates a single frame.
+   *
+   * @param timestampNanos the sensor timestamp of the frame.
+   * @param frameDurationNanos the frame duration reported by the sensor.
+   */
+  @VisibleForTesting
+  void onFrame(long timestampNanos, long frameDurationNanos) {
+    long previousTimestamp = lastTimestampNanos;
+    lastTimestampNanos = timestampNanos;
+    if (previousTimestamp < 0) {
+      windowStartNanos = timestampNanos;
+      return;
+    }
+
+    frameCount++;
+    if (frameDurationNanos > 0 && timestampNanos - previousTimestamp > frameDurationNanos * 1.5) {
+      lateFrameCount++;
+    }
+    if (timestampNanos - windowStartNanos < WINDOW_NANOS) {
+      return;
+    }
+
+    double lateRatio = (double) lateFrameCount / frameCount;
+    boolean discard = settling;
+    settling = false;
+    windowStartNanos = timestampNanos;
+    frameCount = 0;
+    lateFrameCount = 0;
+    if (discard) {
+      return;
+    }
+
+    if (lateRatio > LATE_FRAME_RATIO) {
+      healthyWindows = 0;
+      setLevel(level + 1, REASON_FRAME_DROPS);
+    } else if (lateRatio < HEALTHY_FRAME_RATIO
+        && thermalStatus < PowerManager.THERMAL_STATUS_MODERATE) {
+      healthyWindows++;
+      if (healthyWindows >= RECOVERY_WINDOWS) {
+        healthyWindows = 0;
+        setLevel(level - 1, REASON_RECOVERED);
+      }
+    } else {
+      healthyWindows = 0;
+    }
+  }
+
+  /**
+   * Handles a change of the thermal status of the device.
+   *
+   * @param status the new {@link PowerManager} thermal status.
+   */
+  void onThermalStatusChanged(int status) {
+    thermalStatus = status;
+    if (status >= PowerManager.THERMAL_STATUS_MODERATE) {
+      healthyWindows = 0;
+    }
+    if (status >= PowerManager.THERMAL_STATUS_SEVERE) {
+      setLevel(level + 1, REASON_THERMAL);
+    }
+  }
+
+  private void setLevel(int newLevel, String reason) {
+    newLevel = Math.max(0, Math.min(maxLevel, newLevel));
+    if (newLevel == level) {
+      return;
+    }
+    level = newLevel;
+    // The frames of the old configuration say nothing about the new one.
+    settling = true;
+    lastTimestampNanos = -1;
+    frameCount = 0;
+    lateFrameCount = 0;
+    listener.onLevelChanged(newLevel, reason);
+  }
+}
@@ -15,6 +15,7 @@ import android.hardware.camera2.CameraCaptureSession;
 import android.hardware.camera2.CameraDevice;
 import android.hardware.camera2.CameraManager;
 import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.CaptureFailure;
 import android.hardware.camera2.CaptureRequest;
 import android.hardware.camera2.TotalCaptureResult;
 import android.hardware.camera2.params.OutputConfiguration;
@@ -30,7 +31,10 @@ import android.os.Build.VERSION_CODES;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.Range;
 import android.util.Size;
 import android.view.Display;
 import android.view.Surface;
@@ -54,31 +58,50 @@ import io.flutter.plugins.camera.features.exposurepoint.ExposurePointFeature;
 import io.flutter.plugins.camera.features.flash.FlashFeature;
 import io.flutter.plugins.camera.features.flash.FlashMode;
 import io.flutter.plugins.camera.features.focuspoint.FocusPointFeature;
+import io.flutter.plugins.camera.features.fpsrange.FpsRangeFeature;
 import io.flutter.plugins.camera.features.resolution.ResolutionFeature;
 import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
 import io.flutter.plugins.camera.features.sensororientation.DeviceOrientationManager;
+import io.flutter.plugins.camera.features.sensororientation.OrientationTrackingMode;
 import io.flutter.plugins.camera.features.sensororientation.SensorOrientationFeature;
 import io.flutter.plugins.camera.features.zoomlevel.ZoomLevelFeature;
+import io.flutter.plugins.camera.media.BinaryImageStreamSender;
+import io.flutter.plugins.camera.media.EventChannelImageStreamSender;
+import io.flutter.plugins.camera.media.ImageStreamPolicy;
+import io.flutter.plugins.camera.media.ImageStreamProcessor;
+import io.flutter.plugins.camera.media.ImageStreamSender;
+import io.flutter.plugins.camera.media.MediaCodecRecorder;
 import io.flutter.plugins.camera.media.MediaRecorderBuilder;
+import io.flutter.plugins.camera.media.PictureOptions;
+import io.flutter.plugins.camera.media.VideoEncoderSettings;
 import io.flutter.plugins.camera.types.CameraCaptureProperties;
 import io.flutter.plugins.camera.types.CaptureTimeoutsWrapper;
 import io.flutter.view.TextureRegistry.SurfaceTextureEntry;
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @FunctionalInterface
 interface ErrorCallback {
   void onError(String errorCode, String errorMessage);
 }
 
+/**
+ * Controls a single camera device.
+ *
+ * <p>The capture session, the preview request builder and the camera features are used from the
+ * platform thread, the camera background thread and the thread configuring capture sessions, so
+ * every access to them holds the lock of the camera.
+ */
 class Camera
     implements CameraCaptureCallback.CameraCaptureStateListener,
         ImageReader.OnImageAvailableListener {
@@ -86,6 +109,33 @@ class Camera
 
   private static final HashMap<String, Integer> supportedImageFormats;
 
+  /** The number of pictures of a burst that are saved in parallel. */
+  private static final int IMAGE_SAVER_THREADS = 3;
+
+  /**
+   * The number of JPEG images the picture reader can hold, one for each {@link ImageSaver} of a
+   * burst and one being delivered by the camera.
+   */
+  private static final int MAX_PICTURE_IMAGES = IMAGE_SAVER_THREADS + 1;
+
+  /** How long closing the camera waits for the pictures that are still being saved. */
+  private static final long IMAGE_SAVER_SHUTDOWN_TIMEOUT_MS = 3000;
+
+  /** The number of recent frames kept for zero-shutter-lag pictures. */
+  private static final int ZERO_SHUTTER_LAG_FRAMES = 3;
+
+  /**
+   * The largest distance between the shutter and a kept frame for the frame to be used, so stale
+   * frames kept before the preview was paused or replaced are never returned.
+   */
+  private static final long ZERO_SHUTTER_LAG_MAX_DISTANCE_NANOS = 200_000_000L;
+
+  /** The lowest frame rate the adaptive preview steps down to. */
+  private static final int MIN_ADAPTIVE_FPS = 15;
+
+  /** The number of smaller preview sizes the adaptive preview steps down to. */
+  private static final int MAX_ADAPTIVE_PREVIEW_SIZE_STEPS = 2;
+
   // Current supported outputs.
   static {
     supportedImageFormats = new HashMap<>();
@@ -122,8 +172,36 @@ class Camera
   private CaptureRequest.Builder previewRequestBuilder;
 
   private MediaRecorder mediaRecorder;
+  /** The MediaCodec recorder used instead of the mediaRecorder when encoder settings are given. */
+  private MediaCodecRecorder codecRecorder;
+  /** True while frames are streamed to Dart. */
+  private boolean streamingImages;
+  /** Sends the streamed frames to Dart, or null when Dart is not listening to the stream. */
+  private ImageStreamSender imageStreamSender;
+  /** Processes the streamed frames before they are sent, or null when they are sent as is. */
+  private ImageStreamProcessor imageStreamProcessor;
+  /** Pairs the streamed frames with their capture results, or null when no frames are sent. */
+  private StreamFrameSynchronizer frameSynchronizer;
+  /** The telemetry recording the completed preview captures, or null when not recording. */
+  private CaptureTelemetry captureTelemetry;
+  /** The number of frames per telemetry event of the most recently started telemetry. */
+  private int captureTelemetryFramesPerBatch;
+  /** True when the image stream is started again once the released camera is restored. */
+  private boolean restoreImageStream;
+  /** True when the telemetry is started again once the released camera is restored. */
+  private boolean restoreCaptureTelemetry;
+  /** True when the adaptive preview is started again once the released camera is restored. */
+  private boolean restoreAdaptivePreview;
+  /** Steps the preview down and back up while it is adapted, or null when it is not adapted. */
+  private volatile AdaptivePreviewController adaptivePreview;
+  /** The preview configurations of the adaptive preview, indexed by level. */
+  private List<PreviewStep> adaptivePreviewSteps;
+  /** Forwards thermal status changes to the adaptive preview on API 29 and above. */
+  private PowerManager.OnThermalStatusChangedListener thermalStatusListener;
   /** True when recording video. */
   private boolean recordingVideo;
+  /** The image format group the camera was last opened with, used to restore it. */
+  private String imageFormatGroup;
   /** True when the preview is paused. */
   private boolean pausedPreview;
 
@@ -133,9 +211,47 @@ class Camera
   private CaptureTimeoutsWrapper captureTimeouts;
   /** Holds the last known capture properties */
   private CameraCaptureProperties captureProps;
+  /** Holds the policy of the most recently started image stream */
+  private ImageStreamPolicy imageStreamPolicy;
 
   private MethodChannel.Result flutterResult;
 
+  /** Whether the picture that is being taken is forced to the storage device once saved. */
+  private boolean pictureSync;
+  /** The format, quality and size of the picture that is being taken. */
+  private PictureOptions pictureOptions = PictureOptions.DEFAULT;
+  /** Whether the picture that is being taken is re-encoded once it has been captured. */
+  private boolean pictureTranscoding;
+  /** The rotation applied while re-encoding the picture that is being taken. */
+  private int pictureRotationDegrees;
+  /** The time it took to save the most recent picture, or -1 if no picture has been saved. */
+  private volatile long lastPictureSaveLatencyMicros = -1;
+
+  /** Saves the pictures of burst captures, created when the first burst is taken. */
+  private ExecutorService imageSaverExecutor;
+
+  /** The camera device opened ahead of time, until it is taken over by {@link #open(String)}. */
+  private CameraPrewarmer.PrewarmedDevice prewarmedDevice;
+
+  /** Whether pictures are taken from the recent frames of the preview when possible. */
+  private boolean zeroShutterLag;
+  /** Receives the full resolution frames of the preview while zero-shutter-lag is enabled. */
+  private ImageReader zeroShutterLagReader;
+  /** Keeps the most recent frames of the {@link #zeroShutterLagReader}. */
+  private ZeroShutterLagBuffer zeroShutterLagBuffer;
+
+  /** The physical camera of a logical multi-camera all outputs are streamed from, or null. */
+  @Nullable private String physicalCameraName;
+
+  /** Runs the commands changing camera settings on the background thread. */
+  private final CameraCommandQueue commandQueue;
+  /** Whether a batch of commands is running, during which preview refreshes are deferred. */
+  private boolean batchingSettings;
+  /** The callbacks of the preview refreshes deferred until the running batch is committed. */
+  private final List<Runnable> batchedSuccessCallbacks = new ArrayList<>();
+
+  private final List<ErrorCallback> batchedErrorCallbacks = new ArrayList<>();
+
   public Camera(
       final Activity activity,
       final SurfaceTextureEntry flutterTexture,
@@ -163,17 +279,35 @@ class Camera
     captureTimeouts = new CaptureTimeoutsWrapper(3000, 3000);
     captureProps = new CameraCaptureProperties();
     cameraCaptureCallback = CameraCaptureCallback.create(this, captureTimeouts, captureProps);
+    commandQueue =
+        new CameraCommandQueue(
+            dartMessenger,
+            new CameraCommandQueue.Batch() {
+              @Override
+              public void begin() {
+                synchronized (Camera.this) {
+                  batchingSettings = true;
+                }
+              }
+
+              @Override
+              public void commit() {
+                synchronized (Camera.this) {
+                  commitSettingsBatch();
+                }
+              }
+            });
 
     startBackgroundThread();
   }
 
   @Override
-  public void onConverged() {
+  public synchronized void onConverged() {
     takePictureAfterPrecapture();
   }
 
   @Override
-  public void onPrecapture() {
+  public synchronized void onPrecapture() {
     runPrecaptureSequence();
   }
 
@@ -195,10 +329,7 @@ class Camera
     if (mediaRecorder != null) {
       mediaRecorder.release();
     }
-
-    final PlatformChannel.DeviceOrientation lockedOrientation =
-        ((SensorOrientationFeature) cameraFeatures.getSensorOrientation())
-            .getLockedCaptureOrientation();
+    releaseCodecRecorder();
 
     MediaRecorderBuilder mediaRecorderBuilder;
 
@@ -211,15 +342,80 @@ class Camera
     mediaRecorder =
         mediaRecorderBuilder
             .setEnableAudio(enableAudio)
-            .setMediaOrientation(
-                lockedOrientation == null
-                    ? getDeviceOrientationManager().getVideoOrientation()
-                    : getDeviceOrientationManager().getVideoOrientation(lockedOrientation))
+            .setMediaOrientation(getVideoOrientation())
             .build();
   }
 
+  private void prepareCodecRecorder(
+      String outputFilePath, @NonNull VideoEncoderSettings encoderSettings) throws IOException {
+    Log.i(TAG, "prepareCodecRecorder");
+
+    releaseCodecRecorder();
+
+    // Values that are not part of the encoder settings come from the recording profile.
+    MediaCodecRecorder recorder;
+    if (Build.VERSION.SDK_INT >= 31) {
+      EncoderProfiles encoderProfiles = getRecordingProfile();
+      EncoderProfiles.VideoProfile videoProfile = encoderProfiles.getVideoProfiles().get(0);
+      recorder =
+          new MediaCodecRecorder(
+              outputFilePath,
+              encoderSettings,
+              videoProfile.getWidth(),
+              videoProfile.getHeight(),
+              videoProfile.getFrameRate(),
+              videoProfile.getBitrate());
+      if (enableAudio) {
+        EncoderProfiles.AudioProfile audioProfile = encoderProfiles.getAudioProfiles().get(0);
+        recorder.setAudio(
+            audioProfile.getSampleRate(), audioProfile.getChannels(), audioProfile.getBitrate());
+      }
+    } else {
+      CamcorderProfile camcorderProfile = getRecordingProfileLegacy();
+      recorder =
+          new MediaCodecRecorder(
+              outputFilePath,
+              encoderSettings,
+              camcorderProfile.videoFrameWidth,
+              camcorderProfile.videoFrameHeight,
+              camcorderProfile.videoFrameRate,
+              camcorderProfile.videoBitRate);
+      if (enableAudio) {
+        recorder.setAudio(
+            camcorderProfile.audioSampleRate,
+            camcorderProfile.audioChannels,
+            camcorderProfile.audioBitRate);
+      }
+    }
+    recorder.setOrientationHint(getVideoOrientation());
+    recorder.setTimestampSource(cameraProperties.getSensorInfoTimestampSource());
+    recorder.prepare();
+    codecRecorder = recorder;
+  }
+
+  private void releaseCodecRecorder() {
+    if (codecRecorder != null) {
+      codecRecorder.release();
+      codecRecorder = null;
+    }
+  }
+
+  /**
+   * Gets the clockwise rotation in degrees that players apply to recorded videos, honouring a
+   * locked capture orientation.
+   */
+  private int getVideoOrientation() {
+    final PlatformChannel.DeviceOrientation lockedOrientation =
+        ((SensorOrientationFeature) cameraFeatures.getSensorOrientation())
+            .getLockedCaptureOrientation();
+    return lockedOrientation == null
+        ? getDeviceOrientationManager().getVideoOrientation()
+        : getDeviceOrientationManager().getVideoOrientation(lockedOrientation);
+  }
+
   @SuppressLint("MissingPermission")
   public void open(String imageFormatGroup) throws CameraAccessException {
+    this.imageFormatGroup = imageFormatGroup;
     final ResolutionFeature resolutionFeature = cameraFeatures.getResolution();
 
     if (!resolutionFeature.checkIsSupported()) {
@@ -239,7 +435,7 @@ class Camera
             resolutionFeature.getCaptureSize().getWidth(),
             resolutionFeature.getCaptureSize().getHeight(),
             ImageFormat.JPEG,
-            1);
+            MAX_PICTURE_IMAGES);
 
     // For image streaming, use the provided image format or fall back to YUV420.
     Integer imageFormat = supportedImageFormats.get(imageFormatGroup);
@@ -247,23 +443,31 @@ class Camera
       Log.w(TAG, "The selected imageFormatGroup is not supported by Android. Defaulting to yuv420");
       imageFormat = ImageFormat.YUV_420_888;
     }
+    // One frame can be held back while it waits for its capture result.
     imageStreamReader =
         ImageReader.newInstance(
             resolutionFeature.getPreviewSize().getWidth(),
             resolutionFeature.getPreviewSize().getHeight(),
             imageFormat,
-            1);
+            2);
+
+    if (zeroShutterLag) {
+      createZeroShutterLagReader();
+    }
 
     // Open the camera.
-    CameraManager cameraManager = CameraUtils.getCameraManager(activity);
-    cameraManager.openCamera(
-        cameraProperties.getCameraName(),
+    CameraDevice.StateCallback stateCallback =
         new CameraDevice.StateCallback() {
           @Override
           public void onOpened(@NonNull CameraDevice device) {
             cameraDevice = device;
             try {
-              startPreview();
+              if (restoreImageStream) {
+                restoreImageStream = false;
+                restartImageStream();
+              } else {
+                startPreview();
+              }
               dartMessenger.sendCameraInitializedEvent(
                   resolutionFeature.getPreviewSize().getWidth(),
                   resolutionFeature.getPreviewSize().getHeight(),
@@ -322,8 +526,100 @@ class Camera
             }
             dartMessenger.sendCameraErrorEvent(errorDescription);
           }
-        },
-        backgroundHandler);
+        };
+
+    // Take over the device when it has been opened ahead of time.
+    CameraPrewarmer.PrewarmedDevice device = prewarmedDevice;
+    prewarmedDevice = null;
+    if (device != null && device.attach(stateCallback, backgroundHandler)) {
+      return;
+    }
+
+    CameraManager cameraManager = CameraUtils.getCameraManager(activity);
+    cameraManager.openCamera(cameraProperties.getCameraName(), stateCallback, backgroundHandler);
+  }
+
+  /** Whether the camera device has been opened and not been closed since. */
+  boolean isDeviceOpen() {
+    return cameraDevice != null;
+  }
+
+  /** Whether a video is being recorded. */
+  boolean isRecordingVideo() {
+    return recordingVideo;
+  }
+
+  /** Whether frames are streamed to Dart. */
+  boolean isStreamingImages() {
+    return streamingImages;
+  }
+
+  /**
+   * Closes the camera so that it can be opened again by {@link #restore()}, remembering the image
+   * stream, capture telemetry and adaptive preview that are running.
+   */
+  void release() {
+    boolean imageStream = streamingImages;
+    boolean telemetry = captureTelemetry != null;
+    boolean adaptive = adaptivePreview != null;
+    close();
+    restoreImageStream = imageStream;
+    restoreCaptureTelemetry = telemetry;
+    restoreAdaptivePreview = adaptive;
+  }
+
+  /**
+   * Opens the camera again after it has been released, with the image format group and the settings
+   * of all camera features it had before.
+   *
+   * <p>The preview is restored, along with the image stream, the capture telemetry and the adaptive
+   * preview that were running when the camera was released. Failures are reported with a camera
+   * error event.
+   */
+  void restore() {
+    startBackgroundThread();
+    if (restoreCaptureTelemetry) {
+      restoreCaptureTelemetry = false;
+      startCaptureTelemetry(captureTelemetryFramesPerBatch);
+    }
+    if (restoreAdaptivePreview) {
+      restoreAdaptivePreview = false;
+      startAdaptivePreview();
+    }
+    try {
+      open(imageFormatGroup);
+    } catch (CameraAccessException e) {
+      dartMessenger.sendCameraErrorEvent(e.getMessage());
+      close();
+    }
+  }
+
+  /**
+   * Sets the camera device that has been opened ahead of time, which is used instead of opening the
+   * device when the camera is initialized.
+   *
+   * @param prewarmedDevice the device opened by the {@link CameraPrewarmer}, or null.
+   */
+  void setPrewarmedDevice(@Nullable CameraPrewarmer.PrewarmedDevice prewarmedDevice) {
+    this.prewarmedDevice = prewarmedDevice;
+  }
+
+  /**
+   * Streams all outputs of the next capture sessions from a single physical camera of this logical
+   * multi-camera, instead of letting the camera device switch between them.
+   *
+   * <p>Only has an effect on API 28 and above.
+   *
+   * @param physicalCameraName the name of one of the physical cameras of this camera, or null to
+   *     stream from the logical camera.
+   */
+  void setPhysicalCameraName(@Nullable String physicalCameraName) {
+    this.physicalCameraName = physicalCameraName;
+  }
+
+  /** Gets the id of the texture the preview is rendered to, which also identifies the camera. */
+  long getFlutterTextureId() {
+    return flutterTexture.id();
   }
 
   private void createCaptureSession(int templateType, Surface... surfaces)
@@ -334,6 +630,26 @@ class Camera
   private void createCaptureSession(
       int templateType, Runnable onSuccessCallback, Surface... surfaces)
       throws CameraAccessException {
+    createCaptureSession(
+        templateType, onSuccessCallback, Arrays.asList(surfaces), Collections.emptyList());
+  }
+
+  /**
+   * Creates a capture session rendering to the preview and the supplied surfaces.
+   *
+   * @param templateType the template of the repeating request.
+   * @param onSuccessCallback run once the repeating request has been set.
+   * @param targetSurfaces the surfaces the repeating request renders to, unless the template is
+   *     {@link CameraDevice#TEMPLATE_PREVIEW}.
+   * @param idleSurfaces additional outputs of the session that are not rendered to yet, so they can
+   *     be targeted later without configuring a new session.
+   */
+  private void createCaptureSession(
+      int templateType,
+      Runnable onSuccessCallback,
+      List<Surface> targetSurfaces,
+      List<Surface> idleSurfaces)
+      throws CameraAccessException {
     // Close any existing capture session.
     closeCaptureSession();
 
@@ -349,13 +665,30 @@ class Camera
     Surface flutterSurface = new Surface(surfaceTexture);
     previewRequestBuilder.addTarget(flutterSurface);
 
-    List<Surface> remainingSurfaces = Arrays.asList(surfaces);
+    List<Surface> remainingSurfaces = new ArrayList<>(targetSurfaces);
+    remainingSurfaces.addAll(idleSurfaces);
     if (templateType != CameraDevice.TEMPLATE_PREVIEW) {
       // If it is not preview mode, add all surfaces as targets.
-      for (Surface surface : remainingSurfaces) {
+      for (Surface surface : targetSurfaces) {
         previewRequestBuilder.addTarget(surface);
       }
     }
+    if (templateType == CameraDevice.TEMPLATE_PREVIEW && zeroShutterLagReader != null) {
+      // Frames are only kept during the plain preview, adding a full resolution stream to the
+      // recording and image stream sessions would exceed what the camera guarantees to support.
+      Surface zeroShutterLagSurface = zeroShutterLagReader.getSurface();
+      List<Surface> surfaces = new ArrayList<>();
+      surfaces.add(flutterSurface);
+      surfaces.addAll(remainingSurfaces);
+      surfaces.add(zeroShutterLagSurface);
+      if (isSessionSupported(surfaces)) {
+        previewRequestBuilder.addTarget(zeroShutterLagSurface);
+        remainingSurfaces.add(zeroShutterLagSurface);
+      } else {
+        // Pictures are taken the regular way.
+        Log.i(TAG, "Zero-shutter-lag frames are not supported next to the preview and pictures");
+      }
+    }
 
     // Update camera regions.
     Size cameraBoundaries =
@@ -371,18 +704,21 @@ class Camera
           @Override
           public void onConfigured(@NonNull CameraCaptureSession session) {
             Log.i(TAG, "CameraCaptureSession onConfigured");
-            // Camera was already closed.
-            if (cameraDevice == null || captureSessionClosed) {
-              dartMessenger.sendCameraErrorEvent("The camera was closed during configuration.");
-              return;
-            }
-            captureSession = session;
+            synchronized (Camera.this) {
+              // Camera was already closed.
+              if (cameraDevice == null || captureSessionClosed) {
+                dartMessenger.sendCameraErrorEvent("The camera was closed during configuration.");
+                return;
+              }
+              captureSession = session;
 
-            Log.i(TAG, "Updating builder settings");
-            updateBuilderSettings(previewRequestBuilder);
+              Log.i(TAG, "Updating builder settings");
+              cameraFeatures.updateAllFeatures(previewRequestBuilder);
 
-            refreshPreviewCaptureSession(
-                onSuccessCallback, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
+              refreshPreviewCaptureSession(
+                  onSuccessCallback,
+                  (code, message) -> dartMessenger.sendCameraErrorEvent(message));
+            }
           }
 
           @Override
@@ -406,6 +742,11 @@ class Camera
       for (Surface surface : remainingSurfaces) {
         configs.add(new OutputConfiguration(surface));
       }
+      if (physicalCameraName != null) {
+        for (OutputConfiguration config : configs) {
+          config.setPhysicalCameraId(physicalCameraName);
+        }
+      }
       createCaptureSessionWithSessionConfig(configs, callback);
     } else {
       // Collect all surfaces to render to.
@@ -416,6 +757,37 @@ class Camera
     }
   }
 
+  /** Checks whether the camera supports a regular session with the supplied outputs. */
+  @TargetApi(VERSION_CODES.Q)
+  private boolean isSessionSupported(List<Surface> surfaces) {
+    List<OutputConfiguration> configs = new ArrayList<>();
+    for (Surface surface : surfaces) {
+      OutputConfiguration config = new OutputConfiguration(surface);
+      if (physicalCameraName != null) {
+        config.setPhysicalCameraId(physicalCameraName);
+      }
+      configs.add(config);
+    }
+    try {
+      // The configuration is only checked, its callback is never called.
+      return cameraDevice.isSessionConfigurationSupported(
+          new SessionConfiguration(
+              SessionConfiguration.SESSION_REGULAR,
+              configs,
+              Runnable::run,
+              new CameraCaptureSession.StateCallback() {
+                @Override
+                public void onConfigured(@NonNull CameraCaptureSession session) {}
+
+                @Override
+                public void onConfigureFailed(@NonNull CameraCaptureSession session) {}
+              }));
+    } catch (CameraAccessException | UnsupportedOperationException | IllegalArgumentException e) {
+      // Cameras that can't check the configuration are treated as not supporting it.
+      return false;
+    }
+  }
+
   @TargetApi(VERSION_CODES.P)
   private void createCaptureSessionWithSessionConfig(
       List<OutputConfiguration> outputConfigs, CameraCaptureSession.StateCallback callback)
@@ -450,6 +822,7 @@ class Camera
     }
 
     try {
+      cameraFeatures.updateDirtyFeatures(previewRequestBuilder);
       if (!pausedPreview) {
         captureSession.setRepeatingRequest(
             previewRequestBuilder.build(), cameraCaptureCallback, backgroundHandler);
@@ -466,25 +839,113 @@ class Camera
     }
   }
 
+  /**
+   * Refreshes the preview after a setting changed. While a batch of commands is running, the
+   * refresh is deferred until the batch is committed, so all changes of the batch are sent to the
+   * camera with a single repeating request.
+   */
+  private void requestPreviewRefresh(
+      @NonNull Runnable onSuccessCallback, @NonNull ErrorCallback onErrorCallback) {
+    if (batchingSettings) {
+      batchedSuccessCallbacks.add(onSuccessCallback);
+      batchedErrorCallbacks.add(onErrorCallback);
+      return;
+    }
+    refreshPreviewCaptureSession(onSuccessCallback, onErrorCallback);
+  }
+
+  /** Sends the changes of the batch of commands that just ran to the camera. */
+  private void commitSettingsBatch() {
+    batchingSettings = false;
+    if (batchedSuccessCallbacks.isEmpty()) {
+      return;
+    }
+
+    final List<Runnable> successCallbacks = new ArrayList<>(batchedSuccessCallbacks);
+    final List<ErrorCallback> errorCallbacks = new ArrayList<>(batchedErrorCallbacks);
+    batchedSuccessCallbacks.clear();
+    batchedErrorCallbacks.clear();
+    refreshPreviewCaptureSession(
+        () -> {
+          for (Runnable callback : successCallbacks) {
+            callback.run();
+          }
+        },
+        (code, message) -> {
+          for (ErrorCallback callback : errorCallbacks) {
+            callback.onError(code, message);
+          }
+        });
+  }
+
   public void takePicture(@NonNull final Result result) {
+    takePicture(result, false, false);
+  }
+
+  /**
+   * Takes a picture and returns the path of the saved JPEG, or its bytes when {@code inMemory} is
+   * set.
+   *
+   * @param result the result that receives the path or the bytes of the picture.
+   * @param sync whether the file is forced to the storage device before the result is sent.
+   * @param inMemory whether the picture is returned as bytes without being written to disk.
+   */
+  public void takePicture(@NonNull final Result result, boolean sync, boolean inMemory) {
+    takePicture(result, sync, inMemory, PictureOptions.DEFAULT);
+  }
+
+  /**
+   * Takes a picture in the supplied format, quality and size, and returns the path of the saved
+   * file, or its bytes when {@code inMemory} is set.
+   *
+   * <p>The camera encodes the picture as a JPEG of the full capture size. Pictures in another
+   * format or larger than the maximum dimension are re-encoded by a {@link PictureTranscoder} on
+   * the bounded pool of image saver threads.
+   *
+   * @param result the result that receives the path or the bytes of the picture.
+   * @param sync whether the file is forced to the storage device before the result is sent.
+   * @param inMemory whether the picture is returned as bytes without being written to disk.
+   * @param options the format, quality and size of the picture.
+   */
+  public synchronized void takePicture(
+      @NonNull final Result result,
+      boolean sync,
+      boolean inMemory,
+      @NonNull PictureOptions options) {
     // Only take one picture at a time.
     if (cameraCaptureCallback.getCameraState() != CameraState.STATE_PREVIEW) {
       result.error("captureAlreadyActive", "Picture is currently already being captured", null);
       return;
     }
 
-    flutterResult = result;
+    int rotationDegrees = getPhotoOrientation();
 
     // Create temporary file.
     final File outputDir = applicationContext.getCacheDir();
+    final File file;
     try {
-      captureFile = File.createTempFile("CAP", ".jpg", outputDir);
-      captureTimeouts.reset();
+      file =
+          inMemory
+              ? null
+              : File.createTempFile("CAP", options.getFormat().getFileExtension(), outputDir);
     } catch (IOException | SecurityException e) {
-      dartMessenger.error(flutterResult, "cannotCreateFile", e.getMessage(), null);
+      dartMessenger.error(result, "cannotCreateFile", e.getMessage(), null);
+      return;
+    }
+
+    if (takeZeroShutterLagPicture(result, sync, options, rotationDegrees, file)) {
       return;
     }
 
+    flutterResult = result;
+    pictureSync = sync;
+    pictureOptions = options;
+    Size captureSize = cameraFeatures.getResolution().getCaptureSize();
+    pictureTranscoding = options.needsTranscoding(captureSize.getWidth(), captureSize.getHeight());
+    pictureRotationDegrees = rotationDegrees;
+    captureFile = file;
+    captureTimeouts.reset();
+
     // Listen for picture being taken.
     pictureImageReader.setOnImageAvailableListener(this, backgroundHandler);
 
@@ -497,6 +958,46 @@ class Camera
     }
   }
 
+  /**
+   * Saves the kept frame captured closest to the shutter as the picture.
+   *
+   * <p>The picture is saved without running the autofocus and precapture sequences, so the camera
+   * state and the fields of the picture being captured are left untouched and the preview keeps
+   * running while it is saved.
+   *
+   * @return false when no kept frame can be used, in which case the picture has to be captured.
+   */
+  private boolean takeZeroShutterLagPicture(
+      @NonNull Result result,
+      boolean sync,
+      @NonNull PictureOptions options,
+      int rotationDegrees,
+      @Nullable File file) {
+    // The kept frames were captured without flash, so the flash needs the precapture sequence.
+    if (zeroShutterLagBuffer == null
+        || isFlashEnabled()
+        || options.getFormat() != PictureOptions.Format.jpeg) {
+      return false;
+    }
+    Image frame =
+        zeroShutterLagBuffer.takeClosest(
+            getSensorTimestampNanos(), ZERO_SHUTTER_LAG_MAX_DISTANCE_NANOS);
+    if (frame == null) {
+      return false;
+    }
+    Log.i(TAG, "Taking a zero-shutter-lag picture");
+    getImageSaverExecutor()
+        .execute(
+            new YuvImageSaver(
+                frame,
+                options,
+                rotationDegrees,
+                file,
+                sync,
+                createPictureSaverCallback(result, System.nanoTime())));
+    return true;
+  }
+
   /**
    * Run the precapture sequence for capturing a still image. This method should be called when a
    * response is received in {@link #cameraCaptureCallback} from lockFocus().
@@ -546,30 +1047,11 @@ class Camera
     // This is the CaptureRequest.Builder that is used to take a picture.
     CaptureRequest.Builder stillBuilder;
     try {
-      stillBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
+      stillBuilder = createStillCaptureRequestBuilder(pictureOptions, pictureTranscoding);
     } catch (CameraAccessException e) {
       dartMessenger.error(flutterResult, "cameraAccess", e.getMessage(), null);
       return;
     }
-    stillBuilder.addTarget(pictureImageReader.getSurface());
-
-    // Zoom.
-    stillBuilder.set(
-        CaptureRequest.SCALER_CROP_REGION,
-        previewRequestBuilder.get(CaptureRequest.SCALER_CROP_REGION));
-
-    // Have all features update the builder.
-    updateBuilderSettings(stillBuilder);
-
-    // Orientation.
-    final PlatformChannel.DeviceOrientation lockedOrientation =
-        ((SensorOrientationFeature) cameraFeatures.getSensorOrientation())
-            .getLockedCaptureOrientation();
-    stillBuilder.set(
-        CaptureRequest.JPEG_ORIENTATION,
-        lockedOrientation == null
-            ? getDeviceOrientationManager().getPhotoOrientation()
-            : getDeviceOrientationManager().getPhotoOrientation(lockedOrientation));
 
     CameraCaptureSession.CaptureCallback captureCallback =
         new CameraCaptureSession.CaptureCallback() {
@@ -578,7 +1060,9 @@ class Camera
               @NonNull CameraCaptureSession session,
               @NonNull CaptureRequest request,
               @NonNull TotalCaptureResult result) {
-            unlockAutoFocus();
+            synchronized (Camera.this) {
+              unlockAutoFocus();
+            }
           }
         };
 
@@ -592,78 +1076,395 @@ class Camera
     }
   }
 
-  @SuppressWarnings("deprecation")
-  private Display getDefaultDisplay() {
-    return activity.getWindowManager().getDefaultDisplay();
-  }
+  /**
+   * Creates a still capture request targeting the {@link #pictureImageReader}, with the zoom,
+   * orientation and all camera features of the preview applied.
+   *
+   * @param options the quality of the JPEG encoded by the camera.
+   * @param transcoding whether the picture is re-encoded once it has been captured, in which case
+   *     it is captured unrotated and with the default quality.
+   */
+  private CaptureRequest.Builder createStillCaptureRequestBuilder(
+      @NonNull PictureOptions options, boolean transcoding) throws CameraAccessException {
+    CaptureRequest.Builder stillBuilder =
+        cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
+    stillBuilder.addTarget(pictureImageReader.getSurface());
 
-  /** Starts a background thread and its {@link Handler}. */
-  public void startBackgroundThread() {
-    if (backgroundHandlerThread != null) {
-      return;
+    // Zoom.
+    stillBuilder.set(
+        CaptureRequest.SCALER_CROP_REGION,
+        previewRequestBuilder.get(CaptureRequest.SCALER_CROP_REGION));
+
+    // Have all features update the builder.
+    updateBuilderSettings(stillBuilder);
+
+    // Orientation, re-encoded pictures are rotated while they are scaled.
+    stillBuilder.set(CaptureRequest.JPEG_ORIENTATION, transcoding ? 0 : getPhotoOrientation());
+
+    if (!transcoding && options.hasQuality()) {
+      stillBuilder.set(CaptureRequest.JPEG_QUALITY, (byte) options.getQuality());
     }
 
-    backgroundHandlerThread = HandlerThreadFactory.create("CameraBackground");
-    try {
-      backgroundHandlerThread.start();
-    } catch (IllegalThreadStateException e) {
-      // Ignore exception in case the thread has already started.
+    if (zeroShutterLag && VERSION.SDK_INT >= VERSION_CODES.O) {
+      // Lets the camera use its own zero-shutter-lag processing where it has any.
+      stillBuilder.set(CaptureRequest.CONTROL_ENABLE_ZSL, true);
     }
-    backgroundHandler = HandlerFactory.create(backgroundHandlerThread.getLooper());
+    return stillBuilder;
   }
 
-  /** Stops the background thread and its {@link Handler}. */
-  public void stopBackgroundThread() {
-    if (backgroundHandlerThread != null) {
-      backgroundHandlerThread.quitSafely();
-      try {
-        backgroundHandlerThread.join();
-      } catch (InterruptedException e) {
-        dartMessenger.error(flutterResult, "cameraAccess", e.getMessage(), null);
-      }
+  /**
+   * Enables or disables zero-shutter-lag pictures.
+   *
+   * <p>On FULL and LEVEL_3 cameras on API 29 and above, the plain preview then also streams full
+   * resolution frames, of which the {@link #ZERO_SHUTTER_LAG_FRAMES} most recent ones are kept.
+   * Since cameras don't guarantee a full resolution YUV stream next to the preview and the full
+   * resolution JPEG stream, frames are only kept when the camera reports the session as supported.
+   * {@link #takePicture(Result, boolean, boolean)} saves the kept frame captured closest to the
+   * moment it is called, without running the autofocus and precapture sequences. Pictures taken
+   * with the flash enabled, while recording or while streaming images are still taken the regular
+   * way.
+   *
+   * <p>On API 26 and above, pictures taken the regular way also ask the camera to use its own
+   * zero-shutter-lag processing.
+   *
+   * @param enabled whether zero-shutter-lag pictures are enabled.
+   * @return whether this camera keeps recent frames for zero-shutter-lag pictures.
+   * @throws CameraAccessException when the preview could not be restarted.
+   */
+  public synchronized boolean setZeroShutterLagEnabled(boolean enabled)
+      throws CameraAccessException {
+    if (enabled == zeroShutterLag) {
+      return enabled && supportsZeroShutterLagBuffer();
     }
-    backgroundHandlerThread = null;
-    backgroundHandler = null;
+    zeroShutterLag = enabled;
+    if (cameraDevice == null) {
+      // The frames are set up once the camera is opened.
+      return enabled && supportsZeroShutterLagBuffer();
+    }
+
+    if (enabled) {
+      createZeroShutterLagReader();
+    }
+    // Only the plain preview session streams to the reader.
+    if (!recordingVideo && !streamingImages) {
+      startPreview();
+    }
+    if (!enabled) {
+      releaseZeroShutterLagReader();
+    }
+    return zeroShutterLagReader != null;
   }
 
-  /** Start capturing a picture, doing autofocus first. */
-  private void runPictureAutoFocus() {
-    Log.i(TAG, "runPictureAutoFocus");
+  private boolean supportsZeroShutterLagBuffer() {
+    if (VERSION.SDK_INT < VERSION_CODES.Q) {
+      // The session with the full resolution frames can't be checked before it is created.
+      return false;
+    }
+    int hardwareLevel = cameraProperties.getHardwareLevel();
+    return hardwareLevel == CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_FULL
+        || hardwareLevel == CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_3;
+  }
 
-    cameraCaptureCallback.setCameraState(CameraState.STATE_WAITING_FOCUS);
-    lockAutoFocus();
+  private void createZeroShutterLagReader() {
+    if (zeroShutterLagReader != null || !supportsZeroShutterLagBuffer()) {
+      return;
+    }
+    Size captureSize = cameraFeatures.getResolution().getCaptureSize();
+    zeroShutterLagBuffer = new ZeroShutterLagBuffer(ZERO_SHUTTER_LAG_FRAMES);
+    zeroShutterLagReader =
+        ImageReader.newInstance(
+            captureSize.getWidth(),
+            captureSize.getHeight(),
+            ImageFormat.YUV_420_888,
+            zeroShutterLagBuffer.getMaxImages());
+    zeroShutterLagReader.setOnImageAvailableListener(zeroShutterLagBuffer, backgroundHandler);
   }
 
-  private void lockAutoFocus() {
-    Log.i(TAG, "lockAutoFocus");
-    if (captureSession == null) {
-      Log.i(TAG, "[unlockAutoFocus] captureSession null, returning");
+  private void releaseZeroShutterLagReader() {
+    if (zeroShutterLagReader == null) {
       return;
     }
+    zeroShutterLagBuffer.close();
+    zeroShutterLagBuffer = null;
+    zeroShutterLagReader.close();
+    zeroShutterLagReader = null;
+  }
 
-    // Trigger AF to start.
-    previewRequestBuilder.set(
-        CaptureRequest.CONTROL_AF_TRIGGER, CaptureRequest.CONTROL_AF_TRIGGER_START);
+  private boolean isFlashEnabled() {
+    FlashMode flashMode = cameraFeatures.getFlash().getValue();
+    return flashMode == FlashMode.auto || flashMode == FlashMode.always;
+  }
 
-    try {
-      captureSession.capture(previewRequestBuilder.build(), null, backgroundHandler);
-    } catch (CameraAccessException e) {
-      dartMessenger.sendCameraErrorEvent(e.getMessage());
-    }
+  /** Gets the current time in the time base of the sensor timestamps. */
+  private long getSensorTimestampNanos() {
+    return cameraProperties.getSensorInfoTimestampSource()
+            == CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME
+        ? SystemClock.elapsedRealtimeNanos()
+        : System.nanoTime();
   }
 
-  /** Cancel and reset auto focus state and refresh the preview session. */
-  private void unlockAutoFocus() {
-    Log.i(TAG, "unlockAutoFocus");
-    if (captureSession == null) {
-      Log.i(TAG, "[unlockAutoFocus] captureSession null, returning");
+  /**
+   * Takes a burst of pictures without interrupting the preview, and returns the paths of the saved
+   * pictures in capture order.
+   *
+   * <p>Unlike {@link #takePicture(Result)} no autofocus or precapture sequence is run, so the
+   * pictures are taken as fast as the camera allows. The pictures are saved in parallel by a pool
+   * of {@link ImageSaver}s. At most one picture less than the {@link #pictureImageReader} holds is
+   * saved at once, the next pictures are left in the reader until a save finishes, which slows the
+   * camera down to the pace of the saves.
+   *
+   * @param result the result that receives the list of paths.
+   * @param count the number of pictures to take.
+   * @param intervalMs the delay between two pictures in milliseconds, 0 to capture them back to
+   *     back using {@link CameraCaptureSession#captureBurst}.
+   * @param sync whether each file is forced to the storage device before the result is sent.
+   * @param inMemory whether the pictures are returned as bytes without being written to disk.
+   */
+  public synchronized void takePictureBurst(
+      @NonNull final Result result, int count, int intervalMs, boolean sync, boolean inMemory) {
+    if (cameraCaptureCallback.getCameraState() != CameraState.STATE_PREVIEW) {
+      result.error("captureAlreadyActive", "Picture is currently already being captured", null);
+      return;
+    }
+    if (count < 1 || intervalMs < 0) {
+      result.error(
+          "takePictureBurstFailed",
+          "The count must be at least 1 and the interval must not be negative.",
+          null);
+      return;
+    }
+    if (cameraDevice == null) {
+      result.error("takePictureBurstFailed", "The camera is not open.", null);
+      return;
+    }
+
+    final ImageReader reader = pictureImageReader;
+    final PictureBurst[] burstHolder = new PictureBurst[1];
+    final PictureBurst burst =
+        new PictureBurst(
+            count,
+            MAX_PICTURE_IMAGES - 1,
+            new PictureBurst.Callback() {
+              @Override
+              public void onComplete(List<Object> pictures) {
+                dartMessenger.finish(result, pictures);
+              }
+
+              @Override
+              public void onSaveFinished() {
+                // Takes the pictures left in the reader while all saves were busy.
+                Handler handler = backgroundHandler;
+                if (handler != null) {
+                  handler.post(() -> onBurstImageAvailable(reader, burstHolder[0], sync, inMemory));
+                }
+              }
+
+              @Override
+              public void onError(String errorCode, String errorMessage) {
+                cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
+                dartMessenger.error(result, errorCode, errorMessage, null);
+              }
+            });
+
+    final CaptureRequest request;
+    try {
+      request = createStillCaptureRequestBuilder(PictureOptions.DEFAULT, false).build();
+    } catch (CameraAccessException e) {
+      result.error("cameraAccess", e.getMessage(), null);
+      return;
+    }
+
+    burstHolder[0] = burst;
+    cameraCaptureCallback.setCameraState(CameraState.STATE_CAPTURING);
+    reader.setOnImageAvailableListener(
+        imageReader -> onBurstImageAvailable(imageReader, burst, sync, inMemory),
+        backgroundHandler);
+
+    final CameraCaptureSession.CaptureCallback captureCallback =
+        new CameraCaptureSession.CaptureCallback() {
+          @Override
+          public void onCaptureFailed(
+              @NonNull CameraCaptureSession session,
+              @NonNull CaptureRequest request,
+              @NonNull CaptureFailure failure) {
+            burst.onError(
+                "captureFailed", "Burst capture failed with reason " + failure.getReason());
+          }
+        };
+
+    Log.i(TAG, "takePictureBurst");
+    try {
+      if (intervalMs == 0) {
+        captureSession.captureBurst(
+            Collections.nCopies(count, request), captureCallback, backgroundHandler);
+        return;
+      }
+
+      // The preview keeps running in between the pictures.
+      captureSession.capture(request, captureCallback, backgroundHandler);
+      for (int i = 1; i < count; i++) {
+        backgroundHandler.postDelayed(
+            () -> {
+              synchronized (Camera.this) {
+                if (burst.isCaptureDone() || captureSession == null) return;
+                try {
+                  captureSession.capture(request, captureCallback, backgroundHandler);
+                } catch (CameraAccessException | IllegalStateException e) {
+                  burst.onError("cameraAccess", e.getMessage());
+                }
+              }
+            },
+            (long) i * intervalMs);
+      }
+    } catch (CameraAccessException | IllegalStateException e) {
+      burst.onError("cameraAccess", e.getMessage());
+    }
+  }
+
+  private void onBurstImageAvailable(
+      ImageReader reader, PictureBurst burst, boolean sync, boolean inMemory) {
+    // Images are only taken from the reader while a save can start, so that the saves never hold
+    // all the images of the reader.
+    while (burst.tryStartSave()) {
+      Image image;
+      try {
+        image = reader.acquireNextImage();
+      } catch (IllegalStateException e) {
+        burst.cancelSave();
+        burst.onError("cameraAccess", e.getMessage());
+        return;
+      }
+      if (image == null) {
+        burst.cancelSave();
+        return;
+      }
+      saveBurstImage(image, burst, sync, inMemory);
+    }
+  }
+
+  private void saveBurstImage(Image image, PictureBurst burst, boolean sync, boolean inMemory) {
+    int index = burst.onPictureReceived();
+    if (index < 0) {
+      image.close();
+      burst.cancelSave();
+      return;
+    }
+    if (burst.isCaptureDone()) {
+      // All pictures are taken, the remaining ones only need to be saved.
+      cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
+    }
+
+    File file = null;
+    if (!inMemory) {
+      try {
+        file = File.createTempFile("CAP", ".jpg", applicationContext.getCacheDir());
+      } catch (IOException | SecurityException e) {
+        image.close();
+        burst.cancelSave();
+        burst.onError("cannotCreateFile", e.getMessage());
+        return;
+      }
+    }
+    getImageSaverExecutor()
+        .execute(new ImageSaver(image, file, sync, burst.createSaverCallback(index)));
+  }
+
+  private ExecutorService getImageSaverExecutor() {
+    if (imageSaverExecutor == null) {
+      imageSaverExecutor = Executors.newFixedThreadPool(IMAGE_SAVER_THREADS);
+    }
+    return imageSaverExecutor;
+  }
+
+  /** Lets the pictures that are being saved, or waiting to be saved, complete. */
+  private void shutdownImageSaverExecutor() {
+    if (imageSaverExecutor == null) {
+      return;
+    }
+    imageSaverExecutor.shutdown();
+    try {
+      if (!imageSaverExecutor.awaitTermination(
+          IMAGE_SAVER_SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        Log.w(TAG, "Pictures are still being saved while the camera is closed");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    imageSaverExecutor = null;
+  }
+
+  @SuppressWarnings("deprecation")
+  private Display getDefaultDisplay() {
+    return activity.getWindowManager().getDefaultDisplay();
+  }
+
+  /** Starts a background thread and its {@link Handler}. */
+  public void startBackgroundThread() {
+    if (backgroundHandlerThread != null) {
+      return;
+    }
+
+    backgroundHandlerThread = HandlerThreadFactory.create("CameraBackground");
+    try {
+      backgroundHandlerThread.start();
+    } catch (IllegalThreadStateException e) {
+      // Ignore exception in case the thread has already started.
+    }
+    backgroundHandler = HandlerFactory.create(backgroundHandlerThread.getLooper());
+  }
+
+  /** Stops the background thread and its {@link Handler}. */
+  public void stopBackgroundThread() {
+    if (backgroundHandlerThread != null) {
+      backgroundHandlerThread.quitSafely();
+      try {
+        backgroundHandlerThread.join();
+      } catch (InterruptedException e) {
+        dartMessenger.error(flutterResult, "cameraAccess", e.getMessage(), null);
+      }
+    }
+    backgroundHandlerThread = null;
+    backgroundHandler = null;
+  }
+
+  /** Start capturing a picture, doing autofocus first. */
+  private void runPictureAutoFocus() {
+    Log.i(TAG, "runPictureAutoFocus");
+
+    cameraCaptureCallback.setCameraState(CameraState.STATE_WAITING_FOCUS);
+    lockAutoFocus();
+  }
+
+  private void lockAutoFocus() {
+    Log.i(TAG, "lockAutoFocus");
+    if (captureSession == null) {
+      Log.i(TAG, "[unlockAutoFocus] captureSession null, returning");
       return;
     }
-    try {
-      // Cancel existing AF state.
-      previewRequestBuilder.set(
-          CaptureRequest.CONTROL_AF_TRIGGER, CameraMetadata.CONTROL_AF_TRIGGER_CANCEL);
-      captureSession.capture(previewRequestBuilder.build(), null, backgroundHandler);
+
+    // Trigger AF to start.
+    previewRequestBuilder.set(
+        CaptureRequest.CONTROL_AF_TRIGGER, CaptureRequest.CONTROL_AF_TRIGGER_START);
+
+    try {
+      captureSession.capture(previewRequestBuilder.build(), null, backgroundHandler);
+    } catch (CameraAccessException e) {
+      dartMessenger.sendCameraErrorEvent(e.getMessage());
+    }
+  }
+
+  /** Cancel and reset auto focus state and refresh the preview session. */
+  private void unlockAutoFocus() {
+    Log.i(TAG, "unlockAutoFocus");
+    if (captureSession == null) {
+      Log.i(TAG, "[unlockAutoFocus] captureSession null, returning");
+      return;
+    }
+    try {
+      // Cancel existing AF state.
+      previewRequestBuilder.set(
+          CaptureRequest.CONTROL_AF_TRIGGER, CameraMetadata.CONTROL_AF_TRIGGER_CANCEL);
+      captureSession.capture(previewRequestBuilder.build(), null, backgroundHandler);
 
       // Set AF state to idle again.
       previewRequestBuilder.set(
@@ -682,6 +1483,22 @@ class Camera
   }
 
   public void startVideoRecording(@NonNull Result result) {
+    startVideoRecording(result, null);
+  }
+
+  /**
+   * Starts recording a video.
+   *
+   * <p>When encoder settings are supplied, the video is encoded by a {@link MediaCodecRecorder}
+   * instead of a {@link MediaRecorder}. Its capture session also has the image stream as an output,
+   * so the image stream can be started and stopped while recording without configuring a new
+   * session.
+   *
+   * @param result Flutter result.
+   * @param encoderSettings the settings of the MediaCodec encoder, or null to use a MediaRecorder.
+   */
+  public synchronized void startVideoRecording(
+      @NonNull Result result, @Nullable VideoEncoderSettings encoderSettings) {
     final File outputDir = applicationContext.getCacheDir();
     try {
       captureFile = File.createTempFile("REC", ".mp4", outputDir);
@@ -690,8 +1507,12 @@ class Camera
       return;
     }
     try {
-      prepareMediaRecorder(captureFile.getAbsolutePath());
-    } catch (IOException e) {
+      if (encoderSettings != null) {
+        prepareCodecRecorder(captureFile.getAbsolutePath(), encoderSettings);
+      } else {
+        prepareMediaRecorder(captureFile.getAbsolutePath());
+      }
+    } catch (IOException | IllegalArgumentException e) {
       recordingVideo = false;
       captureFile = null;
       result.error("videoRecordingFailed", e.getMessage(), null);
@@ -702,8 +1523,18 @@ class Camera
         cameraFeatureFactory.createAutoFocusFeature(cameraProperties, true));
     recordingVideo = true;
     try {
-      createCaptureSession(
-          CameraDevice.TEMPLATE_RECORD, () -> mediaRecorder.start(), mediaRecorder.getSurface());
+      if (codecRecorder != null) {
+        final MediaCodecRecorder recorder = codecRecorder;
+        List<Surface> targetSurfaces = new ArrayList<>();
+        targetSurfaces.add(recorder.getSurface());
+        List<Surface> idleSurfaces = new ArrayList<>();
+        (streamingImages ? targetSurfaces : idleSurfaces).add(imageStreamReader.getSurface());
+        createCaptureSession(
+            CameraDevice.TEMPLATE_RECORD, recorder::start, targetSurfaces, idleSurfaces);
+      } else {
+        createCaptureSession(
+            CameraDevice.TEMPLATE_RECORD, () -> mediaRecorder.start(), mediaRecorder.getSurface());
+      }
       result.success(null);
     } catch (CameraAccessException e) {
       recordingVideo = false;
@@ -712,7 +1543,7 @@ class Camera
     }
   }
 
-  public void stopVideoRecording(@NonNull final Result result) {
+  public synchronized void stopVideoRecording(@NonNull final Result result) {
     if (!recordingVideo) {
       result.success(null);
       return;
@@ -723,17 +1554,45 @@ class Camera
     recordingVideo = false;
     try {
       captureSession.abortCaptures();
-      mediaRecorder.stop();
     } catch (CameraAccessException | IllegalStateException e) {
       // Ignore exceptions and try to continue (changes are camera session already aborted capture).
     }
-    mediaRecorder.reset();
+    // The recorder is always stopped and released, its failure means the file is not valid.
+    String recordingError = null;
+    if (codecRecorder != null) {
+      try {
+        codecRecorder.stop();
+      } catch (IllegalStateException e) {
+        recordingError = e.getMessage();
+      } finally {
+        codecRecorder.release();
+        codecRecorder = null;
+      }
+    } else {
+      try {
+        mediaRecorder.stop();
+      } catch (RuntimeException e) {
+        recordingError = e.getMessage();
+      } finally {
+        mediaRecorder.reset();
+      }
+    }
     try {
-      startPreview();
+      if (streamingImages) {
+        createCaptureSession(CameraDevice.TEMPLATE_RECORD, imageStreamReader.getSurface());
+      } else {
+        startPreview();
+      }
     } catch (CameraAccessException | IllegalStateException e) {
       result.error("videoRecordingFailed", e.getMessage(), null);
       return;
     }
+    if (recordingError != null) {
+      captureFile.delete();
+      captureFile = null;
+      result.error("videoRecordingFailed", recordingError, null);
+      return;
+    }
     result.success(captureFile.getAbsolutePath());
     captureFile = null;
   }
@@ -745,7 +1604,9 @@ class Camera
     }
 
     try {
-      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+      if (codecRecorder != null) {
+        codecRecorder.pause();
+      } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
         mediaRecorder.pause();
       } else {
         result.error("videoRecordingFailed", "pauseVideoRecording requires Android API +24.", null);
@@ -766,7 +1627,9 @@ class Camera
     }
 
     try {
-      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+      if (codecRecorder != null) {
+        codecRecorder.resume();
+      } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
         mediaRecorder.resume();
       } else {
         result.error(
@@ -781,6 +1644,30 @@ class Camera
     result.success(null);
   }
 
+  /**
+   * Runs a command changing a camera setting on the camera background thread, after all commands
+   * enqueued before it. A waiting command with the same key is superseded by the new command.
+   * Commands enqueued within about one frame are run as a batch whose changes are sent to the
+   * camera with a single repeating request.
+   *
+   * @param key the key of the setting changed by the command, or null if the command must never be
+   *     superseded.
+   * @param result the result receiving the outcome of the command on the main thread.
+   * @param command the command to run.
+   */
+  void runCommand(
+      @Nullable String key, @NonNull Result result, @NonNull CameraCommandQueue.Command command) {
+    commandQueue.enqueue(
+        backgroundHandler,
+        key,
+        result,
+        r -> {
+          synchronized (this) {
+            command.run(r);
+          }
+        });
+  }
+
   /**
    * Method handler for setting new flash modes.
    *
@@ -791,9 +1678,9 @@ class Camera
     // Save the new flash mode setting.
     final FlashFeature flashFeature = cameraFeatures.getFlash();
     flashFeature.setValue(newMode);
-    flashFeature.updateBuilder(previewRequestBuilder);
+    cameraFeatures.markDirty(flashFeature);
 
-    refreshPreviewCaptureSession(
+    requestPreviewRefresh(
         () -> result.success(null),
         (code, message) -> result.error("setFlashModeFailed", "Could not set flash mode.", null));
   }
@@ -807,9 +1694,9 @@ class Camera
   public void setExposureMode(@NonNull final Result result, @NonNull ExposureMode newMode) {
     final ExposureLockFeature exposureLockFeature = cameraFeatures.getExposureLock();
     exposureLockFeature.setValue(newMode);
-    exposureLockFeature.updateBuilder(previewRequestBuilder);
+    cameraFeatures.markDirty(exposureLockFeature);
 
-    refreshPreviewCaptureSession(
+    requestPreviewRefresh(
         () -> result.success(null),
         (code, message) ->
             result.error("setExposureModeFailed", "Could not set exposure mode.", null));
@@ -824,9 +1711,9 @@ class Camera
   public void setExposurePoint(@NonNull final Result result, @Nullable Point point) {
     final ExposurePointFeature exposurePointFeature = cameraFeatures.getExposurePoint();
     exposurePointFeature.setValue(point);
-    exposurePointFeature.updateBuilder(previewRequestBuilder);
+    cameraFeatures.markDirty(exposurePointFeature);
 
-    refreshPreviewCaptureSession(
+    requestPreviewRefresh(
         () -> result.success(null),
         (code, message) ->
             result.error("setExposurePointFailed", "Could not set exposure point.", null));
@@ -856,7 +1743,9 @@ class Camera
   public void setFocusMode(final Result result, @NonNull FocusMode newMode) {
     final AutoFocusFeature autoFocusFeature = cameraFeatures.getAutoFocus();
     autoFocusFeature.setValue(newMode);
-    autoFocusFeature.updateBuilder(previewRequestBuilder);
+    cameraFeatures.markDirty(autoFocusFeature);
+    // The focus trigger below is sent right away, so it has to carry all pending changes.
+    cameraFeatures.updateDirtyFeatures(previewRequestBuilder);
 
     /*
      * For focus mode an extra step of actually locking/unlocking the
@@ -908,9 +1797,9 @@ class Camera
   public void setFocusPoint(@NonNull final Result result, @Nullable Point point) {
     final FocusPointFeature focusPointFeature = cameraFeatures.getFocusPoint();
     focusPointFeature.setValue(point);
-    focusPointFeature.updateBuilder(previewRequestBuilder);
+    cameraFeatures.markDirty(focusPointFeature);
 
-    refreshPreviewCaptureSession(
+    requestPreviewRefresh(
         () -> result.success(null),
         (code, message) -> result.error("setFocusPointFailed", "Could not set focus point.", null));
 
@@ -927,9 +1816,9 @@ class Camera
   public void setExposureOffset(@NonNull final Result result, double offset) {
     final ExposureOffsetFeature exposureOffsetFeature = cameraFeatures.getExposureOffset();
     exposureOffsetFeature.setValue(offset);
-    exposureOffsetFeature.updateBuilder(previewRequestBuilder);
+    cameraFeatures.markDirty(exposureOffsetFeature);
 
-    refreshPreviewCaptureSession(
+    requestPreviewRefresh(
         () -> result.success(exposureOffsetFeature.getValue()),
         (code, message) ->
             result.error("setExposureOffsetFailed", "Could not set exposure offset.", null));
@@ -980,133 +1869,593 @@ class Camera
     }
 
     zoomLevel.setValue(zoom);
-    zoomLevel.updateBuilder(previewRequestBuilder);
+    cameraFeatures.markDirty(zoomLevel);
 
-    refreshPreviewCaptureSession(
+    requestPreviewRefresh(
         () -> result.success(null),
         (code, message) -> result.error("setZoomLevelFailed", "Could not set zoom level.", null));
   }
 
+  /**
+   * Applies several settings at once from dart. All settings are validated before any of them is
+   * changed, and all changes are sent to the camera with a single repeating request, so the preview
+   * never shows a frame with only some of the settings applied.
+   *
+   * @param result Flutter result.
+   * @param settings the settings to change, null settings are left unchanged.
+   */
+  void setCameraSettings(@NonNull final Result result, @NonNull CameraSettings settings) {
+    final ZoomLevelFeature zoomLevel = cameraFeatures.getZoomLevel();
+    if (settings.zoomLevel != null
+        && (settings.zoomLevel > zoomLevel.getMaximumZoomLevel()
+            || settings.zoomLevel < zoomLevel.getMinimumZoomLevel())) {
+      String errorMessage =
+          String.format(
+              Locale.ENGLISH,
+              "Zoom level out of bounds (zoom level should be between %f and %f).",
+              zoomLevel.getMinimumZoomLevel(),
+              zoomLevel.getMaximumZoomLevel());
+      result.error("ZOOM_ERROR", errorMessage, null);
+      return;
+    }
+
+    if (settings.flashMode != null) {
+      cameraFeatures.getFlash().setValue(settings.flashMode);
+      cameraFeatures.markDirty(cameraFeatures.getFlash());
+    }
+    if (settings.exposureMode != null) {
+      cameraFeatures.getExposureLock().setValue(settings.exposureMode);
+      cameraFeatures.markDirty(cameraFeatures.getExposureLock());
+    }
+    if (settings.exposurePoint != null) {
+      cameraFeatures.getExposurePoint().setValue(settings.exposurePoint);
+      cameraFeatures.markDirty(cameraFeatures.getExposurePoint());
+    }
+    if (settings.exposureOffset != null) {
+      cameraFeatures.getExposureOffset().setValue(settings.exposureOffset);
+      cameraFeatures.markDirty(cameraFeatures.getExposureOffset());
+    }
+    if (settings.focusPoint != null) {
+      cameraFeatures.getFocusPoint().setValue(settings.focusPoint);
+      cameraFeatures.markDirty(cameraFeatures.getFocusPoint());
+    }
+    if (settings.zoomLevel != null) {
+      zoomLevel.setValue(settings.zoomLevel);
+      cameraFeatures.markDirty(zoomLevel);
+    }
+
+    requestPreviewRefresh(
+        () -> result.success(null),
+        (code, message) ->
+            result.error("setCameraSettingsFailed", "Could not set camera settings.", null));
+
+    // Like setFocusPoint, a changed focus needs a focus trigger to take effect.
+    if (settings.focusMode != null || settings.focusPoint != null) {
+      setFocusMode(
+          null,
+          settings.focusMode != null
+              ? settings.focusMode
+              : cameraFeatures.getAutoFocus().getValue());
+    }
+  }
+
   /**
    * Lock capture orientation from dart.
    *
    * @param orientation new orientation.
    */
-  public void lockCaptureOrientation(PlatformChannel.DeviceOrientation orientation) {
+  public synchronized void lockCaptureOrientation(PlatformChannel.DeviceOrientation orientation) {
     cameraFeatures.getSensorOrientation().lockCaptureOrientation(orientation);
   }
 
   /** Unlock capture orientation from dart. */
-  public void unlockCaptureOrientation() {
+  public synchronized void unlockCaptureOrientation() {
     cameraFeatures.getSensorOrientation().unlockCaptureOrientation();
   }
 
+  /**
+   * Sets where the device orientation reported to dart is read from.
+   *
+   * @param mode the new orientation tracking mode.
+   */
+  public void setOrientationTrackingMode(@NonNull OrientationTrackingMode mode) {
+    getDeviceOrientationManager().setTrackingMode(mode);
+  }
+
   /** Pause the preview from dart. */
-  public void pausePreview() throws CameraAccessException {
+  public synchronized void pausePreview() throws CameraAccessException {
     this.pausedPreview = true;
     this.captureSession.stopRepeating();
   }
 
   /** Resume the preview from dart. */
-  public void resumePreview() {
+  public synchronized void resumePreview() {
     this.pausedPreview = false;
     this.refreshPreviewCaptureSession(
         null, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
   }
 
-  public void startPreview() throws CameraAccessException {
+  public synchronized void startPreview() throws CameraAccessException {
     if (pictureImageReader == null || pictureImageReader.getSurface() == null) return;
     Log.i(TAG, "startPreview");
 
     createCaptureSession(CameraDevice.TEMPLATE_PREVIEW, pictureImageReader.getSurface());
   }
 
-  public void startPreviewWithImageStream(EventChannel imageStreamChannel)
-      throws CameraAccessException {
+  /**
+   * Starts streaming frames to Dart again after the camera has been restored, to the sender Dart
+   * was listening with when the camera was released.
+   */
+  private synchronized void restartImageStream() throws CameraAccessException {
     createCaptureSession(CameraDevice.TEMPLATE_RECORD, imageStreamReader.getSurface());
+    streamingImages = true;
+    Log.i(TAG, "restartImageStream");
+    if (imageStreamSender != null) {
+      setImageStreamImageAvailableListener(imageStreamSender, imageStreamProcessor);
+    }
+  }
+
+  /**
+   * Starts the preview and streams its frames to Dart.
+   *
+   * @param imageStreamChannel the channel used to signal when Dart starts and stops listening.
+   * @param policy the throttling and backpressure policy applied to the streamed frames.
+   * @param processor when set, frames are cropped, scaled, rotated and converted by it before they
+   *     are sent.
+   * @param binarySender when set, frames are delivered as binary messages through this sender
+   *     instead of being sent as maps on the {@code imageStreamChannel}.
+   * @throws CameraAccessException when the capture session could not be created.
+   */
+  public synchronized void startPreviewWithImageStream(
+      EventChannel imageStreamChannel,
+      @NonNull ImageStreamPolicy policy,
+      @Nullable ImageStreamProcessor processor,
+      @Nullable BinaryImageStreamSender binarySender)
+      throws CameraAccessException {
+    if (codecRecorder != null && recordingVideo) {
+      // The recording session already has the image stream as an output.
+      previewRequestBuilder.addTarget(imageStreamReader.getSurface());
+      refreshPreviewCaptureSession(
+          null, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
+    } else {
+      createCaptureSession(CameraDevice.TEMPLATE_RECORD, imageStreamReader.getSurface());
+    }
+    streamingImages = true;
     Log.i(TAG, "startPreviewWithImageStream");
 
+    imageStreamPolicy = policy;
     imageStreamChannel.setStreamHandler(
         new EventChannel.StreamHandler() {
           @Override
           public void onListen(Object o, EventChannel.EventSink imageStreamSink) {
-            setImageStreamImageAvailableListener(imageStreamSink);
+            setImageStreamImageAvailableListener(
+                binarySender != null
+                    ? binarySender
+                    : new EventChannelImageStreamSender(
+                        imageStreamSink, new Handler(Looper.getMainLooper()), policy, processor),
+                processor);
           }
 
           @Override
           public void onCancel(Object o) {
+            imageStreamSender = null;
             imageStreamReader.setOnImageAvailableListener(null, backgroundHandler);
+            releaseFrameSynchronizer();
           }
         });
   }
 
+  /**
+   * Stops streaming frames to Dart. While a MediaCodec recording is running, the image stream is
+   * only removed from the repeating request, otherwise the preview session is restored.
+   *
+   * @throws CameraAccessException when the capture session could not be created.
+   */
+  public synchronized void stopImageStream() throws CameraAccessException {
+    streamingImages = false;
+    imageStreamSender = null;
+    if (codecRecorder != null && recordingVideo) {
+      imageStreamReader.setOnImageAvailableListener(null, backgroundHandler);
+      releaseFrameSynchronizer();
+      previewRequestBuilder.removeTarget(imageStreamReader.getSurface());
+      refreshPreviewCaptureSession(
+          null, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
+      return;
+    }
+    startPreview();
+  }
+
+  /**
+   * Starts sending the timing information of the captured preview frames to Dart.
+   *
+   * <p>Replaces any telemetry that was already running, after sending the frames it recorded.
+   *
+   * @param framesPerBatch the number of frames sent in a single telemetry event.
+   * @throws IllegalArgumentException when framesPerBatch is not positive.
+   */
+  public void startCaptureTelemetry(int framesPerBatch) {
+    CaptureTelemetry telemetry =
+        new CaptureTelemetry(
+            dartMessenger,
+            framesPerBatch,
+            cameraProperties.getSensorInfoTimestampSource()
+                == CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME);
+    stopCaptureTelemetry();
+    captureTelemetry = telemetry;
+    captureTelemetryFramesPerBatch = framesPerBatch;
+    cameraCaptureCallback.setTelemetry(telemetry);
+  }
+
+  /** Stops sending capture telemetry, after sending the frames that were already recorded. */
+  public void stopCaptureTelemetry() {
+    final CaptureTelemetry telemetry = captureTelemetry;
+    if (telemetry == null) {
+      return;
+    }
+    captureTelemetry = null;
+    cameraCaptureCallback.setTelemetry(null);
+    // The telemetry is only used on the background thread, so it is flushed there too.
+    if (backgroundHandler != null) {
+      backgroundHandler.post(telemetry::flush);
+    }
+  }
+
+  /**
+   * Starts adapting the preview to the load of the device.
+   *
+   * <p>When frames are dropped or the device runs hot, the preview is first stepped down to lower
+   * frame rates and then to smaller preview sizes, and stepped back up once the device recovers.
+   * Every change is reported to Dart with a preview adapted event. The preview size is only changed
+   * while no video is recorded, no image stream is running and the preview is not paused, since it
+   * requires a new capture session.
+   *
+   * <p>Does nothing when the adaptive preview is already running or the camera supports no cheaper
+   * configuration.
+   */
+  public void startAdaptivePreview() {
+    if (adaptivePreview != null) {
+      return;
+    }
+    List<PreviewStep> steps =
+        computePreviewSteps(
+            cameraFeatures.getFpsRange().getValue(),
+            cameraProperties.getControlAutoExposureAvailableTargetFpsRanges(),
+            cameraFeatures.getResolution().getValue());
+    if (steps.size() < 2) {
+      return;
+    }
+    adaptivePreviewSteps = steps;
+    AdaptivePreviewController controller =
+        new AdaptivePreviewController(steps.size() - 1, this::onPreviewLevelChanged);
+    adaptivePreview = controller;
+    cameraCaptureCallback.setAdaptivePreview(controller);
+    if (VERSION.SDK_INT >= VERSION_CODES.Q) {
+      registerThermalStatusListener();
+    }
+  }
+
+  /** Stops adapting the preview and restores the configuration the camera was created with. */
+  public void stopAdaptivePreview() {
+    final AdaptivePreviewController controller = releaseAdaptivePreview();
+    if (controller == null || backgroundHandler == null) {
+      return;
+    }
+    // The level is only changed on the background thread, so it is read there too.
+    backgroundHandler.post(
+        () -> {
+          if (controller.getLevel() != 0) {
+            applyPreviewStep(0, AdaptivePreviewController.REASON_STOPPED);
+          }
+        });
+  }
+
+  @Nullable
+  private AdaptivePreviewController releaseAdaptivePreview() {
+    AdaptivePreviewController controller = adaptivePreview;
+    if (controller == null) {
+      return null;
+    }
+    adaptivePreview = null;
+    cameraCaptureCallback.setAdaptivePreview(null);
+    if (VERSION.SDK_INT >= VERSION_CODES.Q) {
+      unregisterThermalStatusListener();
+    }
+    return controller;
+  }
+
+  @TargetApi(VERSION_CODES.Q)
+  private void registerThermalStatusListener() {
+    PowerManager powerManager = (PowerManager) activity.getSystemService(Context.POWER_SERVICE);
+    if (powerManager == null) {
+      return;
+    }
+    thermalStatusListener =
+        status -> {
+          final AdaptivePreviewController controller = adaptivePreview;
+          final Handler handler = backgroundHandler;
+          if (controller != null && handler != null) {
+            handler.post(() -> controller.onThermalStatusChanged(status));
+          }
+        };
+    // The listener is called right away with the current status.
+    powerManager.addThermalStatusListener(thermalStatusListener);
+  }
+
+  @TargetApi(VERSION_CODES.Q)
+  private void unregisterThermalStatusListener() {
+    if (thermalStatusListener == null) {
+      return;
+    }
+    PowerManager powerManager = (PowerManager) activity.getSystemService(Context.POWER_SERVICE);
+    if (powerManager != null) {
+      powerManager.removeThermalStatusListener(thermalStatusListener);
+    }
+    thermalStatusListener = null;
+  }
+
+  private void resetPreviewStep() {
+    cameraFeatures.getFpsRange().setValue(adaptivePreviewSteps.get(0).fpsRange);
+    cameraFeatures.getResolution().setPreviewPreset(null);
+  }
+
+  private void onPreviewLevelChanged(int level, @NonNull String reason) {
+    // A change decided just before the adaptive preview was stopped is ignored.
+    if (adaptivePreview != null) {
+      applyPreviewStep(level, reason);
+    }
+  }
+
+  /** Applies a preview configuration of the adaptive preview, on the background thread. */
+  private synchronized void applyPreviewStep(int level, @NonNull String reason) {
+    PreviewStep step = adaptivePreviewSteps.get(level);
+    FpsRangeFeature fpsRangeFeature = cameraFeatures.getFpsRange();
+    fpsRangeFeature.setValue(step.fpsRange);
+    cameraFeatures.markDirty(fpsRangeFeature);
+
+    ResolutionFeature resolutionFeature = cameraFeatures.getResolution();
+    Size previewSize = resolutionFeature.getPreviewSize();
+    boolean canResize = !recordingVideo && !streamingImages && !pausedPreview;
+    if (canResize) {
+      resolutionFeature.setPreviewPreset(level == 0 ? null : step.previewPreset);
+    }
+    Size newPreviewSize = resolutionFeature.getPreviewSize();
+    boolean resized =
+        previewSize.getWidth() != newPreviewSize.getWidth()
+            || previewSize.getHeight() != newPreviewSize.getHeight();
+
+    try {
+      if (resized) {
+        // The new session picks up the new frame rate as well.
+        startPreview();
+      } else {
+        refreshPreviewCaptureSession(
+            null, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
+      }
+    } catch (CameraAccessException e) {
+      dartMessenger.sendCameraErrorEvent(e.getMessage());
+      return;
+    }
+
+    dartMessenger.sendPreviewAdaptedEvent(
+        level,
+        reason,
+        newPreviewSize.getWidth(),
+        newPreviewSize.getHeight(),
+        step.fpsRange.getLower(),
+        step.fpsRange.getUpper());
+  }
+
+  /**
+   * Computes the preview configurations the adaptive preview steps through.
+   *
+   * <p>The first step is the configuration the camera was created with. It is followed by every
+   * lower frame rate the camera supports down to {@link #MIN_ADAPTIVE_FPS}, and finally by up to
+   * {@link #MAX_ADAPTIVE_PREVIEW_SIZE_STEPS} smaller preview sizes at the lowest frame rate.
+   *
+   * @param fpsRange the frame rate range the camera was created with.
+   * @param availableFpsRanges the frame rate ranges supported by the camera.
+   * @param resolutionPreset the resolution preset the camera was created with.
+   * @return the preview configurations, from the most to the least expensive.
+   */
+  @VisibleForTesting
+  static List<PreviewStep> computePreviewSteps(
+      @Nullable Range<Integer> fpsRange,
+      @Nullable Range<Integer>[] availableFpsRanges,
+      @NonNull ResolutionPreset resolutionPreset) {
+    List<PreviewStep> steps = new ArrayList<>();
+    if (fpsRange == null) {
+      return steps;
+    }
+    steps.add(new PreviewStep(fpsRange, resolutionPreset));
+
+    Range<Integer> lowestFpsRange = fpsRange;
+    if (availableFpsRanges != null) {
+      while (true) {
+        Range<Integer> next = null;
+        for (Range<Integer> range : availableFpsRanges) {
+          int upper = range.getUpper();
+          if (upper >= lowestFpsRange.getUpper() || upper < MIN_ADAPTIVE_FPS) {
+            continue;
+          }
+          // Prefer the highest frame rate, and the most constant range for a frame rate.
+          if (next == null
+              || upper > next.getUpper()
+              || (upper == next.getUpper() && range.getLower() > next.getLower())) {
+            next = range;
+          }
+        }
+        if (next == null) {
+          break;
+        }
+        steps.add(new PreviewStep(next, resolutionPreset));
+        lowestFpsRange = next;
+      }
+    }
+
+    // The preview size is capped at 1080p, so larger presets step down from high.
+    ResolutionPreset previewPreset =
+        resolutionPreset.ordinal() > ResolutionPreset.high.ordinal()
+            ? ResolutionPreset.high
+            : resolutionPreset;
+    for (int i = 0; i < MAX_ADAPTIVE_PREVIEW_SIZE_STEPS && previewPreset.ordinal() > 0; i++) {
+      previewPreset = ResolutionPreset.values()[previewPreset.ordinal() - 1];
+      steps.add(new PreviewStep(lowestFpsRange, previewPreset));
+    }
+    return steps;
+  }
+
+  /** A preview configuration of the adaptive preview. */
+  @VisibleForTesting
+  static class PreviewStep {
+    final Range<Integer> fpsRange;
+    final ResolutionPreset previewPreset;
+
+    PreviewStep(@NonNull Range<Integer> fpsRange, @NonNull ResolutionPreset previewPreset) {
+      this.fpsRange = fpsRange;
+      this.previewPreset = previewPreset;
+    }
+  }
+
+  /**
+   * Gets the frame counters of the most recently started image stream.
+   *
+   * @return the delivered, dropped and throttled frame counts, or null if no image stream has been
+   *     started.
+   */
+  @Nullable
+  public Map<String, Object> getImageStreamStatistics() {
+    return imageStreamPolicy == null ? null : imageStreamPolicy.getStatistics();
+  }
+
   /**
    * This a callback object for the {@link ImageReader}. "onImageAvailable" will be called when a
    * still image is ready to be saved.
    */
   @Override
-  public void onImageAvailable(ImageReader reader) {
+  public synchronized void onImageAvailable(ImageReader reader) {
     Log.i(TAG, "onImageAvailable");
 
-    backgroundHandler.post(
-        new ImageSaver(
-            // Use acquireNextImage since image reader is only for one image.
-            reader.acquireNextImage(),
-            captureFile,
-            new ImageSaver.Callback() {
-              @Override
-              public void onComplete(String absolutePath) {
-                dartMessenger.finish(flutterResult, absolutePath);
-              }
-
-              @Override
-              public void onError(String errorCode, String errorMessage) {
-                dartMessenger.error(flutterResult, errorCode, errorMessage, null);
-              }
-            }));
+    // Use acquireNextImage since image reader is only for one image.
+    Image image = reader.acquireNextImage();
+    ImageSaver.Callback callback = createPictureSaverCallback(flutterResult, System.nanoTime());
+    if (pictureTranscoding) {
+      // Decoding and encoding take long, so they run on the pool instead of the camera thread.
+      getImageSaverExecutor()
+          .execute(
+              new PictureTranscoder(
+                  image,
+                  pictureOptions,
+                  pictureRotationDegrees,
+                  captureFile,
+                  pictureSync,
+                  callback));
+    } else {
+      backgroundHandler.post(new ImageSaver(image, captureFile, pictureSync, callback));
+    }
     cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
   }
 
-  private void setImageStreamImageAvailableListener(final EventChannel.EventSink imageStreamSink) {
+  private ImageSaver.Callback createPictureSaverCallback(
+      @NonNull final Result result, final long imageAvailableNanos) {
+    return new ImageSaver.Callback() {
+      @Override
+      public void onComplete(String absolutePath) {
+        onPictureSaved(imageAvailableNanos);
+        dartMessenger.finish(result, absolutePath);
+      }
+
+      @Override
+      public void onCompleteInMemory(byte[] bytes) {
+        onPictureSaved(imageAvailableNanos);
+        dartMessenger.finish(result, bytes);
+      }
+
+      @Override
+      public void onError(String errorCode, String errorMessage) {
+        dartMessenger.error(result, errorCode, errorMessage, null);
+      }
+    };
+  }
+
+  private void onPictureSaved(long imageAvailableNanos) {
+    lastPictureSaveLatencyMicros = (System.nanoTime() - imageAvailableNanos) / 1000;
+    Log.i(TAG, "Picture saved in " + lastPictureSaveLatencyMicros + " us");
+  }
+
+  /**
+   * Gets the time it took to save the most recent picture, measured from the moment the camera
+   * delivered the JPEG until it was written to disk or copied into memory.
+   *
+   * @return the latency in microseconds, or null if no picture has been saved yet.
+   */
+  @Nullable
+  public Long getLastPictureSaveLatencyMicros() {
+    return lastPictureSaveLatencyMicros < 0 ? null : lastPictureSaveLatencyMicros;
+  }
+
+  private void setImageStreamImageAvailableListener(
+      final ImageStreamSender imageStreamSender, @Nullable final ImageStreamProcessor processor) {
+    final ImageStreamPolicy policy = imageStreamSender.getPolicy();
+    this.imageStreamSender = imageStreamSender;
+    imageStreamProcessor = processor;
+    releaseFrameSynchronizer();
+    final StreamFrameSynchronizer synchronizer =
+        new StreamFrameSynchronizer(
+            captureProps,
+            (img, frameCaptureProps) -> {
+              if (processor != null && processor.isRotationEnabled()) {
+                processor.setRotationDegrees(getPhotoOrientation());
+              }
+              if (!imageStreamSender.send(img, frameCaptureProps)) {
+                Log.d(TAG, "Dropping image stream frame, Dart is not keeping up.");
+              }
+            });
+    frameSynchronizer = synchronizer;
+    cameraCaptureCallback.setFrameSynchronizer(synchronizer);
     imageStreamReader.setOnImageAvailableListener(
         reader -> {
           Image img = reader.acquireNextImage();
-          // Use acquireNextImage since image reader is only for one image.
           if (img == null) return;
 
-          List<Map<String, Object>> planes = new ArrayList<>();
-          for (Image.Plane plane : img.getPlanes()) {
-            ByteBuffer buffer = plane.getBuffer();
-
-            byte[] bytes = new byte[buffer.remaining()];
-            buffer.get(bytes, 0, bytes.length);
-
-            Map<String, Object> planeBuffer = new HashMap<>();
-            planeBuffer.put("bytesPerRow", plane.getRowStride());
-            planeBuffer.put("bytesPerPixel", plane.getPixelStride());
-            planeBuffer.put("bytes", bytes);
-
-            planes.add(planeBuffer);
+          // Throttled frames are skipped before any of their bytes are copied.
+          if (!policy.shouldAcceptFrame(img.getTimestamp())) {
+            img.close();
+            return;
           }
-
-          Map<String, Object> imageBuffer = new HashMap<>();
-          imageBuffer.put("width", img.getWidth());
-          imageBuffer.put("height", img.getHeight());
-          imageBuffer.put("format", img.getFormat());
-          imageBuffer.put("planes", planes);
-          imageBuffer.put("lensAperture", this.captureProps.getLastLensAperture());
-          imageBuffer.put("sensorExposureTime", this.captureProps.getLastSensorExposureTime());
-          Integer sensorSensitivity = this.captureProps.getLastSensorSensitivity();
-          imageBuffer.put(
-              "sensorSensitivity", sensorSensitivity == null ? null : (double) sensorSensitivity);
-
-          final Handler handler = new Handler(Looper.getMainLooper());
-          handler.post(() -> imageStreamSink.success(imageBuffer));
-          img.close();
+          synchronizer.onImage(img);
         },
         backgroundHandler);
   }
 
+  /** Stops pairing streamed frames with their capture results, dropping a held back frame. */
+  private void releaseFrameSynchronizer() {
+    final StreamFrameSynchronizer synchronizer = frameSynchronizer;
+    if (synchronizer == null) {
+      return;
+    }
+    frameSynchronizer = null;
+    cameraCaptureCallback.setFrameSynchronizer(null);
+    // The held back frame is only touched on the camera background thread.
+    if (backgroundHandler != null) {
+      backgroundHandler.post(synchronizer::release);
+    } else {
+      synchronizer.release();
+    }
+  }
+
+  /**
+   * Gets the clockwise rotation in degrees that turns captured images upright, honouring a locked
+   * capture orientation.
+   */
+  private int getPhotoOrientation() {
+    final PlatformChannel.DeviceOrientation lockedOrientation =
+        ((SensorOrientationFeature) cameraFeatures.getSensorOrientation())
+            .getLockedCaptureOrientation();
+    return lockedOrientation == null
+        ? getDeviceOrientationManager().getPhotoOrientation()
+        : getDeviceOrientationManager().getPhotoOrientation(lockedOrientation);
+  }
+
   private void closeCaptureSession() {
     if (captureSession != null) {
       Log.i(TAG, "closeCaptureSession");
@@ -1118,27 +2467,50 @@ class Camera
 
   public void close() {
     Log.i(TAG, "close");
-    closeCaptureSession();
+    synchronized (this) {
+      closeCaptureSession();
 
-    if (cameraDevice != null) {
-      cameraDevice.close();
-      cameraDevice = null;
-    }
-    if (pictureImageReader != null) {
-      pictureImageReader.close();
-      pictureImageReader = null;
-    }
-    if (imageStreamReader != null) {
-      imageStreamReader.close();
-      imageStreamReader = null;
-    }
-    if (mediaRecorder != null) {
-      mediaRecorder.reset();
-      mediaRecorder.release();
-      mediaRecorder = null;
+      if (cameraDevice != null) {
+        cameraDevice.close();
+        cameraDevice = null;
+      }
+      if (prewarmedDevice != null) {
+        prewarmedDevice.release();
+        prewarmedDevice = null;
+      }
+      // The pictures that are still being saved read the images of the readers closed below.
+      shutdownImageSaverExecutor();
+      if (pictureImageReader != null) {
+        pictureImageReader.close();
+        pictureImageReader = null;
+      }
+      if (imageStreamReader != null) {
+        imageStreamReader.close();
+        imageStreamReader = null;
+      }
+      if (mediaRecorder != null) {
+        mediaRecorder.reset();
+        mediaRecorder.release();
+        mediaRecorder = null;
+      }
+      releaseCodecRecorder();
+      releaseZeroShutterLagReader();
+      releaseFrameSynchronizer();
+      streamingImages = false;
+      restoreImageStream = false;
+      restoreCaptureTelemetry = false;
+      restoreAdaptivePreview = false;
+      stopCaptureTelemetry();
+      if (releaseAdaptivePreview() != null) {
+        // There is no session left to refresh, the next one is created with the original settings.
+        resetPreviewStep();
+      }
     }
 
+    // Not holding the lock, the background thread may be waiting for it.
     stopBackgroundThread();
+    // The batch of commands waiting to run was dropped with the background thread.
+    commandQueue.close();
   }
 
   public void dispose() {
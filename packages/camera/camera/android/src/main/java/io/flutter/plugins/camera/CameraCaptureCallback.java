@@ -11,6 +11,7 @@ import android.hardware.camera2.CaptureResult;
 import android.hardware.camera2.TotalCaptureResult;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import io.flutter.plugins.camera.types.CameraCaptureProperties;
 import io.flutter.plugins.camera.types.CaptureTimeoutsWrapper;
 
@@ -24,6 +25,9 @@ class CameraCaptureCallback extends CaptureCallback {
   private CameraState cameraState;
   private final CaptureTimeoutsWrapper captureTimeouts;
   private final CameraCaptureProperties captureProps;
+  @Nullable private volatile CaptureTelemetry telemetry;
+  @Nullable private volatile AdaptivePreviewController adaptivePreview;
+  @Nullable private volatile StreamFrameSynchronizer frameSynchronizer;
 
   private CameraCaptureCallback(
       @NonNull CameraCaptureStateListener cameraStateListener,
@@ -68,6 +72,34 @@ class CameraCaptureCallback extends CaptureCallback {
     cameraState = state;
   }
 
+  /**
+   * Sets the {@link CaptureTelemetry} recording the completed captures.
+   *
+   * @param telemetry the telemetry to record completed captures with, or null to stop recording.
+   */
+  public void setTelemetry(@Nullable CaptureTelemetry telemetry) {
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Sets the {@link AdaptivePreviewController} evaluating the completed captures.
+   *
+   * @param adaptivePreview the controller to evaluate completed captures with, or null to stop.
+   */
+  public void setAdaptivePreview(@Nullable AdaptivePreviewController adaptivePreview) {
+    this.adaptivePreview = adaptivePreview;
+  }
+
+  /**
+   * Sets the {@link StreamFrameSynchronizer} pairing the streamed frames with the completed
+   * captures.
+   *
+   * @param frameSynchronizer the synchronizer to record completed captures with, or null to stop.
+   */
+  public void setFrameSynchronizer(@Nullable StreamFrameSynchronizer frameSynchronizer) {
+    this.frameSynchronizer = frameSynchronizer;
+  }
+
   private void process(CaptureResult result) {
     Integer aeState = result.get(CaptureResult.CONTROL_AE_STATE);
     Integer afState = result.get(CaptureResult.CONTROL_AF_STATE);
@@ -166,7 +198,20 @@ class CameraCaptureCallback extends CaptureCallback {
       @NonNull CameraCaptureSession session,
       @NonNull CaptureRequest request,
       @NonNull TotalCaptureResult result) {
+    CaptureTelemetry telemetry = this.telemetry;
+    if (telemetry != null) {
+      telemetry.onCaptureCompleted(result);
+    }
+    AdaptivePreviewController adaptivePreview = this.adaptivePreview;
+    if (adaptivePreview != null) {
+      adaptivePreview.onCaptureCompleted(result);
+    }
     process(result);
+    // After processing, so frames without a capture result fall back to the latest properties.
+    StreamFrameSynchronizer frameSynchronizer = this.frameSynchronizer;
+    if (frameSynchronizer != null) {
+      frameSynchronizer.onCaptureCompleted(result);
+    }
   }
 
   /** An interface that describes the different state changes implementers can be informed about. */
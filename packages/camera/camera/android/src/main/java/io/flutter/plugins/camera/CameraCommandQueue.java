@@ -0,0 +1,231 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.hardware.camera2.CameraAccessException;
+import android.os.Handler;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.plugin.common.MethodChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the commands controlling a single camera one after another on the camera background thread,
+ * instead of on the platform thread.
+ *
+ * <p>Every command has a key identifying the setting it changes. When a command is enqueued while
+ * another command with the same key is still waiting to run, the waiting command is superseded:
+ * only the newest command runs, and its outcome is reported to the results of all merged calls.
+ * Rapid calls such as pinch-to-zoom updates therefore collapse into a single request update.
+ *
+ * <p>Commands are not run one by one: the commands enqueued within {@link #BATCH_WINDOW_MS}, about
+ * one preview frame, are run together as a single batch between {@link Batch#begin()} and {@link
+ * Batch#commit()}, so the camera can apply all their changes with a single repeating request.
+ *
+ * <p>Commands run on the thread of the supplied handler, and results are sent back on the main
+ * thread through the {@link DartMessenger}. A batch belongs to the handler it was scheduled on:
+ * commands enqueued with another handler start a new batch, and {@link #close()} fails the commands
+ * of a batch whose handler will never run it.
+ */
+class CameraCommandQueue {
+  /** The time commands are collected for before they are run as a single batch. */
+  @VisibleForTesting static final long BATCH_WINDOW_MS = 16;
+
+  /** A command changing a camera setting. */
+  interface Command {
+    /**
+     * Runs the command on the camera background thread.
+     *
+     * @param result the result receiving the outcome of the command, which may be called from any
+     *     thread.
+     * @throws CameraAccessException when the camera could not be accessed.
+     */
+    void run(@NonNull MethodChannel.Result result) throws CameraAccessException;
+  }
+
+  /** Brackets the commands that are run together, called on the camera background thread. */
+  interface Batch {
+    /** Called before the first command of a batch is run. */
+    void begin();
+
+    /** Called after the last command of a batch has run, to apply all of their changes at once. */
+    void commit();
+  }
+
+  private final DartMessenger dartMessenger;
+  private final Batch batch;
+  private final List<PendingCommand> pendingCommands = new ArrayList<>();
+  // The handler the waiting commands are scheduled on, or null when no command is waiting.
+  @Nullable private Handler batchHandler;
+
+  /**
+   * Creates a new instance of the {@link CameraCommandQueue}.
+   *
+   * @param dartMessenger the messenger used to send results on the main thread.
+   * @param batch the callbacks bracketing every batch of commands.
+   */
+  CameraCommandQueue(@NonNull DartMessenger dartMessenger, @NonNull Batch batch) {
+    this.dartMessenger = dartMessenger;
+    this.batch = batch;
+  }
+
+  /**
+   * Enqueues a command, superseding a waiting command with the same key.
+   *
+   * @param handler the handler managing the camera background thread, or null if the camera has
+   *     been closed.
+   * @param key the key of the setting changed by the command, or null if the command must never be
+   *     superseded.
+   * @param result the result receiving the outcome of the command.
+   * @param command the command to run.
+   */
+  void enqueue(
+      @Nullable Handler handler,
+      @Nullable String key,
+      @NonNull MethodChannel.Result result,
+      @NonNull Command command) {
+    List<PendingCommand> staleCommands = null;
+    boolean enqueued = false;
+    synchronized (this) {
+      if (handler != batchHandler && !pendingCommands.isEmpty()) {
+        // The waiting commands were scheduled on a handler that has been replaced, they will never
+        // run.
+        staleCommands = takePendingCommands();
+      }
+
+      PendingCommand pending = key == null ? null : findPendingCommand(key);
+      if (pending != null) {
+        pending.command = command;
+        pending.results.add(result);
+        enqueued = true;
+      } else if (!pendingCommands.isEmpty()
+          || (handler != null && handler.postDelayed(() -> runBatch(handler), BATCH_WINDOW_MS))) {
+        // The first command of a batch schedules the batch, the others join it.
+        batchHandler = handler;
+        pendingCommands.add(new PendingCommand(key, command, result));
+        enqueued = true;
+      }
+    }
+    if (staleCommands != null) {
+      failClosed(staleCommands);
+    }
+    if (!enqueued) {
+      dartMessenger.error(result, "cameraAccess", "The camera has been closed.", null);
+    }
+  }
+
+  /**
+   * Fails the commands that are waiting to run, as the camera has been closed.
+   *
+   * <p>Called after the camera background thread has stopped, so that the waiting batch, which is
+   * dropped with the thread, does not leave their calls unanswered.
+   */
+  void close() {
+    List<PendingCommand> commands;
+    synchronized (this) {
+      commands = takePendingCommands();
+    }
+    failClosed(commands);
+  }
+
+  /** Gets the number of commands that are waiting to run. */
+  synchronized int getPendingCommandCount() {
+    return pendingCommands.size();
+  }
+
+  @Nullable
+  private PendingCommand findPendingCommand(@NonNull String key) {
+    for (PendingCommand pending : pendingCommands) {
+      if (key.equals(pending.key)) {
+        return pending;
+      }
+    }
+    return null;
+  }
+
+  private List<PendingCommand> takePendingCommands() {
+    List<PendingCommand> commands = new ArrayList<>(pendingCommands);
+    pendingCommands.clear();
+    batchHandler = null;
+    return commands;
+  }
+
+  private void failClosed(List<PendingCommand> commands) {
+    for (PendingCommand pending : commands) {
+      new MergedResult(pending.results).error("cameraAccess", "The camera has been closed.", null);
+    }
+  }
+
+  private void runBatch(Handler handler) {
+    List<PendingCommand> commands;
+    synchronized (this) {
+      if (handler != batchHandler) {
+        // The commands of this batch have already been run or failed.
+        return;
+      }
+      // Commands enqueued from now on are run in the next batch.
+      commands = takePendingCommands();
+    }
+
+    batch.begin();
+    try {
+      for (PendingCommand pending : commands) {
+        MethodChannel.Result result = new MergedResult(pending.results);
+        try {
+          pending.command.run(result);
+        } catch (CameraAccessException e) {
+          result.error("cameraAccess", e.getMessage(), null);
+        }
+      }
+    } finally {
+      batch.commit();
+    }
+  }
+
+  private static class PendingCommand {
+    @Nullable private final String key;
+    private final List<MethodChannel.Result> results = new ArrayList<>();
+    private Command command;
+
+    private PendingCommand(@Nullable String key, Command command, MethodChannel.Result result) {
+      this.key = key;
+      this.command = command;
+      this.results.add(result);
+    }
+  }
+
+  /** Sends the outcome of a command to the results of all calls merged into it. */
+  private class MergedResult implements MethodChannel.Result {
+    private final List<MethodChannel.Result> results;
+
+    private MergedResult(List<MethodChannel.Result> results) {
+      this.results = results;
+    }
+
+    @Override
+    public void success(@Nullable Object payload) {
+      for (MethodChannel.Result result : results) {
+        dartMessenger.finish(result, payload);
+      }
+    }
+
+    @Override
+    public void error(
+        String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
+      for (MethodChannel.Result result : results) {
+        dartMessenger.error(result, errorCode, errorMessage, errorDetails);
+      }
+    }
+
+    @Override
+    public void notImplemented() {
+      for (MethodChannel.Result result : results) {
+        dartMessenger.notImplemented(result);
+      }
+    }
+  }
+}
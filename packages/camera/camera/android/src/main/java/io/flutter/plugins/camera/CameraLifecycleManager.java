@@ -0,0 +1,110 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Releases the camera devices of the live cameras when the activity is paused, and restores them
+ * when it is resumed.
+ *
+ * <p>Keeping a device open in the background blocks other apps from the camera, and the camera
+ * service disconnects it as soon as another app opens the camera, which leaves the camera unusable.
+ * Released cameras keep their texture and the settings of all camera features, so resuming only
+ * opens the device and starts the preview again, without going through {@code create} and {@code
+ * initialize}. Image streams, capture telemetry and adaptive previews that were running are started
+ * again as well.
+ *
+ * <p>Cameras that are recording a video are left open, so the recording is not cut short. Listens
+ * through {@link Application.ActivityLifecycleCallbacks}, so the plugin does not depend on the
+ * AndroidX lifecycle library.
+ */
+final class CameraLifecycleManager implements Application.ActivityLifecycleCallbacks {
+  private final Activity activity;
+  private final Collection<Camera> cameras;
+  /** The cameras that have been released when the activity was paused. */
+  private final List<Camera> releasedCameras = new ArrayList<>();
+
+  private boolean listening;
+
+  /**
+   * Creates a new instance of the {@link CameraLifecycleManager}.
+   *
+   * @param activity the activity whose lifecycle the cameras follow.
+   * @param cameras a live view of the cameras of the plugin, disposed cameras are never restored.
+   */
+  CameraLifecycleManager(@NonNull Activity activity, @NonNull Collection<Camera> cameras) {
+    this.activity = activity;
+    this.cameras = cameras;
+  }
+
+  /** Starts following the lifecycle of the activity, if it is attached to an application. */
+  void start() {
+    Application application = activity.getApplication();
+    if (listening || application == null) {
+      return;
+    }
+    listening = true;
+    application.registerActivityLifecycleCallbacks(this);
+  }
+
+  /** Stops following the lifecycle of the activity, cameras released until now stay closed. */
+  void stop() {
+    if (!listening) {
+      return;
+    }
+    listening = false;
+    activity.getApplication().unregisterActivityLifecycleCallbacks(this);
+    releasedCameras.clear();
+  }
+
+  @Override
+  public void onActivityPaused(@NonNull Activity activity) {
+    if (activity != this.activity) {
+      return;
+    }
+    for (Camera camera : cameras) {
+      if (camera.isDeviceOpen() && !camera.isRecordingVideo()) {
+        camera.release();
+        releasedCameras.add(camera);
+      }
+    }
+  }
+
+  @Override
+  public void onActivityResumed(@NonNull Activity activity) {
+    if (activity != this.activity) {
+      return;
+    }
+    for (Camera camera : releasedCameras) {
+      if (cameras.contains(camera)) {
+        camera.restore();
+      }
+    }
+    releasedCameras.clear();
+  }
+
+  @Override
+  public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {}
+
+  @Override
+  public void onActivityStarted(@NonNull Activity activity) {}
+
+  @Override
+  public void onActivityStopped(@NonNull Activity activity) {}
+
+  @Override
+  public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {}
+
+  @Override
+  public void onActivityDestroyed(@NonNull Activity activity) {}
+}
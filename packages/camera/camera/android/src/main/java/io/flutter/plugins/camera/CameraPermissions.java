@@ -11,6 +11,8 @@ import android.content.pm.PackageManager;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import java.util.ArrayList;
+import java.util.List;
 
 final class CameraPermissions {
   interface PermissionsRegistry {
@@ -24,37 +26,91 @@ final class CameraPermissions {
   }
 
   private static final int CAMERA_REQUEST_ID = 9796;
+  /** The callbacks waiting for the permission request that is in flight, in order of arrival. */
+  private final List<PendingRequest> pendingRequests = new ArrayList<>();
+
   private boolean ongoing = false;
+  /** Whether the permission request that is in flight includes the audio permission. */
+  private boolean ongoingAudio = false;
 
+  /**
+   * Requests the camera permission, and the audio permission if {@code enableAudio} is set, unless
+   * they have been granted already.
+   *
+   * <p>Requests made while another request is in flight are answered together with it instead of
+   * opening another permission dialog. Requests that need the audio permission while the request in
+   * flight only asks for the camera permission are requested again once it completes.
+   *
+   * @param activity the activity requesting the permissions.
+   * @param permissionsRegistry the registry the result listener is added to.
+   * @param enableAudio whether the audio permission is required as well.
+   * @param callback the callback that receives the outcome, with a null error code on success.
+   */
   void requestPermissions(
       Activity activity,
       PermissionsRegistry permissionsRegistry,
       boolean enableAudio,
       ResultCallback callback) {
-    if (ongoing) {
-      callback.onResult("cameraPermission", "Camera permission request ongoing");
-    }
-    if (!hasCameraPermission(activity) || (enableAudio && !hasAudioPermission(activity))) {
-      permissionsRegistry.addListener(
-          new CameraRequestPermissionsListener(
-              (String errorCode, String errorDescription) -> {
-                ongoing = false;
-                callback.onResult(errorCode, errorDescription);
-              }));
-      ongoing = true;
-      ActivityCompat.requestPermissions(
-          activity,
-          enableAudio
-              ? new String[] {Manifest.permission.CAMERA, Manifest.permission.RECORD_AUDIO}
-              : new String[] {Manifest.permission.CAMERA},
-          CAMERA_REQUEST_ID);
-    } else {
+    if (hasPermissions(activity, enableAudio)) {
       // Permissions already exist. Call the callback with success.
       callback.onResult(null, null);
+      return;
+    }
+
+    pendingRequests.add(new PendingRequest(enableAudio, callback));
+    if (!ongoing) {
+      startRequest(activity, permissionsRegistry);
     }
   }
 
-  private boolean hasCameraPermission(Activity activity) {
+  private void startRequest(Activity activity, PermissionsRegistry permissionsRegistry) {
+    ongoing = true;
+    ongoingAudio = false;
+    for (PendingRequest request : pendingRequests) {
+      ongoingAudio |= request.enableAudio;
+    }
+
+    permissionsRegistry.addListener(
+        new CameraRequestPermissionsListener(
+            (String errorCode, String errorDescription) ->
+                onRequestCompleted(activity, permissionsRegistry, errorCode, errorDescription)));
+    ActivityCompat.requestPermissions(
+        activity,
+        ongoingAudio
+            ? new String[] {Manifest.permission.CAMERA, Manifest.permission.RECORD_AUDIO}
+            : new String[] {Manifest.permission.CAMERA},
+        CAMERA_REQUEST_ID);
+  }
+
+  private void onRequestCompleted(
+      Activity activity,
+      PermissionsRegistry permissionsRegistry,
+      String errorCode,
+      String errorDescription) {
+    ongoing = false;
+    List<PendingRequest> completed = new ArrayList<>(pendingRequests);
+    pendingRequests.clear();
+
+    for (PendingRequest request : completed) {
+      if (hasPermissions(activity, request.enableAudio)) {
+        // A camera only request succeeds even when the audio permission was denied.
+        request.callback.onResult(null, null);
+      } else if (!request.enableAudio || ongoingAudio) {
+        request.callback.onResult(errorCode, errorDescription);
+      } else {
+        pendingRequests.add(request);
+      }
+    }
+    if (!pendingRequests.isEmpty()) {
+      startRequest(activity, permissionsRegistry);
+    }
+  }
+
+  private boolean hasPermissions(Activity activity, boolean enableAudio) {
+    return hasCameraPermission(activity) && (!enableAudio || hasAudioPermission(activity));
+  }
+
+  boolean hasCameraPermission(Activity activity) {
     return ContextCompat.checkSelfPermission(activity, permission.CAMERA)
         == PackageManager.PERMISSION_GRANTED;
   }
@@ -64,6 +120,17 @@ final class CameraPermissions {
         == PackageManager.PERMISSION_GRANTED;
   }
 
+  /** A permission request waiting for the request in flight to complete. */
+  private static final class PendingRequest {
+    final boolean enableAudio;
+    final ResultCallback callback;
+
+    PendingRequest(boolean enableAudio, ResultCallback callback) {
+      this.enableAudio = enableAudio;
+      this.callback = callback;
+    }
+  }
+
   @VisibleForTesting
   @SuppressWarnings("deprecation")
   static final class CameraRequestPermissionsListener
@@ -0,0 +1,267 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.annotation.SuppressLint;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraDevice;
+import android.os.Handler;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.plugins.camera.features.CameraFeatureFactory;
+import io.flutter.plugins.camera.features.CameraFeatureFactoryImpl;
+import io.flutter.plugins.camera.features.resolution.ResolutionFeature;
+import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+
+/**
+ * Performs the expensive parts of creating a {@link Camera} ahead of time, so that a following
+ * {@code create} and {@code initialize} of the same camera start faster.
+ *
+ * <p>Prewarming fetches the {@link CameraProperties} of the camera into the {@link
+ * CameraPropertiesCache}, resolves the capture and preview sizes of the requested {@link
+ * ResolutionPreset} and can optionally start opening the {@link CameraDevice}. A prewarmed device
+ * that is not claimed by a camera within {@link #DEVICE_TIMEOUT_MS} is closed again, so it does not
+ * keep other apps from using the camera.
+ *
+ * <p>This class is not thread safe and must only be used from the main thread.
+ */
+class CameraPrewarmer {
+  private static final String TAG = "CameraPrewarmer";
+
+  /** The time after which a prewarmed device that has not been claimed is closed. */
+  @VisibleForTesting static final long DEVICE_TIMEOUT_MS = 5000;
+
+  private final CameraPropertiesCache cameraPropertiesCache;
+  private final Handler mainHandler;
+  private final Runnable releaseDevice = this::releaseDevice;
+
+  @Nullable private String resolutionCameraName;
+  @Nullable private ResolutionFeature resolutionFeature;
+  @Nullable private PrewarmedDevice device;
+
+  /**
+   * Creates a new instance of the {@link CameraPrewarmer}.
+   *
+   * @param cameraPropertiesCache the cache the camera properties are fetched into.
+   * @param mainHandler a handler managing the main thread, on which the device callbacks are run.
+   */
+  CameraPrewarmer(
+      @NonNull CameraPropertiesCache cameraPropertiesCache, @NonNull Handler mainHandler) {
+    this.cameraPropertiesCache = cameraPropertiesCache;
+    this.mainHandler = mainHandler;
+  }
+
+  /**
+   * Prewarms the supplied camera, replacing anything that was prewarmed before.
+   *
+   * @param cameraName the name of the camera to prewarm.
+   * @param resolutionPreset the preset the camera will be created with, or null to skip resolving
+   *     the sizes.
+   * @param openDevice whether the camera device should be opened ahead of time. The caller must
+   *     make sure the camera permission has been granted.
+   * @throws CameraAccessException when the camera could not be accessed.
+   */
+  @SuppressLint("MissingPermission")
+  void prewarm(
+      @NonNull String cameraName, @Nullable ResolutionPreset resolutionPreset, boolean openDevice)
+      throws CameraAccessException {
+    CameraProperties cameraProperties = cameraPropertiesCache.get(cameraName);
+
+    resolutionCameraName = cameraName;
+    resolutionFeature =
+        resolutionPreset == null
+            ? null
+            : new ResolutionFeature(cameraProperties, resolutionPreset, cameraName);
+
+    if (device != null && !device.cameraName.equals(cameraName)) {
+      releaseDevice();
+    }
+    if (openDevice && device == null) {
+      device = new PrewarmedDevice(cameraName);
+      cameraPropertiesCache.getCameraManager().openCamera(cameraName, device, mainHandler);
+    }
+    if (device != null) {
+      mainHandler.removeCallbacks(releaseDevice);
+      mainHandler.postDelayed(releaseDevice, DEVICE_TIMEOUT_MS);
+    }
+  }
+
+  /**
+   * Creates a {@link CameraFeatureFactory} that hands out the prewarmed {@link ResolutionFeature}
+   * once, when it matches the requested camera and preset.
+   */
+  @NonNull
+  CameraFeatureFactory createFeatureFactory() {
+    return new CameraFeatureFactoryImpl() {
+      @Override
+      public ResolutionFeature createResolutionFeature(
+          @NonNull CameraProperties cameraProperties,
+          ResolutionPreset initialSetting,
+          String cameraName) {
+        ResolutionFeature prewarmed = takeResolutionFeature(cameraName, initialSetting);
+        return prewarmed != null
+            ? prewarmed
+            : super.createResolutionFeature(cameraProperties, initialSetting, cameraName);
+      }
+    };
+  }
+
+  /**
+   * Takes the prewarmed {@link ResolutionFeature} of the supplied camera and preset.
+   *
+   * @return the prewarmed feature, or null if the camera or preset was not prewarmed.
+   */
+  @Nullable
+  @VisibleForTesting
+  ResolutionFeature takeResolutionFeature(
+      @NonNull String cameraName, @NonNull ResolutionPreset resolutionPreset) {
+    ResolutionFeature feature = resolutionFeature;
+    resolutionFeature = null;
+    if (feature == null
+        || feature.getValue() != resolutionPreset
+        || !cameraName.equals(resolutionCameraName)) {
+      return null;
+    }
+    return feature;
+  }
+
+  /**
+   * Takes the prewarmed device of the supplied camera. A device that was prewarmed for another
+   * camera is closed.
+   *
+   * @return the prewarmed device, or null if the camera device was not prewarmed.
+   */
+  @Nullable
+  PrewarmedDevice takeDevice(@NonNull String cameraName) {
+    if (device == null) {
+      return null;
+    }
+    if (!device.cameraName.equals(cameraName)) {
+      releaseDevice();
+      return null;
+    }
+    PrewarmedDevice taken = device;
+    device = null;
+    mainHandler.removeCallbacks(releaseDevice);
+    return taken;
+  }
+
+  /** Closes the prewarmed device, if any, and discards the prewarmed sizes. */
+  void release() {
+    resolutionFeature = null;
+    releaseDevice();
+  }
+
+  private void releaseDevice() {
+    mainHandler.removeCallbacks(releaseDevice);
+    if (device != null) {
+      Log.i(TAG, "Releasing the unclaimed camera device " + device.cameraName);
+      device.release();
+      device = null;
+    }
+  }
+
+  /**
+   * A {@link CameraDevice} that is being opened ahead of time.
+   *
+   * <p>Until the device is attached to a camera, its state is kept here and a device that is
+   * disconnected or fails is closed. Once attached, all state changes are forwarded to the camera's
+   * callback on the camera's handler, as if the camera had opened the device itself.
+   *
+   * <p>The state callbacks of the device are run on the main thread, which is also the thread the
+   * device must be attached and released on.
+   */
+  static class PrewarmedDevice extends CameraDevice.StateCallback {
+    private final String cameraName;
+
+    @Nullable private CameraDevice cameraDevice;
+    @Nullable private CameraDevice.StateCallback delegate;
+    @Nullable private Handler delegateHandler;
+    private boolean failed;
+
+    @VisibleForTesting
+    PrewarmedDevice(@NonNull String cameraName) {
+      this.cameraName = cameraName;
+    }
+
+    /**
+     * Attaches the supplied callback to the device. When the device is already open, {@link
+     * CameraDevice.StateCallback#onOpened(CameraDevice)} is posted right away.
+     *
+     * @param callback the callback of the camera taking over the device.
+     * @param handler the handler the callback is run on.
+     * @return false if the device failed to open or has been released, in which case the camera has
+     *     to open the device itself.
+     */
+    boolean attach(@NonNull CameraDevice.StateCallback callback, @NonNull Handler handler) {
+      if (failed) {
+        return false;
+      }
+      delegate = callback;
+      delegateHandler = handler;
+      if (cameraDevice != null) {
+        final CameraDevice device = cameraDevice;
+        handler.post(() -> callback.onOpened(device));
+      }
+      return true;
+    }
+
+    /** Closes the device, unless it has been attached to a camera. */
+    void release() {
+      if (delegate != null) {
+        return;
+      }
+      failed = true;
+      if (cameraDevice != null) {
+        cameraDevice.close();
+        cameraDevice = null;
+      }
+    }
+
+    @Override
+    public void onOpened(@NonNull CameraDevice device) {
+      if (delegate != null) {
+        delegateHandler.post(() -> delegate.onOpened(device));
+      } else if (failed) {
+        // Released while the device was still being opened.
+        device.close();
+      } else {
+        cameraDevice = device;
+      }
+    }
+
+    @Override
+    public void onClosed(@NonNull CameraDevice device) {
+      if (delegate != null) {
+        delegateHandler.post(() -> delegate.onClosed(device));
+      }
+    }
+
+    @Override
+    public void onDisconnected(@NonNull CameraDevice device) {
+      if (delegate != null) {
+        delegateHandler.post(() -> delegate.onDisconnected(device));
+        return;
+      }
+      failed = true;
+      cameraDevice = null;
+      device.close();
+    }
+
+    @Override
+    public void onError(@NonNull CameraDevice device, int error) {
+      if (delegate != null) {
+        delegateHandler.post(() -> delegate.onError(device, error));
+        return;
+      }
+      Log.w(TAG, "Prewarming camera " + cameraName + " failed with error " + error);
+      failed = true;
+      cameraDevice = null;
+      device.close();
+    }
+  }
+}
@@ -8,11 +8,13 @@ import android.graphics.Rect;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.params.StreamConfigurationMap;
 import android.os.Build.VERSION_CODES;
 import android.util.Range;
 import android.util.Rational;
 import android.util.Size;
 import androidx.annotation.RequiresApi;
+import java.util.Set;
 
 /** An interface allowing access to the different characteristics of the device's camera. */
 public interface CameraProperties {
@@ -154,6 +156,18 @@ public interface CameraProperties {
    */
   Float getScalerAvailableMaxDigitalZoom();
 
+  /**
+   * Returns the available stream configurations that this camera device supports, which include the
+   * output sizes of every supported format.
+   *
+   * <p>By default maps to the @see
+   * android.hardware.camera2.CameraCharacteristics#SCALER_STREAM_CONFIGURATION_MAP key.
+   *
+   * @return android.hardware.camera2.params.StreamConfigurationMap The available stream
+   *     configurations of this camera device.
+   */
+  StreamConfigurationMap getScalerStreamConfigurationMap();
+
   /**
    * Returns the area of the image sensor which corresponds to active pixels after any geometric
    * distortion correction has been applied.
@@ -203,6 +217,23 @@ public interface CameraProperties {
    */
   int getSensorOrientation();
 
+  /**
+   * Returns the time base of the sensor timestamps reported in capture results.
+   *
+   * <p><strong>Possible values:</strong>
+   *
+   * <ul>
+   *   <li>@see android.hardware.camera2.CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_UNKNOWN
+   *   <li>@see android.hardware.camera2.CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME
+   * </ul>
+   *
+   * <p>By default maps to the @see
+   * android.hardware.camera2.CameraCharacteristics#SENSOR_INFO_TIMESTAMP_SOURCE key.
+   *
+   * @return int The time base of the sensor timestamps.
+   */
+  int getSensorInfoTimestampSource();
+
   /**
    * Returns a level which generally classifies the overall set of the camera device functionality.
    *
@@ -235,6 +266,18 @@ public interface CameraProperties {
    * @return int[] List of noise reduction modes that are supported by this camera device.
    */
   int[] getAvailableNoiseReductionModes();
+
+  /**
+   * Returns the ids of the physical cameras backing this camera when it is a logical multi-camera.
+   *
+   * <p>By default maps to the @see
+   * android.hardware.camera2.CameraCharacteristics#getPhysicalCameraIds() method.
+   *
+   * @return Set<String> The ids of the physical cameras, empty when this is not a logical
+   *     multi-camera.
+   */
+  @RequiresApi(api = VERSION_CODES.P)
+  Set<String> getPhysicalCameraIds();
 }
 
 /**
@@ -315,6 +358,11 @@ class CameraPropertiesImpl implements CameraProperties {
     return cameraCharacteristics.get(CameraCharacteristics.SCALER_AVAILABLE_MAX_DIGITAL_ZOOM);
   }
 
+  @Override
+  public StreamConfigurationMap getScalerStreamConfigurationMap() {
+    return cameraCharacteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+  }
+
   @Override
   public Rect getSensorInfoActiveArraySize() {
     return cameraCharacteristics.get(CameraCharacteristics.SENSOR_INFO_ACTIVE_ARRAY_SIZE);
@@ -337,6 +385,11 @@ class CameraPropertiesImpl implements CameraProperties {
     return cameraCharacteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
   }
 
+  @Override
+  public int getSensorInfoTimestampSource() {
+    return cameraCharacteristics.get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+  }
+
   @Override
   public int getHardwareLevel() {
     return cameraCharacteristics.get(CameraCharacteristics.INFO_SUPPORTED_HARDWARE_LEVEL);
@@ -347,4 +400,10 @@ class CameraPropertiesImpl implements CameraProperties {
     return cameraCharacteristics.get(
         CameraCharacteristics.NOISE_REDUCTION_AVAILABLE_NOISE_REDUCTION_MODES);
   }
+
+  @RequiresApi(api = VERSION_CODES.P)
+  @Override
+  public Set<String> getPhysicalCameraIds() {
+    return cameraCharacteristics.getPhysicalCameraIds();
+  }
 }
@@ -0,0 +1,283 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Range;
+import android.util.Size;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the camera ids and the {@link CameraProperties} of each camera, so the {@link
+ * android.hardware.camera2.CameraCharacteristics} are only fetched from the camera service once,
+ * instead of every time cameras are listed or created.
+ *
+ * <p>A single instance is shared by the whole process, see {@link #getInstance(Context)}. That
+ * instance listens to camera availability changes and refreshes the list of cameras when a camera
+ * is added or removed, for example when an external camera is plugged in.
+ *
+ * <p>This class is not thread safe and must only be used from the main thread.
+ */
+class CameraPropertiesCache {
+  @Nullable private static CameraPropertiesCache instance;
+
+  private final CameraManager cameraManager;
+  private final Map<String, CameraProperties> cameraProperties = new HashMap<>();
+
+  @Nullable private List<String> cameraNames;
+  @Nullable private List<Map<String, Object>> availableCameras;
+
+  @VisibleForTesting
+  final CameraManager.AvailabilityCallback availabilityCallback =
+      new CameraManager.AvailabilityCallback() {
+        @Override
+        public void onCameraAvailable(@NonNull String cameraId) {
+          // This is also called when a camera is closed by any app, which does not change the
+          // cached values, so only unknown cameras invalidate the list.
+          if (cameraNames != null && !cameraNames.contains(cameraId)) {
+            invalidateCameraNames();
+          }
+        }
+
+        @Override
+        public void onCameraUnavailable(@NonNull String cameraId) {
+          // Opening and removing a camera cannot be told apart, so the camera ids are fetched
+          // again.
+          // This does not fetch the characteristics of the cameras that are still present.
+          invalidateCameraNames();
+        }
+      };
+
+  /**
+   * Gets the instance shared by the whole process, creating it on first use.
+   *
+   * @param context any context, the application context is used to access the camera service.
+   * @return the shared instance.
+   */
+  @NonNull
+  static CameraPropertiesCache getInstance(@NonNull Context context) {
+    if (instance == null) {
+      instance =
+          new CameraPropertiesCache(CameraUtils.getCameraManager(context.getApplicationContext()));
+      // The instance lives as long as the process, so the callback is never unregistered.
+      instance.cameraManager.registerAvailabilityCallback(
+          instance.availabilityCallback, new Handler(Looper.getMainLooper()));
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a new instance of the {@link CameraPropertiesCache}.
+   *
+   * @param cameraManager the {@link CameraManager} used to fetch the camera characteristics.
+   */
+  CameraPropertiesCache(@NonNull CameraManager cameraManager) {
+    this.cameraManager = cameraManager;
+  }
+
+  /** Gets the {@link CameraManager} the properties are fetched from. */
+  @NonNull
+  CameraManager getCameraManager() {
+    return cameraManager;
+  }
+
+  /**
+   * Gets the ids of all cameras, fetching them when they are not cached yet.
+   *
+   * @return the ids of all cameras.
+   * @throws CameraAccessException when the camera ids could not be fetched.
+   */
+  @NonNull
+  List<String> getCameraNames() throws CameraAccessException {
+    if (cameraNames == null) {
+      cameraNames = Collections.unmodifiableList(Arrays.asList(cameraManager.getCameraIdList()));
+      // Drop the properties of cameras that have been removed.
+      cameraProperties.keySet().retainAll(cameraNames);
+    }
+    return cameraNames;
+  }
+
+  /**
+   * Gets the properties of the supplied camera, fetching them when they are not cached yet.
+   *
+   * @param cameraName the name of the camera.
+   * @return the properties of the camera.
+   * @throws CameraAccessException when the characteristics of the camera could not be fetched.
+   */
+  @NonNull
+  CameraProperties get(@NonNull String cameraName) throws CameraAccessException {
+    CameraProperties properties = cameraProperties.get(cameraName);
+    if (properties == null) {
+      properties = new CameraPropertiesImpl(cameraName, cameraManager);
+      cameraProperties.put(cameraName, properties);
+    }
+    return properties;
+  }
+
+  /**
+   * Gets the description of all cameras that can be used by this plugin, in the format sent to
+   * Dart. The descriptions are built once and reused until the list of cameras changes.
+   *
+   * <p>Besides the name, sensor orientation and lens facing, each description contains the hardware
+   * level, the supported preview and picture sizes and the supported fps ranges of the camera, and
+   * on API 28 and above the names of the physical cameras of a logical multi-camera.
+   *
+   * @return the descriptions of all cameras.
+   * @throws CameraAccessException when the cameras could not be accessed.
+   */
+  @NonNull
+  List<Map<String, Object>> getAvailableCameras() throws CameraAccessException {
+    if (availableCameras == null) {
+      List<Map<String, Object>> cameras = new ArrayList<>();
+      for (String cameraName : getCameraNames()) {
+        int cameraId;
+        try {
+          cameraId = Integer.parseInt(cameraName, 10);
+        } catch (NumberFormatException e) {
+          cameraId = -1;
+        }
+        if (cameraId < 0) {
+          continue;
+        }
+        cameras.add(describeCamera(get(cameraName)));
+      }
+      availableCameras = Collections.unmodifiableList(cameras);
+    }
+    return availableCameras;
+  }
+
+  /**
+   * Gets the combinations of cameras that can stream at the same time.
+   *
+   * <p>These combinations are only reported on API 30 and above. Below that an empty list is
+   * returned, and whether two cameras can stream at the same time is only known by trying.
+   *
+   * @return the names of the cameras of each combination.
+   * @throws CameraAccessException when the combinations could not be fetched.
+   */
+  @NonNull
+  List<List<String>> getConcurrentCameraNames() throws CameraAccessException {
+    List<List<String>> combinations = new ArrayList<>();
+    if (VERSION.SDK_INT < VERSION_CODES.R) {
+      return combinations;
+    }
+    for (Set<String> cameraNames : cameraManager.getConcurrentCameraIds()) {
+      combinations.add(new ArrayList<>(cameraNames));
+    }
+    return combinations;
+  }
+
+  /** Removes all cached values, they are fetched again when they are next requested. */
+  void invalidate() {
+    cameraProperties.clear();
+    invalidateCameraNames();
+  }
+
+  private void invalidateCameraNames() {
+    cameraNames = null;
+    availableCameras = null;
+  }
+
+  @VisibleForTesting
+  static Map<String, Object> describeCamera(CameraProperties cameraProperties) {
+    Map<String, Object> details = new HashMap<>();
+    details.put("name", cameraProperties.getCameraName());
+    details.put("sensorOrientation", cameraProperties.getSensorOrientation());
+
+    int lensFacing = cameraProperties.getLensFacing();
+    switch (lensFacing) {
+      case CameraMetadata.LENS_FACING_FRONT:
+        details.put("lensFacing", "front");
+        break;
+      case CameraMetadata.LENS_FACING_BACK:
+        details.put("lensFacing", "back");
+        break;
+      case CameraMetadata.LENS_FACING_EXTERNAL:
+        details.put("lensFacing", "external");
+        break;
+    }
+
+    details.put("hardwareLevel", serializeHardwareLevel(cameraProperties.getHardwareLevel()));
+    if (VERSION.SDK_INT >= VERSION_CODES.P) {
+      // Empty unless the camera is a logical multi-camera.
+      details.put("physicalCameraNames", new ArrayList<>(cameraProperties.getPhysicalCameraIds()));
+    }
+
+    StreamConfigurationMap configurationMap = cameraProperties.getScalerStreamConfigurationMap();
+    details.put(
+        "previewSizes",
+        serializeSizes(
+            configurationMap == null
+                ? null
+                : configurationMap.getOutputSizes(SurfaceTexture.class)));
+    details.put(
+        "pictureSizes",
+        serializeSizes(
+            configurationMap == null ? null : configurationMap.getOutputSizes(ImageFormat.JPEG)));
+
+    List<Map<String, Object>> fpsRanges = new ArrayList<>();
+    Range<Integer>[] ranges = cameraProperties.getControlAutoExposureAvailableTargetFpsRanges();
+    if (ranges != null) {
+      for (Range<Integer> range : ranges) {
+        Map<String, Object> fpsRange = new HashMap<>();
+        fpsRange.put("min", range.getLower());
+        fpsRange.put("max", range.getUpper());
+        fpsRanges.add(fpsRange);
+      }
+    }
+    details.put("fpsRanges", fpsRanges);
+    return details;
+  }
+
+  private static List<Map<String, Object>> serializeSizes(@Nullable Size[] sizes) {
+    List<Map<String, Object>> serialized = new ArrayList<>();
+    if (sizes == null) {
+      return serialized;
+    }
+    for (Size size : sizes) {
+      Map<String, Object> serializedSize = new HashMap<>();
+      serializedSize.put("width", size.getWidth());
+      serializedSize.put("height", size.getHeight());
+      serialized.add(serializedSize);
+    }
+    return serialized;
+  }
+
+  private static String serializeHardwareLevel(int hardwareLevel) {
+    switch (hardwareLevel) {
+      case CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_LEGACY:
+        return "legacy";
+      case CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_LIMITED:
+        return "limited";
+      case CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_FULL:
+        return "full";
+      case CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_3:
+        return "level3";
+      case CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_EXTERNAL:
+        return "external";
+      default:
+        return "unknown";
+    }
+  }
+}
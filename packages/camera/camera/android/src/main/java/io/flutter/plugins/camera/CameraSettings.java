@@ -0,0 +1,121 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugins.camera.features.Point;
+import io.flutter.plugins.camera.features.autofocus.FocusMode;
+import io.flutter.plugins.camera.features.exposurelock.ExposureMode;
+import io.flutter.plugins.camera.features.flash.FlashMode;
+import java.util.Map;
+
+/**
+ * A set of camera settings that are applied together by {@link Camera#setCameraSettings}. Settings
+ * that are null are left unchanged.
+ */
+class CameraSettings {
+  @Nullable final FlashMode flashMode;
+  @Nullable final ExposureMode exposureMode;
+  @Nullable final Point exposurePoint;
+  @Nullable final Double exposureOffset;
+  @Nullable final FocusMode focusMode;
+  @Nullable final Point focusPoint;
+  @Nullable final Float zoomLevel;
+
+  /**
+   * Creates a new instance of the {@link CameraSettings}.
+   *
+   * @param flashMode the new flash mode.
+   * @param exposureMode the new exposure mode.
+   * @param exposurePoint the new exposure point, a point with null coordinates resets it.
+   * @param exposureOffset the new exposure offset.
+   * @param focusMode the new focus mode.
+   * @param focusPoint the new focus point, a point with null coordinates resets it.
+   * @param zoomLevel the new zoom level.
+   */
+  CameraSettings(
+      @Nullable FlashMode flashMode,
+      @Nullable ExposureMode exposureMode,
+      @Nullable Point exposurePoint,
+      @Nullable Double exposureOffset,
+      @Nullable FocusMode focusMode,
+      @Nullable Point focusPoint,
+      @Nullable Float zoomLevel) {
+    this.flashMode = flashMode;
+    this.exposureMode = exposureMode;
+    this.exposurePoint = exposurePoint;
+    this.exposureOffset = exposureOffset;
+    this.focusMode = focusMode;
+    this.focusPoint = focusPoint;
+    this.zoomLevel = zoomLevel;
+  }
+
+  /**
+   * Creates the settings from the arguments of a {@code setCameraSettings} call.
+   *
+   * <p>Keys that are missing leave their setting unchanged. The {@code exposurePoint} and {@code
+   * focusPoint} keys hold a map with {@code x} and {@code y} values, or null to reset the point.
+   *
+   * @param arguments the arguments of the call.
+   * @return the parsed settings.
+   * @throws IllegalArgumentException when a mode is unknown.
+   */
+  @NonNull
+  static CameraSettings fromArguments(@NonNull Map<String, Object> arguments) {
+    String flashModeStr = (String) arguments.get("flashMode");
+    FlashMode flashMode = null;
+    if (flashModeStr != null) {
+      flashMode = FlashMode.getValueForString(flashModeStr);
+      if (flashMode == null) {
+        throw new IllegalArgumentException("Unknown flash mode " + flashModeStr);
+      }
+    }
+
+    String exposureModeStr = (String) arguments.get("exposureMode");
+    ExposureMode exposureMode = null;
+    if (exposureModeStr != null) {
+      exposureMode = ExposureMode.getValueForString(exposureModeStr);
+      if (exposureMode == null) {
+        throw new IllegalArgumentException("Unknown exposure mode " + exposureModeStr);
+      }
+    }
+
+    String focusModeStr = (String) arguments.get("focusMode");
+    FocusMode focusMode = null;
+    if (focusModeStr != null) {
+      focusMode = FocusMode.getValueForString(focusModeStr);
+      if (focusMode == null) {
+        throw new IllegalArgumentException("Unknown focus mode " + focusModeStr);
+      }
+    }
+
+    Number exposureOffset = (Number) arguments.get("exposureOffset");
+    Number zoomLevel = (Number) arguments.get("zoomLevel");
+    return new CameraSettings(
+        flashMode,
+        exposureMode,
+        parsePoint(arguments, "exposurePoint"),
+        exposureOffset == null ? null : exposureOffset.doubleValue(),
+        focusMode,
+        parsePoint(arguments, "focusPoint"),
+        zoomLevel == null ? null : zoomLevel.floatValue());
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static Point parsePoint(@NonNull Map<String, Object> arguments, @NonNull String key) {
+    if (!arguments.containsKey(key)) {
+      return null;
+    }
+    Map<String, Object> point = (Map<String, Object>) arguments.get(key);
+    if (point == null) {
+      return new Point(null, null);
+    }
+    Number x = (Number) point.get("x");
+    Number y = (Number) point.get("y");
+    return new Point(x == null ? null : x.doubleValue(), y == null ? null : y.doubleValue());
+  }
+}
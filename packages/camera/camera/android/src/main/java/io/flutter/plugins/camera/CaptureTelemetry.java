@@ -0,0 +1,201 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.hardware.camera2.CaptureResult;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects per-frame timing information from the completed capture results of the repeating preview
+ * request, and sends it to Dart in batches of a fixed number of frames.
+ *
+ * <p>For every frame the frame number, sensor timestamp, frame duration and capture-to-delivery
+ * latency are recorded. Dropped frames are detected from gaps in the frame numbers and from sensor
+ * timestamps that are further apart than the frame duration allows. Changes of the auto-exposure
+ * and auto-focus states are recorded as transitions.
+ *
+ * <p>All buffers are allocated once, so recording a frame does not allocate. This class is not
+ * thread safe and must only be used from the camera background thread.
+ */
+class CaptureTelemetry {
+  /** The number of frames sent in a single telemetry event when no other number is requested. */
+  static final int DEFAULT_FRAMES_PER_BATCH = 30;
+
+  /** The state reported for AE and AF when a capture result does not contain it. */
+  @VisibleForTesting static final int STATE_UNKNOWN = -1;
+
+  /**
+   * Frames further apart than this multiple of the frame duration are considered to have dropped
+   * frames between them.
+   */
+  private static final double GAP_THRESHOLD = 1.5;
+
+  private final DartMessenger dartMessenger;
+  private final int framesPerBatch;
+  private final boolean realtimeTimestamps;
+
+  private final long[] frameNumbers;
+  private final long[] timestamps;
+  private final long[] frameDurations;
+  private final long[] latencies;
+  private int frameCount;
+
+  // Pairs of the frame number following the gap and the number of dropped frames.
+  private final long[] gaps;
+  private int gapCount;
+
+  // Triples of the frame timestamp, the previous state and the new state.
+  private final long[] aeTransitions;
+  private int aeTransitionCount;
+  private final long[] afTransitions;
+  private int afTransitionCount;
+
+  private long lastFrameNumber = -1;
+  private long lastTimestampNs;
+  private long lastFrameDurationNs;
+  private int lastAeState = STATE_UNKNOWN;
+  private int lastAfState = STATE_UNKNOWN;
+
+  /**
+   * Creates a new instance of the {@link CaptureTelemetry}.
+   *
+   * @param dartMessenger the messenger used to send the telemetry events.
+   * @param framesPerBatch the number of frames sent in a single telemetry event.
+   * @param realtimeTimestamps whether the sensor timestamps use the {@link
+   *     SystemClock#elapsedRealtimeNanos()} time base instead of the {@link System#nanoTime()} one.
+   * @throws IllegalArgumentException when framesPerBatch is not positive.
+   */
+  CaptureTelemetry(
+      @NonNull DartMessenger dartMessenger, int framesPerBatch, boolean realtimeTimestamps) {
+    if (framesPerBatch <= 0) {
+      throw new IllegalArgumentException("framesPerBatch must be positive.");
+    }
+    this.dartMessenger = dartMessenger;
+    this.framesPerBatch = framesPerBatch;
+    this.realtimeTimestamps = realtimeTimestamps;
+    frameNumbers = new long[framesPerBatch];
+    timestamps = new long[framesPerBatch];
+    frameDurations = new long[framesPerBatch];
+    latencies = new long[framesPerBatch];
+    gaps = new long[framesPerBatch * 2];
+    aeTransitions = new long[framesPerBatch * 3];
+    afTransitions = new long[framesPerBatch * 3];
+  }
+
+  /**
+   * Records the timing of a completed capture.
+   *
+   * @param result the completed capture result.
+   */
+  void onCaptureCompleted(@NonNull CaptureResult result) {
+    // The delivery time is read first so the latency does not include the time spent here.
+    long deliveryNs = realtimeTimestamps ? SystemClock.elapsedRealtimeNanos() : System.nanoTime();
+    Long timestamp = result.get(CaptureResult.SENSOR_TIMESTAMP);
+    if (timestamp == null) {
+      return;
+    }
+    Long frameDuration = result.get(CaptureResult.SENSOR_FRAME_DURATION);
+    Integer aeState = result.get(CaptureResult.CONTROL_AE_STATE);
+    Integer afState = result.get(CaptureResult.CONTROL_AF_STATE);
+    record(
+        result.getFrameNumber(),
+        timestamp,
+        frameDuration == null ? 0 : frameDuration,
+        aeState == null ? STATE_UNKNOWN : aeState,
+        afState == null ? STATE_UNKNOWN : afState,
+        deliveryNs);
+  }
+
+  /**
+   * Records the timing of a single frame, and sends the batch once it is full.
+   *
+   * @param frameNumber the frame number of the capture result.
+   * @param timestampNs the sensor timestamp of the start of the exposure.
+   * @param frameDurationNs the frame duration reported by the sensor, 0 if unknown.
+   * @param aeState the auto-exposure state, {@link #STATE_UNKNOWN} if unknown.
+   * @param afState the auto-focus state, {@link #STATE_UNKNOWN} if unknown.
+   * @param deliveryNs the time the result was delivered, in the time base of the sensor.
+   */
+  @VisibleForTesting
+  void record(
+      long frameNumber,
+      long timestampNs,
+      long frameDurationNs,
+      int aeState,
+      int afState,
+      long deliveryNs) {
+    if (lastFrameNumber >= 0) {
+      long dropped = frameNumber - lastFrameNumber - 1;
+      if (dropped <= 0 && lastFrameDurationNs > 0) {
+        long delta = timestampNs - lastTimestampNs;
+        if (delta > lastFrameDurationNs * GAP_THRESHOLD) {
+          dropped = Math.max(1, Math.round((double) delta / lastFrameDurationNs) - 1);
+        }
+      }
+      if (dropped > 0) {
+        gaps[gapCount * 2] = frameNumber;
+        gaps[gapCount * 2 + 1] = dropped;
+        gapCount++;
+      }
+    }
+    if (aeState != lastAeState) {
+      aeTransitionCount =
+          addTransition(aeTransitions, aeTransitionCount, timestampNs, lastAeState, aeState);
+      lastAeState = aeState;
+    }
+    if (afState != lastAfState) {
+      afTransitionCount =
+          addTransition(afTransitions, afTransitionCount, timestampNs, lastAfState, afState);
+      lastAfState = afState;
+    }
+
+    frameNumbers[frameCount] = frameNumber;
+    timestamps[frameCount] = timestampNs;
+    frameDurations[frameCount] = frameDurationNs;
+    latencies[frameCount] = deliveryNs - timestampNs;
+    frameCount++;
+
+    lastFrameNumber = frameNumber;
+    lastTimestampNs = timestampNs;
+    lastFrameDurationNs = frameDurationNs;
+
+    if (frameCount == framesPerBatch) {
+      flush();
+    }
+  }
+
+  private static int addTransition(
+      long[] transitions, int count, long timestampNs, int oldState, int newState) {
+    transitions[count * 3] = timestampNs;
+    transitions[count * 3 + 1] = oldState;
+    transitions[count * 3 + 2] = newState;
+    return count + 1;
+  }
+
+  /** Sends the frames recorded since the last telemetry event, if there are any. */
+  void flush() {
+    if (frameCount == 0) {
+      return;
+    }
+    Map<String, Object> event = new HashMap<>();
+    event.put("frameNumbers", Arrays.copyOf(frameNumbers, frameCount));
+    event.put("timestamps", Arrays.copyOf(timestamps, frameCount));
+    event.put("frameDurations", Arrays.copyOf(frameDurations, frameCount));
+    event.put("latencies", Arrays.copyOf(latencies, frameCount));
+    event.put("gaps", Arrays.copyOf(gaps, gapCount * 2));
+    event.put("aeTransitions", Arrays.copyOf(aeTransitions, aeTransitionCount * 3));
+    event.put("afTransitions", Arrays.copyOf(afTransitions, afTransitionCount * 3));
+    frameCount = 0;
+    gapCount = 0;
+    aeTransitionCount = 0;
+    afTransitionCount = 0;
+    dartMessenger.sendCaptureTelemetryEvent(event);
+  }
+}
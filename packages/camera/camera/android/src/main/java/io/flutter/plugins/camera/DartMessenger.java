@@ -13,6 +13,8 @@ import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugins.camera.features.autofocus.FocusMode;
 import io.flutter.plugins.camera.features.exposurelock.ExposureMode;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,6 +24,13 @@ public class DartMessenger {
   @Nullable private MethodChannel cameraChannel;
   @Nullable private MethodChannel deviceChannel;
 
+  /** The arguments of the orientation event of every orientation, which never change. */
+  private final Map<PlatformChannel.DeviceOrientation, Map<String, Object>> orientationEventArgs =
+      new EnumMap<>(PlatformChannel.DeviceOrientation.class);
+
+  private final CoalescedEvent orientationChangedEvent =
+      new CoalescedEvent(DeviceEventType.ORIENTATION_CHANGED.method);
+
   /** Specifies the different device related message types. */
   enum DeviceEventType {
     /** Indicates the device's orientation has changed. */
@@ -40,7 +49,11 @@ public class DartMessenger {
     /** Indicates that the camera is closing. */
     CLOSING("camera_closing"),
     /** Indicates that the camera is initialized. */
-    INITIALIZED("initialized");
+    INITIALIZED("initialized"),
+    /** Indicates that a batch of capture telemetry is available. */
+    CAPTURE_TELEMETRY("capture_telemetry"),
+    /** Indicates that the preview configuration was adapted to the load of the device. */
+    PREVIEW_ADAPTED("preview_adapted");
 
     private final String method;
 
@@ -67,22 +80,27 @@ public class DartMessenger {
     cameraChannel = new MethodChannel(messenger, "flutter.io/cameraPlugin/camera" + cameraId);
     deviceChannel = new MethodChannel(messenger, "flutter.io/cameraPlugin/device");
     this.handler = handler;
+
+    for (PlatformChannel.DeviceOrientation orientation :
+        PlatformChannel.DeviceOrientation.values()) {
+      orientationEventArgs.put(
+          orientation,
+          Collections.<String, Object>singletonMap(
+              "orientation", CameraUtils.serializeDeviceOrientation(orientation)));
+    }
   }
 
   /**
    * Sends a message to the Flutter client informing the orientation of the device has been changed.
    *
+   * <p>Orientation changes that follow each other before the main thread delivered the first one
+   * are coalesced, only the latest orientation is sent.
+   *
    * @param orientation specifies the new orientation of the device.
    */
   public void sendDeviceOrientationChangeEvent(PlatformChannel.DeviceOrientation orientation) {
     assert (orientation != null);
-    this.send(
-        DeviceEventType.ORIENTATION_CHANGED,
-        new HashMap<String, Object>() {
-          {
-            put("orientation", CameraUtils.serializeDeviceOrientation(orientation));
-          }
-        });
+    orientationChangedEvent.send(orientationEventArgs.get(orientation));
   }
 
   /**
@@ -108,18 +126,14 @@ public class DartMessenger {
     assert (focusMode != null);
     assert (exposurePointSupported != null);
     assert (focusPointSupported != null);
-    this.send(
-        CameraEventType.INITIALIZED,
-        new HashMap<String, Object>() {
-          {
-            put("previewWidth", previewWidth.doubleValue());
-            put("previewHeight", previewHeight.doubleValue());
-            put("exposureMode", exposureMode.toString());
-            put("focusMode", focusMode.toString());
-            put("exposurePointSupported", exposurePointSupported);
-            put("focusPointSupported", focusPointSupported);
-          }
-        });
+    Map<String, Object> args = new HashMap<>(8);
+    args.put("previewWidth", previewWidth.doubleValue());
+    args.put("previewHeight", previewHeight.doubleValue());
+    args.put("exposureMode", exposureMode.toString());
+    args.put("focusMode", focusMode.toString());
+    args.put("exposurePointSupported", exposurePointSupported);
+    args.put("focusPointSupported", focusPointSupported);
+    this.send(CameraEventType.INITIALIZED, args);
   }
 
   /** Sends a message to the Flutter client informing that the camera is closing. */
@@ -136,47 +150,59 @@ public class DartMessenger {
   void sendCameraErrorEvent(@Nullable String description) {
     this.send(
         CameraEventType.ERROR,
-        new HashMap<String, Object>() {
-          {
-            if (!TextUtils.isEmpty(description)) put("description", description);
-          }
-        });
+        TextUtils.isEmpty(description)
+            ? Collections.<String, Object>emptyMap()
+            : Collections.<String, Object>singletonMap("description", description));
   }
 
-  private void send(CameraEventType eventType) {
-    send(eventType, new HashMap<>());
+  /**
+   * Sends a message to the Flutter client with the timing information of a batch of captured
+   * frames.
+   *
+   * @param telemetry the telemetry of the batch, see {@link CaptureTelemetry}.
+   */
+  void sendCaptureTelemetryEvent(@NonNull Map<String, Object> telemetry) {
+    send(CameraEventType.CAPTURE_TELEMETRY, telemetry);
   }
 
-  private void send(CameraEventType eventType, Map<String, Object> args) {
-    if (cameraChannel == null) {
-      return;
-    }
-
-    handler.post(
-        new Runnable() {
-          @Override
-          public void run() {
-            cameraChannel.invokeMethod(eventType.method, args);
-          }
-        });
+  /**
+   * Sends a message to the Flutter client informing that the preview was stepped down to a cheaper
+   * configuration or back up.
+   *
+   * @param level the adaptation level, 0 being the configuration the camera was created with.
+   * @param reason why the configuration changed.
+   * @param previewWidth the width of the preview.
+   * @param previewHeight the height of the preview.
+   * @param minFps the lower bound of the target fps range.
+   * @param maxFps the upper bound of the target fps range.
+   */
+  void sendPreviewAdaptedEvent(
+      int level,
+      @NonNull String reason,
+      int previewWidth,
+      int previewHeight,
+      int minFps,
+      int maxFps) {
+    Map<String, Object> args = new HashMap<>(8);
+    args.put("level", level);
+    args.put("reason", reason);
+    args.put("previewWidth", (double) previewWidth);
+    args.put("previewHeight", (double) previewHeight);
+    args.put("minFps", minFps);
+    args.put("maxFps", maxFps);
+    send(CameraEventType.PREVIEW_ADAPTED, args);
   }
 
-  private void send(DeviceEventType eventType) {
-    send(eventType, new HashMap<>());
+  private void send(CameraEventType eventType) {
+    send(eventType, Collections.<String, Object>emptyMap());
   }
 
-  private void send(DeviceEventType eventType, Map<String, Object> args) {
-    if (deviceChannel == null) {
+  private void send(CameraEventType eventType, Map<String, Object> args) {
+    if (cameraChannel == null) {
       return;
     }
 
-    handler.post(
-        new Runnable() {
-          @Override
-          public void run() {
-            deviceChannel.invokeMethod(eventType.method, args);
-          }
-        });
+    handler.post(() -> cameraChannel.invokeMethod(eventType.method, args));
   }
 
   /**
@@ -202,4 +228,56 @@ public class DartMessenger {
       @Nullable Object errorDetails) {
     handler.post(() -> result.error(errorCode, errorMessage, errorDetails));
   }
+
+  /**
+   * Send a not implemented response to a {@link MethodChannel.Result} on the main thread.
+   *
+   * @param result the result receiving the response.
+   */
+  public void notImplemented(MethodChannel.Result result) {
+    handler.post(result::notImplemented);
+  }
+
+  /**
+   * A device event of which only the latest value matters, such as an orientation change.
+   *
+   * <p>Only one delivery of the event is posted to the main thread at a time. Values sent while a
+   * delivery is waiting replace the waiting value, so a burst of events within one frame costs a
+   * single message and no allocations.
+   */
+  private class CoalescedEvent implements Runnable {
+    private final String method;
+    @Nullable private Map<String, Object> pendingArgs;
+
+    private CoalescedEvent(String method) {
+      this.method = method;
+    }
+
+    void send(@NonNull Map<String, Object> args) {
+      if (deviceChannel == null) {
+        return;
+      }
+
+      boolean post;
+      synchronized (this) {
+        post = pendingArgs == null;
+        pendingArgs = args;
+      }
+      if (post) {
+        handler.post(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      Map<String, Object> args;
+      synchronized (this) {
+        args = pendingArgs;
+        pendingArgs = null;
+      }
+      if (args != null && deviceChannel != null) {
+        deviceChannel.invokeMethod(method, args);
+      }
+    }
+  }
 }
@@ -6,21 +6,32 @@ package io.flutter.plugins.camera;
 
 import android.media.Image;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
-/** Saves a JPEG {@link Image} into the specified {@link File}. */
+/**
+ * Saves a JPEG {@link Image} into the specified {@link File}, or copies it into memory when no file
+ * is specified.
+ *
+ * <p>The image buffer is written to the file through a {@link FileChannel}, so the JPEG is never
+ * copied into an intermediate array.
+ */
 public class ImageSaver implements Runnable {
 
   /** The JPEG image */
   private final Image image;
 
-  /** The file we save the image into. */
-  private final File file;
+  /** The file we save the image into, or null to keep the image in memory. */
+  @Nullable private final File file;
+
+  /** Whether the file is synced to the storage device before completing. */
+  private final boolean sync;
 
   /** Used to report the status of the save action. */
   private final Callback callback;
@@ -33,20 +44,46 @@ public class ImageSaver implements Runnable {
    * @param callback - The callback that is run on completion, or when an error is encountered.
    */
   ImageSaver(@NonNull Image image, @NonNull File file, @NonNull Callback callback) {
+    this(image, file, false, callback);
+  }
+
+  /**
+   * Creates an instance of the ImageSaver runnable
+   *
+   * @param image - The image to save
+   * @param file - The file to save the image to, or null to return the image bytes through {@link
+   *     Callback#onCompleteInMemory(byte[])} without touching the disk
+   * @param sync - Whether the file contents are forced to the storage device before completing
+   * @param callback - The callback that is run on completion, or when an error is encountered.
+   */
+  ImageSaver(@NonNull Image image, @Nullable File file, boolean sync, @NonNull Callback callback) {
     this.image = image;
     this.file = file;
+    this.sync = sync;
     this.callback = callback;
   }
 
   @Override
   public void run() {
     ByteBuffer buffer = image.getPlanes()[0].getBuffer();
-    byte[] bytes = new byte[buffer.remaining()];
-    buffer.get(bytes);
+    if (file == null) {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      image.close();
+      callback.onCompleteInMemory(bytes);
+      return;
+    }
+
     FileOutputStream output = null;
     try {
       output = FileOutputStreamFactory.create(file);
-      output.write(bytes);
+      FileChannel channel = output.getChannel();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      if (sync) {
+        channel.force(false);
+      }
 
       callback.onComplete(file.getAbsolutePath());
 
@@ -76,6 +113,13 @@ public class ImageSaver implements Runnable {
      */
     void onComplete(String absolutePath);
 
+    /**
+     * Called when the image has been copied into memory, because no file was specified.
+     *
+     * @param bytes - The JPEG encoded image.
+     */
+    void onCompleteInMemory(byte[] bytes);
+
     /**
      * Called when an error is encountered while saving the image file.
      *
@@ -6,6 +6,8 @@ package io.flutter.plugins.camera;
 
 import android.app.Activity;
 import android.hardware.camera2.CameraAccessException;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
 import android.os.Handler;
 import android.os.Looper;
 import androidx.annotation.NonNull;
@@ -17,17 +19,27 @@ import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.Result;
 import io.flutter.plugins.camera.CameraPermissions.PermissionsRegistry;
-import io.flutter.plugins.camera.features.CameraFeatureFactoryImpl;
 import io.flutter.plugins.camera.features.Point;
 import io.flutter.plugins.camera.features.autofocus.FocusMode;
 import io.flutter.plugins.camera.features.exposurelock.ExposureMode;
 import io.flutter.plugins.camera.features.flash.FlashMode;
 import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+import io.flutter.plugins.camera.features.sensororientation.OrientationTrackingMode;
+import io.flutter.plugins.camera.media.BinaryImageStreamSender;
+import io.flutter.plugins.camera.media.ImageStreamPolicy;
+import io.flutter.plugins.camera.media.ImageStreamProcessor;
+import io.flutter.plugins.camera.media.PictureOptions;
+import io.flutter.plugins.camera.media.VideoEncoderSettings;
 import io.flutter.view.TextureRegistry;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
+  private static final String IMAGE_STREAM_CHANNEL = "plugins.flutter.io/camera/imageStream";
+  private static final String IMAGE_STREAM_FRAMES_CHANNEL =
+      "plugins.flutter.io/camera/imageStream/frames";
+
   private final Activity activity;
   private final BinaryMessenger messenger;
   private final CameraPermissions cameraPermissions;
@@ -35,7 +47,17 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
   private final TextureRegistry textureRegistry;
   private final MethodChannel methodChannel;
   private final EventChannel imageStreamChannel;
-  private @Nullable Camera camera;
+  /** Handler of the main thread, shared by the messengers and image streams of all cameras. */
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  /** The live cameras, keyed by the id of the texture they render their preview to. */
+  private final Map<Long, Camera> cameras = new HashMap<>();
+  /** Releases the devices of the cameras while the activity is paused. */
+  private final CameraLifecycleManager lifecycleManager;
+
+  /** The camera that last started streaming on the shared image stream channels. */
+  private @Nullable Camera sharedImageStreamCamera;
+
+  private @Nullable CameraPrewarmer cameraPrewarmer;
 
   MethodCallHandlerImpl(
       Activity activity,
@@ -50,26 +72,72 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
     this.textureRegistry = textureRegistry;
 
     methodChannel = new MethodChannel(messenger, "plugins.flutter.io/camera");
-    imageStreamChannel = new EventChannel(messenger, "plugins.flutter.io/camera/imageStream");
+    imageStreamChannel = new EventChannel(messenger, IMAGE_STREAM_CHANNEL);
     methodChannel.setMethodCallHandler(this);
+    lifecycleManager = new CameraLifecycleManager(activity, cameras.values());
+    lifecycleManager.start();
   }
 
   @Override
   public void onMethodCall(@NonNull MethodCall call, @NonNull final Result result) {
+    final Camera camera = getCamera(call);
+    if (camera == null && requiresCamera(call.method)) {
+      result.error(
+          "cameraNotFound",
+          "Camera not found. Pass the cameraId returned by 'create' when several cameras are live.",
+          null);
+      return;
+    }
     switch (call.method) {
       case "availableCameras":
         try {
-          result.success(CameraUtils.getAvailableCameras(activity));
+          result.success(getCameraPropertiesCache().getAvailableCameras());
         } catch (Exception e) {
           handleException(e, result);
         }
         break;
-      case "create":
+      case "getConcurrentCameras":
+        try {
+          result.success(getCameraPropertiesCache().getConcurrentCameraNames());
+        } catch (Exception e) {
+          handleException(e, result);
+        }
+        break;
+      case "prewarm":
         {
-          if (camera != null) {
-            camera.close();
+          String cameraName = call.argument("cameraName");
+          String preset = call.argument("resolutionPreset");
+          Boolean openDevice = call.argument("openDevice");
+          if (cameraName == null) {
+            result.error("prewarmFailed", "prewarm is called without specifying a camera.", null);
+            return;
           }
 
+          // Opening another device could evict the device of an active camera, and opening the
+          // device requires the camera permission, which prewarming never requests.
+          boolean canOpenDevice =
+              !isAnyDeviceOpen() && cameraPermissions.hasCameraPermission(activity);
+          try {
+            getCameraPrewarmer()
+                .prewarm(
+                    cameraName,
+                    preset == null ? null : ResolutionPreset.valueOf(preset),
+                    openDevice != null && openDevice && canOpenDevice);
+            result.success(null);
+          } catch (Exception e) {
+            handleException(e, result);
+          }
+          break;
+        }
+      case "create":
+        {
+          Boolean concurrent = call.argument("concurrent");
+          if (concurrent == null || !concurrent) {
+            // The new camera replaces the live ones.
+            disposeCameras();
+          }
+          // Otherwise cameras that are already live keep running, the camera service evicts their
+          // device if the hardware cannot run it concurrently with the new one.
           cameraPermissions.requestPermissions(
               activity,
               permissionsRegistry,
@@ -106,7 +174,49 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
         }
       case "takePicture":
         {
-          camera.takePicture(result);
+          Boolean sync = call.argument("sync");
+          Boolean inMemory = call.argument("inMemory");
+          PictureOptions options;
+          try {
+            options =
+                PictureOptions.fromArguments(
+                    call.argument("format"),
+                    call.argument("quality"),
+                    call.argument("maxDimension"));
+          } catch (IllegalArgumentException e) {
+            result.error("takePictureFailed", e.getMessage(), null);
+            break;
+          }
+          camera.takePicture(result, sync != null && sync, inMemory != null && inMemory, options);
+          break;
+        }
+      case "takePictureBurst":
+        {
+          Integer count = call.argument("count");
+          Integer intervalMs = call.argument("intervalMs");
+          Boolean sync = call.argument("sync");
+          Boolean inMemory = call.argument("inMemory");
+          camera.takePictureBurst(
+              result,
+              count == null ? 1 : count,
+              intervalMs == null ? 0 : intervalMs,
+              sync != null && sync,
+              inMemory != null && inMemory);
+          break;
+        }
+      case "setZeroShutterLagEnabled":
+        {
+          Boolean enabled = call.argument("enabled");
+          try {
+            result.success(camera.setZeroShutterLagEnabled(enabled != null && enabled));
+          } catch (Exception e) {
+            handleException(e, result);
+          }
+          break;
+        }
+      case "getLastPictureSaveLatency":
+        {
+          result.success(camera.getLastPictureSaveLatencyMicros());
           break;
         }
       case "prepareForVideoRecording":
@@ -117,7 +227,23 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
         }
       case "startVideoRecording":
         {
-          camera.startVideoRecording(result);
+          Map<String, Object> encoder = call.argument("videoEncoder");
+          VideoEncoderSettings encoderSettings = null;
+          if (encoder != null) {
+            try {
+              encoderSettings =
+                  VideoEncoderSettings.fromArguments(
+                      (String) encoder.get("codec"),
+                      (String) encoder.get("bitrateMode"),
+                      (Integer) encoder.get("bitrate"),
+                      (Integer) encoder.get("frameRate"),
+                      (Number) encoder.get("keyFrameInterval"));
+            } catch (IllegalArgumentException e) {
+              result.error("videoRecordingFailed", e.getMessage(), null);
+              return;
+            }
+          }
+          camera.startVideoRecording(result, encoderSettings);
           break;
         }
       case "stopVideoRecording":
@@ -143,11 +269,8 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
             result.error("setFlashModeFailed", "Unknown flash mode " + modeStr, null);
             return;
           }
-          try {
-            camera.setFlashMode(result, mode);
-          } catch (Exception e) {
-            handleException(e, result);
-          }
+          final Camera targetCamera = camera;
+          targetCamera.runCommand("flashMode", result, r -> targetCamera.setFlashMode(r, mode));
           break;
         }
       case "setExposureMode":
@@ -158,11 +281,9 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
             result.error("setExposureModeFailed", "Unknown exposure mode " + modeStr, null);
             return;
           }
-          try {
-            camera.setExposureMode(result, mode);
-          } catch (Exception e) {
-            handleException(e, result);
-          }
+          final Camera targetCamera = camera;
+          targetCamera.runCommand(
+              "exposureMode", result, r -> targetCamera.setExposureMode(r, mode));
           break;
         }
       case "setExposurePoint":
@@ -174,11 +295,10 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
             x = call.argument("x");
             y = call.argument("y");
           }
-          try {
-            camera.setExposurePoint(result, new Point(x, y));
-          } catch (Exception e) {
-            handleException(e, result);
-          }
+          final Camera targetCamera = camera;
+          final Point point = new Point(x, y);
+          targetCamera.runCommand(
+              "exposurePoint", result, r -> targetCamera.setExposurePoint(r, point));
           break;
         }
       case "getMinExposureOffset":
@@ -210,11 +330,10 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
         }
       case "setExposureOffset":
         {
-          try {
-            camera.setExposureOffset(result, call.argument("offset"));
-          } catch (Exception e) {
-            handleException(e, result);
-          }
+          final Camera targetCamera = camera;
+          final double offset = call.argument("offset");
+          targetCamera.runCommand(
+              "exposureOffset", result, r -> targetCamera.setExposureOffset(r, offset));
           break;
         }
       case "setFocusMode":
@@ -225,11 +344,8 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
             result.error("setFocusModeFailed", "Unknown focus mode " + modeStr, null);
             return;
           }
-          try {
-            camera.setFocusMode(result, mode);
-          } catch (Exception e) {
-            handleException(e, result);
-          }
+          final Camera targetCamera = camera;
+          targetCamera.runCommand("focusMode", result, r -> targetCamera.setFocusMode(r, mode));
           break;
         }
       case "setFocusPoint":
@@ -241,17 +357,134 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
             x = call.argument("x");
             y = call.argument("y");
           }
+          final Camera targetCamera = camera;
+          final Point point = new Point(x, y);
+          targetCamera.runCommand("focusPoint", result, r -> targetCamera.setFocusPoint(r, point));
+          break;
+        }
+      case "setCameraSettings":
+        {
+          CameraSettings settings;
+          try {
+            settings = CameraSettings.fromArguments(call.arguments());
+          } catch (IllegalArgumentException e) {
+            result.error("setCameraSettingsFailed", e.getMessage(), null);
+            return;
+          }
+          // Settings are applied as a whole, so a waiting call is never superseded by a newer one.
+          final Camera targetCamera = camera;
+          targetCamera.runCommand(null, result, r -> targetCamera.setCameraSettings(r, settings));
+          break;
+        }
+      case "startImageStream":
+        {
+          ImageStreamPolicy policy;
+          ImageStreamProcessor processor;
+          try {
+            policy =
+                ImageStreamPolicy.fromArguments(
+                    call.argument("backpressure"),
+                    call.argument("maxQueuedFrames"),
+                    call.argument("frameInterval"),
+                    call.argument("targetFps"));
+            processor = ImageStreamProcessor.fromArguments(call.argument("processing"));
+          } catch (IllegalArgumentException e) {
+            result.error("startImageStreamFailed", e.getMessage(), null);
+            return;
+          }
+
+          // Cameras streaming at the same time each need their own channels.
+          Boolean perCameraChannel = call.argument("perCameraChannel");
+          String channelSuffix =
+              perCameraChannel != null && perCameraChannel
+                  ? "/" + camera.getFlutterTextureId()
+                  : "";
+          if (channelSuffix.isEmpty()) {
+            if (sharedImageStreamCamera != null
+                && sharedImageStreamCamera != camera
+                && sharedImageStreamCamera.isStreamingImages()) {
+              result.error(
+                  "startImageStreamFailed",
+                  "Another camera is streaming on the shared image stream channel, "
+                      + "set perCameraChannel to stream from several cameras.",
+                  null);
+              return;
+            }
+            sharedImageStreamCamera = camera;
+          }
+          Boolean binary = call.argument("binary");
+          BinaryImageStreamSender binarySender = null;
+          if (binary != null && binary) {
+            binarySender =
+                new BinaryImageStreamSender(
+                    messenger,
+                    IMAGE_STREAM_FRAMES_CHANNEL + channelSuffix,
+                    mainHandler,
+                    policy,
+                    processor);
+          }
+          EventChannel eventChannel =
+              channelSuffix.isEmpty()
+                  ? imageStreamChannel
+                  : new EventChannel(messenger, IMAGE_STREAM_CHANNEL + channelSuffix);
+
           try {
-            camera.setFocusPoint(result, new Point(x, y));
+            camera.startPreviewWithImageStream(eventChannel, policy, processor, binarySender);
+            result.success(null);
           } catch (Exception e) {
             handleException(e, result);
           }
           break;
         }
-      case "startImageStream":
+      case "getImageStreamStatistics":
+        {
+          try {
+            result.success(camera.getImageStreamStatistics());
+          } catch (Exception e) {
+            handleException(e, result);
+          }
+          break;
+        }
+      case "startCaptureTelemetry":
+        {
+          Integer framesPerBatch = call.argument("framesPerBatch");
+          try {
+            camera.startCaptureTelemetry(
+                framesPerBatch == null
+                    ? CaptureTelemetry.DEFAULT_FRAMES_PER_BATCH
+                    : framesPerBatch);
+            result.success(null);
+          } catch (IllegalArgumentException e) {
+            result.error("startCaptureTelemetryFailed", e.getMessage(), null);
+          } catch (Exception e) {
+            handleException(e, result);
+          }
+          break;
+        }
+      case "stopCaptureTelemetry":
+        {
+          try {
+            camera.stopCaptureTelemetry();
+            result.success(null);
+          } catch (Exception e) {
+            handleException(e, result);
+          }
+          break;
+        }
+      case "startAdaptivePreview":
+        {
+          try {
+            camera.startAdaptivePreview();
+            result.success(null);
+          } catch (Exception e) {
+            handleException(e, result);
+          }
+          break;
+        }
+      case "stopAdaptivePreview":
         {
           try {
-            camera.startPreviewWithImageStream(imageStreamChannel);
+            camera.stopAdaptivePreview();
             result.success(null);
           } catch (Exception e) {
             handleException(e, result);
@@ -261,7 +494,7 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
       case "stopImageStream":
         {
           try {
-            camera.startPreview();
+            camera.stopImageStream();
             result.success(null);
           } catch (Exception e) {
             handleException(e, result);
@@ -304,11 +537,11 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
             return;
           }
 
-          try {
-            camera.setZoomLevel(result, zoom.floatValue());
-          } catch (Exception e) {
-            handleException(e, result);
-          }
+          // Pinch-to-zoom sends many updates, waiting ones collapse into the latest zoom level.
+          final Camera targetCamera = camera;
+          final float zoomLevel = zoom.floatValue();
+          targetCamera.runCommand(
+              "zoomLevel", result, r -> targetCamera.setZoomLevel(r, zoomLevel));
           break;
         }
       case "lockCaptureOrientation":
@@ -334,6 +567,25 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
           }
           break;
         }
+      case "setOrientationTrackingMode":
+        {
+          String modeStr = call.argument("mode");
+          OrientationTrackingMode mode = OrientationTrackingMode.getValueForString(modeStr);
+          if (mode == null) {
+            result.error(
+                "setOrientationTrackingModeFailed",
+                "Unknown orientation tracking mode " + modeStr,
+                null);
+            return;
+          }
+          try {
+            camera.setOrientationTrackingMode(mode);
+            result.success(null);
+          } catch (Exception e) {
+            handleException(e, result);
+          }
+          break;
+        }
       case "pausePreview":
         {
           try {
@@ -353,7 +605,7 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
       case "dispose":
         {
           if (camera != null) {
-            camera.dispose();
+            disposeCamera(camera);
           }
           result.success(null);
           break;
@@ -364,39 +616,122 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
     }
   }
 
+  /**
+   * Gets the camera a method call is addressed to.
+   *
+   * <p>Calls without a camera id are addressed to the only live camera, if there is exactly one.
+   *
+   * @param call the method call.
+   * @return the camera, or null when there is no such camera.
+   */
+  @Nullable
+  private Camera getCamera(@NonNull MethodCall call) {
+    Number cameraId = call.arguments instanceof Map ? call.argument("cameraId") : null;
+    if (cameraId == null) {
+      return cameras.size() == 1 ? cameras.values().iterator().next() : null;
+    }
+    return cameras.get(cameraId.longValue());
+  }
+
+  /** Whether a method is addressed to a camera, as opposed to the plugin. */
+  private static boolean requiresCamera(@NonNull String method) {
+    switch (method) {
+      case "availableCameras":
+      case "getConcurrentCameras":
+      case "prewarm":
+      case "create":
+        // Initialize reports a missing camera with its own message, and disposing twice is fine.
+      case "initialize":
+      case "dispose":
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  private void disposeCamera(@NonNull Camera camera) {
+    cameras.remove(camera.getFlutterTextureId());
+    if (sharedImageStreamCamera == camera) {
+      sharedImageStreamCamera = null;
+    }
+    camera.dispose();
+  }
+
+  private void disposeCameras() {
+    for (Camera camera : new ArrayList<>(cameras.values())) {
+      disposeCamera(camera);
+    }
+  }
+
+  private boolean isAnyDeviceOpen() {
+    for (Camera camera : cameras.values()) {
+      if (camera.isDeviceOpen()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   void stopListening() {
     methodChannel.setMethodCallHandler(null);
+    lifecycleManager.stop();
+    if (cameraPrewarmer != null) {
+      cameraPrewarmer.release();
+    }
   }
 
   private void instantiateCamera(MethodCall call, Result result) throws CameraAccessException {
     String cameraName = call.argument("cameraName");
     String preset = call.argument("resolutionPreset");
     boolean enableAudio = call.argument("enableAudio");
+    String physicalCameraName = call.argument("physicalCameraName");
+
+    CameraProperties cameraProperties = getCameraPropertiesCache().get(cameraName);
+    if (physicalCameraName != null
+        && (VERSION.SDK_INT < VERSION_CODES.P
+            || !cameraProperties.getPhysicalCameraIds().contains(physicalCameraName))) {
+      result.error(
+          "createFailed",
+          "Camera " + cameraName + " has no physical camera " + physicalCameraName,
+          null);
+      return;
+    }
 
     TextureRegistry.SurfaceTextureEntry flutterSurfaceTexture =
         textureRegistry.createSurfaceTexture();
     DartMessenger dartMessenger =
-        new DartMessenger(
-            messenger, flutterSurfaceTexture.id(), new Handler(Looper.getMainLooper()));
-    CameraProperties cameraProperties =
-        new CameraPropertiesImpl(cameraName, CameraUtils.getCameraManager(activity));
+        new DartMessenger(messenger, flutterSurfaceTexture.id(), mainHandler);
     ResolutionPreset resolutionPreset = ResolutionPreset.valueOf(preset);
 
-    camera =
+    Camera camera =
         new Camera(
             activity,
             flutterSurfaceTexture,
-            new CameraFeatureFactoryImpl(),
+            getCameraPrewarmer().createFeatureFactory(),
             dartMessenger,
             cameraProperties,
             resolutionPreset,
             enableAudio);
+    camera.setPrewarmedDevice(getCameraPrewarmer().takeDevice(cameraName));
+    camera.setPhysicalCameraName(physicalCameraName);
+    cameras.put(flutterSurfaceTexture.id(), camera);
 
     Map<String, Object> reply = new HashMap<>();
     reply.put("cameraId", flutterSurfaceTexture.id());
     result.success(reply);
   }
 
+  private CameraPropertiesCache getCameraPropertiesCache() {
+    return CameraPropertiesCache.getInstance(activity);
+  }
+
+  private CameraPrewarmer getCameraPrewarmer() {
+    if (cameraPrewarmer == null) {
+      cameraPrewarmer = new CameraPrewarmer(getCameraPropertiesCache(), mainHandler);
+    }
+    return cameraPrewarmer;
+  }
+
   // We move catching CameraAccessException out of onMethodCall because it causes a crash
   // on plugin registration for sdks incompatible with Camera2 (< 21). We want this plugin to
   // to be able to compile with <21 sdks for apps that want the camera and support earlier version.
@@ -0,0 +1,178 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps track of the pictures of a single burst capture, which are saved in parallel, and reports
+ * their paths, or their bytes when kept in memory, in capture order once all of them have been
+ * saved.
+ *
+ * <p>The number of pictures being saved at once is limited, so that the camera never runs out of
+ * images to deliver the next picture into. Only the first error is reported, after which the
+ * remaining pictures are ignored.
+ */
+class PictureBurst {
+  private final Object[] pictures;
+  private final Callback callback;
+  private final Semaphore saveSlots;
+
+  private int receivedCount;
+  private int savedCount;
+  private boolean finished;
+
+  /**
+   * Creates a new instance of the {@link PictureBurst}.
+   *
+   * @param count the number of pictures in the burst.
+   * @param callback the callback that is run once all pictures have been saved, or when an error is
+   *     encountered.
+   */
+  PictureBurst(int count, @NonNull Callback callback) {
+    this(count, count, callback);
+  }
+
+  /**
+   * Creates a new instance of the {@link PictureBurst}.
+   *
+   * @param count the number of pictures in the burst.
+   * @param maxPendingSaves the number of pictures that may be saved at once.
+   * @param callback the callback that is run once all pictures have been saved, or when an error is
+   *     encountered.
+   */
+  PictureBurst(int count, int maxPendingSaves, @NonNull Callback callback) {
+    this.pictures = new Object[count];
+    this.callback = callback;
+    this.saveSlots = new Semaphore(maxPendingSaves);
+  }
+
+  /**
+   * Reserves the save of a picture, which is released when the callback created by {@link
+   * #createSaverCallback(int)} is called, or by {@link #cancelSave()}.
+   *
+   * @return whether a picture may be saved, false when the maximum number of pictures are already
+   *     being saved.
+   */
+  boolean tryStartSave() {
+    return saveSlots.tryAcquire();
+  }
+
+  /** Releases a save reserved by {@link #tryStartSave()} that did not start. */
+  void cancelSave() {
+    saveSlots.release();
+  }
+
+  /**
+   * Records that the camera delivered the next picture of the burst.
+   *
+   * @return the index of the picture within the burst, or -1 if the burst already received all its
+   *     pictures or has failed.
+   */
+  synchronized int onPictureReceived() {
+    if (finished || receivedCount == pictures.length) {
+      return -1;
+    }
+    return receivedCount++;
+  }
+
+  /** Whether all pictures have been delivered by the camera, or the burst has failed. */
+  synchronized boolean isCaptureDone() {
+    return finished || receivedCount == pictures.length;
+  }
+
+  /**
+   * Creates the callback of the {@link ImageSaver} that saves the picture at the supplied index,
+   * which releases the save reserved by {@link #tryStartSave()}.
+   *
+   * @param index the index returned by {@link #onPictureReceived()}.
+   * @return the callback recording the result of the save action.
+   */
+  @NonNull
+  ImageSaver.Callback createSaverCallback(final int index) {
+    return new ImageSaver.Callback() {
+      @Override
+      public void onComplete(String absolutePath) {
+        onSaveFinished();
+        onPictureSaved(index, absolutePath);
+      }
+
+      @Override
+      public void onCompleteInMemory(byte[] bytes) {
+        onSaveFinished();
+        onPictureSaved(index, bytes);
+      }
+
+      @Override
+      public void onError(String errorCode, String errorMessage) {
+        onSaveFinished();
+        PictureBurst.this.onError(errorCode, errorMessage);
+      }
+    };
+  }
+
+  /**
+   * Fails the burst, unless it has already completed or failed.
+   *
+   * @param errorCode the error code.
+   * @param errorMessage the human readable error message.
+   */
+  void onError(String errorCode, String errorMessage) {
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+    }
+    callback.onError(errorCode, errorMessage);
+  }
+
+  private void onSaveFinished() {
+    saveSlots.release();
+    callback.onSaveFinished();
+  }
+
+  private void onPictureSaved(int index, Object picture) {
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      pictures[index] = picture;
+      if (++savedCount < pictures.length) {
+        return;
+      }
+      finished = true;
+    }
+    callback.onComplete(Arrays.asList(pictures));
+  }
+
+  /** The interface for the callback that is passed to PictureBurst. */
+  interface Callback {
+    /**
+     * Called when all pictures of the burst have been saved successfully.
+     *
+     * @param pictures the absolute paths of the saved pictures, or their JPEG bytes when kept in
+     *     memory, in capture order.
+     */
+    void onComplete(List<Object> pictures);
+
+    /**
+     * Called when the save of a picture finished, successfully or not, so that another picture can
+     * be saved.
+     */
+    void onSaveFinished();
+
+    /**
+     * Called when an error is encountered while capturing or saving the pictures.
+     *
+     * @param errorCode the error code.
+     * @param errorMessage the human readable error message.
+     */
+    void onError(String errorCode, String errorMessage);
+  }
+}
@@ -0,0 +1,204 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.Image;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.plugins.camera.media.PictureOptions;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Re-encodes a JPEG {@link Image} of the camera in the format, quality and size of the {@link
+ * PictureOptions}, and saves it into the specified {@link File}, or keeps it in memory when no file
+ * is specified.
+ *
+ * <p>The JPEG is decoded straight to the target size, subsampled by the largest power of two that
+ * still covers it and scaled the rest of the way while decoding, so a downscaled picture never
+ * holds more pixels than needed. The picture is then rotated upright in a single copy, since the
+ * re-encoded picture carries no orientation. Running out of memory is reported as an error.
+ */
+class PictureTranscoder implements Runnable {
+  /** The density the remaining scale of a decoded picture is expressed against. */
+  private static final int DECODE_DENSITY = 10000;
+
+  private final Image image;
+  private final PictureOptions options;
+  private final int rotationDegrees;
+  @Nullable private final File file;
+  private final boolean sync;
+  private final ImageSaver.Callback callback;
+
+  /**
+   * Creates a new instance of the {@link PictureTranscoder}.
+   *
+   * @param image the JPEG image to re-encode, which is closed once its bytes have been copied.
+   * @param options the format, quality and size of the picture.
+   * @param rotationDegrees the clockwise rotation that makes the image upright, one of 0, 90, 180
+   *     or 270.
+   * @param file the file to save the picture to, or null to return the encoded bytes through {@link
+   *     ImageSaver.Callback#onCompleteInMemory(byte[])}.
+   * @param sync whether the file contents are forced to the storage device before completing.
+   * @param callback the callback that is run on completion, or when an error is encountered.
+   */
+  PictureTranscoder(
+      @NonNull Image image,
+      @NonNull PictureOptions options,
+      int rotationDegrees,
+      @Nullable File file,
+      boolean sync,
+      @NonNull ImageSaver.Callback callback) {
+    this.image = image;
+    this.options = options;
+    this.rotationDegrees = rotationDegrees;
+    this.file = file;
+    this.sync = sync;
+    this.callback = callback;
+  }
+
+  @Override
+  public void run() {
+    Bitmap picture;
+    try {
+      picture = decode();
+    } catch (RuntimeException | OutOfMemoryError e) {
+      callback.onError("IOError", "Failed transcoding image: " + e);
+      return;
+    }
+    if (picture == null) {
+      callback.onError("IOError", "Failed decoding image");
+      return;
+    }
+
+    try {
+      encode(picture);
+    } catch (RuntimeException | OutOfMemoryError e) {
+      callback.onError("IOError", "Failed encoding image: " + e);
+    } finally {
+      picture.recycle();
+    }
+  }
+
+  /** Decodes the image at the target size and rotates it upright, or returns null on failure. */
+  @Nullable
+  private Bitmap decode() {
+    int width;
+    int height;
+    byte[] jpeg;
+    try {
+      width = image.getWidth();
+      height = image.getHeight();
+      ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+      jpeg = new byte[buffer.remaining()];
+      buffer.get(jpeg);
+    } finally {
+      image.close();
+    }
+
+    BitmapFactory.Options decodeOptions = createDecodeOptions(options.getScale(width, height));
+    Bitmap decoded = BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, decodeOptions);
+    if (decoded == null || rotationDegrees == 0) {
+      return decoded;
+    }
+
+    Matrix matrix = new Matrix();
+    matrix.postRotate(rotationDegrees);
+    try {
+      return Bitmap.createBitmap(
+          decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), matrix, true);
+    } finally {
+      decoded.recycle();
+    }
+  }
+
+  private void encode(Bitmap picture) {
+    Bitmap.CompressFormat format = getCompressFormat(options.getFormat());
+    if (file == null) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      picture.compress(format, options.getQuality(), output);
+      callback.onCompleteInMemory(output.toByteArray());
+      return;
+    }
+
+    FileOutputStream output = null;
+    try {
+      output = ImageSaver.FileOutputStreamFactory.create(file);
+      if (!picture.compress(format, options.getQuality(), output)) {
+        callback.onError("IOError", "Failed encoding image");
+        return;
+      }
+      if (sync) {
+        output.getChannel().force(false);
+      }
+      callback.onComplete(file.getAbsolutePath());
+    } catch (IOException e) {
+      callback.onError("IOError", "Failed saving image");
+    } finally {
+      if (null != output) {
+        try {
+          output.close();
+        } catch (IOException e) {
+          callback.onError("cameraAccess", e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates the options that decode the JPEG scaled by the supplied factor in a single pass.
+   *
+   * @param scale the factor the picture is scaled by, at most 1.
+   * @return the options subsampling the JPEG, and scaling the subsampled picture the rest of the
+   *     way.
+   */
+  @VisibleForTesting
+  static BitmapFactory.Options createDecodeOptions(double scale) {
+    BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+    decodeOptions.inSampleSize = computeSampleSize(scale);
+    double remainingScale = scale * decodeOptions.inSampleSize;
+    if (remainingScale < 1) {
+      // The decoder scales the subsampled picture by the target density over the density.
+      decodeOptions.inScaled = true;
+      decodeOptions.inDensity = DECODE_DENSITY;
+      decodeOptions.inTargetDensity = (int) Math.round(remainingScale * DECODE_DENSITY);
+    }
+    return decodeOptions;
+  }
+
+  /**
+   * Computes the subsampling the JPEG is decoded with.
+   *
+   * @param scale the factor the picture is scaled by, at most 1.
+   * @return the largest power of two whose inverse is not smaller than the scale.
+   */
+  @VisibleForTesting
+  static int computeSampleSize(double scale) {
+    int sampleSize = 1;
+    while (sampleSize * 2 * scale <= 1) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  @SuppressWarnings("deprecation")
+  private static Bitmap.CompressFormat getCompressFormat(PictureOptions.Format format) {
+    if (format == PictureOptions.Format.webp) {
+      return VERSION.SDK_INT >= VERSION_CODES.R
+          ? Bitmap.CompressFormat.WEBP_LOSSY
+          : Bitmap.CompressFormat.WEBP;
+    }
+    return Bitmap.CompressFormat.JPEG;
+  }
+}
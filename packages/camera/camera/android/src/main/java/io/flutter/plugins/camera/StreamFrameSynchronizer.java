@@ -0,0 +1,133 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.hardware.camera2.CaptureResult;
+import android.media.Image;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import io.flutter.plugins.camera.types.CaptureMetadataLookup;
+
+/**
+ * Pairs the frames of the image stream with the capture result of the same capture, matched by
+ * sensor timestamp, so every streamed frame carries its own exposure time, sensitivity and
+ * aperture.
+ *
+ * <p>The camera delivers a frame and its capture result independently and in no fixed order. A
+ * frame whose capture result has not arrived yet is held back until it does. When it never arrives,
+ * because the capture result was dropped or failed, the frame is sent with the last known capture
+ * properties as soon as the next frame comes in.
+ *
+ * <p>This class is not thread safe and must only be used from the camera background thread.
+ */
+class StreamFrameSynchronizer {
+  /** The number of capture results that are kept for frames that arrive late. */
+  @VisibleForTesting static final int CAPACITY = 8;
+
+  /** Receives the frames together with the properties of their capture. */
+  interface FrameConsumer {
+    /**
+     * Called when a frame is matched with its capture properties.
+     *
+     * @param image the frame, which is closed once this method returns.
+     * @param captureProps the properties of the capture of the frame, or the last known properties
+     *     when the capture result of the frame never arrived.
+     */
+    void onFrame(@NonNull Image image, @NonNull CameraCaptureProperties captureProps);
+  }
+
+  private final CaptureMetadataLookup lookup = new CaptureMetadataLookup(CAPACITY);
+  private final CameraCaptureProperties lastCaptureProps;
+  private final FrameConsumer consumer;
+  @Nullable private Image pendingImage;
+
+  /**
+   * Creates a new instance of the {@link StreamFrameSynchronizer}.
+   *
+   * @param lastCaptureProps the last known capture properties, used for frames without a capture
+   *     result.
+   * @param consumer the consumer receiving the matched frames.
+   */
+  StreamFrameSynchronizer(
+      @NonNull CameraCaptureProperties lastCaptureProps, @NonNull FrameConsumer consumer) {
+    this.lastCaptureProps = lastCaptureProps;
+    this.consumer = consumer;
+  }
+
+  /**
+   * Records a completed capture and sends the frame that was waiting for it.
+   *
+   * @param result the completed capture result.
+   */
+  void onCaptureCompleted(@NonNull CaptureResult result) {
+    Long timestamp = result.get(CaptureResult.SENSOR_TIMESTAMP);
+    if (timestamp == null) {
+      return;
+    }
+    CameraCaptureProperties captureProps = new CameraCaptureProperties();
+    captureProps.setLastSensorTimestamp(timestamp);
+    captureProps.setLastLensAperture(result.get(CaptureResult.LENS_APERTURE));
+    captureProps.setLastSensorExposureTime(result.get(CaptureResult.SENSOR_EXPOSURE_TIME));
+    captureProps.setLastSensorSensitivity(result.get(CaptureResult.SENSOR_SENSITIVITY));
+    onCaptureCompleted(captureProps);
+  }
+
+  /**
+   * Records the properties of a completed capture and sends the frame that was waiting for them.
+   *
+   * @param captureProps the properties of the capture, with the sensor timestamp set, which must
+   *     not be modified afterwards.
+   */
+  @VisibleForTesting
+  void onCaptureCompleted(@NonNull CameraCaptureProperties captureProps) {
+    lookup.put(captureProps);
+    if (pendingImage != null
+        && captureProps.getLastSensorTimestamp() == pendingImage.getTimestamp()) {
+      Image image = pendingImage;
+      pendingImage = null;
+      deliver(image, captureProps);
+    }
+  }
+
+  /**
+   * Sends the frame if its capture result has arrived, or holds it back until it does.
+   *
+   * <p>At most one frame is held back, so the image reader needs room for two acquired images.
+   *
+   * @param image the frame, which is closed once it has been sent.
+   */
+  void onImage(@NonNull Image image) {
+    if (pendingImage != null) {
+      Image previous = pendingImage;
+      pendingImage = null;
+      deliver(previous, lastCaptureProps);
+    }
+
+    CameraCaptureProperties captureProps = lookup.get(image.getTimestamp());
+    if (captureProps != null) {
+      deliver(image, captureProps);
+    } else {
+      pendingImage = image;
+    }
+  }
+
+  /** Closes the frame that is held back, if any. */
+  void release() {
+    if (pendingImage != null) {
+      pendingImage.close();
+      pendingImage = null;
+    }
+  }
+
+  private void deliver(Image image, CameraCaptureProperties captureProps) {
+    try {
+      consumer.onFrame(image, captureProps);
+    } finally {
+      image.close();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.media.Image;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugins.camera.media.ImageStreamProcessor;
+import io.flutter.plugins.camera.media.PictureOptions;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a YUV_420_888 {@link Image} as a JPEG and saves it into the specified {@link File}, or
+ * keeps it in memory when no file is specified.
+ *
+ * <p>Used for the frames of the {@link ZeroShutterLagBuffer}, which are not encoded by the camera.
+ * The frame is rotated upright and scaled to the maximum dimension of the {@link PictureOptions}
+ * before it is encoded, since the JPEG carries no orientation.
+ */
+class YuvImageSaver implements Runnable {
+  private final Image image;
+  private final PictureOptions options;
+  private final int rotationDegrees;
+  @Nullable private final File file;
+  private final boolean sync;
+  private final ImageSaver.Callback callback;
+
+  /**
+   * Creates a new instance of the {@link YuvImageSaver}.
+   *
+   * @param image the YUV_420_888 image to save, which is closed once it has been converted.
+   * @param options the quality and size of the picture, whose format must be JPEG.
+   * @param rotationDegrees the clockwise rotation that makes the image upright, one of 0, 90, 180
+   *     or 270.
+   * @param file the file to save the image to, or null to return the JPEG bytes through {@link
+   *     ImageSaver.Callback#onCompleteInMemory(byte[])}.
+   * @param sync whether the file contents are forced to the storage device before completing.
+   * @param callback the callback that is run on completion, or when an error is encountered.
+   */
+  YuvImageSaver(
+      @NonNull Image image,
+      @NonNull PictureOptions options,
+      int rotationDegrees,
+      @Nullable File file,
+      boolean sync,
+      @NonNull ImageSaver.Callback callback) {
+    this.image = image;
+    this.options = options;
+    this.rotationDegrees = rotationDegrees;
+    this.file = file;
+    this.sync = sync;
+    this.callback = callback;
+  }
+
+  @Override
+  public void run() {
+    boolean swapAxes = rotationDegrees % 180 != 0;
+    int uprightWidth = swapAxes ? image.getHeight() : image.getWidth();
+    int uprightHeight = swapAxes ? image.getWidth() : image.getHeight();
+    double scale = options.getScale(uprightWidth, uprightHeight);
+    // The processor derives the height from the width, keeping the aspect ratio.
+    int targetWidth = scale < 1 ? Math.max(1, (int) Math.round(uprightWidth * scale)) : 0;
+    ImageStreamProcessor processor =
+        new ImageStreamProcessor(
+            ImageStreamProcessor.OutputFormat.nv21,
+            0,
+            0,
+            0,
+            0,
+            targetWidth,
+            0,
+            rotationDegrees != 0);
+    processor.setRotationDegrees(rotationDegrees);
+    byte[] nv21;
+    try {
+      processor.configure(image.getWidth(), image.getHeight());
+      nv21 = new byte[processor.getOutputSize()];
+      processor.process(image, ByteBuffer.wrap(nv21));
+    } finally {
+      image.close();
+    }
+
+    int width = processor.getOutputWidth();
+    int height = processor.getOutputHeight();
+    YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
+    Rect bounds = new Rect(0, 0, width, height);
+    if (file == null) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream(nv21.length / 4);
+      yuvImage.compressToJpeg(bounds, options.getQuality(), output);
+      callback.onCompleteInMemory(output.toByteArray());
+      return;
+    }
+
+    FileOutputStream output = null;
+    try {
+      output = ImageSaver.FileOutputStreamFactory.create(file);
+      if (!yuvImage.compressToJpeg(bounds, options.getQuality(), output)) {
+        callback.onError("IOError", "Failed encoding image");
+        return;
+      }
+      if (sync) {
+        output.getChannel().force(false);
+      }
+      callback.onComplete(file.getAbsolutePath());
+    } catch (IOException e) {
+      callback.onError("IOError", "Failed saving image");
+    } finally {
+      if (null != output) {
+        try {
+          output.close();
+        } catch (IOException e) {
+          callback.onError("cameraAccess", e.getMessage());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import android.media.ImageReader;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Keeps the most recent full resolution frames of the preview, so a picture can be taken from the
+ * frame that was captured when the shutter was pressed instead of waiting for a new capture.
+ *
+ * <p>The buffer holds at most {@code capacity} frames, the oldest frame is closed when a new one
+ * arrives. The {@link ImageReader} feeding the buffer must be able to hold {@link #getMaxImages()}
+ * images, so a new frame can be acquired while the buffer is full and a taken frame is being saved.
+ */
+class ZeroShutterLagBuffer implements ImageReader.OnImageAvailableListener {
+  private static final String TAG = "ZeroShutterLagBuffer";
+
+  private final int capacity;
+  private final ArrayDeque<Image> images;
+  private boolean closed;
+
+  /**
+   * Creates a new instance of the {@link ZeroShutterLagBuffer}.
+   *
+   * @param capacity the number of frames kept.
+   */
+  ZeroShutterLagBuffer(int capacity) {
+    this.capacity = capacity;
+    this.images = new ArrayDeque<>(capacity + 1);
+  }
+
+  /** Gets the number of images the {@link ImageReader} feeding this buffer must be able to hold. */
+  int getMaxImages() {
+    // One frame being acquired and one taken frame being saved.
+    return capacity + 2;
+  }
+
+  @Override
+  public void onImageAvailable(ImageReader reader) {
+    Image image;
+    try {
+      image = reader.acquireNextImage();
+    } catch (IllegalStateException e) {
+      // The taken frame is still being saved, the new frame is dropped.
+      Log.w(TAG, "Dropped a frame: " + e.getMessage());
+      return;
+    }
+    if (image != null) {
+      add(image);
+    }
+  }
+
+  /**
+   * Adds a frame, closing the oldest frame when the buffer is full.
+   *
+   * @param image the frame to add, which is closed by this buffer unless it is taken.
+   */
+  @VisibleForTesting
+  synchronized void add(@NonNull Image image) {
+    if (closed) {
+      image.close();
+      return;
+    }
+    images.addLast(image);
+    if (images.size() > capacity) {
+      images.removeFirst().close();
+    }
+  }
+
+  /**
+   * Removes the frame whose sensor timestamp is closest to the supplied timestamp.
+   *
+   * @param timestampNanos the timestamp in the time base of the sensor.
+   * @param maxDistanceNanos the largest distance between the timestamps for a frame to be taken.
+   * @return the frame, which must be closed by the caller, or null when no frame is close enough.
+   */
+  @Nullable
+  synchronized Image takeClosest(long timestampNanos, long maxDistanceNanos) {
+    Image closest = null;
+    long closestDistance = Long.MAX_VALUE;
+    for (Image image : images) {
+      long distance = Math.abs(image.getTimestamp() - timestampNanos);
+      if (distance < closestDistance) {
+        closest = image;
+        closestDistance = distance;
+      }
+    }
+    if (closest == null || closestDistance > maxDistanceNanos) {
+      return null;
+    }
+    images.remove(closest);
+    return closest;
+  }
+
+  /** Closes all frames, frames arriving afterwards are closed right away. */
+  synchronized void close() {
+    closed = true;
+    Iterator<Image> iterator = images.iterator();
+    while (iterator.hasNext()) {
+      iterator.next().close();
+      iterator.remove();
+    }
+  }
+}
@@ -5,6 +5,7 @@
 package io.flutter.plugins.camera.features;
 
 import android.app.Activity;
+import android.hardware.camera2.CaptureRequest;
 import io.flutter.plugins.camera.CameraProperties;
 import io.flutter.plugins.camera.DartMessenger;
 import io.flutter.plugins.camera.features.autofocus.AutoFocusFeature;
@@ -21,7 +22,9 @@ import io.flutter.plugins.camera.features.sensororientation.SensorOrientationFea
 import io.flutter.plugins.camera.features.zoomlevel.ZoomLevelFeature;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * These are all of our available features in the camera. Used in the Camera to access all features
@@ -75,6 +78,7 @@ public class CameraFeatures {
   }
 
   private Map<String, CameraFeature> featureMap = new HashMap<>();
+  private final Set<CameraFeature> dirtyFeatures = new LinkedHashSet<>();
 
   /**
    * Gets a collection of all features that have been set.
@@ -85,6 +89,51 @@ public class CameraFeatures {
     return this.featureMap.values();
   }
 
+  /**
+   * Marks a feature whose value has changed since it was last written to the preview request, so
+   * the next call to {@link #updateDirtyFeatures(CaptureRequest.Builder)} writes it.
+   *
+   * @param feature the feature whose value has changed.
+   */
+  public void markDirty(CameraFeature feature) {
+    dirtyFeatures.add(feature);
+  }
+
+  /**
+   * Returns whether any feature has changed since the features were last written.
+   *
+   * @return whether any feature has been marked dirty.
+   */
+  public boolean hasDirtyFeatures() {
+    return !dirtyFeatures.isEmpty();
+  }
+
+  /**
+   * Writes all features to a request builder, which is needed for a newly created builder. This
+   * clears the dirty marks, as the written builder is the one used for the preview.
+   *
+   * @param requestBuilder the request builder to update.
+   */
+  public void updateAllFeatures(CaptureRequest.Builder requestBuilder) {
+    for (CameraFeature feature : featureMap.values()) {
+      feature.updateBuilder(requestBuilder);
+    }
+    dirtyFeatures.clear();
+  }
+
+  /**
+   * Writes only the features that changed since they were last written to a request builder, and
+   * clears their dirty marks. Each feature is written once, however often its value changed.
+   *
+   * @param requestBuilder the request builder to update.
+   */
+  public void updateDirtyFeatures(CaptureRequest.Builder requestBuilder) {
+    for (CameraFeature feature : dirtyFeatures) {
+      feature.updateBuilder(requestBuilder);
+    }
+    dirtyFeatures.clear();
+  }
+
   /**
    * Gets the auto focus feature if it has been set.
    *
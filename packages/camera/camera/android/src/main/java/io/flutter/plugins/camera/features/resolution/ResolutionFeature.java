@@ -10,6 +10,7 @@ import android.media.CamcorderProfile;
 import android.media.EncoderProfiles;
 import android.os.Build;
 import android.util.Size;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import io.flutter.plugins.camera.CameraProperties;
 import io.flutter.plugins.camera.features.CameraFeature;
@@ -73,6 +74,20 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
     return this.previewSize;
   }
 
+  /**
+   * Overrides the preset the preview size is computed from, without changing the capture size or
+   * the recording profile.
+   *
+   * @param preset the preset to compute the preview size from, or null to use the configured
+   *     resolution again.
+   */
+  public void setPreviewPreset(@Nullable ResolutionPreset preset) {
+    if (!checkIsSupported()) {
+      return;
+    }
+    previewSize = computeBestPreviewSize(cameraId, preset == null ? currentSetting : preset);
+  }
+
   /**
    * Gets the optimal capture size based on the configured resolution.
    *
@@ -10,10 +10,15 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.res.Configuration;
+import android.hardware.Sensor;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.view.Display;
 import android.view.Surface;
 import android.view.WindowManager;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import io.flutter.embedding.engine.systemchannels.PlatformChannel;
 import io.flutter.embedding.engine.systemchannels.PlatformChannel.DeviceOrientation;
@@ -27,12 +32,25 @@ public class DeviceOrientationManager {
   private static final IntentFilter orientationIntentFilter =
       new IntentFilter(Intent.ACTION_CONFIGURATION_CHANGED);
 
+  /** The interval between accelerometer samples, about 15 per second. */
+  @VisibleForTesting static final int SENSOR_SAMPLING_PERIOD_US = 66_000;
+
+  /**
+   * The time the sensor hub may hold samples back, so the device wakes up for a batch of samples
+   * instead of for every sample.
+   */
+  @VisibleForTesting static final int SENSOR_MAX_REPORT_LATENCY_US = 100_000;
+
   private final Activity activity;
   private final DartMessenger messenger;
   private final boolean isFrontFacing;
   private final int sensorOrientation;
-  private PlatformChannel.DeviceOrientation lastOrientation;
+  private volatile PlatformChannel.DeviceOrientation lastOrientation;
   private BroadcastReceiver broadcastReceiver;
+  private OrientationTrackingMode trackingMode = OrientationTrackingMode.ui;
+  private boolean started;
+  @Nullable private HandlerThread sensorThread;
+  @Nullable private SensorOrientationListener sensorListener;
 
   /** Factory method to create a device orientation manager. */
   public static DeviceOrientationManager create(
@@ -61,15 +79,61 @@ public class DeviceOrientationManager {
    * {@link DartMessenger}. This latest value can also be retrieved through the {@link
    * #getVideoOrientation()} accessor.
    *
-   * <p>If the device's ACCELEROMETER_ROTATION setting is enabled the {@link
-   * DeviceOrientationManager} will report orientation updates based on the sensor information. If
-   * the ACCELEROMETER_ROTATION is disabled the {@link DeviceOrientationManager} will fallback to
-   * the deliver orientation updates based on the UI orientation.
+   * <p>In the default {@link OrientationTrackingMode#ui} mode the {@link DeviceOrientationManager}
+   * reports the UI orientation whenever the configuration changes. In {@link
+   * OrientationTrackingMode#sensor} mode it reports the physical orientation of the device, see
+   * {@link #setTrackingMode(OrientationTrackingMode)}.
    */
   public void start() {
-    if (broadcastReceiver != null) {
+    if (started) {
+      return;
+    }
+    started = true;
+    if (trackingMode == OrientationTrackingMode.sensor && startSensorTracking()) {
+      return;
+    }
+    startUITracking();
+  }
+
+  /** Stops listening for orientation updates. */
+  public void stop() {
+    if (!started) {
+      return;
+    }
+    started = false;
+    stopSensorTracking();
+    stopUITracking();
+  }
+
+  /**
+   * Sets the source of the orientation updates, restarting the tracking if it is running.
+   *
+   * <p>In {@link OrientationTrackingMode#sensor} mode the orientation is read from the
+   * accelerometer on a background thread, falling back to the UI orientation on devices without an
+   * accelerometer. Unlike the UI orientation, this follows the device when the UI orientation is
+   * locked.
+   *
+   * @param mode the new tracking mode.
+   */
+  public void setTrackingMode(@NonNull OrientationTrackingMode mode) {
+    if (mode == trackingMode) {
       return;
     }
+    boolean wasStarted = started;
+    stop();
+    trackingMode = mode;
+    if (wasStarted) {
+      start();
+    }
+  }
+
+  /** @return the source of the orientation updates. */
+  @NonNull
+  public OrientationTrackingMode getTrackingMode() {
+    return trackingMode;
+  }
+
+  private void startUITracking() {
     broadcastReceiver =
         new BroadcastReceiver() {
           @Override
@@ -81,8 +145,7 @@ public class DeviceOrientationManager {
     broadcastReceiver.onReceive(activity, null);
   }
 
-  /** Stops listening for orientation updates. */
-  public void stop() {
+  private void stopUITracking() {
     if (broadcastReceiver == null) {
       return;
     }
@@ -90,6 +153,40 @@ public class DeviceOrientationManager {
     broadcastReceiver = null;
   }
 
+  private boolean startSensorTracking() {
+    SensorManager sensorManager = getSensorManager();
+    Sensor accelerometer =
+        sensorManager == null ? null : sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+    if (accelerometer == null) {
+      return false;
+    }
+
+    sensorThread = new HandlerThread("CameraOrientation");
+    sensorThread.start();
+    sensorListener = new SensorOrientationListener(this::handleSensorOrientationChange);
+    sensorManager.registerListener(
+        sensorListener,
+        accelerometer,
+        SENSOR_SAMPLING_PERIOD_US,
+        SENSOR_MAX_REPORT_LATENCY_US,
+        new Handler(sensorThread.getLooper()));
+    return true;
+  }
+
+  private void stopSensorTracking() {
+    if (sensorListener == null) {
+      return;
+    }
+    SensorManager sensorManager = getSensorManager();
+    if (sensorManager != null) {
+      sensorManager.unregisterListener(sensorListener);
+    }
+    sensorListener = null;
+    // Samples that are still queued are dropped, so no orientation is published after stopping.
+    sensorThread.quit();
+    sensorThread = null;
+  }
+
   /**
    * Returns the device's photo orientation in degrees based on the sensor orientation and the last
    * known UI orientation.
@@ -211,6 +308,23 @@ public class DeviceOrientationManager {
     lastOrientation = orientation;
   }
 
+  /**
+   * Handles a change of the quantised orientation reported by the accelerometer, on the sensor
+   * thread.
+   *
+   * <p>This method is visible for testing purposes only and should never be used outside this
+   * class.
+   *
+   * @param angle the clockwise rotation of the device from its natural orientation, one of 0, 90,
+   *     180 or 270.
+   */
+  @VisibleForTesting
+  void handleSensorOrientationChange(int angle) {
+    PlatformChannel.DeviceOrientation orientation = calculateSensorOrientation(angle);
+    handleOrientationChange(orientation, lastOrientation, messenger);
+    lastOrientation = orientation;
+  }
+
   /**
    * Handles orientation changes coming from either the device's sensors or the
    * OrientationIntentFilter.
@@ -313,6 +427,20 @@ public class DeviceOrientationManager {
     }
   }
 
+  /**
+   * Gets the {@link SensorManager} of the device.
+   *
+   * <p>This method is visible for testing purposes only and should never be used outside this
+   * class.
+   *
+   * @return The {@link SensorManager}, or null if the device has none.
+   */
+  @Nullable
+  @VisibleForTesting
+  SensorManager getSensorManager() {
+    return (SensorManager) activity.getSystemService(Context.SENSOR_SERVICE);
+  }
+
   /**
    * Gets an instance of the Android {@link android.view.Display}.
    *
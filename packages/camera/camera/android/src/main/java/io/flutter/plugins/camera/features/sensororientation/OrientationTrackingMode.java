@@ -0,0 +1,40 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.features.sensororientation;
+
+/** The source the {@link DeviceOrientationManager} reads the device orientation from. */
+public enum OrientationTrackingMode {
+  /** The orientation of the user interface, updated on configuration changes. */
+  ui("ui"),
+  /** The physical orientation of the device, read from the accelerometer. */
+  sensor("sensor");
+
+  private final String strValue;
+
+  OrientationTrackingMode(String strValue) {
+    this.strValue = strValue;
+  }
+
+  /**
+   * Tries to convert the supplied string into an {@see OrientationTrackingMode} enum value.
+   *
+   * <p>When the supplied string doesn't match a valid {@see OrientationTrackingMode} enum value,
+   * null is returned.
+   *
+   * @param modeStr String value to convert into an {@see OrientationTrackingMode} enum value.
+   * @return Matching {@see OrientationTrackingMode} enum value, or null if no match is found.
+   */
+  public static OrientationTrackingMode getValueForString(String modeStr) {
+    for (OrientationTrackingMode value : values()) {
+      if (value.strValue.equals(modeStr)) return value;
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return strValue;
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.features.sensororientation;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Turns accelerometer samples into a stable, quantised device orientation.
+ *
+ * <p>The tilt angle of the device is quantised into one of four quadrants of 90 degrees. Two
+ * measures keep the reported orientation from flickering while the device is held near the edge of
+ * a quadrant:
+ *
+ * <ul>
+ *   <li>Hysteresis: the device has to be turned {@link #HYSTERESIS_DEGREES} past the edge of the
+ *       current quadrant before a new quadrant is considered.
+ *   <li>Debouncing: a new quadrant has to be held for {@link #DEBOUNCE_NANOS} before it is
+ *       published.
+ * </ul>
+ *
+ * <p>Samples taken while the device lies flat are ignored, since the tilt angle is meaningless
+ * then. The callback is only called when the published quadrant actually changes.
+ */
+class SensorOrientationListener implements SensorEventListener {
+  /** The number of degrees the device has to be turned past the edge of a quadrant. */
+  @VisibleForTesting static final int HYSTERESIS_DEGREES = 15;
+
+  /** The time a new quadrant has to be held before it is published. */
+  @VisibleForTesting static final long DEBOUNCE_NANOS = 200_000_000L;
+
+  /** Returned by {@link #getAngle(float, float, float)} when the device lies flat. */
+  @VisibleForTesting static final int ANGLE_UNKNOWN = -1;
+
+  private static final int QUADRANT_UNKNOWN = -1;
+
+  /** Receives the quantised orientation. */
+  interface Callback {
+    /**
+     * Called on the sensor thread when the published orientation changes.
+     *
+     * @param angle the orientation of the device, one of 0, 90, 180 or 270 degrees clockwise from
+     *     its natural orientation.
+     */
+    void onOrientationChanged(int angle);
+  }
+
+  private final Callback callback;
+  private int publishedQuadrant = QUADRANT_UNKNOWN;
+  private int pendingQuadrant = QUADRANT_UNKNOWN;
+  private long pendingSinceNanos;
+
+  /**
+   * Creates a new instance of the {@link SensorOrientationListener}.
+   *
+   * @param callback the callback receiving the quantised orientation.
+   */
+  SensorOrientationListener(@NonNull Callback callback) {
+    this.callback = callback;
+  }
+
+  @Override
+  public void onSensorChanged(SensorEvent event) {
+    onAccelerometerSample(event.values[0], event.values[1], event.values[2], event.timestamp);
+  }
+
+  @Override
+  public void onAccuracyChanged(Sensor sensor, int accuracy) {
+    // The accuracy of the accelerometer does not influence the quadrant.
+  }
+
+  /**
+   * Handles a single accelerometer sample.
+   *
+   * @param x the acceleration along the x axis.
+   * @param y the acceleration along the y axis.
+   * @param z the acceleration along the z axis.
+   * @param timestampNanos the time the sample was taken.
+   */
+  @VisibleForTesting
+  void onAccelerometerSample(float x, float y, float z, long timestampNanos) {
+    int angle = getAngle(x, y, z);
+    if (angle == ANGLE_UNKNOWN) {
+      return;
+    }
+
+    int quadrant = quantize(angle, publishedQuadrant);
+    if (quadrant == publishedQuadrant) {
+      pendingQuadrant = QUADRANT_UNKNOWN;
+      return;
+    }
+    if (quadrant != pendingQuadrant) {
+      pendingQuadrant = quadrant;
+      pendingSinceNanos = timestampNanos;
+    }
+    // The first orientation is published right away, there is nothing to flicker from.
+    if (publishedQuadrant == QUADRANT_UNKNOWN
+        || timestampNanos - pendingSinceNanos >= DEBOUNCE_NANOS) {
+      publishedQuadrant = quadrant;
+      pendingQuadrant = QUADRANT_UNKNOWN;
+      callback.onOrientationChanged(quadrant * 90);
+    }
+  }
+
+  /**
+   * Computes the clockwise tilt of the device from its natural orientation, like {@link
+   * android.view.OrientationEventListener} does.
+   *
+   * @return the angle in degrees between 0 and 359, or {@link #ANGLE_UNKNOWN} when the device lies
+   *     too flat to tell.
+   */
+  @VisibleForTesting
+  static int getAngle(float x, float y, float z) {
+    float magnitude = x * x + y * y;
+    // Ignore samples where the device is tilted less than about 30 degrees from flat.
+    if (magnitude * 4 < z * z) {
+      return ANGLE_UNKNOWN;
+    }
+    int angle = 90 - (int) Math.round(Math.toDegrees(Math.atan2(y, -x)));
+    return ((angle % 360) + 360) % 360;
+  }
+
+  /**
+   * Quantises the angle into a quadrant, staying in the current quadrant until the angle is more
+   * than {@link #HYSTERESIS_DEGREES} past its edge.
+   *
+   * @param angle the angle in degrees between 0 and 359.
+   * @param currentQuadrant the current quadrant, or -1 if there is none.
+   * @return the quadrant, 0 to 3.
+   */
+  @VisibleForTesting
+  static int quantize(int angle, int currentQuadrant) {
+    int quadrant = ((angle + 45) % 360) / 90;
+    if (currentQuadrant == QUADRANT_UNKNOWN || quadrant == currentQuadrant) {
+      return quadrant;
+    }
+    int distance = Math.abs(angle - currentQuadrant * 90) % 360;
+    if (distance > 180) {
+      distance = 360 - distance;
+    }
+    return distance > 45 + HYSTERESIS_DEGREES ? quadrant : currentQuadrant;
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import android.media.Image;
+import android.os.Handler;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers streamed {@link Image} frames to Dart as binary messages.
+ *
+ * <p>Frames are encoded using the {@link ImageStreamFrameEncoder} into a fixed pool of reusable
+ * direct {@link ByteBuffer}s, which are handed to the {@link BinaryMessenger} as-is. In steady
+ * state no objects are allocated per frame.
+ *
+ * <p>With {@link ImageStreamPolicy.Backpressure#boundedQueue} the pool holds one buffer per frame
+ * that may be queued, and new frames are dropped once all buffers are waiting to be sent. When the
+ * queue is {@link ImageStreamPolicy#UNBOUNDED}, the pool grows instead while frames are waiting,
+ * and only keeps {@link #DEFAULT_POOL_SIZE} buffers once they are sent. With {@link
+ * ImageStreamPolicy.Backpressure#latestOnly} a frame that is still waiting to be sent is replaced
+ * by the newer one, and its buffer is returned to the pool.
+ */
+public class BinaryImageStreamSender implements ImageStreamSender {
+  /**
+   * The number of buffers pooled up front when the policy does not limit the queue, or only keeps
+   * the latest frame.
+   */
+  public static final int DEFAULT_POOL_SIZE = 3;
+
+  private final BinaryMessenger messenger;
+  private final String channelName;
+  private final Handler mainHandler;
+  private final ImageStreamPolicy policy;
+  @Nullable private final ImageStreamProcessor processor;
+  private final ArrayDeque<FrameSlot> freeSlots;
+  private final boolean growPool;
+
+  private final AtomicReference<FrameSlot> latestSlot = new AtomicReference<>();
+  private final Runnable sendLatestSlot = this::sendLatestSlot;
+
+  /**
+   * Creates a new instance of the {@link BinaryImageStreamSender}.
+   *
+   * @param messenger the {@link BinaryMessenger} used to send frames to Dart.
+   * @param channelName the name of the channel the frames are sent on.
+   * @param mainHandler a handler managing the main thread, on which the messages are sent.
+   * @param policy the policy applied to the delivered frames.
+   * @param processor when set, frames are processed by it before they are sent.
+   */
+  public BinaryImageStreamSender(
+      @NonNull BinaryMessenger messenger,
+      @NonNull String channelName,
+      @NonNull Handler mainHandler,
+      @NonNull ImageStreamPolicy policy,
+      @Nullable ImageStreamProcessor processor) {
+    this.messenger = messenger;
+    this.channelName = channelName;
+    this.mainHandler = mainHandler;
+    this.policy = policy;
+    this.processor = processor;
+
+    // Keeping only the latest frame needs at most three buffers: one being sent, one waiting and
+    // one being encoded.
+    boolean latestOnly = policy.getBackpressure() == ImageStreamPolicy.Backpressure.latestOnly;
+    this.growPool = !latestOnly && policy.getMaxQueuedFrames() == ImageStreamPolicy.UNBOUNDED;
+    int poolSize = latestOnly || growPool ? DEFAULT_POOL_SIZE : policy.getMaxQueuedFrames();
+    this.freeSlots = new ArrayDeque<>(poolSize);
+    for (int i = 0; i < poolSize; i++) {
+      freeSlots.add(new FrameSlot());
+    }
+  }
+
+  @NonNull
+  @Override
+  public ImageStreamPolicy getPolicy() {
+    return policy;
+  }
+
+  @Override
+  public boolean send(@NonNull Image image, @NonNull CameraCaptureProperties captureProps) {
+    FrameSlot slot = acquire();
+    if (slot == null) {
+      policy.onFrameDropped();
+      return false;
+    }
+
+    boolean process = processor != null && processor.canProcess(image);
+    if (process) {
+      processor.configure(image.getWidth(), image.getHeight());
+    }
+    int size =
+        process
+            ? ImageStreamFrameEncoder.getEncodedSize(processor)
+            : ImageStreamFrameEncoder.getEncodedSize(image);
+    if (slot.buffer == null || slot.buffer.capacity() < size) {
+      slot.buffer = ByteBuffer.allocateDirect(size);
+    }
+    if (process) {
+      ImageStreamFrameEncoder.encode(image, processor, captureProps, slot.buffer);
+    } else {
+      ImageStreamFrameEncoder.encode(image, captureProps, slot.buffer);
+    }
+
+    if (policy.getBackpressure() == ImageStreamPolicy.Backpressure.boundedQueue) {
+      mainHandler.post(slot);
+      return true;
+    }
+
+    FrameSlot replacedSlot = latestSlot.getAndSet(slot);
+    if (replacedSlot != null) {
+      release(replacedSlot);
+      policy.onFrameDropped();
+    } else {
+      mainHandler.post(sendLatestSlot);
+    }
+    return true;
+  }
+
+  private void sendLatestSlot() {
+    FrameSlot slot = latestSlot.getAndSet(null);
+    if (slot != null) {
+      slot.run();
+    }
+  }
+
+  private synchronized FrameSlot acquire() {
+    FrameSlot slot = freeSlots.poll();
+    if (slot == null && growPool) {
+      slot = new FrameSlot();
+    }
+    return slot;
+  }
+
+  private synchronized void release(FrameSlot slot) {
+    // The buffers added while Dart was falling behind are left to the garbage collector.
+    if (!growPool || freeSlots.size() < DEFAULT_POOL_SIZE) {
+      freeSlots.add(slot);
+    }
+  }
+
+  /** A pooled buffer, which sends its content on the main thread when run. */
+  private class FrameSlot implements Runnable {
+    private ByteBuffer buffer;
+
+    @Override
+    public void run() {
+      try {
+        // The messenger copies the message up to the current position synchronously, so the
+        // buffer can be reused as soon as send returns.
+        messenger.send(channelName, buffer);
+        policy.onFrameDelivered();
+      } finally {
+        release(this);
+      }
+    }
+  }
+}
@@ -0,0 +1,207 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import android.media.Image;
+import android.os.Handler;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers streamed {@link Image} frames to Dart as maps through an {@link EventChannel.EventSink}.
+ *
+ * <p>The {@link ImageStreamPolicy.Backpressure} strategy of the policy is enforced by tracking the
+ * frames that have been posted to the main thread but not yet handed to the sink. With {@link
+ * ImageStreamPolicy.Backpressure#latestOnly}, a frame that is still waiting is taken back before
+ * the newer frame is copied, and the newer frame is copied into its byte arrays.
+ */
+public class EventChannelImageStreamSender implements ImageStreamSender {
+  private final EventChannel.EventSink imageStreamSink;
+  private final Handler mainHandler;
+  private final ImageStreamPolicy policy;
+  @Nullable private final ImageStreamProcessor processor;
+
+  private final AtomicInteger queuedFrames = new AtomicInteger();
+  private final AtomicReference<Map<String, Object>> latestFrame = new AtomicReference<>();
+  private final AtomicBoolean deliveryPosted = new AtomicBoolean();
+  private final Runnable deliverLatestFrame = this::deliverLatestFrame;
+
+  /**
+   * Creates a new instance of the {@link EventChannelImageStreamSender}.
+   *
+   * @param imageStreamSink the sink the frames are sent to.
+   * @param mainHandler a handler managing the main thread, on which the frames are delivered.
+   * @param policy the policy applied to the delivered frames.
+   * @param processor when set, frames are processed by it before they are sent.
+   */
+  public EventChannelImageStreamSender(
+      @NonNull EventChannel.EventSink imageStreamSink,
+      @NonNull Handler mainHandler,
+      @NonNull ImageStreamPolicy policy,
+      @Nullable ImageStreamProcessor processor) {
+    this.imageStreamSink = imageStreamSink;
+    this.mainHandler = mainHandler;
+    this.policy = policy;
+    this.processor = processor;
+  }
+
+  @NonNull
+  @Override
+  public ImageStreamPolicy getPolicy() {
+    return policy;
+  }
+
+  @Override
+  public boolean send(@NonNull Image image, @NonNull CameraCaptureProperties captureProps) {
+    if (policy.getBackpressure() == ImageStreamPolicy.Backpressure.boundedQueue) {
+      if (queuedFrames.get() >= policy.getMaxQueuedFrames()) {
+        policy.onFrameDropped();
+        return false;
+      }
+
+      Map<String, Object> imageBuffer = toMap(image, captureProps, null);
+      queuedFrames.incrementAndGet();
+      mainHandler.post(
+          () -> {
+            queuedFrames.decrementAndGet();
+            imageStreamSink.success(imageBuffer);
+            policy.onFrameDelivered();
+          });
+      return true;
+    }
+
+    // Only the latest frame is kept. The frame that is still waiting, if any, is taken back so that
+    // the main thread no longer sees it, and is dropped.
+    Map<String, Object> waitingFrame = latestFrame.getAndSet(null);
+    if (waitingFrame != null) {
+      policy.onFrameDropped();
+    }
+    latestFrame.set(toMap(image, captureProps, waitingFrame));
+    // The delivery posted for the waiting frame may have run while the frame was taken back.
+    if (deliveryPosted.compareAndSet(false, true)) {
+      mainHandler.post(deliverLatestFrame);
+    }
+    return true;
+  }
+
+  private void deliverLatestFrame() {
+    deliveryPosted.set(false);
+    Map<String, Object> imageBuffer = latestFrame.getAndSet(null);
+    if (imageBuffer != null) {
+      imageStreamSink.success(imageBuffer);
+      policy.onFrameDelivered();
+    }
+  }
+
+  /**
+   * Copies a frame into a map.
+   *
+   * @param recycledFrame a frame that was not delivered, whose byte arrays are reused when they
+   *     have the right size.
+   */
+  private Map<String, Object> toMap(
+      @NonNull Image image,
+      @NonNull CameraCaptureProperties captureProps,
+      @Nullable Map<String, Object> recycledFrame) {
+    if (processor != null && processor.canProcess(image)) {
+      return toProcessedMap(image, processor, captureProps, recycledFrame);
+    }
+
+    Image.Plane[] imagePlanes = image.getPlanes();
+    List<Map<String, Object>> planes = new ArrayList<>(imagePlanes.length);
+    for (int i = 0; i < imagePlanes.length; i++) {
+      Image.Plane plane = imagePlanes[i];
+      ByteBuffer buffer = plane.getBuffer();
+
+      byte[] bytes = getBytes(recycledFrame, i, buffer.remaining());
+      buffer.get(bytes, 0, bytes.length);
+
+      Map<String, Object> planeBuffer = new HashMap<>();
+      planeBuffer.put("bytesPerRow", plane.getRowStride());
+      planeBuffer.put("bytesPerPixel", plane.getPixelStride());
+      planeBuffer.put("bytes", bytes);
+
+      planes.add(planeBuffer);
+    }
+
+    return toMap(
+        image.getWidth(),
+        image.getHeight(),
+        image.getFormat(),
+        image.getTimestamp(),
+        planes,
+        captureProps);
+  }
+
+  private static Map<String, Object> toProcessedMap(
+      @NonNull Image image,
+      @NonNull ImageStreamProcessor processor,
+      @NonNull CameraCaptureProperties captureProps,
+      @Nullable Map<String, Object> recycledFrame) {
+    processor.configure(image.getWidth(), image.getHeight());
+    byte[] bytes = getBytes(recycledFrame, 0, processor.getOutputSize());
+    processor.process(image, ByteBuffer.wrap(bytes));
+
+    Map<String, Object> planeBuffer = new HashMap<>();
+    planeBuffer.put("bytesPerRow", processor.getOutputRowStride());
+    planeBuffer.put("bytesPerPixel", processor.getOutputPixelStride());
+    planeBuffer.put("bytes", bytes);
+
+    List<Map<String, Object>> planes = new ArrayList<>();
+    planes.add(planeBuffer);
+    return toMap(
+        processor.getOutputWidth(),
+        processor.getOutputHeight(),
+        processor.getOutputFormat(),
+        image.getTimestamp(),
+        planes,
+        captureProps);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static byte[] getBytes(@Nullable Map<String, Object> recycledFrame, int plane, int size) {
+    if (recycledFrame != null) {
+      List<Map<String, Object>> planes = (List<Map<String, Object>>) recycledFrame.get("planes");
+      if (plane < planes.size()) {
+        byte[] bytes = (byte[]) planes.get(plane).get("bytes");
+        if (bytes.length == size) {
+          return bytes;
+        }
+      }
+    }
+    return new byte[size];
+  }
+
+  private static Map<String, Object> toMap(
+      int width,
+      int height,
+      int format,
+      long sensorTimestamp,
+      List<Map<String, Object>> planes,
+      CameraCaptureProperties captureProps) {
+    Map<String, Object> imageBuffer = new HashMap<>();
+    imageBuffer.put("width", width);
+    imageBuffer.put("height", height);
+    imageBuffer.put("format", format);
+    imageBuffer.put("planes", planes);
+    imageBuffer.put("sensorTimestamp", sensorTimestamp);
+    imageBuffer.put("lensAperture", captureProps.getLastLensAperture());
+    imageBuffer.put("sensorExposureTime", captureProps.getLastSensorExposureTime());
+    Integer sensorSensitivity = captureProps.getLastSensorSensitivity();
+    imageBuffer.put(
+        "sensorSensitivity", sensorSensitivity == null ? null : (double) sensorSensitivity);
+    return imageBuffer;
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import android.media.Image;
+import androidx.annotation.NonNull;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes streamed {@link Image} frames into a compact binary layout that can be handed to the
+ * {@link io.flutter.plugin.common.BinaryMessenger} without creating any intermediate maps or byte
+ * arrays.
+ *
+ * <p>All values are written in little-endian byte order. A frame starts with a fixed size header:
+ *
+ * <pre>
+ *   int32   version (currently {@link #VERSION})
+ *   int32   width
+ *   int32   height
+ *   int32   format (an {@link android.graphics.ImageFormat} or, for processed RGBA frames, a
+ *           {@link android.graphics.PixelFormat} constant)
+ *   int64   sensor timestamp of the frame in nanoseconds
+ *   int64   sensor exposure time in nanoseconds, or -1 when unknown
+ *   int32   sensor sensitivity in ISO arithmetic units, or -1 when unknown
+ *   float32 lens aperture as f-stop value, or NaN when unknown
+ *   int32   number of planes
+ * </pre>
+ *
+ * <p>The header is followed by a descriptor of three int32 values per plane (bytes per row, bytes
+ * per pixel and the length of the plane in bytes) and finally by the bytes of all planes in order.
+ *
+ * <p>The exposure time, sensitivity and aperture are those of the capture with the same sensor
+ * timestamp as the frame, when its capture result arrived in time.
+ */
+public final class ImageStreamFrameEncoder {
+  /** Version of the binary layout, bumped whenever the layout changes. */
+  public static final int VERSION = 2;
+
+  /** Size in bytes of the fixed frame header. */
+  static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
+  /** Size in bytes of a single plane descriptor. */
+  static final int PLANE_DESCRIPTOR_SIZE = 4 + 4 + 4;
+
+  private ImageStreamFrameEncoder() {}
+
+  /**
+   * Computes the number of bytes required to encode the supplied image.
+   *
+   * @param image the image to measure.
+   * @return the size in bytes of the encoded frame.
+   */
+  public static int getEncodedSize(@NonNull Image image) {
+    Image.Plane[] planes = image.getPlanes();
+    int size = HEADER_SIZE + planes.length * PLANE_DESCRIPTOR_SIZE;
+    for (Image.Plane plane : planes) {
+      size += plane.getBuffer().remaining();
+    }
+    return size;
+  }
+
+  /**
+   * Writes the supplied image and its capture properties into the output buffer.
+   *
+   * <p>The output buffer is cleared before writing and its position is left at the end of the
+   * encoded frame, which is what {@link io.flutter.plugin.common.BinaryMessenger#send} expects.
+   *
+   * @param image the image to encode.
+   * @param captureProps the capture properties to include in the header.
+   * @param output the buffer to write to, must have a capacity of at least {@link
+   *     #getEncodedSize(Image)} bytes.
+   */
+  public static void encode(
+      @NonNull Image image,
+      @NonNull CameraCaptureProperties captureProps,
+      @NonNull ByteBuffer output) {
+    Image.Plane[] planes = image.getPlanes();
+    writeHeader(
+        image.getWidth(),
+        image.getHeight(),
+        image.getFormat(),
+        image.getTimestamp(),
+        planes.length,
+        captureProps,
+        output);
+
+    for (Image.Plane plane : planes) {
+      output.putInt(plane.getRowStride());
+      output.putInt(plane.getPixelStride());
+      output.putInt(plane.getBuffer().remaining());
+    }
+
+    for (Image.Plane plane : planes) {
+      output.put(plane.getBuffer());
+    }
+  }
+
+  /**
+   * Computes the number of bytes required to encode a frame produced by the supplied processor.
+   *
+   * @param processor the processor, configured for the image that is about to be encoded.
+   * @return the size in bytes of the encoded frame.
+   */
+  public static int getEncodedSize(@NonNull ImageStreamProcessor processor) {
+    return HEADER_SIZE + PLANE_DESCRIPTOR_SIZE + processor.getOutputSize();
+  }
+
+  /**
+   * Processes the supplied image and writes the result as a single plane frame into the output
+   * buffer, without any intermediate copy.
+   *
+   * @param image the image to process and encode.
+   * @param processor the processor, configured for the supplied image.
+   * @param captureProps the capture properties to include in the header.
+   * @param output the buffer to write to, must have a capacity of at least {@link
+   *     #getEncodedSize(ImageStreamProcessor)} bytes.
+   */
+  public static void encode(
+      @NonNull Image image,
+      @NonNull ImageStreamProcessor processor,
+      @NonNull CameraCaptureProperties captureProps,
+      @NonNull ByteBuffer output) {
+    writeHeader(
+        processor.getOutputWidth(),
+        processor.getOutputHeight(),
+        processor.getOutputFormat(),
+        image.getTimestamp(),
+        1,
+        captureProps,
+        output);
+    output.putInt(processor.getOutputRowStride());
+    output.putInt(processor.getOutputPixelStride());
+    output.putInt(processor.getOutputSize());
+    processor.process(image, output);
+  }
+
+  private static void writeHeader(
+      int width,
+      int height,
+      int format,
+      long sensorTimestamp,
+      int planeCount,
+      CameraCaptureProperties captureProps,
+      ByteBuffer output) {
+    Long sensorExposureTime = captureProps.getLastSensorExposureTime();
+    Integer sensorSensitivity = captureProps.getLastSensorSensitivity();
+    Float lensAperture = captureProps.getLastLensAperture();
+
+    output.clear();
+    output.order(ByteOrder.LITTLE_ENDIAN);
+    output.putInt(VERSION);
+    output.putInt(width);
+    output.putInt(height);
+    output.putInt(format);
+    output.putLong(sensorTimestamp);
+    output.putLong(sensorExposureTime == null ? -1 : sensorExposureTime);
+    output.putInt(sensorSensitivity == null ? -1 : sensorSensitivity);
+    output.putFloat(lensAperture == null ? Float.NaN : lensAperture);
+    output.putInt(planeCount);
+  }
+}
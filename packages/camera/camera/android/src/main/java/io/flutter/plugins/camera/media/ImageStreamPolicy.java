@@ -0,0 +1,221 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Describes how streamed frames are throttled and what happens when Dart does not keep up with the
+ * camera.
+ *
+ * <p>Throttling is applied on the camera background thread before a frame is copied, so skipped
+ * frames cost nothing beyond acquiring and closing the {@link android.media.Image}. The {@link
+ * Backpressure} strategy is enforced by the {@link ImageStreamSender} while frames are waiting to
+ * be delivered on the main thread.
+ */
+public class ImageStreamPolicy {
+  /** The strategy applied when frames are produced faster than they are delivered. */
+  public enum Backpressure {
+    /** Keep only the most recent undelivered frame, replacing older ones. */
+    latestOnly("latestOnly"),
+    /** Queue up to {@link #getMaxQueuedFrames()} frames and drop new frames once it is full. */
+    boundedQueue("boundedQueue");
+
+    private final String strValue;
+
+    Backpressure(String strValue) {
+      this.strValue = strValue;
+    }
+
+    /**
+     * Tries to convert the supplied string into a {@see Backpressure} enum value.
+     *
+     * <p>When the supplied string doesn't match a valid {@see Backpressure} enum value, null is
+     * returned.
+     *
+     * @param modeStr String value to convert into a {@see Backpressure} enum value.
+     * @return Matching {@see Backpressure} enum value, or null if no match is found.
+     */
+    @Nullable
+    public static Backpressure getValueForString(String modeStr) {
+      for (Backpressure value : values()) {
+        if (value.strValue.equals(modeStr)) return value;
+      }
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return strValue;
+    }
+  }
+
+  /** Number of frames that may be queued when no limit is requested. */
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private final Backpressure backpressure;
+  private final int maxQueuedFrames;
+  private final int frameInterval;
+  private final long minFrameDurationNs;
+
+  private long frameCounter;
+  private long nextFrameTimestampNs = -1;
+
+  private final AtomicLong deliveredFrames = new AtomicLong();
+  private final AtomicLong droppedFrames = new AtomicLong();
+  private final AtomicLong throttledFrames = new AtomicLong();
+
+  /**
+   * Creates a new instance of the {@link ImageStreamPolicy}.
+   *
+   * @param backpressure the strategy applied when frames are not delivered fast enough.
+   * @param maxQueuedFrames the maximum number of undelivered frames, only used by {@link
+   *     Backpressure#boundedQueue}.
+   * @param frameInterval only every n-th frame produced by the camera is considered, 1 considers
+   *     every frame.
+   * @param targetFps the maximum number of frames per second to deliver, 0 for no limit.
+   */
+  public ImageStreamPolicy(
+      @NonNull Backpressure backpressure,
+      int maxQueuedFrames,
+      int frameInterval,
+      double targetFps) {
+    if (maxQueuedFrames < 1) {
+      throw new IllegalArgumentException("maxQueuedFrames must be at least 1.");
+    }
+    if (frameInterval < 1) {
+      throw new IllegalArgumentException("frameInterval must be at least 1.");
+    }
+    if (targetFps < 0) {
+      throw new IllegalArgumentException("targetFps must not be negative.");
+    }
+    this.backpressure = backpressure;
+    this.maxQueuedFrames = backpressure == Backpressure.latestOnly ? 1 : maxQueuedFrames;
+    this.frameInterval = frameInterval;
+    this.minFrameDurationNs = targetFps > 0 ? (long) (1_000_000_000L / targetFps) : 0;
+  }
+
+  /**
+   * Creates a policy from the arguments supplied to the {@code startImageStream} method call.
+   *
+   * <p>Missing arguments fall back to delivering every frame without any queue limit, which matches
+   * the behavior of the image stream before policies were introduced.
+   *
+   * @param backpressure the name of the {@link Backpressure} strategy.
+   * @param maxQueuedFrames the maximum number of undelivered frames.
+   * @param frameInterval only every n-th frame is considered.
+   * @param targetFps the maximum number of frames per second to deliver, Dart may send this as an
+   *     int or a double.
+   * @return the configured policy.
+   * @throws IllegalArgumentException when one of the arguments is invalid.
+   */
+  @NonNull
+  public static ImageStreamPolicy fromArguments(
+      @Nullable String backpressure,
+      @Nullable Integer maxQueuedFrames,
+      @Nullable Integer frameInterval,
+      @Nullable Number targetFps) {
+    Backpressure strategy = Backpressure.boundedQueue;
+    if (backpressure != null) {
+      strategy = Backpressure.getValueForString(backpressure);
+      if (strategy == null) {
+        throw new IllegalArgumentException("Unknown image stream backpressure " + backpressure);
+      }
+    }
+    return new ImageStreamPolicy(
+        strategy,
+        maxQueuedFrames == null ? UNBOUNDED : maxQueuedFrames,
+        frameInterval == null ? 1 : frameInterval,
+        targetFps == null ? 0 : targetFps.doubleValue());
+  }
+
+  /** Gets the strategy applied when frames are not delivered fast enough. */
+  @NonNull
+  public Backpressure getBackpressure() {
+    return backpressure;
+  }
+
+  /** Gets the maximum number of frames that may wait for delivery at the same time. */
+  public int getMaxQueuedFrames() {
+    return maxQueuedFrames;
+  }
+
+  /**
+   * Decides whether a frame produced by the camera should be delivered, based on the frame interval
+   * and target fps. Frames that are skipped are counted as throttled.
+   *
+   * <p>This method must only be called from the camera background thread.
+   *
+   * @param timestampNs the timestamp of the frame in nanoseconds.
+   * @return true if the frame should be delivered.
+   */
+  public boolean shouldAcceptFrame(long timestampNs) {
+    if (frameCounter++ % frameInterval != 0) {
+      throttledFrames.incrementAndGet();
+      return false;
+    }
+
+    if (minFrameDurationNs > 0) {
+      // Allow for a little jitter in the frame timestamps, otherwise a frame that arrives just
+      // before its deadline would be skipped and the delivered rate would fall below the target.
+      long tolerance = minFrameDurationNs / 10;
+      if (nextFrameTimestampNs >= 0 && timestampNs < nextFrameTimestampNs - tolerance) {
+        throttledFrames.incrementAndGet();
+        return false;
+      }
+      if (nextFrameTimestampNs < 0 || timestampNs >= nextFrameTimestampNs + minFrameDurationNs) {
+        // Start over after the first frame or a pause instead of delivering a burst of frames.
+        nextFrameTimestampNs = timestampNs + minFrameDurationNs;
+      } else {
+        nextFrameTimestampNs += minFrameDurationNs;
+      }
+    }
+
+    return true;
+  }
+
+  /** Records that a frame has been handed to Dart. */
+  public void onFrameDelivered() {
+    deliveredFrames.incrementAndGet();
+  }
+
+  /** Records that a frame has been dropped because of backpressure. */
+  public void onFrameDropped() {
+    droppedFrames.incrementAndGet();
+  }
+
+  /** Gets the number of frames handed to Dart. */
+  public long getDeliveredFrameCount() {
+    return deliveredFrames.get();
+  }
+
+  /** Gets the number of frames dropped because of backpressure. */
+  public long getDroppedFrameCount() {
+    return droppedFrames.get();
+  }
+
+  /** Gets the number of frames skipped because of the frame interval or target fps. */
+  public long getThrottledFrameCount() {
+    return throttledFrames.get();
+  }
+
+  /**
+   * Gets the frame counters in a format that can be sent to Dart.
+   *
+   * @return a map containing the delivered, dropped and throttled frame counts.
+   */
+  @NonNull
+  public Map<String, Object> getStatistics() {
+    Map<String, Object> statistics = new HashMap<>();
+    statistics.put("deliveredFrames", getDeliveredFrameCount());
+    statistics.put("droppedFrames", getDroppedFrameCount());
+    statistics.put("throttledFrames", getThrottledFrameCount());
+    return statistics;
+  }
+}
@@ -0,0 +1,394 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import android.graphics.ImageFormat;
+import android.graphics.PixelFormat;
+import android.media.Image;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Crops, scales, rotates and converts streamed YUV_420_888 frames before they are sent to Dart.
+ *
+ * <p>All steps are done in a single pass over the output pixels using nearest neighbour sampling,
+ * so only the bytes of the processed frame are ever written and copied across the channel. The
+ * sampling tables are cached and only recomputed when the frame size or rotation changes.
+ *
+ * <p>Instances are not thread safe and must only be used from the camera background thread.
+ */
+public class ImageStreamProcessor {
+  /** The pixel format of processed frames. */
+  public enum OutputFormat {
+    /** A full resolution Y plane followed by interleaved V and U samples at half resolution. */
+    nv21("nv21", ImageFormat.NV21),
+    /** Four bytes per pixel in red, green, blue, alpha order. */
+    rgba8888("rgba8888", PixelFormat.RGBA_8888);
+
+    private final String strValue;
+    private final int format;
+
+    OutputFormat(String strValue, int format) {
+      this.strValue = strValue;
+      this.format = format;
+    }
+
+    /**
+     * Tries to convert the supplied string into a {@see OutputFormat} enum value.
+     *
+     * <p>When the supplied string doesn't match a valid {@see OutputFormat} enum value, null is
+     * returned.
+     *
+     * @param modeStr String value to convert into a {@see OutputFormat} enum value.
+     * @return Matching {@see OutputFormat} enum value, or null if no match is found.
+     */
+    @Nullable
+    public static OutputFormat getValueForString(String modeStr) {
+      for (OutputFormat value : values()) {
+        if (value.strValue.equals(modeStr)) return value;
+      }
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return strValue;
+    }
+  }
+
+  private final OutputFormat outputFormat;
+  private final int cropLeft;
+  private final int cropTop;
+  private final int cropWidth;
+  private final int cropHeight;
+  private final int targetWidth;
+  private final int targetHeight;
+  private final boolean rotate;
+
+  private int rotationDegrees;
+
+  // Layout of the most recently configured frame.
+  private int imageWidth = -1;
+  private int imageHeight = -1;
+  private int layoutRotationDegrees = -1;
+  private int outputWidth;
+  private int outputHeight;
+  private int unrotatedWidth;
+  private int unrotatedHeight;
+  private int[] sourceColumns = new int[0];
+  private int[] sourceRows = new int[0];
+
+  /**
+   * Creates a new instance of the {@link ImageStreamProcessor}.
+   *
+   * @param outputFormat the pixel format of the processed frames.
+   * @param cropLeft the left edge of the crop rectangle in sensor image coordinates.
+   * @param cropTop the top edge of the crop rectangle in sensor image coordinates.
+   * @param cropWidth the width of the crop rectangle, 0 to crop to the right edge of the image.
+   * @param cropHeight the height of the crop rectangle, 0 to crop to the bottom edge of the image.
+   * @param targetWidth the width of the processed frame after rotation, 0 to derive it from the
+   *     target height or the crop rectangle.
+   * @param targetHeight the height of the processed frame after rotation, 0 to derive it from the
+   *     target width or the crop rectangle.
+   * @param rotate whether frames are rotated upright using {@link #setRotationDegrees(int)}.
+   */
+  public ImageStreamProcessor(
+      @NonNull OutputFormat outputFormat,
+      int cropLeft,
+      int cropTop,
+      int cropWidth,
+      int cropHeight,
+      int targetWidth,
+      int targetHeight,
+      boolean rotate) {
+    if (cropLeft < 0 || cropTop < 0 || cropWidth < 0 || cropHeight < 0) {
+      throw new IllegalArgumentException("The crop rectangle must not be negative.");
+    }
+    if (targetWidth < 0 || targetHeight < 0) {
+      throw new IllegalArgumentException("The target size must not be negative.");
+    }
+    this.outputFormat = outputFormat;
+    this.cropLeft = cropLeft;
+    this.cropTop = cropTop;
+    this.cropWidth = cropWidth;
+    this.cropHeight = cropHeight;
+    this.targetWidth = targetWidth;
+    this.targetHeight = targetHeight;
+    this.rotate = rotate;
+  }
+
+  /**
+   * Creates a processor from the {@code processing} argument of the {@code startImageStream} method
+   * call.
+   *
+   * @param arguments a map containing an {@code outputFormat} name, an optional {@code crop} map
+   *     with {@code left}, {@code top}, {@code width} and {@code height} entries, optional {@code
+   *     width} and {@code height} entries and an optional {@code rotate} flag.
+   * @return the configured processor, or null if no arguments were supplied.
+   * @throws IllegalArgumentException when one of the arguments is invalid.
+   */
+  @Nullable
+  public static ImageStreamProcessor fromArguments(@Nullable Map<String, Object> arguments) {
+    if (arguments == null) {
+      return null;
+    }
+
+    Object formatName = arguments.get("outputFormat");
+    OutputFormat format = OutputFormat.rgba8888;
+    if (formatName != null) {
+      format = OutputFormat.getValueForString(formatName.toString());
+      if (format == null) {
+        throw new IllegalArgumentException("Unknown image stream output format " + formatName);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> crop = (Map<String, Object>) arguments.get("crop");
+    Boolean rotate = (Boolean) arguments.get("rotate");
+    return new ImageStreamProcessor(
+        format,
+        getInt(crop, "left"),
+        getInt(crop, "top"),
+        getInt(crop, "width"),
+        getInt(crop, "height"),
+        getInt(arguments, "width"),
+        getInt(arguments, "height"),
+        rotate != null && rotate);
+  }
+
+  private static int getInt(@Nullable Map<String, Object> map, String key) {
+    Object value = map == null ? null : map.get(key);
+    return value == null ? 0 : ((Number) value).intValue();
+  }
+
+  /**
+   * Checks whether the supplied image can be processed, only YUV_420_888 images are supported.
+   *
+   * @param image the image to check.
+   * @return true if the image can be processed.
+   */
+  public boolean canProcess(@NonNull Image image) {
+    return image.getFormat() == ImageFormat.YUV_420_888;
+  }
+
+  /** Whether frames should be rotated upright, as requested when the stream was started. */
+  public boolean isRotationEnabled() {
+    return rotate;
+  }
+
+  /**
+   * Sets the clockwise rotation applied to subsequent frames when rotation is enabled.
+   *
+   * @param rotationDegrees one of 0, 90, 180 or 270.
+   */
+  public void setRotationDegrees(int rotationDegrees) {
+    this.rotationDegrees = rotate ? rotationDegrees : 0;
+  }
+
+  /**
+   * Computes the layout of the processed frame for a source image of the supplied size. Must be
+   * called before the getters and {@link #process(Image, ByteBuffer)}.
+   *
+   * @param imageWidth the width of the source image.
+   * @param imageHeight the height of the source image.
+   */
+  public void configure(int imageWidth, int imageHeight) {
+    if (imageWidth == this.imageWidth
+        && imageHeight == this.imageHeight
+        && rotationDegrees == layoutRotationDegrees) {
+      return;
+    }
+    this.imageWidth = imageWidth;
+    this.imageHeight = imageHeight;
+    this.layoutRotationDegrees = rotationDegrees;
+
+    int left = Math.min(cropLeft, imageWidth - 1);
+    int top = Math.min(cropTop, imageHeight - 1);
+    int width = cropWidth == 0 ? imageWidth - left : Math.min(cropWidth, imageWidth - left);
+    int height = cropHeight == 0 ? imageHeight - top : Math.min(cropHeight, imageHeight - top);
+
+    boolean swapAxes = rotationDegrees % 180 != 0;
+    int rotatedWidth = swapAxes ? height : width;
+    int rotatedHeight = swapAxes ? width : height;
+    if (targetWidth > 0 && targetHeight > 0) {
+      outputWidth = targetWidth;
+      outputHeight = targetHeight;
+    } else if (targetWidth > 0) {
+      outputWidth = targetWidth;
+      outputHeight = Math.max(1, Math.round((float) targetWidth * rotatedHeight / rotatedWidth));
+    } else if (targetHeight > 0) {
+      outputWidth = Math.max(1, Math.round((float) targetHeight * rotatedWidth / rotatedHeight));
+      outputHeight = targetHeight;
+    } else {
+      outputWidth = rotatedWidth;
+      outputHeight = rotatedHeight;
+    }
+    if (outputFormat == OutputFormat.nv21) {
+      // Chroma is subsampled by two in both directions.
+      outputWidth = Math.max(2, outputWidth & ~1);
+      outputHeight = Math.max(2, outputHeight & ~1);
+    }
+
+    unrotatedWidth = swapAxes ? outputHeight : outputWidth;
+    unrotatedHeight = swapAxes ? outputWidth : outputHeight;
+    if (sourceColumns.length < unrotatedWidth) {
+      sourceColumns = new int[unrotatedWidth];
+    }
+    if (sourceRows.length < unrotatedHeight) {
+      sourceRows = new int[unrotatedHeight];
+    }
+    // Sample the center of each destination pixel.
+    for (int x = 0; x < unrotatedWidth; x++) {
+      sourceColumns[x] = left + (int) ((2L * x + 1) * width / (2L * unrotatedWidth));
+    }
+    for (int y = 0; y < unrotatedHeight; y++) {
+      sourceRows[y] = top + (int) ((2L * y + 1) * height / (2L * unrotatedHeight));
+    }
+  }
+
+  /** Gets the width of the processed frame. */
+  public int getOutputWidth() {
+    return outputWidth;
+  }
+
+  /** Gets the height of the processed frame. */
+  public int getOutputHeight() {
+    return outputHeight;
+  }
+
+  /** Gets the {@link ImageFormat} or {@link PixelFormat} constant of the processed frame. */
+  public int getOutputFormat() {
+    return outputFormat.format;
+  }
+
+  /** Gets the number of bytes per row of the processed frame. */
+  public int getOutputRowStride() {
+    return outputFormat == OutputFormat.rgba8888 ? outputWidth * 4 : outputWidth;
+  }
+
+  /** Gets the number of bytes per pixel of the processed frame. */
+  public int getOutputPixelStride() {
+    return outputFormat == OutputFormat.rgba8888 ? 4 : 1;
+  }
+
+  /** Gets the size in bytes of the processed frame. */
+  public int getOutputSize() {
+    return outputFormat == OutputFormat.rgba8888
+        ? outputWidth * outputHeight * 4
+        : outputWidth * outputHeight * 3 / 2;
+  }
+
+  /**
+   * Writes the processed frame into the output buffer, starting at its current position. The
+   * position is advanced by {@link #getOutputSize()} bytes.
+   *
+   * @param image the YUV_420_888 image to process.
+   * @param output the buffer to write to.
+   */
+  public void process(@NonNull Image image, @NonNull ByteBuffer output) {
+    Image.Plane[] planes = image.getPlanes();
+    int base = output.position();
+    if (outputFormat == OutputFormat.rgba8888) {
+      writeRgba(planes, output, base);
+    } else {
+      writeNv21(planes, output, base);
+    }
+    output.position(base + getOutputSize());
+  }
+
+  private void writeRgba(Image.Plane[] planes, ByteBuffer output, int base) {
+    ByteBuffer yBuffer = planes[0].getBuffer();
+    ByteBuffer uBuffer = planes[1].getBuffer();
+    ByteBuffer vBuffer = planes[2].getBuffer();
+    int yRowStride = planes[0].getRowStride();
+    int yPixelStride = planes[0].getPixelStride();
+    int uvRowStride = planes[1].getRowStride();
+    int uvPixelStride = planes[1].getPixelStride();
+
+    int[] steps = getOutputSteps(unrotatedWidth, unrotatedHeight, outputWidth);
+    for (int y = 0; y < unrotatedHeight; y++) {
+      int sourceRow = sourceRows[y];
+      int yRow = sourceRow * yRowStride;
+      int uvRow = (sourceRow >> 1) * uvRowStride;
+      int index = steps[0] + y * steps[1];
+      for (int x = 0; x < unrotatedWidth; x++) {
+        int sourceColumn = sourceColumns[x];
+        int luma = yBuffer.get(yRow + sourceColumn * yPixelStride) & 0xff;
+        int uvOffset = uvRow + (sourceColumn >> 1) * uvPixelStride;
+        int cb = (uBuffer.get(uvOffset) & 0xff) - 128;
+        int cr = (vBuffer.get(uvOffset) & 0xff) - 128;
+
+        // Full range BT.601 as produced by the camera, in 16.16 fixed point.
+        int position = base + index * 4;
+        output.put(position, clamp(luma + ((91881 * cr + 32768) >> 16)));
+        output.put(position + 1, clamp(luma - ((22554 * cb + 46802 * cr + 32768) >> 16)));
+        output.put(position + 2, clamp(luma + ((116130 * cb + 32768) >> 16)));
+        output.put(position + 3, (byte) 0xff);
+        index += steps[2];
+      }
+    }
+  }
+
+  private void writeNv21(Image.Plane[] planes, ByteBuffer output, int base) {
+    ByteBuffer yBuffer = planes[0].getBuffer();
+    ByteBuffer uBuffer = planes[1].getBuffer();
+    ByteBuffer vBuffer = planes[2].getBuffer();
+    int yRowStride = planes[0].getRowStride();
+    int yPixelStride = planes[0].getPixelStride();
+    int uvRowStride = planes[1].getRowStride();
+    int uvPixelStride = planes[1].getPixelStride();
+
+    int[] steps = getOutputSteps(unrotatedWidth, unrotatedHeight, outputWidth);
+    for (int y = 0; y < unrotatedHeight; y++) {
+      int yRow = sourceRows[y] * yRowStride;
+      int index = steps[0] + y * steps[1];
+      for (int x = 0; x < unrotatedWidth; x++) {
+        output.put(base + index, yBuffer.get(yRow + sourceColumns[x] * yPixelStride));
+        index += steps[2];
+      }
+    }
+
+    int chromaBase = base + outputWidth * outputHeight;
+    int chromaWidth = unrotatedWidth / 2;
+    int chromaHeight = unrotatedHeight / 2;
+    steps = getOutputSteps(chromaWidth, chromaHeight, outputWidth / 2);
+    for (int y = 0; y < chromaHeight; y++) {
+      int uvRow = (sourceRows[y * 2] >> 1) * uvRowStride;
+      int index = steps[0] + y * steps[1];
+      for (int x = 0; x < chromaWidth; x++) {
+        int uvOffset = uvRow + (sourceColumns[x * 2] >> 1) * uvPixelStride;
+        int position = chromaBase + index * 2;
+        output.put(position, vBuffer.get(uvOffset));
+        output.put(position + 1, uBuffer.get(uvOffset));
+        index += steps[2];
+      }
+    }
+  }
+
+  /**
+   * Computes where the unrotated pixel (x, y) ends up in the rotated output, as {@code first + y *
+   * rowStep + x * pixelStep}.
+   *
+   * @return the first index, the row step and the pixel step.
+   */
+  private int[] getOutputSteps(int width, int height, int rotatedWidth) {
+    switch (layoutRotationDegrees) {
+      case 90:
+        return new int[] {height - 1, -1, rotatedWidth};
+      case 180:
+        return new int[] {(height - 1) * rotatedWidth + width - 1, -rotatedWidth, -1};
+      case 270:
+        return new int[] {(width - 1) * rotatedWidth, 1, -rotatedWidth};
+      default:
+        return new int[] {0, rotatedWidth, 1};
+    }
+  }
+
+  private static byte clamp(int value) {
+    return (byte) (value < 0 ? 0 : value > 255 ? 255 : value);
+  }
+}
@@ -0,0 +1,32 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import android.media.Image;
+import androidx.annotation.NonNull;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+
+/** Delivers frames of the image stream to Dart. */
+public interface ImageStreamSender {
+  /**
+   * Copies the supplied image and schedules it to be delivered on the main thread.
+   *
+   * <p>This method is called on the camera background thread. The image is not closed by this
+   * method, the caller remains responsible for closing it.
+   *
+   * @param image the image to send.
+   * @param captureProps the capture properties to send along with the image.
+   * @return true if the frame was scheduled, false if it was dropped because of backpressure.
+   */
+  boolean send(@NonNull Image image, @NonNull CameraCaptureProperties captureProps);
+
+  /**
+   * Gets the policy this sender applies.
+   *
+   * @return the {@link ImageStreamPolicy} of this sender.
+   */
+  @NonNull
+  ImageStreamPolicy getPolicy();
+}
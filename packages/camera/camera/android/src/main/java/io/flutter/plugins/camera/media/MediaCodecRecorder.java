@@ -0,0 +1,571 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import android.annotation.SuppressLint;
+import android.hardware.camera2.CameraMetadata;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.media.MediaRecorder;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records video with a hardware {@link MediaCodec} encoder fed from a {@link Surface} of the
+ * capture session, and writes it to an MP4 file with a {@link MediaMuxer}.
+ *
+ * <p>Unlike {@link android.media.MediaRecorder}, the encoder is configured directly, which allows
+ * choosing the codec, the bitrate mode and the key frame interval. Audio is recorded with an {@link
+ * AudioRecord} and encoded to AAC.
+ *
+ * <p>The encoders are drained on a dedicated thread, which is the only thread writing to the muxer.
+ * Audio is read from the microphone on a thread of its own, so a slow encoder never makes the
+ * microphone overrun, and its timestamps are derived from the number of samples read. The audio
+ * timestamps are anchored to the clock of the camera timestamps, and both tracks are moved back by
+ * the time the recording started, so the tracks stay in sync however long the camera takes to
+ * deliver its first frame. Pausing drops the encoded samples and shifts the timestamps of the
+ * following samples, so pausing works on every API level.
+ */
+public class MediaCodecRecorder {
+  private static final String TAG = "MediaCodecRecorder";
+
+  /** How long the drain thread waits for encoded output before servicing the other encoder. */
+  private static final long DEQUEUE_TIMEOUT_US = 10_000;
+  /** The largest chunk of PCM audio read at once, about 20 ms of 48 kHz mono audio. */
+  private static final int MAX_AUDIO_READ_BYTES = 2048;
+
+  static class CodecFactory {
+    MediaCodec createEncoder(String mimeType) throws IOException {
+      return MediaCodec.createEncoderByType(mimeType);
+    }
+
+    MediaMuxer createMuxer(String outputFilePath) throws IOException {
+      return new MediaMuxer(outputFilePath, MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+    }
+
+    @SuppressLint("MissingPermission")
+    AudioRecord createAudioRecord(int sampleRate, int channelConfig, int bufferSize) {
+      return new AudioRecord(
+          MediaRecorder.AudioSource.MIC,
+          sampleRate,
+          channelConfig,
+          AudioFormat.ENCODING_PCM_16BIT,
+          bufferSize);
+    }
+  }
+
+  private final String outputFilePath;
+  private final VideoEncoderSettings settings;
+  private final int width;
+  private final int height;
+  private final int frameRate;
+  private final int bitrate;
+  private final CodecFactory codecFactory;
+
+  private int orientationHint;
+  private int timestampSource = CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_UNKNOWN;
+  private boolean enableAudio;
+  private int audioSampleRate;
+  private int audioChannelCount;
+  private int audioBitrate;
+
+  private MediaCodec videoEncoder;
+  private MediaCodec audioEncoder;
+  private AudioRecord audioRecord;
+  private MediaMuxer muxer;
+  private Surface inputSurface;
+  private Thread drainThread;
+  private Thread audioThread;
+
+  private volatile boolean stopRequested;
+  private volatile boolean paused;
+  private volatile boolean syncFrameRequested;
+  private volatile RuntimeException drainFailure;
+  /** The time the recording started, on the clock of the camera timestamps. */
+  private volatile long startTimeUs;
+
+  // Only accessed on the drain thread.
+  private final Track videoTrack = new Track();
+  private final Track audioTrack = new Track();
+  private final List<PendingSample> pendingSamples = new ArrayList<>();
+  private boolean muxerStarted;
+  private long pauseStartUs = -1;
+  private long pausedDurationUs;
+  private boolean videoWritten;
+
+  /**
+   * Creates a new instance of the {@link MediaCodecRecorder}.
+   *
+   * @param outputFilePath the path of the MP4 file to write.
+   * @param settings the video encoder settings.
+   * @param width the width of the recorded video.
+   * @param height the height of the recorded video.
+   * @param frameRate the frame rate used when the settings do not specify one.
+   * @param bitrate the bitrate used when the settings do not specify one.
+   */
+  public MediaCodecRecorder(
+      @NonNull String outputFilePath,
+      @NonNull VideoEncoderSettings settings,
+      int width,
+      int height,
+      int frameRate,
+      int bitrate) {
+    this(outputFilePath, settings, width, height, frameRate, bitrate, new CodecFactory());
+  }
+
+  @VisibleForTesting
+  MediaCodecRecorder(
+      @NonNull String outputFilePath,
+      @NonNull VideoEncoderSettings settings,
+      int width,
+      int height,
+      int frameRate,
+      int bitrate,
+      CodecFactory codecFactory) {
+    this.outputFilePath = outputFilePath;
+    this.settings = settings;
+    this.width = width;
+    this.height = height;
+    this.frameRate = settings.getFrameRate() > 0 ? settings.getFrameRate() : frameRate;
+    this.bitrate = settings.getBitrate() > 0 ? settings.getBitrate() : bitrate;
+    this.codecFactory = codecFactory;
+  }
+
+  /**
+   * Records audio from the microphone along with the video.
+   *
+   * @param sampleRate the audio sample rate in Hz.
+   * @param channelCount the number of audio channels, 1 or 2.
+   * @param bitrate the AAC bitrate in bits per second.
+   * @return this recorder.
+   */
+  public MediaCodecRecorder setAudio(int sampleRate, int channelCount, int bitrate) {
+    this.enableAudio = true;
+    this.audioSampleRate = sampleRate;
+    this.audioChannelCount = channelCount;
+    this.audioBitrate = bitrate;
+    return this;
+  }
+
+  /**
+   * Sets the clockwise rotation in degrees that players apply to the recorded video.
+   *
+   * @param orientationHint the rotation, one of 0, 90, 180 or 270.
+   * @return this recorder.
+   */
+  public MediaCodecRecorder setOrientationHint(int orientationHint) {
+    this.orientationHint = orientationHint;
+    return this;
+  }
+
+  /**
+   * Sets the clock of the timestamps of the camera frames, which the audio timestamps are converted
+   * to.
+   *
+   * @param timestampSource the {@link
+   *     android.hardware.camera2.CameraCharacteristics#SENSOR_INFO_TIMESTAMP_SOURCE} of the camera.
+   * @return this recorder.
+   */
+  public MediaCodecRecorder setTimestampSource(int timestampSource) {
+    this.timestampSource = timestampSource;
+    return this;
+  }
+
+  /**
+   * Creates and configures the encoders and the muxer.
+   *
+   * @throws IOException when the output file or an encoder could not be created.
+   * @throws IllegalArgumentException when the encoder does not support the requested bitrate mode.
+   */
+  public void prepare() throws IOException {
+    try {
+      videoEncoder = codecFactory.createEncoder(settings.getCodec().getMimeType());
+      videoEncoder.configure(
+          createVideoFormat(videoEncoder.getCodecInfo()),
+          null,
+          null,
+          MediaCodec.CONFIGURE_FLAG_ENCODE);
+      inputSurface = videoEncoder.createInputSurface();
+
+      if (enableAudio) {
+        audioEncoder = codecFactory.createEncoder(MediaFormat.MIMETYPE_AUDIO_AAC);
+        audioEncoder.configure(createAudioFormat(), null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+        int channelConfig =
+            audioChannelCount == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
+        int bufferSize =
+            Math.max(
+                AudioRecord.getMinBufferSize(
+                    audioSampleRate, channelConfig, AudioFormat.ENCODING_PCM_16BIT),
+                MAX_AUDIO_READ_BYTES * 4);
+        audioRecord = codecFactory.createAudioRecord(audioSampleRate, channelConfig, bufferSize);
+      }
+
+      muxer = codecFactory.createMuxer(outputFilePath);
+      muxer.setOrientationHint(orientationHint);
+    } catch (IOException | RuntimeException e) {
+      release();
+      throw e;
+    }
+  }
+
+  @VisibleForTesting
+  MediaFormat createVideoFormat(@Nullable MediaCodecInfo codecInfo) {
+    String mimeType = settings.getCodec().getMimeType();
+    MediaFormat format = MediaFormat.createVideoFormat(mimeType, width, height);
+    format.setInteger(
+        MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatSurface);
+    format.setInteger(MediaFormat.KEY_BIT_RATE, bitrate);
+    format.setInteger(MediaFormat.KEY_FRAME_RATE, frameRate);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+      format.setFloat(MediaFormat.KEY_I_FRAME_INTERVAL, settings.getKeyFrameIntervalSeconds());
+    } else {
+      // Older versions only accept whole seconds, round up so key frames are never more frequent.
+      format.setInteger(
+          MediaFormat.KEY_I_FRAME_INTERVAL, (int) Math.ceil(settings.getKeyFrameIntervalSeconds()));
+    }
+
+    VideoEncoderSettings.BitrateMode bitrateMode = settings.getBitrateMode();
+    if (bitrateMode != null) {
+      if (codecInfo != null
+          && !codecInfo
+              .getCapabilitiesForType(mimeType)
+              .getEncoderCapabilities()
+              .isBitrateModeSupported(bitrateMode.getEncoderMode())) {
+        throw new IllegalArgumentException(
+            "The "
+                + settings.getCodec()
+                + " encoder does not support the bitrate mode "
+                + bitrateMode);
+      }
+      format.setInteger(MediaFormat.KEY_BITRATE_MODE, bitrateMode.getEncoderMode());
+    }
+    return format;
+  }
+
+  private MediaFormat createAudioFormat() {
+    MediaFormat format =
+        MediaFormat.createAudioFormat(
+            MediaFormat.MIMETYPE_AUDIO_AAC, audioSampleRate, audioChannelCount);
+    format.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+    format.setInteger(MediaFormat.KEY_BIT_RATE, audioBitrate);
+    format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, MAX_AUDIO_READ_BYTES);
+    return format;
+  }
+
+  /**
+   * Gets the surface the camera renders the frames to record to, which has to be an output of the
+   * capture session.
+   */
+  @NonNull
+  public Surface getSurface() {
+    return inputSurface;
+  }
+
+  /** Starts encoding the frames rendered to the surface, and the audio if enabled. */
+  public void start() {
+    startTimeUs = getClockTimeUs();
+    videoEncoder.start();
+    if (audioEncoder != null) {
+      audioEncoder.start();
+      audioRecord.startRecording();
+      audioThread = new Thread(this::recordAudio, TAG + " audio");
+      audioThread.start();
+    }
+    drainThread = new Thread(this::drain, TAG);
+    drainThread.start();
+  }
+
+  /** Pauses the recording, the paused time is left out of the recorded file. */
+  public void pause() {
+    paused = true;
+  }
+
+  /** Resumes a paused recording, starting with a key frame. */
+  public void resume() {
+    syncFrameRequested = true;
+    paused = false;
+  }
+
+  /**
+   * Stops the recording and finishes the file, waiting until all encoded samples are written.
+   *
+   * @throws IllegalStateException when encoding failed or no video was recorded, in which case the
+   *     file is not valid.
+   */
+  public void stop() {
+    stopRequested = true;
+    joinThreads();
+    RuntimeException failure = drainFailure;
+    release();
+    if (failure != null) {
+      throw new IllegalStateException("Video encoding failed: " + failure.getMessage(), failure);
+    }
+    if (!videoWritten) {
+      throw new IllegalStateException("No video frames were recorded.");
+    }
+  }
+
+  /** Releases all resources, stopping the recording without finishing the file. */
+  public void release() {
+    stopRequested = true;
+    joinThreads();
+    if (audioRecord != null) {
+      audioRecord.release();
+      audioRecord = null;
+    }
+    if (videoEncoder != null) {
+      videoEncoder.release();
+      videoEncoder = null;
+    }
+    if (audioEncoder != null) {
+      audioEncoder.release();
+      audioEncoder = null;
+    }
+    if (inputSurface != null) {
+      inputSurface.release();
+      inputSurface = null;
+    }
+    if (muxer != null) {
+      try {
+        if (muxerStarted) {
+          muxer.stop();
+        }
+      } catch (IllegalStateException e) {
+        Log.w(TAG, "Failed to finish the recorded file: " + e.getMessage());
+      }
+      muxer.release();
+      muxer = null;
+    }
+  }
+
+  private void joinThreads() {
+    try {
+      if (drainThread != null) {
+        drainThread.join();
+      }
+      if (audioThread != null) {
+        audioThread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    drainThread = null;
+    audioThread = null;
+  }
+
+  private void drain() {
+    MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+    boolean videoEndSignalled = false;
+    videoTrack.done = false;
+    audioTrack.done = audioEncoder == null;
+    try {
+      // The audio thread stops feeding the encoder when it fails, so its end never comes.
+      while ((!videoTrack.done || !audioTrack.done) && drainFailure == null) {
+        if (stopRequested && !videoEndSignalled) {
+          videoEncoder.signalEndOfInputStream();
+          videoEndSignalled = true;
+        }
+        updatePause();
+        drainEncoder(videoEncoder, videoTrack, info);
+        if (audioEncoder != null) {
+          drainEncoder(audioEncoder, audioTrack, info);
+        }
+      }
+      if (drainFailure == null) {
+        videoEncoder.stop();
+        if (audioEncoder != null) {
+          audioEncoder.stop();
+        }
+      }
+    } catch (RuntimeException e) {
+      Log.e(TAG, "Encoding failed", e);
+      drainFailure = e;
+    }
+  }
+
+  private void updatePause() {
+    long nowUs = System.nanoTime() / 1000;
+    if (paused && pauseStartUs < 0) {
+      pauseStartUs = nowUs;
+    } else if (!paused && pauseStartUs >= 0) {
+      pausedDurationUs += nowUs - pauseStartUs;
+      pauseStartUs = -1;
+    }
+    if (syncFrameRequested && !paused) {
+      syncFrameRequested = false;
+      Bundle parameters = new Bundle();
+      parameters.putInt(MediaCodec.PARAMETER_KEY_REQUEST_SYNC_FRAME, 0);
+      videoEncoder.setParameters(parameters);
+    }
+  }
+
+  /**
+   * Reads the audio from the microphone into the audio encoder until the recording stops, then
+   * queues the end of the stream.
+   */
+  private void recordAudio() {
+    long frameCount = 0;
+    long audioStartTimeUs = -1;
+    int bytesPerFrame = 2 * audioChannelCount;
+    try {
+      while (drainFailure == null) {
+        int index = audioEncoder.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+        if (index < 0) {
+          continue;
+        }
+        if (stopRequested) {
+          long endTimeUs =
+              audioStartTimeUs < 0
+                  ? getClockTimeUs()
+                  : audioStartTimeUs + getAudioPresentationTimeUs(frameCount, audioSampleRate);
+          audioEncoder.queueInputBuffer(
+              index, 0, 0, endTimeUs, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+          break;
+        }
+        ByteBuffer buffer = audioEncoder.getInputBuffer(index);
+        // Blocks until the chunk has been recorded, the microphone buffer holds several of them.
+        int read = audioRecord.read(buffer, Math.min(buffer.remaining(), MAX_AUDIO_READ_BYTES));
+        if (read < 0) {
+          throw new IllegalStateException("Reading the audio failed with error " + read);
+        }
+        if (audioStartTimeUs < 0) {
+          // The first chunk was recorded right before the read returned.
+          audioStartTimeUs =
+              getClockTimeUs() - getAudioPresentationTimeUs(read / bytesPerFrame, audioSampleRate);
+        }
+        long presentationTimeUs =
+            audioStartTimeUs + getAudioPresentationTimeUs(frameCount, audioSampleRate);
+        audioEncoder.queueInputBuffer(index, 0, read, presentationTimeUs, 0);
+        frameCount += read / bytesPerFrame;
+      }
+      audioRecord.stop();
+    } catch (RuntimeException e) {
+      Log.e(TAG, "Recording audio failed", e);
+      drainFailure = e;
+    }
+  }
+
+  /** Gets the current time on the clock of the camera timestamps. */
+  private long getClockTimeUs() {
+    long nanos =
+        timestampSource == CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME
+            ? SystemClock.elapsedRealtimeNanos()
+            : System.nanoTime();
+    return nanos / 1000;
+  }
+
+  /**
+   * Gets the time of the first sample of a chunk of audio, from the start of the audio.
+   *
+   * <p>The timestamps follow the samples read from the microphone rather than the time a chunk was
+   * read, so they never jitter or drift away from the audio itself.
+   *
+   * @param frameCount the number of frames, one sample per channel each, read before the chunk.
+   * @param sampleRate the audio sample rate in Hz.
+   */
+  @VisibleForTesting
+  static long getAudioPresentationTimeUs(long frameCount, int sampleRate) {
+    return frameCount * 1_000_000L / sampleRate;
+  }
+
+  private void drainEncoder(MediaCodec encoder, Track track, MediaCodec.BufferInfo info) {
+    while (!track.done) {
+      int index = encoder.dequeueOutputBuffer(info, DEQUEUE_TIMEOUT_US);
+      if (index == MediaCodec.INFO_TRY_AGAIN_LATER) {
+        return;
+      }
+      if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+        track.index = muxer.addTrack(encoder.getOutputFormat());
+        startMuxerWhenReady();
+        continue;
+      }
+      if (index < 0) {
+        continue;
+      }
+
+      ByteBuffer buffer = encoder.getOutputBuffer(index);
+      boolean codecConfig = (info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+      if (!codecConfig && info.size > 0 && pauseStartUs < 0) {
+        // Both tracks are on the clock of the camera and are moved back by the same start time.
+        // Samples produced while paused are dropped, the following ones are moved back in time.
+        long presentationTimeUs =
+            Math.max(
+                info.presentationTimeUs - startTimeUs - pausedDurationUs,
+                track.lastPresentationTimeUs);
+        track.lastPresentationTimeUs = presentationTimeUs;
+        writeSample(track, buffer, info, presentationTimeUs);
+      }
+      encoder.releaseOutputBuffer(index, false);
+      if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+        track.done = true;
+      }
+    }
+  }
+
+  private void startMuxerWhenReady() {
+    if (videoTrack.index < 0 || (audioEncoder != null && audioTrack.index < 0)) {
+      return;
+    }
+    muxer.start();
+    muxerStarted = true;
+    for (PendingSample sample : pendingSamples) {
+      muxer.writeSampleData(sample.track.index, sample.data, sample.info);
+      videoWritten |= sample.track == videoTrack;
+    }
+    pendingSamples.clear();
+  }
+
+  private void writeSample(
+      Track track, ByteBuffer buffer, MediaCodec.BufferInfo info, long presentationTimeUs) {
+    MediaCodec.BufferInfo sampleInfo = new MediaCodec.BufferInfo();
+    sampleInfo.set(0, info.size, presentationTimeUs, info.flags);
+    buffer.position(info.offset);
+    buffer.limit(info.offset + info.size);
+    if (muxerStarted) {
+      muxer.writeSampleData(track.index, buffer, sampleInfo);
+      videoWritten |= track == videoTrack;
+      return;
+    }
+
+    // The muxer starts once every track knows its format. Samples produced before that, such as
+    // the first key frame, are kept until then.
+    ByteBuffer copy = ByteBuffer.allocateDirect(info.size);
+    copy.put(buffer);
+    copy.flip();
+    pendingSamples.add(new PendingSample(track, copy, sampleInfo));
+  }
+
+  private static class Track {
+    private int index = -1;
+    private long lastPresentationTimeUs;
+    private boolean done;
+  }
+
+  private static class PendingSample {
+    private final Track track;
+    private final ByteBuffer data;
+    private final MediaCodec.BufferInfo info;
+
+    private PendingSample(Track track, ByteBuffer data, MediaCodec.BufferInfo info) {
+      this.track = track;
+      this.data = data;
+      this.info = info;
+    }
+  }
+}
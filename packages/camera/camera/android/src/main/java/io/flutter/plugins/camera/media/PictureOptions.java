@@ -0,0 +1,162 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Describes how a picture taken with {@code takePicture} is encoded. Pictures are encoded as JPEG
+ * by the camera, pictures in another format or larger than the maximum dimension are re-encoded
+ * after they have been captured.
+ */
+public class PictureOptions {
+  /** The options used when none are supplied, a full size JPEG of the default quality. */
+  public static final PictureOptions DEFAULT = new PictureOptions(Format.jpeg, 0, 0);
+
+  /** The quality pictures are encoded with when no quality is set, the default of the camera. */
+  public static final int DEFAULT_QUALITY = 95;
+
+  /** The file format of a picture. */
+  public enum Format {
+    /** JPEG, encoded by the camera. */
+    jpeg("jpeg", ".jpg"),
+    /** Lossy WebP, re-encoded from the JPEG of the camera. */
+    webp("webp", ".webp");
+
+    private final String strValue;
+    private final String fileExtension;
+
+    Format(String strValue, String fileExtension) {
+      this.strValue = strValue;
+      this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Tries to convert the supplied string into a {@see Format} enum value.
+     *
+     * <p>When the supplied string doesn't match a valid {@see Format} enum value, null is returned.
+     *
+     * @param formatStr String value to convert into a {@see Format} enum value.
+     * @return Matching {@see Format} enum value, or null if no match is found.
+     */
+    @Nullable
+    public static Format getValueForString(String formatStr) {
+      for (Format value : values()) {
+        if (value.strValue.equals(formatStr)) return value;
+      }
+      return null;
+    }
+
+    /** Gets the extension of the files of this format, including the dot. */
+    @NonNull
+    public String getFileExtension() {
+      return fileExtension;
+    }
+
+    @Override
+    public String toString() {
+      return strValue;
+    }
+  }
+
+  private final Format format;
+  private final int quality;
+  private final int maxDimension;
+
+  /**
+   * Creates a new instance of the {@link PictureOptions}.
+   *
+   * @param format the file format of the picture.
+   * @param quality the encoding quality from 1 to 100, 0 to use {@link #DEFAULT_QUALITY}.
+   * @param maxDimension the largest width or height of the upright picture, 0 to keep the size of
+   *     the camera.
+   * @throws IllegalArgumentException when the quality or the maximum dimension is out of range.
+   */
+  public PictureOptions(@NonNull Format format, int quality, int maxDimension) {
+    if (quality < 0 || quality > 100) {
+      throw new IllegalArgumentException("quality must be between 1 and 100.");
+    }
+    if (maxDimension < 0) {
+      throw new IllegalArgumentException("maxDimension must not be negative.");
+    }
+    this.format = format;
+    this.quality = quality;
+    this.maxDimension = maxDimension;
+  }
+
+  /**
+   * Creates the options from the arguments supplied to the {@code takePicture} method call.
+   *
+   * @param format the name of the {@link Format}, jpeg when null.
+   * @param quality the encoding quality, the default quality when null.
+   * @param maxDimension the largest width or height of the picture, the full size when null.
+   * @return the configured options.
+   * @throws IllegalArgumentException when one of the arguments is invalid.
+   */
+  @NonNull
+  public static PictureOptions fromArguments(
+      @Nullable String format, @Nullable Integer quality, @Nullable Integer maxDimension) {
+    Format pictureFormat = Format.jpeg;
+    if (format != null) {
+      pictureFormat = Format.getValueForString(format);
+      if (pictureFormat == null) {
+        throw new IllegalArgumentException("Unsupported picture format " + format);
+      }
+    }
+    if (quality != null && quality == 0) {
+      throw new IllegalArgumentException("quality must be between 1 and 100.");
+    }
+    return new PictureOptions(
+        pictureFormat, quality == null ? 0 : quality, maxDimension == null ? 0 : maxDimension);
+  }
+
+  /** Gets the file format of the picture. */
+  @NonNull
+  public Format getFormat() {
+    return format;
+  }
+
+  /** Whether a quality has been set, the camera uses its own default quality otherwise. */
+  public boolean hasQuality() {
+    return quality != 0;
+  }
+
+  /** Gets the encoding quality from 1 to 100. */
+  public int getQuality() {
+    return quality == 0 ? DEFAULT_QUALITY : quality;
+  }
+
+  /** Gets the largest width or height of the picture, or 0 to keep the size of the camera. */
+  public int getMaxDimension() {
+    return maxDimension;
+  }
+
+  /**
+   * Gets the factor a picture of the supplied size is scaled by to fit the maximum dimension.
+   *
+   * @param width the width of the picture.
+   * @param height the height of the picture.
+   * @return the scale factor, 1 when the picture fits.
+   */
+  public double getScale(int width, int height) {
+    int largest = Math.max(width, height);
+    if (maxDimension == 0 || largest <= maxDimension) {
+      return 1;
+    }
+    return (double) maxDimension / largest;
+  }
+
+  /**
+   * Whether the JPEG of the camera has to be re-encoded for a picture of the supplied size.
+   *
+   * @param width the width of the picture captured by the camera.
+   * @param height the height of the picture captured by the camera.
+   * @return true when the picture has another format or has to be scaled down.
+   */
+  public boolean needsTranscoding(int width, int height) {
+    return format != Format.jpeg || getScale(width, height) < 1;
+  }
+}
@@ -0,0 +1,215 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Describes how the {@link MediaCodecRecorder} encodes video. Values that are not set fall back to
+ * the recording profile of the selected resolution preset.
+ */
+public class VideoEncoderSettings {
+  /** The video codec used to encode the recording. */
+  public enum Codec {
+    /** H.264 / AVC, supported by every device. */
+    h264("h264", MediaFormat.MIMETYPE_VIDEO_AVC),
+    /** H.265 / HEVC, which is not available on every device. */
+    hevc("hevc", MediaFormat.MIMETYPE_VIDEO_HEVC);
+
+    private final String strValue;
+    private final String mimeType;
+
+    Codec(String strValue, String mimeType) {
+      this.strValue = strValue;
+      this.mimeType = mimeType;
+    }
+
+    /**
+     * Tries to convert the supplied string into a {@see Codec} enum value.
+     *
+     * <p>When the supplied string doesn't match a valid {@see Codec} enum value, null is returned.
+     *
+     * @param codecStr String value to convert into a {@see Codec} enum value.
+     * @return Matching {@see Codec} enum value, or null if no match is found.
+     */
+    @Nullable
+    public static Codec getValueForString(String codecStr) {
+      for (Codec value : values()) {
+        if (value.strValue.equals(codecStr)) return value;
+      }
+      return null;
+    }
+
+    /** Gets the MIME type of the encoder for this codec. */
+    @NonNull
+    public String getMimeType() {
+      return mimeType;
+    }
+
+    @Override
+    public String toString() {
+      return strValue;
+    }
+  }
+
+  /** How the encoder distributes the bitrate over the recording. */
+  public enum BitrateMode {
+    /** Constant bitrate, predictable file sizes. */
+    cbr("cbr", MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CBR),
+    /** Variable bitrate, better quality for the same average size. */
+    vbr("vbr", MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_VBR),
+    /** Constant quality, the bitrate is ignored. */
+    cq("cq", MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CQ);
+
+    private final String strValue;
+    private final int encoderMode;
+
+    BitrateMode(String strValue, int encoderMode) {
+      this.strValue = strValue;
+      this.encoderMode = encoderMode;
+    }
+
+    /**
+     * Tries to convert the supplied string into a {@see BitrateMode} enum value.
+     *
+     * <p>When the supplied string doesn't match a valid {@see BitrateMode} enum value, null is
+     * returned.
+     *
+     * @param modeStr String value to convert into a {@see BitrateMode} enum value.
+     * @return Matching {@see BitrateMode} enum value, or null if no match is found.
+     */
+    @Nullable
+    public static BitrateMode getValueForString(String modeStr) {
+      for (BitrateMode value : values()) {
+        if (value.strValue.equals(modeStr)) return value;
+      }
+      return null;
+    }
+
+    /** Gets the {@link MediaCodecInfo.EncoderCapabilities} constant of this mode. */
+    public int getEncoderMode() {
+      return encoderMode;
+    }
+
+    @Override
+    public String toString() {
+      return strValue;
+    }
+  }
+
+  /** The key frame interval used when none is requested, in seconds. */
+  public static final float DEFAULT_KEY_FRAME_INTERVAL_SECONDS = 1;
+
+  private final Codec codec;
+  @Nullable private final BitrateMode bitrateMode;
+  private final int bitrate;
+  private final int frameRate;
+  private final float keyFrameIntervalSeconds;
+
+  /**
+   * Creates a new instance of the {@link VideoEncoderSettings}.
+   *
+   * @param codec the video codec.
+   * @param bitrateMode the bitrate mode, or null to use the default mode of the encoder.
+   * @param bitrate the target bitrate in bits per second, 0 to use the recording profile.
+   * @param frameRate the frame rate, 0 to use the recording profile.
+   * @param keyFrameIntervalSeconds the time between key frames (the GOP length) in seconds.
+   */
+  public VideoEncoderSettings(
+      @NonNull Codec codec,
+      @Nullable BitrateMode bitrateMode,
+      int bitrate,
+      int frameRate,
+      float keyFrameIntervalSeconds) {
+    if (bitrate < 0) {
+      throw new IllegalArgumentException("bitrate must not be negative.");
+    }
+    if (frameRate < 0) {
+      throw new IllegalArgumentException("frameRate must not be negative.");
+    }
+    if (keyFrameIntervalSeconds < 0) {
+      throw new IllegalArgumentException("keyFrameInterval must not be negative.");
+    }
+    this.codec = codec;
+    this.bitrateMode = bitrateMode;
+    this.bitrate = bitrate;
+    this.frameRate = frameRate;
+    this.keyFrameIntervalSeconds = keyFrameIntervalSeconds;
+  }
+
+  /**
+   * Creates the settings from the arguments supplied to the {@code startVideoRecording} method
+   * call.
+   *
+   * @param codec the name of the {@link Codec}, h264 when null.
+   * @param bitrateMode the name of the {@link BitrateMode}, the encoder default when null.
+   * @param bitrate the bitrate in bits per second, the recording profile's when null.
+   * @param frameRate the frame rate, the recording profile's when null.
+   * @param keyFrameInterval the key frame interval in seconds, Dart may send this as an int or a
+   *     double.
+   * @return the configured settings.
+   * @throws IllegalArgumentException when one of the arguments is invalid.
+   */
+  @NonNull
+  public static VideoEncoderSettings fromArguments(
+      @Nullable String codec,
+      @Nullable String bitrateMode,
+      @Nullable Integer bitrate,
+      @Nullable Integer frameRate,
+      @Nullable Number keyFrameInterval) {
+    Codec videoCodec = Codec.h264;
+    if (codec != null) {
+      videoCodec = Codec.getValueForString(codec);
+      if (videoCodec == null) {
+        throw new IllegalArgumentException("Unknown video codec " + codec);
+      }
+    }
+    BitrateMode mode = null;
+    if (bitrateMode != null) {
+      mode = BitrateMode.getValueForString(bitrateMode);
+      if (mode == null) {
+        throw new IllegalArgumentException("Unknown bitrate mode " + bitrateMode);
+      }
+    }
+    return new VideoEncoderSettings(
+        videoCodec,
+        mode,
+        bitrate == null ? 0 : bitrate,
+        frameRate == null ? 0 : frameRate,
+        keyFrameInterval == null
+            ? DEFAULT_KEY_FRAME_INTERVAL_SECONDS
+            : keyFrameInterval.floatValue());
+  }
+
+  /** Gets the video codec. */
+  @NonNull
+  public Codec getCodec() {
+    return codec;
+  }
+
+  /** Gets the bitrate mode, or null to use the default mode of the encoder. */
+  @Nullable
+  public BitrateMode getBitrateMode() {
+    return bitrateMode;
+  }
+
+  /** Gets the target bitrate in bits per second, or 0 to use the recording profile. */
+  public int getBitrate() {
+    return bitrate;
+  }
+
+  /** Gets the frame rate, or 0 to use the recording profile. */
+  public int getFrameRate() {
+    return frameRate;
+  }
+
+  /** Gets the time between key frames in seconds. */
+  public float getKeyFrameIntervalSeconds() {
+    return keyFrameIntervalSeconds;
+  }
+}
@@ -9,6 +9,7 @@ public class CameraCaptureProperties {
   private Float lastLensAperture;
   private Long lastSensorExposureTime;
   private Integer lastSensorSensitivity;
+  private Long lastSensorTimestamp;
 
   /**
    * Gets the last known lens aperture. (As f-stop value)
@@ -64,4 +65,23 @@ public class CameraCaptureProperties {
   public void setLastSensorSensitivity(Integer lastSensorSensitivity) {
     this.lastSensorSensitivity = lastSensorSensitivity;
   }
+
+  /**
+   * Gets the sensor timestamp in nanoseconds of the capture the properties belong to.
+   *
+   * @return the sensor timestamp in nanoseconds, matching {@link
+   *     android.media.Image#getTimestamp()} of the frames of the capture.
+   */
+  public Long getLastSensorTimestamp() {
+    return lastSensorTimestamp;
+  }
+
+  /**
+   * Sets the sensor timestamp in nanoseconds of the capture the properties belong to.
+   *
+   * @param lastSensorTimestamp - The sensor timestamp to set, in nanoseconds.
+   */
+  public void setLastSensorTimestamp(Long lastSensorTimestamp) {
+    this.lastSensorTimestamp = lastSensorTimestamp;
+  }
 }
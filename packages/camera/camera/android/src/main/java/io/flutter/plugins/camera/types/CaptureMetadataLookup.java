@@ -0,0 +1,65 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.types;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the capture properties of the most recent captures, keyed by their sensor timestamp, so a
+ * frame can be matched with the capture result it belongs to.
+ *
+ * <p>The lookup is a fixed size ring that overwrites the oldest entry. Writers and readers never
+ * lock, each entry is published as a whole through an {@link AtomicReferenceArray}, so the
+ * properties put into the lookup must not be modified afterwards.
+ */
+public class CaptureMetadataLookup {
+  private final AtomicReferenceArray<CameraCaptureProperties> entries;
+  private final AtomicInteger writeIndex = new AtomicInteger();
+
+  /**
+   * Creates a new instance of the {@link CaptureMetadataLookup}.
+   *
+   * @param capacity the number of captures that are kept.
+   */
+  public CaptureMetadataLookup(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive.");
+    }
+    entries = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * Adds the properties of a capture, replacing the oldest capture when the lookup is full.
+   *
+   * @param properties the properties of the capture, with their sensor timestamp set.
+   */
+  public void put(@NonNull CameraCaptureProperties properties) {
+    int index = Math.floorMod(writeIndex.getAndIncrement(), entries.length());
+    entries.set(index, properties);
+  }
+
+  /**
+   * Gets the properties of the capture with the supplied sensor timestamp.
+   *
+   * @param sensorTimestamp the sensor timestamp of the capture in nanoseconds.
+   * @return the properties of the capture, or null when it is unknown or no longer kept.
+   */
+  @Nullable
+  public CameraCaptureProperties get(long sensorTimestamp) {
+    for (int i = 0; i < entries.length(); i++) {
+      CameraCaptureProperties properties = entries.get(i);
+      if (properties != null) {
+        Long timestamp = properties.getLastSensorTimestamp();
+        if (timestamp != null && timestamp == sensorTimestamp) {
+          return properties;
+        }
+      }
+    }
+    return null;
+  }
+}
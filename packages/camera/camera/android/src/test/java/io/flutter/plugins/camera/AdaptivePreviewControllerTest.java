@@ -0,0 +1,117 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.os.PowerManager;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptivePreviewControllerTest {
+  private static final long FRAME_DURATION_NS = 25_000_000;
+  private static final int FRAMES_PER_WINDOW =
+      (int) (AdaptivePreviewController.WINDOW_NANOS / FRAME_DURATION_NS);
+  /** The number of frames arriving late in a window with dropped frames. */
+  private static final int LATE_FRAMES = 10;
+
+  private AdaptivePreviewController.Listener mockListener;
+  private AdaptivePreviewController controller;
+  private long timestampNs;
+
+  @Before
+  public void before() {
+    mockListener = mock(AdaptivePreviewController.Listener.class);
+    controller = new AdaptivePreviewController(2, mockListener);
+  }
+
+  @Test
+  public void onFrame_shouldIgnoreFirstWindow() {
+    runWindow(LATE_FRAMES);
+
+    assertEquals(0, controller.getLevel());
+    verify(mockListener, never()).onLevelChanged(anyInt(), anyString());
+  }
+
+  @Test
+  public void onFrame_shouldStepDownWhenFramesAreDropped() {
+    runWindow(0);
+    runWindow(LATE_FRAMES);
+
+    assertEquals(1, controller.getLevel());
+    verify(mockListener).onLevelChanged(1, AdaptivePreviewController.REASON_FRAME_DROPS);
+  }
+
+  @Test
+  public void onFrame_shouldNotStepDownBelowMaxLevel() {
+    for (int i = 0; i < 6; i++) {
+      runWindow(LATE_FRAMES);
+    }
+
+    assertEquals(2, controller.getLevel());
+  }
+
+  @Test
+  public void onFrame_shouldStepUpAfterHealthyWindows() {
+    runWindow(0);
+    runWindow(LATE_FRAMES);
+    // Settling window after the change.
+    runWindow(0);
+    for (int i = 0; i < AdaptivePreviewController.RECOVERY_WINDOWS - 1; i++) {
+      runWindow(0);
+    }
+    assertEquals(1, controller.getLevel());
+
+    runWindow(0);
+
+    assertEquals(0, controller.getLevel());
+    verify(mockListener).onLevelChanged(0, AdaptivePreviewController.REASON_RECOVERED);
+  }
+
+  @Test
+  public void onFrame_shouldNotStepUpWhileDeviceIsWarm() {
+    runWindow(0);
+    runWindow(LATE_FRAMES);
+    controller.onThermalStatusChanged(PowerManager.THERMAL_STATUS_MODERATE);
+    for (int i = 0; i < AdaptivePreviewController.RECOVERY_WINDOWS * 2; i++) {
+      runWindow(0);
+    }
+
+    assertEquals(1, controller.getLevel());
+  }
+
+  @Test
+  public void onThermalStatusChanged_shouldStepDownWhenSevere() {
+    controller.onThermalStatusChanged(PowerManager.THERMAL_STATUS_LIGHT);
+    assertEquals(0, controller.getLevel());
+
+    controller.onThermalStatusChanged(PowerManager.THERMAL_STATUS_SEVERE);
+
+    assertEquals(1, controller.getLevel());
+    verify(mockListener).onLevelChanged(1, AdaptivePreviewController.REASON_THERMAL);
+  }
+
+  /**
+   * Delivers the frames of exactly one window, of which the supplied number arrives two frame
+   * durations late.
+   */
+  private void runWindow(int lateFrames) {
+    // Starts the window when the controller has just been created or changed its level.
+    controller.onFrame(timestampNs, FRAME_DURATION_NS);
+    for (int i = 0; i < lateFrames; i++) {
+      timestampNs += 3 * FRAME_DURATION_NS;
+      controller.onFrame(timestampNs, FRAME_DURATION_NS);
+    }
+    for (int i = 0; i < FRAMES_PER_WINDOW - 3 * lateFrames; i++) {
+      timestampNs += FRAME_DURATION_NS;
+      controller.onFrame(timestampNs, FRAME_DURATION_NS);
+    }
+  }
+}
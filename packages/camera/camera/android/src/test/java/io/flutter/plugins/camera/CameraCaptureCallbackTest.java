@@ -69,4 +69,19 @@ public class CameraCaptureCallbackTest {
     verify(mockCaptureProps, times(1)).setLastSensorExposureTime(2L);
     verify(mockCaptureProps, times(1)).setLastSensorSensitivity(3);
   }
+
+  @Test
+  public void onCaptureCompleted_recordsTelemetryWhenSet() {
+    CameraCaptureSession mockSession = mock(CameraCaptureSession.class);
+    CaptureRequest mockRequest = mock(CaptureRequest.class);
+    TotalCaptureResult mockResult = mock(TotalCaptureResult.class);
+    CaptureTelemetry mockTelemetry = mock(CaptureTelemetry.class);
+
+    cameraCaptureCallback.setTelemetry(mockTelemetry);
+    cameraCaptureCallback.onCaptureCompleted(mockSession, mockRequest, mockResult);
+    cameraCaptureCallback.setTelemetry(null);
+    cameraCaptureCallback.onCaptureCompleted(mockSession, mockRequest, mockResult);
+
+    verify(mockTelemetry, times(1)).onCaptureCompleted(mockResult);
+  }
 }
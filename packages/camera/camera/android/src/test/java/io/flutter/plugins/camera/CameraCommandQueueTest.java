@@ -0,0 +1,280 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.hardware.camera2.CameraAccessException;
+import android.os.Handler;
+import io.flutter.plugin.common.MethodChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class CameraCommandQueueTest {
+  private DartMessenger mockDartMessenger;
+  private Handler mockHandler;
+  private CameraCommandQueue.Batch mockBatch;
+  private List<Runnable> postedRunnables;
+  private CameraCommandQueue queue;
+
+  @Before
+  public void before() {
+    mockDartMessenger = mock(DartMessenger.class);
+    mockHandler = mock(Handler.class);
+    postedRunnables = new ArrayList<>();
+    when(mockHandler.postDelayed(any(Runnable.class), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              postedRunnables.add(invocation.getArgument(0));
+              return true;
+            });
+    mockBatch = mock(CameraCommandQueue.Batch.class);
+    queue = new CameraCommandQueue(mockDartMessenger, mockBatch);
+  }
+
+  @Test
+  public void enqueue_runsCommandsOnTheHandler() throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    CameraCommandQueue.Command mockCommand = mock(CameraCommandQueue.Command.class);
+
+    queue.enqueue(mockHandler, "zoomLevel", mockResult, mockCommand);
+
+    verify(mockCommand, never()).run(any());
+    assertEquals(1, queue.getPendingCommandCount());
+    runPosted();
+    verify(mockCommand, times(1)).run(any());
+    assertEquals(0, queue.getPendingCommandCount());
+  }
+
+  @Test
+  public void enqueue_supersedesWaitingCommandsWithTheSameKey() throws CameraAccessException {
+    MethodChannel.Result mockResult1 = mock(MethodChannel.Result.class);
+    MethodChannel.Result mockResult2 = mock(MethodChannel.Result.class);
+    MethodChannel.Result mockResult3 = mock(MethodChannel.Result.class);
+    List<Float> appliedZoomLevels = new ArrayList<>();
+
+    queue.enqueue(mockHandler, "zoomLevel", mockResult1, r -> appliedZoomLevels.add(1f));
+    queue.enqueue(mockHandler, "zoomLevel", mockResult2, r -> appliedZoomLevels.add(2f));
+    queue.enqueue(
+        mockHandler,
+        "zoomLevel",
+        mockResult3,
+        r -> {
+          appliedZoomLevels.add(3f);
+          r.success(null);
+        });
+    runPosted();
+
+    assertEquals(1, appliedZoomLevels.size());
+    assertEquals(3f, appliedZoomLevels.get(0), 0);
+    verify(mockHandler, times(1)).postDelayed(any(Runnable.class), anyLong());
+    verify(mockDartMessenger, times(1)).finish(mockResult1, null);
+    verify(mockDartMessenger, times(1)).finish(mockResult2, null);
+    verify(mockDartMessenger, times(1)).finish(mockResult3, null);
+  }
+
+  @Test
+  public void enqueue_doesNotMergeDifferentKeys() throws CameraAccessException {
+    CameraCommandQueue.Command mockZoomCommand = mock(CameraCommandQueue.Command.class);
+    CameraCommandQueue.Command mockFlashCommand = mock(CameraCommandQueue.Command.class);
+
+    queue.enqueue(mockHandler, "zoomLevel", mock(MethodChannel.Result.class), mockZoomCommand);
+    queue.enqueue(mockHandler, "flashMode", mock(MethodChannel.Result.class), mockFlashCommand);
+    runPosted();
+
+    verify(mockZoomCommand, times(1)).run(any());
+    verify(mockFlashCommand, times(1)).run(any());
+  }
+
+  @Test
+  public void enqueue_runsCommandsWithinTheBatchWindowAsOneBatch() throws CameraAccessException {
+    CameraCommandQueue.Command mockZoomCommand = mock(CameraCommandQueue.Command.class);
+    CameraCommandQueue.Command mockFlashCommand = mock(CameraCommandQueue.Command.class);
+
+    queue.enqueue(mockHandler, "zoomLevel", mock(MethodChannel.Result.class), mockZoomCommand);
+    queue.enqueue(mockHandler, "flashMode", mock(MethodChannel.Result.class), mockFlashCommand);
+    runPosted();
+
+    verify(mockHandler, times(1))
+        .postDelayed(any(Runnable.class), eq(CameraCommandQueue.BATCH_WINDOW_MS));
+    InOrder inOrder = inOrder(mockBatch, mockZoomCommand, mockFlashCommand);
+    inOrder.verify(mockBatch).begin();
+    inOrder.verify(mockZoomCommand).run(any());
+    inOrder.verify(mockFlashCommand).run(any());
+    inOrder.verify(mockBatch).commit();
+  }
+
+  @Test
+  public void enqueue_neverSupersedesCommandsWithoutKey() throws CameraAccessException {
+    CameraCommandQueue.Command mockCommand1 = mock(CameraCommandQueue.Command.class);
+    CameraCommandQueue.Command mockCommand2 = mock(CameraCommandQueue.Command.class);
+
+    queue.enqueue(mockHandler, null, mock(MethodChannel.Result.class), mockCommand1);
+    queue.enqueue(mockHandler, null, mock(MethodChannel.Result.class), mockCommand2);
+    assertEquals(2, queue.getPendingCommandCount());
+    runPosted();
+
+    verify(mockCommand1, times(1)).run(any());
+    verify(mockCommand2, times(1)).run(any());
+  }
+
+  @Test
+  public void enqueue_commitsTheBatchWhenACommandFails() {
+    queue.enqueue(
+        mockHandler,
+        "zoomLevel",
+        mock(MethodChannel.Result.class),
+        r -> {
+          throw new CameraAccessException(CameraAccessException.CAMERA_ERROR, "Camera error");
+        });
+    runPosted();
+
+    verify(mockBatch, times(1)).begin();
+    verify(mockBatch, times(1)).commit();
+  }
+
+  @Test
+  public void enqueue_runsCommandsEnqueuedWhileRunningAfterwards() throws CameraAccessException {
+    CameraCommandQueue.Command mockCommand = mock(CameraCommandQueue.Command.class);
+    queue.enqueue(
+        mockHandler,
+        "zoomLevel",
+        mock(MethodChannel.Result.class),
+        r ->
+            queue.enqueue(mockHandler, "zoomLevel", mock(MethodChannel.Result.class), mockCommand));
+
+    runPosted();
+    verify(mockCommand, never()).run(any());
+    runPosted();
+
+    verify(mockCommand, times(1)).run(any());
+  }
+
+  @Test
+  public void enqueue_reportsCameraAccessExceptions() {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+
+    queue.enqueue(
+        mockHandler,
+        "zoomLevel",
+        mockResult,
+        r -> {
+          throw new CameraAccessException(CameraAccessException.CAMERA_ERROR, "Camera error");
+        });
+    runPosted();
+
+    verify(mockDartMessenger, times(1)).error(eq(mockResult), eq("cameraAccess"), any(), isNull());
+  }
+
+  @Test
+  public void enqueue_forwardsNotImplementedToMergedResults() {
+    MethodChannel.Result mockResult1 = mock(MethodChannel.Result.class);
+    MethodChannel.Result mockResult2 = mock(MethodChannel.Result.class);
+
+    queue.enqueue(mockHandler, "zoomLevel", mockResult1, r -> r.success(null));
+    queue.enqueue(mockHandler, "zoomLevel", mockResult2, MethodChannel.Result::notImplemented);
+    runPosted();
+
+    verify(mockDartMessenger, times(1)).notImplemented(mockResult1);
+    verify(mockDartMessenger, times(1)).notImplemented(mockResult2);
+  }
+
+  @Test
+  public void enqueue_failsWhenTheCameraIsClosed() throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    CameraCommandQueue.Command mockCommand = mock(CameraCommandQueue.Command.class);
+
+    queue.enqueue(null, "zoomLevel", mockResult, mockCommand);
+
+    verify(mockCommand, never()).run(any());
+    verify(mockDartMessenger, times(1))
+        .error(mockResult, "cameraAccess", "The camera has been closed.", null);
+    assertEquals(0, queue.getPendingCommandCount());
+  }
+
+  @Test
+  public void close_failsTheCommandsOfTheWaitingBatch() throws CameraAccessException {
+    MethodChannel.Result mockResult1 = mock(MethodChannel.Result.class);
+    MethodChannel.Result mockResult2 = mock(MethodChannel.Result.class);
+    CameraCommandQueue.Command mockCommand = mock(CameraCommandQueue.Command.class);
+    queue.enqueue(mockHandler, "zoomLevel", mockResult1, mockCommand);
+    queue.enqueue(mockHandler, "zoomLevel", mockResult2, mockCommand);
+
+    // The background thread stops without running the batch.
+    postedRunnables.clear();
+    queue.close();
+
+    verify(mockCommand, never()).run(any());
+    verify(mockDartMessenger, times(1))
+        .error(mockResult1, "cameraAccess", "The camera has been closed.", null);
+    verify(mockDartMessenger, times(1))
+        .error(mockResult2, "cameraAccess", "The camera has been closed.", null);
+    assertEquals(0, queue.getPendingCommandCount());
+  }
+
+  @Test
+  public void close_letsCommandsEnqueuedAfterARestoreRun() throws CameraAccessException {
+    CameraCommandQueue.Command mockCommand = mock(CameraCommandQueue.Command.class);
+    queue.enqueue(mockHandler, "zoomLevel", mock(MethodChannel.Result.class), mockCommand);
+    postedRunnables.clear();
+    queue.close();
+
+    queue.enqueue(mockHandler, "zoomLevel", mock(MethodChannel.Result.class), mockCommand);
+    runPosted();
+
+    verify(mockHandler, times(2)).postDelayed(any(Runnable.class), anyLong());
+    verify(mockCommand, times(1)).run(any());
+  }
+
+  @Test
+  public void enqueue_startsANewBatchWhenTheHandlerChanges() throws CameraAccessException {
+    MethodChannel.Result mockStaleResult = mock(MethodChannel.Result.class);
+    CameraCommandQueue.Command mockStaleCommand = mock(CameraCommandQueue.Command.class);
+    CameraCommandQueue.Command mockCommand = mock(CameraCommandQueue.Command.class);
+    Handler mockOtherHandler = mock(Handler.class);
+    List<Runnable> otherRunnables = new ArrayList<>();
+    when(mockOtherHandler.postDelayed(any(Runnable.class), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              otherRunnables.add(invocation.getArgument(0));
+              return true;
+            });
+
+    queue.enqueue(mockHandler, "zoomLevel", mockStaleResult, mockStaleCommand);
+    queue.enqueue(mockOtherHandler, "zoomLevel", mock(MethodChannel.Result.class), mockCommand);
+    // The batch scheduled on the replaced handler has nothing left to run.
+    runPosted();
+    for (Runnable runnable : otherRunnables) {
+      runnable.run();
+    }
+
+    verify(mockStaleCommand, never()).run(any());
+    verify(mockDartMessenger, times(1))
+        .error(mockStaleResult, "cameraAccess", "The camera has been closed.", null);
+    verify(mockCommand, times(1)).run(any());
+    verify(mockBatch, times(1)).begin();
+  }
+
+  private void runPosted() {
+    List<Runnable> runnables = new ArrayList<>(postedRunnables);
+    postedRunnables.clear();
+    for (Runnable runnable : runnables) {
+      runnable.run();
+    }
+  }
+}
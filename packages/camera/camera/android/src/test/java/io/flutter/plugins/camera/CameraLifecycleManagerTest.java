@@ -0,0 +1,93 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+import android.app.Application;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CameraLifecycleManagerTest {
+  private Activity mockActivity;
+  private Application mockApplication;
+  private List<Camera> cameras;
+  private CameraLifecycleManager lifecycleManager;
+
+  @Before
+  public void before() {
+    mockActivity = mock(Activity.class);
+    mockApplication = mock(Application.class);
+    when(mockActivity.getApplication()).thenReturn(mockApplication);
+    cameras = new ArrayList<>();
+    lifecycleManager = new CameraLifecycleManager(mockActivity, cameras);
+  }
+
+  @Test
+  public void start_shouldRegisterOnce() {
+    lifecycleManager.start();
+    lifecycleManager.start();
+    lifecycleManager.stop();
+
+    verify(mockApplication, times(1)).registerActivityLifecycleCallbacks(lifecycleManager);
+    verify(mockApplication, times(1)).unregisterActivityLifecycleCallbacks(lifecycleManager);
+  }
+
+  @Test
+  public void onActivityPaused_shouldReleaseOpenCamerasThatAreNotRecording() {
+    Camera openCamera = addCamera(true, false);
+    Camera closedCamera = addCamera(false, false);
+    Camera recordingCamera = addCamera(true, true);
+
+    lifecycleManager.onActivityPaused(mockActivity);
+
+    verify(openCamera, times(1)).release();
+    verify(closedCamera, never()).release();
+    verify(recordingCamera, never()).release();
+  }
+
+  @Test
+  public void onActivityResumed_shouldRestoreReleasedCamerasThatAreStillLive() {
+    Camera liveCamera = addCamera(true, false);
+    Camera disposedCamera = addCamera(true, false);
+    Camera closedCamera = addCamera(false, false);
+
+    lifecycleManager.onActivityPaused(mockActivity);
+    cameras.remove(disposedCamera);
+    lifecycleManager.onActivityResumed(mockActivity);
+    lifecycleManager.onActivityResumed(mockActivity);
+
+    verify(liveCamera, times(1)).restore();
+    verify(disposedCamera, never()).restore();
+    verify(closedCamera, never()).restore();
+  }
+
+  @Test
+  public void shouldIgnoreOtherActivities() {
+    Camera camera = addCamera(true, false);
+    Activity otherActivity = mock(Activity.class);
+
+    lifecycleManager.onActivityPaused(otherActivity);
+    lifecycleManager.onActivityResumed(otherActivity);
+
+    verify(camera, never()).release();
+    verify(camera, never()).restore();
+  }
+
+  private Camera addCamera(boolean deviceOpen, boolean recordingVideo) {
+    Camera camera = mock(Camera.class);
+    when(camera.isDeviceOpen()).thenReturn(deviceOpen);
+    when(camera.isRecordingVideo()).thenReturn(recordingVideo);
+    cameras.add(camera);
+    return camera;
+  }
+}
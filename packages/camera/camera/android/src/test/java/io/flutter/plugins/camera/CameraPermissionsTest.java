@@ -5,12 +5,38 @@
 package io.flutter.plugins.camera;
 
 import static junit.framework.TestCase.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import android.Manifest;
+import android.app.Activity;
 import android.content.pm.PackageManager;
 import io.flutter.plugins.camera.CameraPermissions.CameraRequestPermissionsListener;
+import java.util.List;
+import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class CameraPermissionsTest {
+  private Activity mockActivity;
+  private CameraPermissions.PermissionsRegistry mockRegistry;
+  private CameraPermissions cameraPermissions;
+
+  @Before
+  public void before() {
+    mockActivity = mock(Activity.class);
+    mockRegistry = mock(CameraPermissions.PermissionsRegistry.class);
+    cameraPermissions = new CameraPermissions();
+    setPermission(Manifest.permission.CAMERA, PackageManager.PERMISSION_DENIED);
+    setPermission(Manifest.permission.RECORD_AUDIO, PackageManager.PERMISSION_DENIED);
+  }
+
   @Test
   public void listener_respondsOnce() {
     final int[] calledCounter = {0};
@@ -24,4 +50,112 @@ public class CameraPermissionsTest {
 
     assertEquals(1, calledCounter[0]);
   }
+
+  @Test
+  public void requestPermissions_shouldSucceedRightAwayWhenGranted() {
+    setPermission(Manifest.permission.CAMERA, PackageManager.PERMISSION_GRANTED);
+    CameraPermissions.ResultCallback callback = mock(CameraPermissions.ResultCallback.class);
+
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, false, callback);
+
+    verify(mockRegistry, never()).addListener(any());
+    verify(callback, times(1)).onResult(null, null);
+  }
+
+  @Test
+  public void requestPermissions_shouldAnswerConcurrentRequestsWithOneRequest() {
+    CameraPermissions.ResultCallback first = mock(CameraPermissions.ResultCallback.class);
+    CameraPermissions.ResultCallback second = mock(CameraPermissions.ResultCallback.class);
+
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, false, first);
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, false, second);
+    verify(first, never()).onResult(any(), any());
+    verify(second, never()).onResult(any(), any());
+
+    setPermission(Manifest.permission.CAMERA, PackageManager.PERMISSION_GRANTED);
+    getListeners(1)
+        .get(0)
+        .onRequestPermissionsResult(9796, null, new int[] {PackageManager.PERMISSION_GRANTED});
+
+    verify(first, times(1)).onResult(null, null);
+    verify(second, times(1)).onResult(null, null);
+  }
+
+  @Test
+  public void requestPermissions_shouldReportDenialToAllWaitingRequests() {
+    CameraPermissions.ResultCallback first = mock(CameraPermissions.ResultCallback.class);
+    CameraPermissions.ResultCallback second = mock(CameraPermissions.ResultCallback.class);
+
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, false, first);
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, false, second);
+    getListeners(1)
+        .get(0)
+        .onRequestPermissionsResult(9796, null, new int[] {PackageManager.PERMISSION_DENIED});
+
+    verify(first, times(1))
+        .onResult("cameraPermission", "MediaRecorderCamera permission not granted");
+    verify(second, times(1))
+        .onResult("cameraPermission", "MediaRecorderCamera permission not granted");
+  }
+
+  @Test
+  public void requestPermissions_shouldNotFailCameraOnlyRequestsWhenAudioIsDenied() {
+    CameraPermissions.ResultCallback withAudio = mock(CameraPermissions.ResultCallback.class);
+    CameraPermissions.ResultCallback cameraOnly = mock(CameraPermissions.ResultCallback.class);
+
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, true, withAudio);
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, false, cameraOnly);
+    setPermission(Manifest.permission.CAMERA, PackageManager.PERMISSION_GRANTED);
+    getListeners(1)
+        .get(0)
+        .onRequestPermissionsResult(
+            9796,
+            null,
+            new int[] {PackageManager.PERMISSION_GRANTED, PackageManager.PERMISSION_DENIED});
+
+    verify(withAudio, times(1))
+        .onResult("cameraPermission", "MediaRecorderAudio permission not granted");
+    verify(cameraOnly, times(1)).onResult(null, null);
+  }
+
+  @Test
+  public void requestPermissions_shouldRequestAudioAgainForRequestsJoiningACameraOnlyRequest() {
+    CameraPermissions.ResultCallback cameraOnly = mock(CameraPermissions.ResultCallback.class);
+    CameraPermissions.ResultCallback withAudio = mock(CameraPermissions.ResultCallback.class);
+
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, false, cameraOnly);
+    cameraPermissions.requestPermissions(mockActivity, mockRegistry, true, withAudio);
+    setPermission(Manifest.permission.CAMERA, PackageManager.PERMISSION_GRANTED);
+    getListeners(1)
+        .get(0)
+        .onRequestPermissionsResult(9796, null, new int[] {PackageManager.PERMISSION_GRANTED});
+
+    verify(cameraOnly, times(1)).onResult(null, null);
+    verify(withAudio, never()).onResult(any(), any());
+
+    setPermission(Manifest.permission.RECORD_AUDIO, PackageManager.PERMISSION_GRANTED);
+    getListeners(2)
+        .get(1)
+        .onRequestPermissionsResult(
+            9796,
+            null,
+            new int[] {PackageManager.PERMISSION_GRANTED, PackageManager.PERMISSION_GRANTED});
+
+    verify(withAudio, times(1)).onResult(null, null);
+  }
+
+  private void setPermission(String permission, int state) {
+    when(mockActivity.checkPermission(eq(permission), anyInt(), anyInt())).thenReturn(state);
+  }
+
+  @SuppressWarnings("deprecation")
+  private List<io.flutter.plugin.common.PluginRegistry.RequestPermissionsResultListener>
+      getListeners(int count) {
+    ArgumentCaptor<io.flutter.plugin.common.PluginRegistry.RequestPermissionsResultListener>
+        captor =
+            ArgumentCaptor.forClass(
+                io.flutter.plugin.common.PluginRegistry.RequestPermissionsResultListener.class);
+    verify(mockRegistry, times(count)).addListener(captor.capture());
+    return captor.getAllValues();
+  }
 }
@@ -0,0 +1,191 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.os.Handler;
+import io.flutter.plugins.camera.features.CameraFeatureFactory;
+import io.flutter.plugins.camera.features.resolution.ResolutionFeature;
+import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class CameraPrewarmerTest {
+  // Camera names that are not integers skip the camcorder profile lookup.
+  private static final String CAMERA_NAME = "test_camera";
+
+  private CameraManager mockCameraManager;
+  private Handler mockHandler;
+  private CameraPropertiesCache cameraPropertiesCache;
+  private CameraPrewarmer prewarmer;
+
+  @Before
+  public void before() throws CameraAccessException {
+    mockCameraManager = mock(CameraManager.class);
+    mockHandler = mock(Handler.class);
+    when(mockCameraManager.getCameraCharacteristics(anyString()))
+        .thenReturn(mock(CameraCharacteristics.class));
+    cameraPropertiesCache = new CameraPropertiesCache(mockCameraManager);
+    prewarmer = new CameraPrewarmer(cameraPropertiesCache, mockHandler);
+  }
+
+  @Test
+  public void prewarm_fillsThePropertiesCache() throws CameraAccessException {
+    prewarmer.prewarm(CAMERA_NAME, null, false);
+    cameraPropertiesCache.get(CAMERA_NAME);
+
+    verify(mockCameraManager, times(1)).getCameraCharacteristics(CAMERA_NAME);
+    verify(mockCameraManager, never())
+        .openCamera(anyString(), any(CameraDevice.StateCallback.class), any(Handler.class));
+  }
+
+  @Test
+  public void createFeatureFactory_handsOutThePrewarmedResolutionFeatureOnce()
+      throws CameraAccessException {
+    prewarmer.prewarm(CAMERA_NAME, ResolutionPreset.high, false);
+    CameraProperties cameraProperties = cameraPropertiesCache.get(CAMERA_NAME);
+    CameraFeatureFactory factory = prewarmer.createFeatureFactory();
+
+    ResolutionFeature first =
+        factory.createResolutionFeature(cameraProperties, ResolutionPreset.high, CAMERA_NAME);
+    ResolutionFeature second =
+        factory.createResolutionFeature(cameraProperties, ResolutionPreset.high, CAMERA_NAME);
+
+    assertNotNull(first);
+    assertNotNull(second);
+    assertNotSame(first, second);
+  }
+
+  @Test
+  public void takeResolutionFeature_ignoresOtherPresetsAndCameras() throws CameraAccessException {
+    prewarmer.prewarm(CAMERA_NAME, ResolutionPreset.high, false);
+    assertNull(prewarmer.takeResolutionFeature(CAMERA_NAME, ResolutionPreset.low));
+
+    prewarmer.prewarm(CAMERA_NAME, ResolutionPreset.high, false);
+    assertNull(prewarmer.takeResolutionFeature("other_camera", ResolutionPreset.high));
+
+    prewarmer.prewarm(CAMERA_NAME, ResolutionPreset.high, false);
+    assertNotNull(prewarmer.takeResolutionFeature(CAMERA_NAME, ResolutionPreset.high));
+  }
+
+  @Test
+  public void prewarm_opensTheDeviceAndSchedulesItsRelease() throws CameraAccessException {
+    prewarmer.prewarm(CAMERA_NAME, null, true);
+
+    verify(mockCameraManager, times(1))
+        .openCamera(eq(CAMERA_NAME), any(CameraDevice.StateCallback.class), eq(mockHandler));
+    verify(mockHandler, times(1))
+        .postDelayed(any(Runnable.class), eq(CameraPrewarmer.DEVICE_TIMEOUT_MS));
+  }
+
+  @Test
+  public void takeDevice_forwardsTheOpenedDeviceToTheCamera() throws CameraAccessException {
+    prewarmer.prewarm(CAMERA_NAME, null, true);
+    CameraPrewarmer.PrewarmedDevice prewarmedDevice = captureOpenedDevice();
+    CameraDevice mockDevice = mock(CameraDevice.class);
+    prewarmedDevice.onOpened(mockDevice);
+
+    CameraPrewarmer.PrewarmedDevice taken = prewarmer.takeDevice(CAMERA_NAME);
+    CameraDevice.StateCallback mockCallback = mock(CameraDevice.StateCallback.class);
+    Handler mockCameraHandler = mock(Handler.class);
+    boolean attached = taken.attach(mockCallback, mockCameraHandler);
+    runPosted(mockCameraHandler);
+
+    assertSame(prewarmedDevice, taken);
+    assertTrue(attached);
+    verify(mockCallback, times(1)).onOpened(mockDevice);
+    verify(mockDevice, never()).close();
+    assertNull(prewarmer.takeDevice(CAMERA_NAME));
+  }
+
+  @Test
+  public void takeDevice_closesTheDeviceOfAnotherCamera() throws CameraAccessException {
+    prewarmer.prewarm(CAMERA_NAME, null, true);
+    CameraPrewarmer.PrewarmedDevice prewarmedDevice = captureOpenedDevice();
+    CameraDevice mockDevice = mock(CameraDevice.class);
+    prewarmedDevice.onOpened(mockDevice);
+
+    assertNull(prewarmer.takeDevice("other_camera"));
+    verify(mockDevice, times(1)).close();
+  }
+
+  @Test
+  public void release_closesADeviceThatIsStillOpening() throws CameraAccessException {
+    prewarmer.prewarm(CAMERA_NAME, null, true);
+    CameraPrewarmer.PrewarmedDevice prewarmedDevice = captureOpenedDevice();
+
+    prewarmer.release();
+    CameraDevice mockDevice = mock(CameraDevice.class);
+    prewarmedDevice.onOpened(mockDevice);
+
+    verify(mockDevice, times(1)).close();
+    assertFalse(prewarmedDevice.attach(mock(CameraDevice.StateCallback.class), mockHandler));
+  }
+
+  @Test
+  public void attach_failsWhenTheDeviceCouldNotBeOpened() {
+    CameraPrewarmer.PrewarmedDevice prewarmedDevice =
+        new CameraPrewarmer.PrewarmedDevice(CAMERA_NAME);
+    CameraDevice mockDevice = mock(CameraDevice.class);
+
+    prewarmedDevice.onError(mockDevice, CameraDevice.StateCallback.ERROR_CAMERA_IN_USE);
+
+    verify(mockDevice, times(1)).close();
+    assertFalse(prewarmedDevice.attach(mock(CameraDevice.StateCallback.class), mockHandler));
+  }
+
+  @Test
+  public void attach_forwardsLaterStateChanges() {
+    CameraPrewarmer.PrewarmedDevice prewarmedDevice =
+        new CameraPrewarmer.PrewarmedDevice(CAMERA_NAME);
+    CameraDevice.StateCallback mockCallback = mock(CameraDevice.StateCallback.class);
+    CameraDevice mockDevice = mock(CameraDevice.class);
+
+    assertTrue(prewarmedDevice.attach(mockCallback, mockHandler));
+    prewarmedDevice.onOpened(mockDevice);
+    prewarmedDevice.onDisconnected(mockDevice);
+    runPosted(mockHandler);
+
+    verify(mockCallback, times(1)).onOpened(mockDevice);
+    verify(mockCallback, times(1)).onDisconnected(mockDevice);
+    verify(mockDevice, never()).close();
+  }
+
+  private CameraPrewarmer.PrewarmedDevice captureOpenedDevice() throws CameraAccessException {
+    ArgumentCaptor<CameraPrewarmer.PrewarmedDevice> deviceCaptor =
+        ArgumentCaptor.forClass(CameraPrewarmer.PrewarmedDevice.class);
+    verify(mockCameraManager)
+        .openCamera(eq(CAMERA_NAME), deviceCaptor.capture(), any(Handler.class));
+    return deviceCaptor.getValue();
+  }
+
+  private static void runPosted(Handler mockHandler) {
+    ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockHandler, atLeastOnce()).post(runnableCaptor.capture());
+    for (Runnable runnable : runnableCaptor.getAllValues()) {
+      runnable.run();
+    }
+  }
+}
@@ -0,0 +1,278 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.os.Build;
+import android.util.Range;
+import android.util.Size;
+import io.flutter.plugins.camera.utils.TestUtils;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CameraPropertiesCacheTest {
+  private CameraManager mockCameraManager;
+  private CameraPropertiesCache cache;
+
+  @Before
+  public void before() throws CameraAccessException {
+    mockCameraManager = mock(CameraManager.class);
+    when(mockCameraManager.getCameraCharacteristics("0"))
+        .thenReturn(mock(CameraCharacteristics.class));
+    when(mockCameraManager.getCameraCharacteristics("1"))
+        .thenReturn(mock(CameraCharacteristics.class));
+    cache = new CameraPropertiesCache(mockCameraManager);
+  }
+
+  @Test
+  public void get_fetchesCharacteristicsOncePerCamera() throws CameraAccessException {
+    CameraProperties first = cache.get("0");
+    CameraProperties second = cache.get("0");
+    CameraProperties other = cache.get("1");
+
+    assertSame(first, second);
+    assertNotSame(first, other);
+    assertEquals("0", first.getCameraName());
+    assertEquals("1", other.getCameraName());
+    verify(mockCameraManager, times(1)).getCameraCharacteristics("0");
+    verify(mockCameraManager, times(1)).getCameraCharacteristics("1");
+  }
+
+  @Test
+  public void invalidate_fetchesCharacteristicsAgain() throws CameraAccessException {
+    CameraProperties first = cache.get("0");
+
+    cache.invalidate();
+    CameraProperties second = cache.get("0");
+
+    assertNotSame(first, second);
+    verify(mockCameraManager, times(2)).getCameraCharacteristics("0");
+  }
+
+  @Test
+  public void get_doesNotCacheFailures() throws CameraAccessException {
+    when(mockCameraManager.getCameraCharacteristics("2"))
+        .thenThrow(new CameraAccessException(CameraAccessException.CAMERA_ERROR))
+        .thenReturn(mock(CameraCharacteristics.class));
+
+    try {
+      cache.get("2");
+      fail();
+    } catch (CameraAccessException e) {
+      // Expected.
+    }
+    CameraProperties properties = cache.get("2");
+
+    assertEquals("2", properties.getCameraName());
+    verify(mockCameraManager, times(2)).getCameraCharacteristics("2");
+  }
+
+  @Test
+  public void getAvailableCameras_isBuiltOnce() throws CameraAccessException {
+    CameraCharacteristics mockCharacteristics = mock(CameraCharacteristics.class);
+    when(mockCameraManager.getCameraIdList()).thenReturn(new String[] {"0", "foobar"});
+    when(mockCameraManager.getCameraCharacteristics("0")).thenReturn(mockCharacteristics);
+    // The characteristics are read in order: sensor orientation, lens facing, hardware level,
+    // stream configuration map and fps ranges.
+    when(mockCharacteristics.get(any()))
+        .thenReturn(90)
+        .thenReturn(CameraMetadata.LENS_FACING_BACK)
+        .thenReturn(CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_3)
+        .thenReturn(null);
+
+    List<Map<String, Object>> first = cache.getAvailableCameras();
+    List<Map<String, Object>> second = cache.getAvailableCameras();
+
+    assertSame(first, second);
+    assertEquals(1, first.size());
+    assertEquals("0", first.get(0).get("name"));
+    verify(mockCameraManager, times(1)).getCameraIdList();
+    verify(mockCameraManager, times(1)).getCameraCharacteristics("0");
+    verify(mockCameraManager, never()).getCameraCharacteristics("foobar");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void describeCamera_includesSizesFpsRangesAndHardwareLevel() {
+    CameraProperties mockProperties = mock(CameraProperties.class);
+    StreamConfigurationMap mockConfigurationMap = mock(StreamConfigurationMap.class);
+    Size previewSize = mockSize(1280, 720);
+    Size pictureSize = mockSize(4032, 3024);
+    Range<Integer> fpsRange = mock(Range.class);
+    when(fpsRange.getLower()).thenReturn(15);
+    when(fpsRange.getUpper()).thenReturn(30);
+    when(mockProperties.getCameraName()).thenReturn("0");
+    when(mockProperties.getSensorOrientation()).thenReturn(90);
+    when(mockProperties.getLensFacing()).thenReturn(CameraMetadata.LENS_FACING_BACK);
+    when(mockProperties.getHardwareLevel())
+        .thenReturn(CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_3);
+    when(mockProperties.getScalerStreamConfigurationMap()).thenReturn(mockConfigurationMap);
+    when(mockProperties.getControlAutoExposureAvailableTargetFpsRanges())
+        .thenReturn(new Range[] {fpsRange});
+    when(mockConfigurationMap.getOutputSizes(SurfaceTexture.class))
+        .thenReturn(new Size[] {previewSize});
+    when(mockConfigurationMap.getOutputSizes(ImageFormat.JPEG))
+        .thenReturn(new Size[] {pictureSize});
+
+    Map<String, Object> camera = CameraPropertiesCache.describeCamera(mockProperties);
+
+    assertEquals("0", camera.get("name"));
+    assertEquals(90, camera.get("sensorOrientation"));
+    assertEquals("back", camera.get("lensFacing"));
+    assertEquals("level3", camera.get("hardwareLevel"));
+    assertEquals(Collections.singletonList(sizeMap(1280, 720)), camera.get("previewSizes"));
+    assertEquals(Collections.singletonList(sizeMap(4032, 3024)), camera.get("pictureSizes"));
+    Map<String, Object> expectedFpsRange = new HashMap<>();
+    expectedFpsRange.put("min", 15);
+    expectedFpsRange.put("max", 30);
+    assertEquals(Collections.singletonList(expectedFpsRange), camera.get("fpsRanges"));
+  }
+
+  @Test
+  public void describeCamera_handlesMissingStreamConfigurations() {
+    CameraProperties mockProperties = mock(CameraProperties.class);
+    when(mockProperties.getCameraName()).thenReturn("0");
+    when(mockProperties.getHardwareLevel()).thenReturn(-1);
+
+    Map<String, Object> camera = CameraPropertiesCache.describeCamera(mockProperties);
+
+    assertEquals("unknown", camera.get("hardwareLevel"));
+    assertEquals(Collections.emptyList(), camera.get("previewSizes"));
+    assertEquals(Collections.emptyList(), camera.get("pictureSizes"));
+    assertEquals(Collections.emptyList(), camera.get("fpsRanges"));
+  }
+
+  @Test
+  public void describeCamera_includesPhysicalCameraNamesOnApi28() {
+    CameraProperties mockProperties = mock(CameraProperties.class);
+    when(mockProperties.getPhysicalCameraIds())
+        .thenReturn(new LinkedHashSet<>(Arrays.asList("2", "3")));
+
+    try {
+      updateSdkVersion(28);
+      Map<String, Object> camera = CameraPropertiesCache.describeCamera(mockProperties);
+
+      assertEquals(Arrays.asList("2", "3"), camera.get("physicalCameraNames"));
+    } finally {
+      updateSdkVersion(0);
+    }
+  }
+
+  @Test
+  public void describeCamera_omitsPhysicalCameraNamesBeforeApi28() {
+    Map<String, Object> camera = CameraPropertiesCache.describeCamera(mock(CameraProperties.class));
+
+    assertFalse(camera.containsKey("physicalCameraNames"));
+  }
+
+  @Test
+  public void getConcurrentCameraNames_listsCombinationsOnApi30() throws CameraAccessException {
+    Set<Set<String>> combinations =
+        Collections.singleton(new LinkedHashSet<>(Arrays.asList("0", "1")));
+    when(mockCameraManager.getConcurrentCameraIds()).thenReturn(combinations);
+
+    try {
+      updateSdkVersion(30);
+
+      assertEquals(
+          Collections.singletonList(Arrays.asList("0", "1")), cache.getConcurrentCameraNames());
+    } finally {
+      updateSdkVersion(0);
+    }
+  }
+
+  @Test
+  public void getConcurrentCameraNames_isEmptyBeforeApi30() throws CameraAccessException {
+    assertEquals(Collections.emptyList(), cache.getConcurrentCameraNames());
+    verify(mockCameraManager, never()).getConcurrentCameraIds();
+  }
+
+  @Test
+  public void availabilityCallback_knownCameraBecomingAvailableKeepsTheCache()
+      throws CameraAccessException {
+    when(mockCameraManager.getCameraIdList()).thenReturn(new String[] {"0"});
+    List<String> cameraNames = cache.getCameraNames();
+
+    cache.availabilityCallback.onCameraAvailable("0");
+
+    assertSame(cameraNames, cache.getCameraNames());
+    verify(mockCameraManager, times(1)).getCameraIdList();
+  }
+
+  @Test
+  public void availabilityCallback_newCameraInvalidatesTheCameraList()
+      throws CameraAccessException {
+    when(mockCameraManager.getCameraIdList())
+        .thenReturn(new String[] {"0"})
+        .thenReturn(new String[] {"0", "1"});
+    cache.getCameraNames();
+    CameraProperties properties = cache.get("0");
+
+    cache.availabilityCallback.onCameraAvailable("1");
+
+    assertEquals(Arrays.asList("0", "1"), cache.getCameraNames());
+    assertSame(properties, cache.get("0"));
+    verify(mockCameraManager, times(1)).getCameraCharacteristics("0");
+  }
+
+  @Test
+  public void availabilityCallback_removedCameraDropsItsProperties() throws CameraAccessException {
+    when(mockCameraManager.getCameraIdList())
+        .thenReturn(new String[] {"0", "1"})
+        .thenReturn(new String[] {"0"});
+    cache.getCameraNames();
+    CameraProperties properties0 = cache.get("0");
+    CameraProperties properties1 = cache.get("1");
+
+    cache.availabilityCallback.onCameraUnavailable("1");
+
+    assertEquals(Collections.singletonList("0"), cache.getCameraNames());
+    assertSame(properties0, cache.get("0"));
+    assertNotSame(properties1, cache.get("1"));
+  }
+
+  private static Size mockSize(int width, int height) {
+    Size size = mock(Size.class);
+    when(size.getWidth()).thenReturn(width);
+    when(size.getHeight()).thenReturn(height);
+    return size;
+  }
+
+  private static Map<String, Object> sizeMap(int width, int height) {
+    Map<String, Object> size = new HashMap<>();
+    size.put("width", width);
+    size.put("height", height);
+    return size;
+  }
+
+  private static void updateSdkVersion(int version) {
+    TestUtils.setFinalStatic(Build.VERSION.class, "SDK_INT", version);
+  }
+}
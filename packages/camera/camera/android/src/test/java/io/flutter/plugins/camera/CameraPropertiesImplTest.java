@@ -17,9 +17,14 @@ import android.graphics.Rect;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.params.StreamConfigurationMap;
 import android.util.Range;
 import android.util.Rational;
 import android.util.Size;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -201,6 +206,20 @@ public class CameraPropertiesImplTest {
     assertEquals(actualDigitalZoom, expectedDigitalZoom);
   }
 
+  @Test
+  public void getScalerStreamConfigurationMapTest() {
+    StreamConfigurationMap expectedConfigurationMap = mock(StreamConfigurationMap.class);
+    when(mockCharacteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP))
+        .thenReturn(expectedConfigurationMap);
+
+    StreamConfigurationMap actualConfigurationMap =
+        cameraProperties.getScalerStreamConfigurationMap();
+
+    verify(mockCharacteristics, times(1))
+        .get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+    assertEquals(actualConfigurationMap, expectedConfigurationMap);
+  }
+
   @Test
   public void getSensorInfoActiveArraySizeTest() {
     Rect expectedArraySize = mock(Rect.class);
@@ -251,6 +270,29 @@ public class CameraPropertiesImplTest {
     assertEquals(actualOrientation, expectedOrientation);
   }
 
+  @Test
+  public void getSensorInfoTimestampSourceTest() {
+    int expectedSource = CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME;
+    when(mockCharacteristics.get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE))
+        .thenReturn(expectedSource);
+
+    int actualSource = cameraProperties.getSensorInfoTimestampSource();
+
+    verify(mockCharacteristics, times(1)).get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+    assertEquals(actualSource, expectedSource);
+  }
+
+  @Test
+  public void getPhysicalCameraIdsTest() {
+    Set<String> expectedIds = new HashSet<>(Arrays.asList("2", "3"));
+    when(mockCharacteristics.getPhysicalCameraIds()).thenReturn(expectedIds);
+
+    Set<String> actualIds = cameraProperties.getPhysicalCameraIds();
+
+    verify(mockCharacteristics, times(1)).getPhysicalCameraIds();
+    assertEquals(actualIds, expectedIds);
+  }
+
   @Test
   public void getHardwareLevelTest() {
     int expectedLevel = 42;
@@ -0,0 +1,46 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.util.Size;
+import io.flutter.embedding.engine.systemchannels.PlatformChannel;
+import io.flutter.plugins.camera.utils.Benchmark;
+import org.junit.Test;
+
+/** Measures the conversion of focus and exposure points, which runs for every tap to focus. */
+public class CameraRegionUtilsBenchmark {
+  private static final int WARMUP_ITERATIONS = 10_000;
+  private static final int ITERATIONS = 100_000;
+
+  @Test
+  public void convertPointToMeteringRectangle() {
+    // The stubbed Size returns 0, and a mock would allocate on every call.
+    Size boundaries =
+        new Size(4000, 3000) {
+          @Override
+          public int getWidth() {
+            return 4000;
+          }
+
+          @Override
+          public int getHeight() {
+            return 3000;
+          }
+        };
+
+    Benchmark.Result result =
+        Benchmark.run(
+            "CameraRegionUtils.convertPointToMeteringRectangle",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () ->
+                CameraRegionUtils.convertPointToMeteringRectangle(
+                    boundaries, 0.3, 0.7, PlatformChannel.DeviceOrientation.PORTRAIT_UP));
+
+    // Only the returned rectangle is allocated.
+    Benchmark.assertBytesPerOpAtMost(result, 256);
+    Benchmark.assertNanosPerOpAtMost(result, 10_000);
+  }
+}
@@ -0,0 +1,65 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import io.flutter.plugins.camera.features.autofocus.FocusMode;
+import io.flutter.plugins.camera.features.exposurelock.ExposureMode;
+import io.flutter.plugins.camera.features.flash.FlashMode;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class CameraSettingsTest {
+  @Test
+  public void fromArguments_shouldParseAllSettings() {
+    Map<String, Object> exposurePoint = new HashMap<>();
+    exposurePoint.put("x", 0.25);
+    exposurePoint.put("y", 0.75);
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("flashMode", "torch");
+    arguments.put("exposureMode", "locked");
+    arguments.put("exposurePoint", exposurePoint);
+    arguments.put("exposureOffset", 1);
+    arguments.put("focusMode", "auto");
+    arguments.put("focusPoint", null);
+    arguments.put("zoomLevel", 2.5);
+
+    CameraSettings settings = CameraSettings.fromArguments(arguments);
+
+    assertEquals(FlashMode.torch, settings.flashMode);
+    assertEquals(ExposureMode.locked, settings.exposureMode);
+    assertEquals(0.25, settings.exposurePoint.x, 0);
+    assertEquals(0.75, settings.exposurePoint.y, 0);
+    assertEquals(1.0, settings.exposureOffset, 0);
+    assertEquals(FocusMode.auto, settings.focusMode);
+    assertNull(settings.focusPoint.x);
+    assertNull(settings.focusPoint.y);
+    assertEquals(2.5f, settings.zoomLevel, 0);
+  }
+
+  @Test
+  public void fromArguments_shouldLeaveMissingSettingsUnchanged() {
+    CameraSettings settings = CameraSettings.fromArguments(new HashMap<>());
+
+    assertNull(settings.flashMode);
+    assertNull(settings.exposureMode);
+    assertNull(settings.exposurePoint);
+    assertNull(settings.exposureOffset);
+    assertNull(settings.focusMode);
+    assertNull(settings.focusPoint);
+    assertNull(settings.zoomLevel);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromArguments_shouldThrowOnUnknownFocusMode() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("focusMode", "sparkle");
+
+    CameraSettings.fromArguments(arguments);
+  }
+}
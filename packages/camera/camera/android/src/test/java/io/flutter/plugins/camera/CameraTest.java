@@ -7,9 +7,14 @@ package io.flutter.plugins.camera;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
@@ -18,17 +23,24 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Activity;
+import android.content.Context;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraDevice;
 import android.hardware.camera2.CameraMetadata;
 import android.hardware.camera2.CaptureRequest;
+import android.media.Image;
+import android.media.ImageReader;
 import android.media.MediaRecorder;
 import android.os.Build;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.util.Range;
+import android.view.Surface;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.LifecycleObserver;
 import io.flutter.embedding.engine.systemchannels.PlatformChannel;
+import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugins.camera.features.CameraFeatureFactory;
 import io.flutter.plugins.camera.features.Point;
@@ -48,11 +60,21 @@ import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
 import io.flutter.plugins.camera.features.sensororientation.DeviceOrientationManager;
 import io.flutter.plugins.camera.features.sensororientation.SensorOrientationFeature;
 import io.flutter.plugins.camera.features.zoomlevel.ZoomLevelFeature;
+import io.flutter.plugins.camera.media.ImageStreamPolicy;
+import io.flutter.plugins.camera.media.MediaCodecRecorder;
+import io.flutter.plugins.camera.media.PictureOptions;
 import io.flutter.plugins.camera.utils.TestUtils;
 import io.flutter.view.TextureRegistry;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 
 public class CameraTest {
@@ -481,6 +503,80 @@ public class CameraTest {
     verify(mockResult, times(1)).error("setZoomLevelFailed", "Could not set zoom level.", null);
   }
 
+  @Test
+  public void runCommand_shouldSendChangesOfABatchWithASingleRepeatingRequest()
+      throws CameraAccessException {
+    FlashFeature mockFlashFeature =
+        mockCameraFeatureFactory.createFlashFeature(mockCameraProperties);
+    ExposureLockFeature mockExposureLockFeature =
+        mockCameraFeatureFactory.createExposureLockFeature(mockCameraProperties);
+    MethodChannel.Result mockFlashResult = mock(MethodChannel.Result.class);
+    MethodChannel.Result mockExposureResult = mock(MethodChannel.Result.class);
+    List<Runnable> postedRunnables = new ArrayList<>();
+    when(mockHandler.postDelayed(any(Runnable.class), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              postedRunnables.add(invocation.getArgument(0));
+              return true;
+            });
+
+    camera.runCommand("flashMode", mockFlashResult, r -> camera.setFlashMode(r, FlashMode.torch));
+    camera.runCommand(
+        "exposureMode", mockExposureResult, r -> camera.setExposureMode(r, ExposureMode.locked));
+    assertEquals(1, postedRunnables.size());
+    postedRunnables.get(0).run();
+
+    verify(mockFlashFeature, times(1)).updateBuilder(mockPreviewRequestBuilder);
+    verify(mockExposureLockFeature, times(1)).updateBuilder(mockPreviewRequestBuilder);
+    verify(mockCaptureSession, times(1)).setRepeatingRequest(any(), any(), any());
+    verify(mockDartMessenger, times(1)).finish(mockFlashResult, null);
+    verify(mockDartMessenger, times(1)).finish(mockExposureResult, null);
+  }
+
+  @Test
+  public void setCameraSettings_shouldUpdateAllFeaturesWithASingleRepeatingRequest()
+      throws CameraAccessException {
+    FlashFeature mockFlashFeature =
+        mockCameraFeatureFactory.createFlashFeature(mockCameraProperties);
+    ZoomLevelFeature mockZoomLevelFeature =
+        mockCameraFeatureFactory.createZoomLevelFeature(mockCameraProperties);
+    ExposureOffsetFeature mockExposureOffsetFeature =
+        mockCameraFeatureFactory.createExposureOffsetFeature(mockCameraProperties);
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    when(mockZoomLevelFeature.getMinimumZoomLevel()).thenReturn(1f);
+    when(mockZoomLevelFeature.getMaximumZoomLevel()).thenReturn(4f);
+
+    camera.setCameraSettings(
+        mockResult, new CameraSettings(FlashMode.torch, null, null, null, null, null, 2f));
+
+    verify(mockFlashFeature, times(1)).setValue(FlashMode.torch);
+    verify(mockZoomLevelFeature, times(1)).setValue(2f);
+    verify(mockFlashFeature, times(1)).updateBuilder(mockPreviewRequestBuilder);
+    verify(mockZoomLevelFeature, times(1)).updateBuilder(mockPreviewRequestBuilder);
+    verify(mockExposureOffsetFeature, never()).updateBuilder(any());
+    verify(mockCaptureSession, times(1)).setRepeatingRequest(any(), any(), any());
+    verify(mockResult, times(1)).success(null);
+  }
+
+  @Test
+  public void setCameraSettings_shouldNotChangeAnythingWhenZoomLevelIsOutOfBounds()
+      throws CameraAccessException {
+    FlashFeature mockFlashFeature =
+        mockCameraFeatureFactory.createFlashFeature(mockCameraProperties);
+    ZoomLevelFeature mockZoomLevelFeature =
+        mockCameraFeatureFactory.createZoomLevelFeature(mockCameraProperties);
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    when(mockZoomLevelFeature.getMinimumZoomLevel()).thenReturn(1f);
+    when(mockZoomLevelFeature.getMaximumZoomLevel()).thenReturn(4f);
+
+    camera.setCameraSettings(
+        mockResult, new CameraSettings(FlashMode.torch, null, null, null, null, null, 8f));
+
+    verify(mockFlashFeature, never()).setValue(any());
+    verify(mockCaptureSession, never()).setRepeatingRequest(any(), any(), any());
+    verify(mockResult, times(1)).error(eq("ZOOM_ERROR"), any(), any());
+  }
+
   @Test
   public void pauseVideoRecording_shouldSendNullResultWhenNotRecording() {
     TestUtils.setPrivateField(camera, "recordingVideo", false);
@@ -507,6 +603,85 @@ public class CameraTest {
     verify(mockResult, never()).error(any(), any(), any());
   }
 
+  @Test
+  public void pauseVideoRecording_shouldPauseCodecRecorderOnAnyAPI() {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    MediaCodecRecorder mockCodecRecorder = mock(MediaCodecRecorder.class);
+    TestUtils.setPrivateField(camera, "codecRecorder", mockCodecRecorder);
+    TestUtils.setPrivateField(camera, "recordingVideo", true);
+    TestUtils.setFinalStatic(Build.VERSION.class, "SDK_INT", 23);
+
+    camera.pauseVideoRecording(mockResult);
+
+    verify(mockCodecRecorder, times(1)).pause();
+    verify(mockResult, times(1)).success(null);
+    verify(mockResult, never()).error(any(), any(), any());
+  }
+
+  @Test
+  public void stopVideoRecording_shouldReportRecorderFailures() throws Exception {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    MediaCodecRecorder mockCodecRecorder = mock(MediaCodecRecorder.class);
+    doThrow(new IllegalStateException("No video frames were recorded."))
+        .when(mockCodecRecorder)
+        .stop();
+    File captureFile = File.createTempFile("REC", ".mp4");
+    setUpVideoRecording(mockCodecRecorder, captureFile);
+
+    camera.stopVideoRecording(mockResult);
+
+    verify(mockCodecRecorder, times(1)).release();
+    verify(mockResult, times(1))
+        .error("videoRecordingFailed", "No video frames were recorded.", null);
+    verify(mockResult, never()).success(any());
+    assertFalse(captureFile.exists());
+  }
+
+  @Test
+  public void stopVideoRecording_shouldStopTheRecorderWhenAbortingCapturesFails() throws Exception {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    MediaCodecRecorder mockCodecRecorder = mock(MediaCodecRecorder.class);
+    doThrow(new CameraAccessException(CameraAccessException.CAMERA_ERROR))
+        .when(mockCaptureSession)
+        .abortCaptures();
+    File captureFile = File.createTempFile("REC", ".mp4");
+    setUpVideoRecording(mockCodecRecorder, captureFile);
+
+    camera.stopVideoRecording(mockResult);
+
+    verify(mockCodecRecorder, times(1)).stop();
+    verify(mockCodecRecorder, times(1)).release();
+    assertNull(TestUtils.getPrivateField(camera, "codecRecorder"));
+    verify(mockResult, times(1)).success(captureFile.getAbsolutePath());
+    captureFile.delete();
+  }
+
+  @Test
+  public void startPreviewWithImageStream_shouldTargetStreamWithoutNewSessionWhileCodecRecording()
+      throws CameraAccessException {
+    ImageReader mockImageStreamReader = mock(ImageReader.class);
+    Surface mockStreamSurface = mock(Surface.class);
+    CameraDevice mockCameraDevice = mock(CameraDevice.class);
+    when(mockImageStreamReader.getSurface()).thenReturn(mockStreamSurface);
+    TestUtils.setPrivateField(camera, "imageStreamReader", mockImageStreamReader);
+    TestUtils.setPrivateField(camera, "cameraDevice", mockCameraDevice);
+    TestUtils.setPrivateField(camera, "codecRecorder", mock(MediaCodecRecorder.class));
+    TestUtils.setPrivateField(camera, "recordingVideo", true);
+
+    camera.startPreviewWithImageStream(
+        mock(EventChannel.class),
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.latestOnly, 1, 1, 0),
+        null,
+        null);
+    camera.stopImageStream();
+
+    verify(mockPreviewRequestBuilder, times(1)).addTarget(mockStreamSurface);
+    verify(mockPreviewRequestBuilder, times(1)).removeTarget(mockStreamSurface);
+    verify(mockCaptureSession, times(2)).setRepeatingRequest(any(), any(), any());
+    verify(mockCaptureSession, never()).close();
+    verify(mockCameraDevice, never()).createCaptureRequest(anyInt());
+  }
+
   @Test
   public void pauseVideoRecording_shouldSendVideoRecordingFailedErrorWhenVersionCodeSmallerThenN() {
     TestUtils.setPrivateField(camera, "recordingVideo", true);
@@ -801,6 +976,273 @@ public class CameraTest {
     verify(mockHandlerThread, times(1)).start();
   }
 
+  @Test
+  public void takePictureBurst_shouldCaptureBurstWithoutStoppingPreview()
+      throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    setUpStillCapture();
+
+    camera.takePictureBurst(mockResult, 3, 0, false, false);
+
+    ArgumentCaptor<List<CaptureRequest>> requestsCaptor = ArgumentCaptor.forClass(List.class);
+    verify(mockCaptureSession, times(1)).captureBurst(requestsCaptor.capture(), any(), any());
+    assertEquals(3, requestsCaptor.getValue().size());
+    verify(mockCaptureSession, never()).stopRepeating();
+    verify(mockResult, never()).error(any(), any(), any());
+  }
+
+  @Test
+  public void takePictureBurst_shouldScheduleCapturesWhenIntervalIsSet()
+      throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    setUpStillCapture();
+
+    camera.takePictureBurst(mockResult, 3, 100, false, false);
+
+    verify(mockCaptureSession, times(1)).capture(any(), any(), any());
+    verify(mockHandler, times(1)).postDelayed(any(), eq(100L));
+    verify(mockHandler, times(1)).postDelayed(any(), eq(200L));
+    verify(mockCaptureSession, never()).captureBurst(any(), any(), any());
+  }
+
+  @Test
+  public void takePictureBurst_shouldRejectInvalidCount() throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    setUpStillCapture();
+
+    camera.takePictureBurst(mockResult, 0, 0, false, false);
+
+    verify(mockResult, times(1))
+        .error(
+            "takePictureBurstFailed",
+            "The count must be at least 1 and the interval must not be negative.",
+            null);
+    verify(mockCaptureSession, never()).captureBurst(any(), any(), any());
+  }
+
+  @Test
+  public void takePictureBurst_shouldRejectWhileCapturing() throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    setUpStillCapture();
+
+    camera.takePictureBurst(mock(MethodChannel.Result.class), 2, 0, false, false);
+    camera.takePictureBurst(mockResult, 2, 0, false, false);
+
+    verify(mockResult, times(1))
+        .error("captureAlreadyActive", "Picture is currently already being captured", null);
+    verify(mockCaptureSession, times(1)).captureBurst(any(), any(), any());
+  }
+
+  @Test
+  public void takePictureBurst_shouldLeaveImagesInTheReaderWhileAllSavesAreBusy()
+      throws CameraAccessException {
+    ImageReader mockReader = mock(ImageReader.class);
+    ExecutorService mockExecutor = mock(ExecutorService.class);
+    setUpStillCapture();
+    when(mockReader.acquireNextImage()).thenAnswer(invocation -> mock(Image.class));
+    TestUtils.setPrivateField(camera, "pictureImageReader", mockReader);
+    TestUtils.setPrivateField(camera, "imageSaverExecutor", mockExecutor);
+
+    camera.takePictureBurst(mock(MethodChannel.Result.class), 10, 0, false, true);
+    ArgumentCaptor<ImageReader.OnImageAvailableListener> listenerCaptor =
+        ArgumentCaptor.forClass(ImageReader.OnImageAvailableListener.class);
+    verify(mockReader).setOnImageAvailableListener(listenerCaptor.capture(), any());
+    listenerCaptor.getValue().onImageAvailable(mockReader);
+    listenerCaptor.getValue().onImageAvailable(mockReader);
+
+    // The reader holds 4 images, one is left for the camera to deliver the next picture into.
+    verify(mockReader, times(3)).acquireNextImage();
+    verify(mockExecutor, times(3)).execute(any(ImageSaver.class));
+  }
+
+  @Test
+  public void takePictureBurst_shouldFailWhenTheReaderCannotDeliverAnImage()
+      throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    ImageReader mockReader = mock(ImageReader.class);
+    setUpStillCapture();
+    when(mockReader.acquireNextImage()).thenThrow(new IllegalStateException("maxImages"));
+    TestUtils.setPrivateField(camera, "pictureImageReader", mockReader);
+
+    camera.takePictureBurst(mockResult, 2, 0, false, true);
+    ArgumentCaptor<ImageReader.OnImageAvailableListener> listenerCaptor =
+        ArgumentCaptor.forClass(ImageReader.OnImageAvailableListener.class);
+    verify(mockReader).setOnImageAvailableListener(listenerCaptor.capture(), any());
+    listenerCaptor.getValue().onImageAvailable(mockReader);
+
+    verify(mockDartMessenger, times(1)).error(mockResult, "cameraAccess", "maxImages", null);
+  }
+
+  @Test
+  public void close_shouldFinishSavingPicturesBeforeClosingTheReaders()
+      throws InterruptedException {
+    ImageReader mockReader = mock(ImageReader.class);
+    ExecutorService mockExecutor = mock(ExecutorService.class);
+    TestUtils.setPrivateField(camera, "pictureImageReader", mockReader);
+    TestUtils.setPrivateField(camera, "imageSaverExecutor", mockExecutor);
+
+    camera.close();
+
+    InOrder inOrder = inOrder(mockExecutor, mockReader);
+    inOrder.verify(mockExecutor).shutdown();
+    inOrder.verify(mockExecutor).awaitTermination(anyLong(), any(TimeUnit.class));
+    inOrder.verify(mockReader).close();
+    assertNull(TestUtils.getPrivateField(camera, "imageSaverExecutor"));
+  }
+
+  @Test
+  public void release_shouldRememberWhatToStartAgainOnRestore() {
+    camera.startCaptureTelemetry(5);
+    TestUtils.setPrivateField(camera, "streamingImages", true);
+
+    camera.release();
+
+    assertNull(TestUtils.getPrivateField(camera, "captureTelemetry"));
+    assertEquals(true, TestUtils.getPrivateField(camera, "restoreCaptureTelemetry"));
+    assertEquals(true, TestUtils.getPrivateField(camera, "restoreImageStream"));
+    assertEquals(false, TestUtils.getPrivateField(camera, "restoreAdaptivePreview"));
+  }
+
+  @Test
+  public void close_shouldForgetWhatToStartAgainOnRestore() {
+    camera.startCaptureTelemetry(5);
+    camera.release();
+
+    camera.close();
+
+    assertEquals(false, TestUtils.getPrivateField(camera, "restoreCaptureTelemetry"));
+  }
+
+  @Test
+  public void setZeroShutterLagEnabled_shouldKeepFramesOnFullCameras()
+      throws CameraAccessException {
+    TestUtils.setFinalStatic(Build.VERSION.class, "SDK_INT", 29);
+    when(mockCameraProperties.getHardwareLevel())
+        .thenReturn(CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_FULL);
+
+    assertTrue(camera.setZeroShutterLagEnabled(true));
+  }
+
+  @Test
+  public void setZeroShutterLagEnabled_shouldNotKeepFramesOnLimitedCameras()
+      throws CameraAccessException {
+    when(mockCameraProperties.getHardwareLevel())
+        .thenReturn(CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_LIMITED);
+
+    assertFalse(camera.setZeroShutterLagEnabled(true));
+  }
+
+  @Test
+  public void setZeroShutterLagEnabled_shouldNotKeepFramesBelowApi29()
+      throws CameraAccessException {
+    TestUtils.setFinalStatic(Build.VERSION.class, "SDK_INT", 28);
+    when(mockCameraProperties.getHardwareLevel())
+        .thenReturn(CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_FULL);
+
+    assertFalse(camera.setZeroShutterLagEnabled(true));
+  }
+
+  @Test
+  public void takePicture_shouldLeaveTheCaptureStateForZeroShutterLagPictures()
+      throws CameraAccessException {
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    ZeroShutterLagBuffer mockBuffer = mock(ZeroShutterLagBuffer.class);
+    ExecutorService mockExecutor = mock(ExecutorService.class);
+    setUpStillCapture();
+    when(mockBuffer.takeClosest(anyLong(), anyLong())).thenReturn(mock(Image.class));
+    TestUtils.setPrivateField(camera, "zeroShutterLagBuffer", mockBuffer);
+    TestUtils.setPrivateField(camera, "imageSaverExecutor", mockExecutor);
+    TestUtils.setPrivateField(camera, "applicationContext", mock(Context.class));
+
+    camera.takePicture(mockResult, false, true, PictureOptions.DEFAULT);
+    camera.takePicture(mockResult, false, true, PictureOptions.DEFAULT);
+
+    verify(mockExecutor, times(2)).execute(any(YuvImageSaver.class));
+    verify(mockResult, never()).error(any(), any(), any());
+    assertNull(TestUtils.getPrivateField(camera, "flutterResult"));
+    verify(mockCaptureSession, never()).capture(any(), any(), any());
+  }
+
+  @Test
+  public void computePreviewSteps_shouldStepDownFrameRatesThenPreviewSizes() {
+    Range<Integer> fps30 = mockRange(30, 30);
+    Range<Integer> fps24 = mockRange(24, 24);
+    Range<Integer> fps15To24 = mockRange(15, 24);
+    Range<Integer> fps15 = mockRange(15, 15);
+    Range<Integer> fps7To15 = mockRange(7, 15);
+    Range<Integer> fps10 = mockRange(10, 10);
+    @SuppressWarnings("unchecked")
+    Range<Integer>[] availableRanges =
+        new Range[] {fps15To24, fps30, fps10, fps7To15, fps24, fps15};
+
+    List<Camera.PreviewStep> steps =
+        Camera.computePreviewSteps(fps30, availableRanges, ResolutionPreset.max);
+
+    assertEquals(5, steps.size());
+    assertEquals(fps30, steps.get(0).fpsRange);
+    assertEquals(ResolutionPreset.max, steps.get(0).previewPreset);
+    assertEquals(fps24, steps.get(1).fpsRange);
+    assertEquals(fps15, steps.get(2).fpsRange);
+    assertEquals(ResolutionPreset.max, steps.get(2).previewPreset);
+    // The preview is never larger than high, so the sizes step down from there.
+    assertEquals(fps15, steps.get(3).fpsRange);
+    assertEquals(ResolutionPreset.medium, steps.get(3).previewPreset);
+    assertEquals(fps15, steps.get(4).fpsRange);
+    assertEquals(ResolutionPreset.low, steps.get(4).previewPreset);
+  }
+
+  @Test
+  public void computePreviewSteps_shouldOnlyContainBaseStepWhenNothingIsCheaper() {
+    Range<Integer> fps15 = mockRange(15, 15);
+    @SuppressWarnings("unchecked")
+    Range<Integer>[] availableRanges = new Range[] {fps15};
+
+    List<Camera.PreviewStep> steps =
+        Camera.computePreviewSteps(fps15, availableRanges, ResolutionPreset.low);
+
+    assertEquals(1, steps.size());
+  }
+
+  @Test
+  public void computePreviewSteps_shouldBeEmptyWithoutFrameRate() {
+    assertEquals(0, Camera.computePreviewSteps(null, null, ResolutionPreset.high).size());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Range<Integer> mockRange(int lower, int upper) {
+    Range<Integer> range = mock(Range.class);
+    when(range.getLower()).thenReturn(lower);
+    when(range.getUpper()).thenReturn(upper);
+    return range;
+  }
+
+  private void setUpVideoRecording(MediaCodecRecorder codecRecorder, File captureFile)
+      throws CameraAccessException {
+    CameraDevice mockCameraDevice = mock(CameraDevice.class);
+    when(mockCameraDevice.createCaptureRequest(anyInt())).thenReturn(mockPreviewRequestBuilder);
+    TestUtils.setPrivateField(camera, "cameraDevice", mockCameraDevice);
+    TestUtils.setPrivateField(camera, "pictureImageReader", mock(ImageReader.class));
+    TestUtils.setPrivateField(camera, "codecRecorder", codecRecorder);
+    TestUtils.setPrivateField(camera, "captureFile", captureFile);
+    TestUtils.setPrivateField(camera, "recordingVideo", true);
+  }
+
+  private void setUpStillCapture() throws CameraAccessException {
+    CameraDevice mockCameraDevice = mock(CameraDevice.class);
+    CaptureRequest.Builder mockStillBuilder = mock(CaptureRequest.Builder.class);
+    when(mockCameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE))
+        .thenReturn(mockStillBuilder);
+    when(mockStillBuilder.build()).thenReturn(mock(CaptureRequest.class));
+    SensorOrientationFeature mockSensorOrientationFeature =
+        mockCameraFeatureFactory.createSensorOrientationFeature(mockCameraProperties, null, null);
+    when(mockSensorOrientationFeature.getDeviceOrientationManager())
+        .thenReturn(mock(DeviceOrientationManager.class));
+
+    TestUtils.setPrivateField(camera, "cameraDevice", mockCameraDevice);
+    TestUtils.setPrivateField(camera, "pictureImageReader", mock(ImageReader.class));
+    TestUtils.setPrivateField(camera, "backgroundHandler", mockHandler);
+  }
+
   private static class TestCameraFeatureFactory implements CameraFeatureFactory {
     private final AutoFocusFeature mockAutoFocusFeature;
     private final ExposureLockFeature mockExposureLockFeature;
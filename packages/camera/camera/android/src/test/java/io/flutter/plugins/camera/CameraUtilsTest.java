@@ -81,11 +81,18 @@ public class CameraUtilsTest {
     when(mockCameraManager.getCameraIdList()).thenReturn(mockCameraIds);
     when(mockCameraManager.getCameraCharacteristics(anyString()))
         .thenReturn(mockCameraCharacteristics);
+    // The characteristics are read in order: sensor orientation, lens facing, hardware level,
+    // stream configuration map and fps ranges.
     when(mockCameraCharacteristics.get(any()))
         .thenReturn(mockSensorOrientation0)
         .thenReturn(mockLensFacing0)
+        .thenReturn(CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_FULL)
+        .thenReturn(null)
+        .thenReturn(null)
         .thenReturn(mockSensorOrientation2)
-        .thenReturn(mockLensFacing2);
+        .thenReturn(mockLensFacing2)
+        .thenReturn(CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_EXTERNAL)
+        .thenReturn(null);
 
     List<Map<String, Object>> availableCameras = CameraUtils.getAvailableCameras(mockActivity);
 
@@ -93,8 +100,10 @@ public class CameraUtilsTest {
     assertEquals(availableCameras.get(0).get("name"), "1394902");
     assertEquals(availableCameras.get(0).get("sensorOrientation"), mockSensorOrientation0);
     assertEquals(availableCameras.get(0).get("lensFacing"), "front");
+    assertEquals(availableCameras.get(0).get("hardwareLevel"), "full");
     assertEquals(availableCameras.get(1).get("name"), "0283835");
     assertEquals(availableCameras.get(1).get("sensorOrientation"), mockSensorOrientation2);
     assertEquals(availableCameras.get(1).get("lensFacing"), "external");
+    assertEquals(availableCameras.get(1).get("hardwareLevel"), "external");
   }
 }
@@ -0,0 +1,123 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class CaptureTelemetryTest {
+  private static final long FRAME_DURATION_NS = 33_000_000;
+
+  private DartMessenger mockDartMessenger;
+  private CaptureTelemetry telemetry;
+
+  @Before
+  public void before() {
+    mockDartMessenger = mock(DartMessenger.class);
+    telemetry = new CaptureTelemetry(mockDartMessenger, 3, true);
+  }
+
+  @Test
+  public void constructor_shouldRejectNonPositiveBatchSize() {
+    try {
+      new CaptureTelemetry(mockDartMessenger, 0, true);
+      fail("Expected an IllegalArgumentException.");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void record_shouldSendEventWhenBatchIsFull() {
+    recordFrame(1, 0);
+    recordFrame(2, 1);
+    verify(mockDartMessenger, never()).sendCaptureTelemetryEvent(any());
+
+    recordFrame(3, 2);
+
+    Map<String, Object> event = captureEvent();
+    assertArrayEquals(new long[] {1, 2, 3}, (long[]) event.get("frameNumbers"));
+    assertArrayEquals(
+        new long[] {0, FRAME_DURATION_NS, 2 * FRAME_DURATION_NS}, (long[]) event.get("timestamps"));
+    assertArrayEquals(
+        new long[] {FRAME_DURATION_NS, FRAME_DURATION_NS, FRAME_DURATION_NS},
+        (long[]) event.get("frameDurations"));
+    assertArrayEquals(
+        new long[] {5_000_000, 5_000_000, 5_000_000}, (long[]) event.get("latencies"));
+    assertArrayEquals(new long[0], (long[]) event.get("gaps"));
+  }
+
+  @Test
+  public void record_shouldDetectGapsInFrameNumbers() {
+    recordFrame(1, 0);
+    recordFrame(4, 3);
+    telemetry.flush();
+
+    assertArrayEquals(new long[] {4, 2}, (long[]) captureEvent().get("gaps"));
+  }
+
+  @Test
+  public void record_shouldDetectGapsInTimestamps() {
+    recordFrame(1, 0);
+    // The frame number is consecutive, but two frame durations have passed without a frame.
+    recordFrame(2, 3);
+    telemetry.flush();
+
+    assertArrayEquals(new long[] {2, 2}, (long[]) captureEvent().get("gaps"));
+  }
+
+  @Test
+  public void record_shouldRecordStateTransitions() {
+    telemetry.record(1, 0, FRAME_DURATION_NS, 1, CaptureTelemetry.STATE_UNKNOWN, 0);
+    telemetry.record(2, 10, FRAME_DURATION_NS, 1, CaptureTelemetry.STATE_UNKNOWN, 10);
+    telemetry.record(3, 20, FRAME_DURATION_NS, 2, 4, 20);
+
+    Map<String, Object> event = captureEvent();
+    assertArrayEquals(
+        new long[] {0, CaptureTelemetry.STATE_UNKNOWN, 1, 20, 1, 2},
+        (long[]) event.get("aeTransitions"));
+    assertArrayEquals(
+        new long[] {20, CaptureTelemetry.STATE_UNKNOWN, 4}, (long[]) event.get("afTransitions"));
+  }
+
+  @Test
+  public void flush_shouldSendPartialBatchOnce() {
+    recordFrame(1, 0);
+
+    telemetry.flush();
+    telemetry.flush();
+
+    assertArrayEquals(new long[] {1}, (long[]) captureEvent().get("frameNumbers"));
+  }
+
+  @Test
+  public void flush_shouldNotSendEmptyBatch() {
+    telemetry.flush();
+
+    verify(mockDartMessenger, never()).sendCaptureTelemetryEvent(any());
+  }
+
+  private void recordFrame(long frameNumber, long frameIndex) {
+    long timestamp = frameIndex * FRAME_DURATION_NS;
+    telemetry.record(frameNumber, timestamp, FRAME_DURATION_NS, 0, 0, timestamp + 5_000_000);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> captureEvent() {
+    ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(Map.class);
+    verify(mockDartMessenger, times(1)).sendCaptureTelemetryEvent(captor.capture());
+    return captor.getValue();
+  }
+}
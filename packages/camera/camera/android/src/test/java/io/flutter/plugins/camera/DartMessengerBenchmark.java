@@ -0,0 +1,106 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.os.Handler;
+import androidx.annotation.NonNull;
+import io.flutter.embedding.engine.systemchannels.PlatformChannel;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugins.camera.features.autofocus.FocusMode;
+import io.flutter.plugins.camera.features.exposurelock.ExposureMode;
+import io.flutter.plugins.camera.utils.Benchmark;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Measures encoding and sending camera events to Dart on the main thread. */
+public class DartMessengerBenchmark {
+  private static final int WARMUP_ITERATIONS = 1_000;
+  private static final int ITERATIONS = 10_000;
+
+  private DartMessenger dartMessenger;
+
+  @Before
+  public void before() {
+    // Events are sent right away, so every iteration measures the encoding of a complete event. A
+    // mocked handler would record every post, and its allocations would hide those of the event.
+    dartMessenger = new DartMessenger(new NoOpBinaryMessenger(), 0, new ImmediateHandler());
+  }
+
+  @Test
+  public void sendCameraInitializedEvent() {
+    Benchmark.Result result =
+        Benchmark.run(
+            "DartMessenger.sendCameraInitializedEvent",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () ->
+                dartMessenger.sendCameraInitializedEvent(
+                    1920, 1080, ExposureMode.auto, FocusMode.auto, true, true));
+
+    Benchmark.assertBytesPerOpAtMost(result, 2 * 1024);
+    Benchmark.assertNanosPerOpAtMost(result, 1_000_000);
+  }
+
+  @Test
+  public void sendDeviceOrientationChangeEvent() {
+    Benchmark.Result result =
+        Benchmark.run(
+            "DartMessenger.sendDeviceOrientationChangeEvent",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () ->
+                dartMessenger.sendDeviceOrientationChangeEvent(
+                    PlatformChannel.DeviceOrientation.LANDSCAPE_LEFT));
+
+    Benchmark.assertBytesPerOpAtMost(result, 1024);
+    Benchmark.assertNanosPerOpAtMost(result, 500_000);
+  }
+
+  @Test
+  public void sendCaptureTelemetryEvent() {
+    int frames = CaptureTelemetry.DEFAULT_FRAMES_PER_BATCH;
+    Map<String, Object> telemetry = new HashMap<>();
+    telemetry.put("frameNumbers", new long[frames]);
+    telemetry.put("timestamps", new long[frames]);
+    telemetry.put("frameDurations", new long[frames]);
+    telemetry.put("latencies", new long[frames]);
+    telemetry.put("gaps", new long[0]);
+    telemetry.put("aeTransitions", new long[0]);
+    telemetry.put("afTransitions", new long[0]);
+
+    Benchmark.Result result =
+        Benchmark.run(
+            "DartMessenger.sendCaptureTelemetryEvent",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> dartMessenger.sendCaptureTelemetryEvent(telemetry));
+
+    Benchmark.assertBytesPerOpAtMost(result, 8 * 1024);
+    Benchmark.assertNanosPerOpAtMost(result, 2_000_000);
+  }
+
+  /** Runs the posted runnables on the calling thread. */
+  private static class ImmediateHandler extends Handler {
+    @Override
+    public boolean post(@NonNull Runnable runnable) {
+      runnable.run();
+      return true;
+    }
+  }
+
+  private static class NoOpBinaryMessenger implements BinaryMessenger {
+    @Override
+    public void send(@NonNull String channel, ByteBuffer message) {}
+
+    @Override
+    public void send(@NonNull String channel, ByteBuffer message, BinaryReply callback) {}
+
+    @Override
+    public void setMessageHandler(@NonNull String channel, BinaryMessageHandler handler) {}
+  }
+}
@@ -5,6 +5,7 @@
 package io.flutter.plugins.camera;
 
 import static junit.framework.TestCase.assertNull;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
@@ -20,7 +21,9 @@ import io.flutter.plugins.camera.features.autofocus.FocusMode;
 import io.flutter.plugins.camera.features.exposurelock.ExposureMode;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -114,6 +117,80 @@ public class DartMessengerTest {
     assertEquals(call.argument("orientation"), "portraitUp");
   }
 
+  @Test
+  public void sendDeviceOrientationChangedEvent_coalescesEventsWithinOneFrame() {
+    List<Runnable> postedRunnables = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              postedRunnables.add(invocation.getArgument(0));
+              return true;
+            })
+        .when(mockHandler)
+        .post(any(Runnable.class));
+
+    dartMessenger.sendDeviceOrientationChangeEvent(PlatformChannel.DeviceOrientation.PORTRAIT_UP);
+    dartMessenger.sendDeviceOrientationChangeEvent(
+        PlatformChannel.DeviceOrientation.LANDSCAPE_LEFT);
+    dartMessenger.sendDeviceOrientationChangeEvent(
+        PlatformChannel.DeviceOrientation.LANDSCAPE_RIGHT);
+    assertEquals(1, postedRunnables.size());
+    postedRunnables.get(0).run();
+
+    List<ByteBuffer> sentMessages = fakeBinaryMessenger.getMessages();
+    assertEquals(1, sentMessages.size());
+    MethodCall call = decodeSentMessage(sentMessages.get(0));
+    assertEquals("orientation_changed", call.method);
+    assertEquals("landscapeRight", call.argument("orientation"));
+
+    // Once delivered, the next change is posted again.
+    dartMessenger.sendDeviceOrientationChangeEvent(PlatformChannel.DeviceOrientation.PORTRAIT_UP);
+    assertEquals(2, postedRunnables.size());
+  }
+
+  @Test
+  public void sendCameraErrorEvent_omitsEmptyDescription() {
+    doAnswer(createPostHandlerAnswer()).when(mockHandler).post(any(Runnable.class));
+
+    dartMessenger.sendCameraErrorEvent(null);
+    List<ByteBuffer> sentMessages = fakeBinaryMessenger.getMessages();
+
+    assertEquals(1, sentMessages.size());
+    MethodCall call = decodeSentMessage(sentMessages.get(0));
+    assertEquals("error", call.method);
+    assertNull(call.argument("description"));
+  }
+
+  @Test
+  public void sendCaptureTelemetryEvent() {
+    doAnswer(createPostHandlerAnswer()).when(mockHandler).post(any(Runnable.class));
+    Map<String, Object> telemetry = new HashMap<>();
+    telemetry.put("frameNumbers", new long[] {1, 2});
+    dartMessenger.sendCaptureTelemetryEvent(telemetry);
+
+    List<ByteBuffer> sentMessages = fakeBinaryMessenger.getMessages();
+    assertEquals(1, sentMessages.size());
+    MethodCall call = decodeSentMessage(sentMessages.get(0));
+    assertEquals("capture_telemetry", call.method);
+    assertArrayEquals(new long[] {1, 2}, call.argument("frameNumbers"));
+  }
+
+  @Test
+  public void sendPreviewAdaptedEvent() {
+    doAnswer(createPostHandlerAnswer()).when(mockHandler).post(any(Runnable.class));
+    dartMessenger.sendPreviewAdaptedEvent(2, "thermal", 1280, 720, 15, 15);
+
+    List<ByteBuffer> sentMessages = fakeBinaryMessenger.getMessages();
+    assertEquals(1, sentMessages.size());
+    MethodCall call = decodeSentMessage(sentMessages.get(0));
+    assertEquals("preview_adapted", call.method);
+    assertEquals(2, (int) call.argument("level"));
+    assertEquals("thermal", call.argument("reason"));
+    assertEquals(1280, (double) call.argument("previewWidth"), 0);
+    assertEquals(720, (double) call.argument("previewHeight"), 0);
+    assertEquals(15, (int) call.argument("minFps"));
+    assertEquals(15, (int) call.argument("maxFps"));
+  }
+
   private static Answer<Boolean> createPostHandlerAnswer() {
     return new Answer<Boolean>() {
       @Override
@@ -0,0 +1,95 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+
+import io.flutter.plugins.camera.utils.Benchmark;
+import io.flutter.plugins.camera.utils.FakeImage;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Measures saving a 12 megapixel JPEG picture, which runs for every captured picture. */
+public class ImageSaverBenchmark {
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int ITERATIONS = 20;
+  /** The typical encoded size of a 4000x3000 JPEG picture. */
+  private static final int JPEG_SIZE = 4 * 1024 * 1024;
+
+  private FakeImage image;
+  private File file;
+  private CountingCallback callback;
+
+  @Before
+  public void before() throws IOException {
+    image = FakeImage.jpeg(4000, 3000, JPEG_SIZE);
+    file = File.createTempFile("benchmark", ".jpg");
+    callback = new CountingCallback();
+  }
+
+  @After
+  public void after() {
+    file.delete();
+  }
+
+  @Test
+  public void run_toFile() {
+    Benchmark.Result result =
+        Benchmark.run(
+            "ImageSaver.run to file",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> {
+              image.rewind();
+              new ImageSaver(image, file, callback).run();
+            });
+
+    assertEquals(WARMUP_ITERATIONS + ITERATIONS, callback.completed);
+    // The picture is written straight from the image buffer, it is never copied to the heap.
+    Benchmark.assertBytesPerOpAtMost(result, 64 * 1024);
+    // Writing to disk varies the most between machines.
+    Benchmark.assertNanosPerOpAtMost(result, 100_000_000);
+  }
+
+  @Test
+  public void run_inMemory() {
+    Benchmark.Result result =
+        Benchmark.run(
+            "ImageSaver.run in memory",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> {
+              image.rewind();
+              new ImageSaver(image, null, false, callback).run();
+            });
+
+    assertEquals(WARMUP_ITERATIONS + ITERATIONS, callback.completed);
+    // The picture is copied once into the array handed to Dart.
+    Benchmark.assertBytesPerOpAtMost(result, JPEG_SIZE + 4 * 1024);
+    Benchmark.assertNanosPerOpAtMost(result, 50_000_000);
+  }
+
+  private static class CountingCallback implements ImageSaver.Callback {
+    private int completed;
+
+    @Override
+    public void onComplete(String absolutePath) {
+      completed++;
+    }
+
+    @Override
+    public void onCompleteInMemory(byte[] bytes) {
+      completed++;
+    }
+
+    @Override
+    public void onError(String errorCode, String errorMessage) {
+      throw new AssertionError(errorCode + ": " + errorMessage);
+    }
+  }
+}
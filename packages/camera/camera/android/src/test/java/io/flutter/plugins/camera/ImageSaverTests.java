@@ -4,7 +4,9 @@
 
 package io.flutter.plugins.camera;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -14,10 +16,12 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.media.Image;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -32,39 +36,42 @@ public class ImageSaverTests {
   ImageSaver.Callback mockCallback;
   ImageSaver imageSaver;
   Image.Plane mockPlane;
-  ByteBuffer mockBuffer;
+  ByteBuffer buffer;
   MockedStatic<ImageSaver.FileOutputStreamFactory> mockFileOutputStreamFactory;
   FileOutputStream mockFileOutputStream;
+  FileChannel mockFileChannel;
+  ByteArrayOutputStream writtenBytes;
 
   @Before
-  public void setup() {
+  public void setup() throws IOException {
     // Set up mocked file dependency
     mockFile = mock(File.class);
     when(mockFile.getAbsolutePath()).thenReturn("absolute/path");
     mockPlane = mock(Image.Plane.class);
-    mockBuffer = mock(ByteBuffer.class);
-    when(mockBuffer.remaining()).thenReturn(3);
-    when(mockBuffer.get(any()))
+    buffer = ByteBuffer.wrap(new byte[] {0x42, 0x00, 0x13});
+
+    // Set up mocked image dependency
+    mockImage = mock(Image.class);
+    when(mockPlane.getBuffer()).thenReturn(buffer);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
+
+    // Set up mocked FileOutputStream and FileChannel, which writes one byte per call to make sure
+    // partial writes are continued.
+    writtenBytes = new ByteArrayOutputStream();
+    mockFileChannel = mock(FileChannel.class);
+    when(mockFileChannel.write(any(ByteBuffer.class)))
         .thenAnswer(
             new Answer<Object>() {
               @Override
               public Object answer(InvocationOnMock invocation) throws Throwable {
-                byte[] bytes = invocation.getArgument(0);
-                bytes[0] = 0x42;
-                bytes[1] = 0x00;
-                bytes[2] = 0x13;
-                return mockBuffer;
+                ByteBuffer source = invocation.getArgument(0);
+                writtenBytes.write(source.get());
+                return 1;
               }
             });
-
-    // Set up mocked image dependency
-    mockImage = mock(Image.class);
-    when(mockPlane.getBuffer()).thenReturn(mockBuffer);
-    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
-
-    // Set up mocked FileOutputStream
     mockFileOutputStreamFactory = mockStatic(ImageSaver.FileOutputStreamFactory.class);
     mockFileOutputStream = mock(FileOutputStream.class);
+    when(mockFileOutputStream.getChannel()).thenReturn(mockFileChannel);
     mockFileOutputStreamFactory
         .when(() -> ImageSaver.FileOutputStreamFactory.create(any()))
         .thenReturn(mockFileOutputStream);
@@ -83,14 +90,40 @@ public class ImageSaverTests {
   public void runWritesBytesToFileAndFinishesWithPath() throws IOException {
     imageSaver.run();
 
-    verify(mockFileOutputStream, times(1)).write(new byte[] {0x42, 0x00, 0x13});
+    assertArrayEquals(new byte[] {0x42, 0x00, 0x13}, writtenBytes.toByteArray());
+    verify(mockFileOutputStream, never()).write(any(byte[].class));
+    verify(mockFileChannel, never()).force(anyBoolean());
     verify(mockCallback, times(1)).onComplete("absolute/path");
     verify(mockCallback, never()).onError(any(), any());
+    verify(mockImage, times(1)).close();
+  }
+
+  @Test
+  public void runForcesFileToDeviceWhenSyncIsEnabled() throws IOException {
+    imageSaver = new ImageSaver(mockImage, mockFile, true, mockCallback);
+
+    imageSaver.run();
+
+    verify(mockFileChannel, times(1)).force(false);
+    verify(mockCallback, times(1)).onComplete("absolute/path");
+  }
+
+  @Test
+  public void runReturnsBytesWithoutFileWhenInMemory() {
+    imageSaver = new ImageSaver(mockImage, null, false, mockCallback);
+
+    imageSaver.run();
+
+    verify(mockCallback, times(1)).onCompleteInMemory(new byte[] {0x42, 0x00, 0x13});
+    verify(mockCallback, never()).onComplete(any());
+    mockFileOutputStreamFactory.verify(
+        () -> ImageSaver.FileOutputStreamFactory.create(any()), never());
+    verify(mockImage, times(1)).close();
   }
 
   @Test
   public void runCallsErrorOnWriteIoexception() throws IOException {
-    doThrow(new IOException()).when(mockFileOutputStream).write(any());
+    doThrow(new IOException()).when(mockFileChannel).write(any(ByteBuffer.class));
     imageSaver.run();
     verify(mockCallback, times(1)).onError("IOError", "Failed saving image");
     verify(mockCallback, never()).onComplete(any());
@@ -4,11 +4,19 @@
 
 package io.flutter.plugins.camera;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import android.app.Activity;
 import android.hardware.camera2.CameraAccessException;
@@ -16,10 +24,15 @@ import androidx.lifecycle.LifecycleObserver;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
+import io.flutter.plugins.camera.features.sensororientation.OrientationTrackingMode;
+import io.flutter.plugins.camera.media.PictureOptions;
 import io.flutter.plugins.camera.utils.TestUtils;
 import io.flutter.view.TextureRegistry;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class MethodCallHandlerImplTest {
 
@@ -38,7 +51,7 @@ public class MethodCallHandlerImplTest {
             mock(TextureRegistry.class));
     mockResult = mock(MethodChannel.Result.class);
     mockCamera = mock(Camera.class);
-    TestUtils.setPrivateField(handler, "camera", mockCamera);
+    addCamera(1, mockCamera);
   }
 
   @Test
@@ -48,6 +61,82 @@ public class MethodCallHandlerImplTest {
     assertFalse(LifecycleObserver.class.isAssignableFrom(methodCallHandlerClass));
   }
 
+  @Test
+  public void onMethodCall_shouldRouteCallsByCameraId() throws CameraAccessException {
+    Camera otherCamera = mock(Camera.class);
+    addCamera(2, otherCamera);
+
+    handler.onMethodCall(new MethodCall("pausePreview", cameraArguments(2)), mockResult);
+
+    verify(otherCamera, times(1)).pausePreview();
+    verify(mockCamera, never()).pausePreview();
+  }
+
+  @Test
+  public void onMethodCall_dispose_shouldOnlyDisposeAddressedCamera() throws CameraAccessException {
+    Camera otherCamera = mock(Camera.class);
+    addCamera(2, otherCamera);
+
+    handler.onMethodCall(new MethodCall("dispose", cameraArguments(2)), mockResult);
+
+    verify(otherCamera, times(1)).dispose();
+    verify(mockCamera, never()).dispose();
+    // The remaining camera is the only one, so calls without a camera id are addressed to it.
+    handler.onMethodCall(new MethodCall("pausePreview", null), mockResult);
+    verify(mockCamera, times(1)).pausePreview();
+  }
+
+  @Test
+  public void onMethodCall_shouldFailWhenNoCameraIsAddressed() throws CameraAccessException {
+    Camera otherCamera = mock(Camera.class);
+    addCamera(2, otherCamera);
+
+    handler.onMethodCall(new MethodCall("pausePreview", null), mockResult);
+    handler.onMethodCall(new MethodCall("pausePreview", cameraArguments(3)), mockResult);
+
+    verify(mockCamera, never()).pausePreview();
+    verify(otherCamera, never()).pausePreview();
+    verify(mockResult, times(2)).error(eq("cameraNotFound"), any(), isNull());
+  }
+
+  @Test
+  public void onMethodCall_create_shouldDisposeLiveCameras() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("enableAudio", false);
+
+    handler.onMethodCall(new MethodCall("create", arguments), mockResult);
+
+    verify(mockCamera, times(1)).dispose();
+    assertTrue(getCameras().isEmpty());
+  }
+
+  @Test
+  public void onMethodCall_create_shouldKeepLiveCamerasWhenConcurrent() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("enableAudio", false);
+    arguments.put("concurrent", true);
+
+    handler.onMethodCall(new MethodCall("create", arguments), mockResult);
+
+    verify(mockCamera, never()).dispose();
+    assertEquals(1, getCameras().size());
+  }
+
+  @Test
+  public void onMethodCall_startImageStream_shouldRejectASecondCameraOnTheSharedChannel()
+      throws CameraAccessException {
+    Camera otherCamera = mock(Camera.class);
+    addCamera(2, otherCamera);
+    when(mockCamera.isStreamingImages()).thenReturn(true);
+
+    handler.onMethodCall(new MethodCall("startImageStream", cameraArguments(1)), mockResult);
+    handler.onMethodCall(new MethodCall("startImageStream", cameraArguments(2)), mockResult);
+
+    verify(mockCamera, times(1)).startPreviewWithImageStream(any(), any(), isNull(), isNull());
+    verify(otherCamera, never()).startPreviewWithImageStream(any(), any(), any(), any());
+    verify(mockResult, times(1)).error(eq("startImageStreamFailed"), any(), isNull());
+  }
+
   @Test
   public void onMethodCall_pausePreview_shouldPausePreviewAndSendSuccessResult()
       throws CameraAccessException {
@@ -74,4 +163,132 @@ public class MethodCallHandlerImplTest {
     verify(mockCamera, times(1)).resumePreview();
     verify(mockResult, times(1)).success(null);
   }
+
+  @Test
+  public void onMethodCall_setZoomLevel_shouldRunCommandOnCameraQueue()
+      throws CameraAccessException {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("zoom", 2.0);
+
+    handler.onMethodCall(new MethodCall("setZoomLevel", arguments), mockResult);
+
+    ArgumentCaptor<CameraCommandQueue.Command> commandCaptor =
+        ArgumentCaptor.forClass(CameraCommandQueue.Command.class);
+    verify(mockCamera, times(1))
+        .runCommand(eq("zoomLevel"), eq(mockResult), commandCaptor.capture());
+    verify(mockCamera, never()).setZoomLevel(any(), anyFloat());
+
+    commandCaptor.getValue().run(mockResult);
+    verify(mockCamera, times(1)).setZoomLevel(mockResult, 2.0f);
+  }
+
+  @Test
+  public void onMethodCall_setCameraSettings_shouldRunCommandWithoutKey()
+      throws CameraAccessException {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("flashMode", "torch");
+    arguments.put("zoomLevel", 2.0);
+
+    handler.onMethodCall(new MethodCall("setCameraSettings", arguments), mockResult);
+
+    ArgumentCaptor<CameraCommandQueue.Command> commandCaptor =
+        ArgumentCaptor.forClass(CameraCommandQueue.Command.class);
+    verify(mockCamera, times(1)).runCommand(isNull(), eq(mockResult), commandCaptor.capture());
+
+    commandCaptor.getValue().run(mockResult);
+    verify(mockCamera, times(1)).setCameraSettings(eq(mockResult), any());
+  }
+
+  @Test
+  public void onMethodCall_setCameraSettings_shouldFailOnUnknownMode() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("flashMode", "sparkle");
+
+    handler.onMethodCall(new MethodCall("setCameraSettings", arguments), mockResult);
+
+    verify(mockCamera, never()).runCommand(any(), any(), any());
+    verify(mockResult, times(1))
+        .error("setCameraSettingsFailed", "Unknown flash mode sparkle", null);
+  }
+
+  @Test
+  public void onMethodCall_setZeroShutterLagEnabled_shouldReplyWhetherFramesAreKept()
+      throws CameraAccessException {
+    when(mockCamera.setZeroShutterLagEnabled(true)).thenReturn(true);
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("enabled", true);
+
+    handler.onMethodCall(new MethodCall("setZeroShutterLagEnabled", arguments), mockResult);
+
+    verify(mockCamera, times(1)).setZeroShutterLagEnabled(true);
+    verify(mockResult, times(1)).success(true);
+  }
+
+  @Test
+  public void onMethodCall_takePicture_shouldPassPictureOptions() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("format", "webp");
+    arguments.put("quality", 80);
+    arguments.put("maxDimension", 1920);
+
+    handler.onMethodCall(new MethodCall("takePicture", arguments), mockResult);
+
+    ArgumentCaptor<PictureOptions> optionsCaptor = ArgumentCaptor.forClass(PictureOptions.class);
+    verify(mockCamera, times(1))
+        .takePicture(eq(mockResult), eq(false), eq(false), optionsCaptor.capture());
+    assertEquals(PictureOptions.Format.webp, optionsCaptor.getValue().getFormat());
+    assertEquals(80, optionsCaptor.getValue().getQuality());
+    assertEquals(1920, optionsCaptor.getValue().getMaxDimension());
+  }
+
+  @Test
+  public void onMethodCall_takePicture_shouldFailOnUnknownFormat() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("format", "heic");
+
+    handler.onMethodCall(new MethodCall("takePicture", arguments), mockResult);
+
+    verify(mockCamera, never()).takePicture(any(), eq(false), eq(false), any());
+    verify(mockResult, times(1))
+        .error("takePictureFailed", "Unsupported picture format heic", null);
+  }
+
+  @Test
+  public void onMethodCall_setOrientationTrackingMode_shouldSetMode() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("mode", "sensor");
+
+    handler.onMethodCall(new MethodCall("setOrientationTrackingMode", arguments), mockResult);
+
+    verify(mockCamera, times(1)).setOrientationTrackingMode(OrientationTrackingMode.sensor);
+    verify(mockResult, times(1)).success(null);
+  }
+
+  @Test
+  public void onMethodCall_setOrientationTrackingMode_shouldFailOnUnknownMode() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("mode", "gyro");
+
+    handler.onMethodCall(new MethodCall("setOrientationTrackingMode", arguments), mockResult);
+
+    verify(mockCamera, never()).setOrientationTrackingMode(any());
+    verify(mockResult, times(1))
+        .error("setOrientationTrackingModeFailed", "Unknown orientation tracking mode gyro", null);
+  }
+
+  private void addCamera(long textureId, Camera camera) {
+    when(camera.getFlutterTextureId()).thenReturn(textureId);
+    getCameras().put(textureId, camera);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<Long, Camera> getCameras() {
+    return (Map<Long, Camera>) TestUtils.getPrivateField(handler, "cameras");
+  }
+
+  private static Map<String, Object> cameraArguments(int cameraId) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("cameraId", cameraId);
+    return arguments;
+  }
 }
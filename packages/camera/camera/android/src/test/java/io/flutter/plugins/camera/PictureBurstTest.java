@@ -0,0 +1,92 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PictureBurstTest {
+  private PictureBurst.Callback mockCallback;
+  private PictureBurst burst;
+
+  @Before
+  public void before() {
+    mockCallback = mock(PictureBurst.Callback.class);
+    burst = new PictureBurst(2, mockCallback);
+  }
+
+  @Test
+  public void onPictureReceived_shouldReturnIndicesInOrder() {
+    assertEquals(0, burst.onPictureReceived());
+    assertFalse(burst.isCaptureDone());
+    assertEquals(1, burst.onPictureReceived());
+    assertTrue(burst.isCaptureDone());
+    assertEquals(-1, burst.onPictureReceived());
+  }
+
+  @Test
+  public void shouldCompleteWithPathsInCaptureOrder() {
+    ImageSaver.Callback first = burst.createSaverCallback(burst.onPictureReceived());
+    ImageSaver.Callback second = burst.createSaverCallback(burst.onPictureReceived());
+
+    // Pictures may be saved out of order.
+    second.onComplete("second.jpg");
+    verify(mockCallback, never()).onComplete(any());
+    first.onComplete("first.jpg");
+
+    verify(mockCallback, times(1)).onComplete(Arrays.asList("first.jpg", "second.jpg"));
+    verify(mockCallback, never()).onError(any(), any());
+  }
+
+  @Test
+  public void shouldCompleteWithBytesWhenKeptInMemory() {
+    byte[] firstBytes = {1};
+    byte[] secondBytes = {2};
+    burst.createSaverCallback(burst.onPictureReceived()).onCompleteInMemory(firstBytes);
+    burst.createSaverCallback(burst.onPictureReceived()).onCompleteInMemory(secondBytes);
+
+    verify(mockCallback, times(1)).onComplete(Arrays.asList(firstBytes, secondBytes));
+  }
+
+  @Test
+  public void tryStartSave_shouldLimitThePendingSaves() {
+    burst = new PictureBurst(5, 2, mockCallback);
+
+    assertTrue(burst.tryStartSave());
+    assertTrue(burst.tryStartSave());
+    assertFalse(burst.tryStartSave());
+    burst.createSaverCallback(burst.onPictureReceived()).onComplete("first.jpg");
+
+    verify(mockCallback, times(1)).onSaveFinished();
+    assertTrue(burst.tryStartSave());
+    assertFalse(burst.tryStartSave());
+    burst.cancelSave();
+    assertTrue(burst.tryStartSave());
+  }
+
+  @Test
+  public void shouldOnlyReportFirstError() {
+    ImageSaver.Callback first = burst.createSaverCallback(burst.onPictureReceived());
+    ImageSaver.Callback second = burst.createSaverCallback(burst.onPictureReceived());
+
+    first.onError("IOError", "Failed saving image");
+    second.onError("IOError", "Failed saving image");
+    second.onComplete("second.jpg");
+
+    verify(mockCallback, times(1)).onError("IOError", "Failed saving image");
+    verify(mockCallback, never()).onComplete(any());
+    assertEquals(-1, burst.onPictureReceived());
+  }
+}
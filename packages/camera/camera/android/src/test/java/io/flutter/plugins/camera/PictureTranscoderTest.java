@@ -0,0 +1,87 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.BitmapFactory;
+import android.media.Image;
+import io.flutter.plugins.camera.media.PictureOptions;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class PictureTranscoderTest {
+  @Test
+  public void computeSampleSize_shouldNotSubsampleBelowTheTargetSize() {
+    assertEquals(1, PictureTranscoder.computeSampleSize(1));
+    assertEquals(1, PictureTranscoder.computeSampleSize(0.75));
+    assertEquals(2, PictureTranscoder.computeSampleSize(0.5));
+    assertEquals(2, PictureTranscoder.computeSampleSize(0.3));
+    assertEquals(4, PictureTranscoder.computeSampleSize(0.25));
+    assertEquals(8, PictureTranscoder.computeSampleSize(0.1));
+  }
+
+  @Test
+  public void createDecodeOptions_shouldScaleTheRestOfTheWayWhileDecoding() {
+    BitmapFactory.Options decodeOptions = PictureTranscoder.createDecodeOptions(0.3);
+
+    assertEquals(2, decodeOptions.inSampleSize);
+    assertTrue(decodeOptions.inScaled);
+    assertEquals(0.6, (double) decodeOptions.inTargetDensity / decodeOptions.inDensity, 1e-4);
+  }
+
+  @Test
+  public void createDecodeOptions_shouldNotScaleWhenSubsamplingHitsTheTargetSize() {
+    BitmapFactory.Options decodeOptions = PictureTranscoder.createDecodeOptions(0.5);
+
+    assertEquals(2, decodeOptions.inSampleSize);
+    assertEquals(0, decodeOptions.inDensity);
+    assertFalse(decodeOptions.inScaled);
+  }
+
+  @Test
+  public void run_shouldReportRunningOutOfMemory() {
+    Image.Plane mockPlane = mock(Image.Plane.class);
+    when(mockPlane.getBuffer()).thenReturn(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+    Image mockImage = mock(Image.class);
+    when(mockImage.getWidth()).thenReturn(4000);
+    when(mockImage.getHeight()).thenReturn(3000);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
+    ImageSaver.Callback mockCallback = mock(ImageSaver.Callback.class);
+
+    try (MockedStatic<BitmapFactory> mockBitmapFactory = mockStatic(BitmapFactory.class)) {
+      mockBitmapFactory
+          .when(
+              () ->
+                  BitmapFactory.decodeByteArray(
+                      any(byte[].class), anyInt(), anyInt(), any(BitmapFactory.Options.class)))
+          .thenThrow(new OutOfMemoryError());
+
+      new PictureTranscoder(
+              mockImage,
+              new PictureOptions(PictureOptions.Format.webp, 80, 0),
+              90,
+              null,
+              false,
+              mockCallback)
+          .run();
+    }
+
+    verify(mockImage, times(1)).close();
+    verify(mockCallback, times(1)).onError(eq("IOError"), anyString());
+  }
+}
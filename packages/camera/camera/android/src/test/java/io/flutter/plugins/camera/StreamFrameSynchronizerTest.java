@@ -0,0 +1,100 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.media.Image;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class StreamFrameSynchronizerTest {
+  private CameraCaptureProperties lastCaptureProps;
+  private StreamFrameSynchronizer.FrameConsumer mockConsumer;
+  private StreamFrameSynchronizer synchronizer;
+
+  @Before
+  public void before() {
+    lastCaptureProps = new CameraCaptureProperties();
+    mockConsumer = mock(StreamFrameSynchronizer.FrameConsumer.class);
+    synchronizer = new StreamFrameSynchronizer(lastCaptureProps, mockConsumer);
+  }
+
+  @Test
+  public void onImage_shouldSendFrameRightAwayWhenItsCaptureCompletedFirst() {
+    CameraCaptureProperties captureProps = createCaptureProps(1000L);
+    Image image = createImage(1000L);
+
+    synchronizer.onCaptureCompleted(captureProps);
+    synchronizer.onImage(image);
+
+    InOrder inOrder = inOrder(mockConsumer, image);
+    inOrder.verify(mockConsumer, times(1)).onFrame(image, captureProps);
+    inOrder.verify(image, times(1)).close();
+  }
+
+  @Test
+  public void onImage_shouldHoldFrameBackUntilItsCaptureCompletes() {
+    CameraCaptureProperties captureProps = createCaptureProps(1000L);
+    Image image = createImage(1000L);
+
+    synchronizer.onImage(image);
+    verify(mockConsumer, never()).onFrame(any(), any());
+    verify(image, never()).close();
+
+    synchronizer.onCaptureCompleted(createCaptureProps(900L));
+    verify(mockConsumer, never()).onFrame(any(), any());
+
+    synchronizer.onCaptureCompleted(captureProps);
+    verify(mockConsumer, times(1)).onFrame(image, captureProps);
+    verify(image, times(1)).close();
+  }
+
+  @Test
+  public void onImage_shouldSendHeldBackFrameWithLastPropertiesWhenNextFrameArrives() {
+    Image first = createImage(1000L);
+    Image second = createImage(2000L);
+
+    synchronizer.onImage(first);
+    synchronizer.onImage(second);
+
+    verify(mockConsumer, times(1)).onFrame(first, lastCaptureProps);
+    verify(first, times(1)).close();
+    verify(mockConsumer, never()).onFrame(second, lastCaptureProps);
+    verify(second, never()).close();
+  }
+
+  @Test
+  public void release_shouldCloseHeldBackFrame() {
+    Image image = createImage(1000L);
+
+    synchronizer.onImage(image);
+    synchronizer.release();
+
+    verify(image, times(1)).close();
+    verify(mockConsumer, never()).onFrame(any(), any());
+  }
+
+  private static CameraCaptureProperties createCaptureProps(long timestamp) {
+    CameraCaptureProperties captureProps = new CameraCaptureProperties();
+    captureProps.setLastSensorTimestamp(timestamp);
+    captureProps.setLastSensorExposureTime(timestamp / 100);
+    return captureProps;
+  }
+
+  private static Image createImage(long timestamp) {
+    Image image = mock(Image.class);
+    when(image.getTimestamp()).thenReturn(timestamp);
+    return image;
+  }
+}
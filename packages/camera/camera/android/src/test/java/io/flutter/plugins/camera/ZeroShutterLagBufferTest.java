@@ -0,0 +1,101 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.media.Image;
+import android.media.ImageReader;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZeroShutterLagBufferTest {
+  private static final long MAX_DISTANCE_NS = 50;
+
+  private ZeroShutterLagBuffer buffer;
+
+  @Before
+  public void before() {
+    buffer = new ZeroShutterLagBuffer(2);
+  }
+
+  @Test
+  public void getMaxImages_leavesRoomForAcquiredAndTakenFrames() {
+    assertEquals(4, buffer.getMaxImages());
+  }
+
+  @Test
+  public void add_shouldCloseOldestFrameWhenFull() {
+    Image first = mockImage(100);
+    Image second = mockImage(200);
+    Image third = mockImage(300);
+
+    buffer.add(first);
+    buffer.add(second);
+    buffer.add(third);
+
+    verify(first, times(1)).close();
+    verify(second, never()).close();
+    assertNull(buffer.takeClosest(100, MAX_DISTANCE_NS));
+    assertSame(second, buffer.takeClosest(200, MAX_DISTANCE_NS));
+  }
+
+  @Test
+  public void takeClosest_shouldReturnFrameClosestToTimestamp() {
+    Image early = mockImage(100);
+    Image late = mockImage(200);
+    buffer.add(early);
+    buffer.add(late);
+
+    assertSame(late, buffer.takeClosest(170, MAX_DISTANCE_NS));
+    // The taken frame is removed and left to the caller to close.
+    assertSame(early, buffer.takeClosest(130, MAX_DISTANCE_NS));
+    verify(late, never()).close();
+  }
+
+  @Test
+  public void takeClosest_shouldIgnoreFramesTooFarFromTimestamp() {
+    buffer.add(mockImage(100));
+
+    assertNull(buffer.takeClosest(1000, MAX_DISTANCE_NS));
+  }
+
+  @Test
+  public void close_shouldCloseKeptAndLaterFrames() {
+    Image kept = mockImage(100);
+    Image later = mockImage(200);
+    buffer.add(kept);
+
+    buffer.close();
+    buffer.add(later);
+
+    verify(kept, times(1)).close();
+    verify(later, times(1)).close();
+    assertNull(buffer.takeClosest(200, MAX_DISTANCE_NS));
+  }
+
+  @Test
+  public void onImageAvailable_shouldDropFrameWhenReaderIsFull() {
+    ImageReader mockReader = mock(ImageReader.class);
+    when(mockReader.acquireNextImage()).thenThrow(new IllegalStateException("maxImages"));
+
+    buffer.onImageAvailable(mockReader);
+
+    assertNull(buffer.takeClosest(0, Long.MAX_VALUE));
+  }
+
+  private static Image mockImage(long timestampNs) {
+    Image image = mock(Image.class);
+    when(image.getTimestamp()).thenReturn(timestampNs);
+    return image;
+  }
+}
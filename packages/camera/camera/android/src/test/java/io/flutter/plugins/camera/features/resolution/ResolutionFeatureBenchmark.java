@@ -0,0 +1,59 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.features.resolution;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+
+import android.media.CamcorderProfile;
+import io.flutter.plugins.camera.utils.Benchmark;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+/**
+ * Measures the selection of the preview size, which runs every time a camera is created.
+ *
+ * <p>The profile lookups are mocked, so the result includes the overhead of Mockito and is only
+ * meant to be compared between runs of this benchmark.
+ */
+public class ResolutionFeatureBenchmark {
+  private static final int WARMUP_ITERATIONS = 1_000;
+  private static final int ITERATIONS = 10_000;
+
+  private MockedStatic<CamcorderProfile> mockedStaticProfile;
+
+  @Before
+  @SuppressWarnings("deprecation")
+  public void before() {
+    CamcorderProfile profile = mock(CamcorderProfile.class);
+    profile.videoFrameWidth = 1280;
+    profile.videoFrameHeight = 720;
+    mockedStaticProfile = mockStatic(CamcorderProfile.class);
+    mockedStaticProfile
+        .when(() -> CamcorderProfile.hasProfile(anyInt(), anyInt()))
+        .thenAnswer(invocation -> (int) invocation.getArgument(1) == CamcorderProfile.QUALITY_720P);
+    mockedStaticProfile.when(() -> CamcorderProfile.get(anyInt(), anyInt())).thenReturn(profile);
+  }
+
+  @After
+  public void after() {
+    mockedStaticProfile.close();
+  }
+
+  @Test
+  public void computeBestPreviewSize() {
+    Benchmark.Result result =
+        Benchmark.run(
+            "ResolutionFeature.computeBestPreviewSize",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> ResolutionFeature.computeBestPreviewSize(0, ResolutionPreset.max));
+
+    Benchmark.assertNanosPerOpAtMost(result, 5_000_000);
+  }
+}
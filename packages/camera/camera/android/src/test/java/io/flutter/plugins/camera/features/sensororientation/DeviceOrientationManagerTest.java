@@ -6,6 +6,7 @@ package io.flutter.plugins.camera.features.sensororientation;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -18,6 +19,10 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.hardware.Sensor;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
 import android.provider.Settings;
 import android.view.Display;
 import android.view.Surface;
@@ -292,6 +297,72 @@ public class DeviceOrientationManagerTest {
     when(mockResources.getConfiguration()).thenReturn(mockConfiguration);
   }
 
+  @Test
+  public void start_shouldRegisterAccelerometerListenerInSensorMode() {
+    SensorManager mockSensorManager = mock(SensorManager.class);
+    Sensor mockAccelerometer = mock(Sensor.class);
+    when(mockActivity.getSystemService(Context.SENSOR_SERVICE)).thenReturn(mockSensorManager);
+    when(mockSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER))
+        .thenReturn(mockAccelerometer);
+
+    deviceOrientationManager.setTrackingMode(OrientationTrackingMode.sensor);
+    deviceOrientationManager.start();
+
+    verify(mockSensorManager, times(1))
+        .registerListener(
+            any(SensorEventListener.class),
+            eq(mockAccelerometer),
+            eq(DeviceOrientationManager.SENSOR_SAMPLING_PERIOD_US),
+            eq(DeviceOrientationManager.SENSOR_MAX_REPORT_LATENCY_US),
+            any(Handler.class));
+    verify(mockActivity, never()).registerReceiver(any(), any());
+
+    deviceOrientationManager.stop();
+
+    verify(mockSensorManager, times(1)).unregisterListener(any(SensorEventListener.class));
+  }
+
+  @Test
+  public void start_shouldFallBackToUIOrientationWithoutAccelerometer() {
+    SensorManager mockSensorManager = mock(SensorManager.class);
+    when(mockActivity.getSystemService(Context.SENSOR_SERVICE)).thenReturn(mockSensorManager);
+    setUpUIOrientationMocks(Configuration.ORIENTATION_PORTRAIT, Surface.ROTATION_0);
+
+    deviceOrientationManager.setTrackingMode(OrientationTrackingMode.sensor);
+    deviceOrientationManager.start();
+
+    verify(mockActivity, times(1)).registerReceiver(any(), any());
+  }
+
+  @Test
+  public void setTrackingMode_shouldRestartRunningTracking() {
+    SensorManager mockSensorManager = mock(SensorManager.class);
+    when(mockActivity.getSystemService(Context.SENSOR_SERVICE)).thenReturn(mockSensorManager);
+    when(mockSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER))
+        .thenReturn(mock(Sensor.class));
+    setUpUIOrientationMocks(Configuration.ORIENTATION_PORTRAIT, Surface.ROTATION_0);
+    deviceOrientationManager.start();
+
+    deviceOrientationManager.setTrackingMode(OrientationTrackingMode.sensor);
+
+    verify(mockActivity, times(1)).unregisterReceiver(any());
+    verify(mockSensorManager, times(1))
+        .registerListener(
+            any(SensorEventListener.class), any(Sensor.class), anyInt(), anyInt(), any());
+  }
+
+  @Test
+  public void handleSensorOrientationChange_shouldOnlySendChangedOrientation() {
+    setUpUIOrientationMocks(Configuration.ORIENTATION_PORTRAIT, Surface.ROTATION_0);
+
+    deviceOrientationManager.handleSensorOrientationChange(90);
+    deviceOrientationManager.handleSensorOrientationChange(90);
+
+    verify(mockDartMessenger, times(1))
+        .sendDeviceOrientationChangeEvent(DeviceOrientation.LANDSCAPE_LEFT);
+    assertEquals(DeviceOrientation.LANDSCAPE_LEFT, deviceOrientationManager.getLastUIOrientation());
+  }
+
   @Test
   public void getDisplayTest() {
     Display display = deviceOrientationManager.getDisplay();
@@ -0,0 +1,92 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.features.sensororientation;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SensorOrientationListenerTest {
+  private static final float G = 9.81f;
+  private static final long MS = 1_000_000L;
+
+  private SensorOrientationListener.Callback mockCallback;
+  private SensorOrientationListener listener;
+
+  @Before
+  public void before() {
+    mockCallback = mock(SensorOrientationListener.Callback.class);
+    listener = new SensorOrientationListener(mockCallback);
+  }
+
+  @Test
+  public void getAngle_shouldMatchDeviceTilt() {
+    assertEquals(0, SensorOrientationListener.getAngle(0, G, 0));
+    assertEquals(90, SensorOrientationListener.getAngle(-G, 0, 0));
+    assertEquals(180, SensorOrientationListener.getAngle(0, -G, 0));
+    assertEquals(270, SensorOrientationListener.getAngle(G, 0, 0));
+  }
+
+  @Test
+  public void getAngle_shouldIgnoreFlatDevice() {
+    assertEquals(
+        SensorOrientationListener.ANGLE_UNKNOWN, SensorOrientationListener.getAngle(0.5f, 0, G));
+  }
+
+  @Test
+  public void quantize_shouldApplyHysteresis() {
+    assertEquals(1, SensorOrientationListener.quantize(50, -1));
+    // Just past the edge of quadrant 0, but within the hysteresis.
+    assertEquals(0, SensorOrientationListener.quantize(50, 0));
+    assertEquals(0, SensorOrientationListener.quantize(320, 0));
+    assertEquals(1, SensorOrientationListener.quantize(65, 0));
+    assertEquals(3, SensorOrientationListener.quantize(290, 0));
+  }
+
+  @Test
+  public void onAccelerometerSample_shouldPublishFirstOrientationImmediately() {
+    listener.onAccelerometerSample(0, G, 0, 0);
+
+    verify(mockCallback, times(1)).onOrientationChanged(0);
+  }
+
+  @Test
+  public void onAccelerometerSample_shouldDebounceOrientationChanges() {
+    listener.onAccelerometerSample(0, G, 0, 0);
+    listener.onAccelerometerSample(-G, 0, 0, 100 * MS);
+    listener.onAccelerometerSample(-G, 0, 0, 250 * MS);
+    verify(mockCallback, never()).onOrientationChanged(90);
+
+    listener.onAccelerometerSample(-G, 0, 0, 300 * MS);
+
+    verify(mockCallback, times(1)).onOrientationChanged(90);
+  }
+
+  @Test
+  public void onAccelerometerSample_shouldRestartDebounceWhenOrientationFlips() {
+    listener.onAccelerometerSample(0, G, 0, 0);
+    listener.onAccelerometerSample(-G, 0, 0, 100 * MS);
+    listener.onAccelerometerSample(0, G, 0, 200 * MS);
+    listener.onAccelerometerSample(-G, 0, 0, 300 * MS);
+    listener.onAccelerometerSample(-G, 0, 0, 400 * MS);
+
+    verify(mockCallback, times(1)).onOrientationChanged(anyInt());
+  }
+
+  @Test
+  public void onAccelerometerSample_shouldNotPublishUnchangedOrientation() {
+    for (int i = 0; i < 10; i++) {
+      listener.onAccelerometerSample(0, G, 0, i * 100 * MS);
+    }
+
+    verify(mockCallback, times(1)).onOrientationChanged(anyInt());
+  }
+}
@@ -0,0 +1,170 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.os.Handler;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import io.flutter.plugins.camera.utils.TestUtils;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class BinaryImageStreamSenderTest {
+  private static final String CHANNEL = "test/frames";
+
+  private BinaryMessenger mockMessenger;
+  private Handler mockHandler;
+  private List<Runnable> postedRunnables;
+  private CameraCaptureProperties captureProps;
+
+  @Before
+  public void before() {
+    mockMessenger = mock(BinaryMessenger.class);
+    mockHandler = mock(Handler.class);
+    postedRunnables = new ArrayList<>();
+    when(mockHandler.post(any(Runnable.class)))
+        .thenAnswer(
+            invocation -> {
+              postedRunnables.add(invocation.getArgument(0));
+              return true;
+            });
+    captureProps = new CameraCaptureProperties();
+  }
+
+  @Test
+  public void send_shouldPostEncodedFrameToMainThread() {
+    BinaryImageStreamSender sender =
+        new BinaryImageStreamSender(mockMessenger, CHANNEL, mockHandler, boundedQueue(1), null);
+    Image image = mockImage(new byte[] {1, 2, 3});
+    int expectedSize = ImageStreamFrameEncoder.getEncodedSize(image);
+
+    assertTrue(sender.send(image, captureProps));
+    assertEquals(1, postedRunnables.size());
+    postedRunnables.get(0).run();
+
+    ArgumentCaptor<ByteBuffer> bufferCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(mockMessenger, times(1)).send(eq(CHANNEL), bufferCaptor.capture());
+    ByteBuffer sent = bufferCaptor.getValue();
+    assertTrue(sent.isDirect());
+    assertEquals(expectedSize, sent.position());
+  }
+
+  @Test
+  public void send_shouldDropFramesWhenAllBuffersAreInFlight() {
+    ImageStreamPolicy policy = boundedQueue(2);
+    BinaryImageStreamSender sender =
+        new BinaryImageStreamSender(mockMessenger, CHANNEL, mockHandler, policy, null);
+
+    assertTrue(sender.send(mockImage(new byte[] {1}), captureProps));
+    assertTrue(sender.send(mockImage(new byte[] {2}), captureProps));
+    assertFalse(sender.send(mockImage(new byte[] {3}), captureProps));
+    assertEquals(2, postedRunnables.size());
+    assertEquals(1, policy.getDroppedFrameCount());
+  }
+
+  @Test
+  public void send_shouldGrowThePoolWhenTheQueueIsUnbounded() {
+    ImageStreamPolicy policy = boundedQueue(ImageStreamPolicy.UNBOUNDED);
+    BinaryImageStreamSender sender =
+        new BinaryImageStreamSender(mockMessenger, CHANNEL, mockHandler, policy, null);
+
+    for (int i = 0; i < BinaryImageStreamSender.DEFAULT_POOL_SIZE * 2; i++) {
+      assertTrue(sender.send(mockImage(new byte[] {(byte) i}), captureProps));
+    }
+    for (Runnable runnable : postedRunnables) {
+      runnable.run();
+    }
+
+    assertEquals(BinaryImageStreamSender.DEFAULT_POOL_SIZE * 2, postedRunnables.size());
+    assertEquals(BinaryImageStreamSender.DEFAULT_POOL_SIZE * 2, policy.getDeliveredFrameCount());
+    assertEquals(0, policy.getDroppedFrameCount());
+    // The pool shrinks back once the frames are sent.
+    assertEquals(
+        BinaryImageStreamSender.DEFAULT_POOL_SIZE,
+        ((ArrayDeque<?>) TestUtils.getPrivateField(sender, "freeSlots")).size());
+  }
+
+  @Test
+  public void send_shouldCountDeliveredFrames() {
+    ImageStreamPolicy policy = boundedQueue(2);
+    BinaryImageStreamSender sender =
+        new BinaryImageStreamSender(mockMessenger, CHANNEL, mockHandler, policy, null);
+
+    sender.send(mockImage(new byte[] {1}), captureProps);
+    sender.send(mockImage(new byte[] {2}), captureProps);
+    postedRunnables.get(0).run();
+
+    assertEquals(1, policy.getDeliveredFrameCount());
+    assertEquals(0, policy.getDroppedFrameCount());
+  }
+
+  @Test
+  public void send_shouldOnlySendLatestFrameWhenLatestOnly() {
+    ImageStreamPolicy policy =
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.latestOnly, 1, 1, 0);
+    BinaryImageStreamSender sender =
+        new BinaryImageStreamSender(mockMessenger, CHANNEL, mockHandler, policy, null);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(sender.send(mockImage(new byte[] {(byte) i}), captureProps));
+    }
+    assertEquals(1, postedRunnables.size());
+    postedRunnables.get(0).run();
+
+    ArgumentCaptor<ByteBuffer> bufferCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(mockMessenger, times(1)).send(eq(CHANNEL), bufferCaptor.capture());
+    ByteBuffer sent = bufferCaptor.getValue();
+    assertEquals(4, sent.get(sent.position() - 1));
+    assertEquals(1, policy.getDeliveredFrameCount());
+    assertEquals(4, policy.getDroppedFrameCount());
+  }
+
+  @Test
+  public void send_shouldReuseBufferOnceSent() {
+    BinaryImageStreamSender sender =
+        new BinaryImageStreamSender(mockMessenger, CHANNEL, mockHandler, boundedQueue(1), null);
+
+    assertTrue(sender.send(mockImage(new byte[] {1, 2, 3}), captureProps));
+    postedRunnables.get(0).run();
+    assertTrue(sender.send(mockImage(new byte[] {4, 5}), captureProps));
+    postedRunnables.get(1).run();
+
+    ArgumentCaptor<ByteBuffer> bufferCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(mockMessenger, times(2)).send(eq(CHANNEL), bufferCaptor.capture());
+    assertSame(bufferCaptor.getAllValues().get(0), bufferCaptor.getAllValues().get(1));
+  }
+
+  private static ImageStreamPolicy boundedQueue(int maxQueuedFrames) {
+    return new ImageStreamPolicy(
+        ImageStreamPolicy.Backpressure.boundedQueue, maxQueuedFrames, 1, 0);
+  }
+
+  private static Image mockImage(byte[] bytes) {
+    Image.Plane mockPlane = mock(Image.Plane.class);
+    when(mockPlane.getBuffer()).thenReturn(ByteBuffer.wrap(bytes));
+    Image mockImage = mock(Image.class);
+    when(mockImage.getFormat()).thenReturn(ImageFormat.YUV_420_888);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
+    return mockImage;
+  }
+}
@@ -0,0 +1,144 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.os.Handler;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class EventChannelImageStreamSenderTest {
+  private EventChannel.EventSink mockSink;
+  private Handler mockHandler;
+  private List<Runnable> postedRunnables;
+  private CameraCaptureProperties captureProps;
+
+  @Before
+  public void before() {
+    mockSink = mock(EventChannel.EventSink.class);
+    mockHandler = mock(Handler.class);
+    postedRunnables = new ArrayList<>();
+    when(mockHandler.post(any(Runnable.class)))
+        .thenAnswer(
+            invocation -> {
+              postedRunnables.add(invocation.getArgument(0));
+              return true;
+            });
+    captureProps = new CameraCaptureProperties();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void send_shouldDeliverFrameAsMap() {
+    EventChannelImageStreamSender sender =
+        new EventChannelImageStreamSender(mockSink, mockHandler, boundedQueue(1), null);
+
+    assertTrue(sender.send(mockImage(new byte[] {1, 2, 3}), captureProps));
+    postedRunnables.get(0).run();
+
+    ArgumentCaptor<Object> frameCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(mockSink, times(1)).success(frameCaptor.capture());
+    Map<String, Object> frame = (Map<String, Object>) frameCaptor.getValue();
+    assertEquals(ImageFormat.YUV_420_888, frame.get("format"));
+    List<Map<String, Object>> planes = (List<Map<String, Object>>) frame.get("planes");
+    assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) planes.get(0).get("bytes"));
+  }
+
+  @Test
+  public void send_shouldDropFramesWhenQueueIsFull() {
+    ImageStreamPolicy policy = boundedQueue(2);
+    EventChannelImageStreamSender sender =
+        new EventChannelImageStreamSender(mockSink, mockHandler, policy, null);
+
+    assertTrue(sender.send(mockImage(new byte[] {1}), captureProps));
+    assertTrue(sender.send(mockImage(new byte[] {2}), captureProps));
+    assertFalse(sender.send(mockImage(new byte[] {3}), captureProps));
+    postedRunnables.get(0).run();
+    assertTrue(sender.send(mockImage(new byte[] {4}), captureProps));
+
+    assertEquals(3, postedRunnables.size());
+    assertEquals(1, policy.getDeliveredFrameCount());
+    assertEquals(1, policy.getDroppedFrameCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void send_shouldOnlyDeliverLatestFrameWhenLatestOnly() {
+    ImageStreamPolicy policy =
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.latestOnly, 1, 1, 0);
+    EventChannelImageStreamSender sender =
+        new EventChannelImageStreamSender(mockSink, mockHandler, policy, null);
+
+    for (int i = 0; i < 3; i++) {
+      sender.send(mockImage(new byte[] {(byte) i}), captureProps);
+    }
+    assertEquals(1, postedRunnables.size());
+    postedRunnables.get(0).run();
+
+    ArgumentCaptor<Object> frameCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(mockSink, times(1)).success(frameCaptor.capture());
+    Map<String, Object> frame = (Map<String, Object>) frameCaptor.getValue();
+    List<Map<String, Object>> planes = (List<Map<String, Object>>) frame.get("planes");
+    assertArrayEquals(new byte[] {2}, (byte[]) planes.get(0).get("bytes"));
+    assertEquals(1, policy.getDeliveredFrameCount());
+    assertEquals(2, policy.getDroppedFrameCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void send_shouldPostAgainOnceTheLatestFrameWasDelivered() {
+    ImageStreamPolicy policy =
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.latestOnly, 1, 1, 0);
+    EventChannelImageStreamSender sender =
+        new EventChannelImageStreamSender(mockSink, mockHandler, policy, null);
+
+    sender.send(mockImage(new byte[] {1}), captureProps);
+    postedRunnables.get(0).run();
+    sender.send(mockImage(new byte[] {2}), captureProps);
+    sender.send(mockImage(new byte[] {3}), captureProps);
+    assertEquals(2, postedRunnables.size());
+    postedRunnables.get(1).run();
+
+    ArgumentCaptor<Object> frameCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(mockSink, times(2)).success(frameCaptor.capture());
+    Map<String, Object> frame = (Map<String, Object>) frameCaptor.getAllValues().get(1);
+    List<Map<String, Object>> planes = (List<Map<String, Object>>) frame.get("planes");
+    assertArrayEquals(new byte[] {3}, (byte[]) planes.get(0).get("bytes"));
+    assertEquals(2, policy.getDeliveredFrameCount());
+    assertEquals(1, policy.getDroppedFrameCount());
+  }
+
+  private static ImageStreamPolicy boundedQueue(int maxQueuedFrames) {
+    return new ImageStreamPolicy(
+        ImageStreamPolicy.Backpressure.boundedQueue, maxQueuedFrames, 1, 0);
+  }
+
+  private static Image mockImage(byte[] bytes) {
+    Image.Plane mockPlane = mock(Image.Plane.class);
+    when(mockPlane.getBuffer()).thenReturn(ByteBuffer.wrap(bytes));
+    Image mockImage = mock(Image.class);
+    when(mockImage.getFormat()).thenReturn(ImageFormat.YUV_420_888);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
+    return mockImage;
+  }
+}
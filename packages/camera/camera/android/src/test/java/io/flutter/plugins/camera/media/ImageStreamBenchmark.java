@@ -0,0 +1,112 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import android.os.Handler;
+import androidx.annotation.NonNull;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import io.flutter.plugins.camera.utils.Benchmark;
+import io.flutter.plugins.camera.utils.FakeImage;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures the marshalling of image stream frames, which runs for every frame on the camera
+ * background thread.
+ */
+public class ImageStreamBenchmark {
+  private static final int WARMUP_ITERATIONS = 50;
+  private static final int ITERATIONS = 200;
+
+  private Handler mainHandler;
+  private CameraCaptureProperties captureProps;
+  private FakeImage image;
+
+  @Before
+  public void before() {
+    // Frames are delivered right away, so every iteration measures a complete delivery.
+    mainHandler = mock(Handler.class);
+    doAnswer(
+            invocation -> {
+              ((Runnable) invocation.getArgument(0)).run();
+              return true;
+            })
+        .when(mainHandler)
+        .post(any(Runnable.class));
+    captureProps = new CameraCaptureProperties();
+    image = FakeImage.yuv420(1920, 1080);
+  }
+
+  @Test
+  public void eventChannelSender_1080p() {
+    EventChannelImageStreamSender sender =
+        new EventChannelImageStreamSender(new NoOpEventSink(), mainHandler, latestOnly(), null);
+
+    Benchmark.Result result = runSendBenchmark("EventChannelImageStreamSender.send 1080p", sender);
+
+    // Every frame is copied into new byte arrays.
+    Benchmark.assertBytesPerOpAtMost(result, image.getByteCount() + 64 * 1024);
+    // A frame has to be delivered well within the time a camera takes to deliver the next one.
+    Benchmark.assertNanosPerOpAtMost(result, 50_000_000);
+  }
+
+  @Test
+  public void binarySender_1080p() {
+    BinaryImageStreamSender sender =
+        new BinaryImageStreamSender(
+            new NoOpBinaryMessenger(), "benchmark/frames", mainHandler, latestOnly(), null);
+
+    Benchmark.Result result = runSendBenchmark("BinaryImageStreamSender.send 1080p", sender);
+
+    // Frames are copied into pooled direct buffers, so no frame data ends up on the heap.
+    Benchmark.assertBytesPerOpAtMost(result, 16 * 1024);
+    Benchmark.assertNanosPerOpAtMost(result, 50_000_000);
+  }
+
+  private Benchmark.Result runSendBenchmark(String name, ImageStreamSender sender) {
+    return Benchmark.run(
+        name,
+        WARMUP_ITERATIONS,
+        ITERATIONS,
+        () -> {
+          image.rewind();
+          assertTrue(sender.send(image, captureProps));
+        });
+  }
+
+  private static ImageStreamPolicy latestOnly() {
+    return new ImageStreamPolicy(ImageStreamPolicy.Backpressure.latestOnly, 1, 1, 0);
+  }
+
+  private static class NoOpEventSink implements EventChannel.EventSink {
+    @Override
+    public void success(Object event) {}
+
+    @Override
+    public void error(String errorCode, String errorMessage, Object errorDetails) {}
+
+    @Override
+    public void endOfStream() {}
+  }
+
+  private static class NoOpBinaryMessenger implements BinaryMessenger {
+    @Override
+    public void send(@NonNull String channel, ByteBuffer message) {}
+
+    @Override
+    public void send(@NonNull String channel, ByteBuffer message, BinaryReply callback) {}
+
+    @Override
+    public void setMessageHandler(@NonNull String channel, BinaryMessageHandler handler) {}
+  }
+}
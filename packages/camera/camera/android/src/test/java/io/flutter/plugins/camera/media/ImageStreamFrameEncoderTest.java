@@ -0,0 +1,137 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ImageStreamFrameEncoderTest {
+  private Image mockImage;
+
+  @Before
+  public void before() {
+    Image.Plane mockYPlane = mockPlane(new byte[] {1, 2, 3, 4}, 2, 1);
+    Image.Plane mockUvPlane = mockPlane(new byte[] {5, 6}, 2, 2);
+    mockImage = mock(Image.class);
+    when(mockImage.getWidth()).thenReturn(2);
+    when(mockImage.getHeight()).thenReturn(2);
+    when(mockImage.getFormat()).thenReturn(ImageFormat.YUV_420_888);
+    when(mockImage.getTimestamp()).thenReturn(123_456_789L);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockYPlane, mockUvPlane});
+  }
+
+  @Test
+  public void getEncodedSize_shouldIncludeHeaderDescriptorsAndPlaneBytes() {
+    int expected =
+        ImageStreamFrameEncoder.HEADER_SIZE + 2 * ImageStreamFrameEncoder.PLANE_DESCRIPTOR_SIZE + 6;
+
+    assertEquals(expected, ImageStreamFrameEncoder.getEncodedSize(mockImage));
+  }
+
+  @Test
+  public void encode_shouldWriteHeaderAndPlanes() {
+    CameraCaptureProperties captureProps = new CameraCaptureProperties();
+    captureProps.setLastLensAperture(1.8f);
+    captureProps.setLastSensorExposureTime(1000L);
+    captureProps.setLastSensorSensitivity(100);
+    ByteBuffer output =
+        ByteBuffer.allocateDirect(ImageStreamFrameEncoder.getEncodedSize(mockImage));
+
+    ImageStreamFrameEncoder.encode(mockImage, captureProps, output);
+
+    assertEquals(output.capacity(), output.position());
+    output.flip();
+    output.order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(ImageStreamFrameEncoder.VERSION, output.getInt());
+    assertEquals(2, output.getInt());
+    assertEquals(2, output.getInt());
+    assertEquals(ImageFormat.YUV_420_888, output.getInt());
+    assertEquals(123_456_789L, output.getLong());
+    assertEquals(1000L, output.getLong());
+    assertEquals(100, output.getInt());
+    assertEquals(1.8f, output.getFloat(), 0);
+    assertEquals(2, output.getInt());
+    // Plane descriptors.
+    assertEquals(2, output.getInt());
+    assertEquals(1, output.getInt());
+    assertEquals(4, output.getInt());
+    assertEquals(2, output.getInt());
+    assertEquals(2, output.getInt());
+    assertEquals(2, output.getInt());
+    // Plane bytes.
+    for (int i = 1; i <= 6; i++) {
+      assertEquals(i, output.get());
+    }
+  }
+
+  @Test
+  public void encode_shouldWriteSentinelsForUnknownCaptureProperties() {
+    ByteBuffer output =
+        ByteBuffer.allocateDirect(ImageStreamFrameEncoder.getEncodedSize(mockImage));
+
+    ImageStreamFrameEncoder.encode(mockImage, new CameraCaptureProperties(), output);
+
+    output.order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(123_456_789L, output.getLong(16));
+    assertEquals(-1L, output.getLong(24));
+    assertEquals(-1, output.getInt(32));
+    assertTrue(Float.isNaN(output.getFloat(36)));
+  }
+
+  @Test
+  public void encode_shouldWriteProcessedFrameAsSinglePlane() {
+    Image mockYuvImage = mock(Image.class);
+    when(mockYuvImage.getWidth()).thenReturn(2);
+    when(mockYuvImage.getHeight()).thenReturn(2);
+    when(mockYuvImage.getFormat()).thenReturn(ImageFormat.YUV_420_888);
+    Image.Plane mockYPlane = mockPlane(new byte[] {1, 2, 3, 4}, 2, 1);
+    Image.Plane mockUPlane = mockPlane(new byte[] {5}, 1, 1);
+    Image.Plane mockVPlane = mockPlane(new byte[] {6}, 1, 1);
+    when(mockYuvImage.getPlanes())
+        .thenReturn(new Image.Plane[] {mockYPlane, mockUPlane, mockVPlane});
+    ImageStreamProcessor processor =
+        new ImageStreamProcessor(ImageStreamProcessor.OutputFormat.nv21, 0, 0, 0, 0, 0, 0, false);
+    processor.configure(2, 2);
+    ByteBuffer output =
+        ByteBuffer.allocateDirect(ImageStreamFrameEncoder.getEncodedSize(processor));
+
+    ImageStreamFrameEncoder.encode(mockYuvImage, processor, new CameraCaptureProperties(), output);
+
+    assertEquals(output.capacity(), output.position());
+    output.flip();
+    output.order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(ImageStreamFrameEncoder.VERSION, output.getInt());
+    assertEquals(2, output.getInt());
+    assertEquals(2, output.getInt());
+    assertEquals(ImageFormat.NV21, output.getInt());
+    output.position(ImageStreamFrameEncoder.HEADER_SIZE - 4);
+    assertEquals(1, output.getInt());
+    assertEquals(2, output.getInt());
+    assertEquals(1, output.getInt());
+    assertEquals(6, output.getInt());
+    byte[] expected = {1, 2, 3, 4, 6, 5};
+    for (byte value : expected) {
+      assertEquals(value, output.get());
+    }
+  }
+
+  private static Image.Plane mockPlane(byte[] bytes, int rowStride, int pixelStride) {
+    Image.Plane mockPlane = mock(Image.Plane.class);
+    when(mockPlane.getBuffer()).thenReturn(ByteBuffer.wrap(bytes));
+    when(mockPlane.getRowStride()).thenReturn(rowStride);
+    when(mockPlane.getPixelStride()).thenReturn(pixelStride);
+    return mockPlane;
+  }
+}
@@ -0,0 +1,116 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import org.junit.Test;
+
+public class ImageStreamPolicyTest {
+  private static final long FRAME_30_FPS_NS = 33_333_333L;
+
+  @Test
+  public void getValueForString_returnsCorrectValues() {
+    assertEquals(
+        ImageStreamPolicy.Backpressure.latestOnly,
+        ImageStreamPolicy.Backpressure.getValueForString("latestOnly"));
+    assertEquals(
+        ImageStreamPolicy.Backpressure.boundedQueue,
+        ImageStreamPolicy.Backpressure.getValueForString("boundedQueue"));
+    assertNull(ImageStreamPolicy.Backpressure.getValueForString("unknown"));
+  }
+
+  @Test
+  public void fromArguments_shouldDefaultToUnthrottledUnboundedQueue() {
+    ImageStreamPolicy policy = ImageStreamPolicy.fromArguments(null, null, null, null);
+
+    assertEquals(ImageStreamPolicy.Backpressure.boundedQueue, policy.getBackpressure());
+    assertEquals(ImageStreamPolicy.UNBOUNDED, policy.getMaxQueuedFrames());
+    for (int i = 0; i < 10; i++) {
+      assertTrue(policy.shouldAcceptFrame(i * FRAME_30_FPS_NS));
+    }
+    assertEquals(0, policy.getThrottledFrameCount());
+  }
+
+  @Test
+  public void fromArguments_shouldAcceptIntegerTargetFps() {
+    ImageStreamPolicy policy = ImageStreamPolicy.fromArguments("latestOnly", 5, 2, 15);
+
+    assertEquals(ImageStreamPolicy.Backpressure.latestOnly, policy.getBackpressure());
+    assertEquals(1, policy.getMaxQueuedFrames());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromArguments_shouldThrowForUnknownBackpressure() {
+    ImageStreamPolicy.fromArguments("dropAll", null, null, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void ctor_shouldThrowForInvalidFrameInterval() {
+    new ImageStreamPolicy(ImageStreamPolicy.Backpressure.boundedQueue, 1, 0, 0);
+  }
+
+  @Test
+  public void shouldAcceptFrame_shouldOnlyAcceptEveryNthFrame() {
+    ImageStreamPolicy policy =
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.boundedQueue, 1, 3, 0);
+
+    int accepted = 0;
+    for (int i = 0; i < 9; i++) {
+      if (policy.shouldAcceptFrame(i * FRAME_30_FPS_NS)) accepted++;
+    }
+
+    assertEquals(3, accepted);
+    assertEquals(6, policy.getThrottledFrameCount());
+  }
+
+  @Test
+  public void shouldAcceptFrame_shouldLimitToTargetFps() {
+    ImageStreamPolicy policy =
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.boundedQueue, 1, 1, 10);
+
+    int accepted = 0;
+    // One second of frames at 30 fps.
+    for (int i = 0; i < 30; i++) {
+      if (policy.shouldAcceptFrame(i * FRAME_30_FPS_NS)) accepted++;
+    }
+
+    assertEquals(10, accepted);
+    assertEquals(20, policy.getThrottledFrameCount());
+  }
+
+  @Test
+  public void shouldAcceptFrame_shouldNotBurstAfterPause() {
+    ImageStreamPolicy policy =
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.boundedQueue, 1, 1, 10);
+
+    assertTrue(policy.shouldAcceptFrame(0));
+    // No frames for a full second, then frames resume at 30 fps.
+    assertTrue(policy.shouldAcceptFrame(1_000_000_000L));
+    assertFalse(policy.shouldAcceptFrame(1_000_000_000L + FRAME_30_FPS_NS));
+    assertFalse(policy.shouldAcceptFrame(1_000_000_000L + 2 * FRAME_30_FPS_NS));
+  }
+
+  @Test
+  public void getStatistics_shouldReportCounters() {
+    ImageStreamPolicy policy =
+        new ImageStreamPolicy(ImageStreamPolicy.Backpressure.boundedQueue, 1, 2, 0);
+    policy.shouldAcceptFrame(0);
+    policy.shouldAcceptFrame(1);
+    policy.onFrameDelivered();
+    policy.onFrameDropped();
+    policy.onFrameDropped();
+
+    Map<String, Object> statistics = policy.getStatistics();
+
+    assertEquals(1L, statistics.get("deliveredFrames"));
+    assertEquals(2L, statistics.get("droppedFrames"));
+    assertEquals(1L, statistics.get("throttledFrames"));
+  }
+}
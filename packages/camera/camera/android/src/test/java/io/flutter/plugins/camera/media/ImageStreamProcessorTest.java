@@ -0,0 +1,297 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.graphics.ImageFormat;
+import android.graphics.PixelFormat;
+import android.media.Image;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ImageStreamProcessorTest {
+  @Test
+  public void getValueForString_returnsCorrectValues() {
+    assertEquals(
+        ImageStreamProcessor.OutputFormat.nv21,
+        ImageStreamProcessor.OutputFormat.getValueForString("nv21"));
+    assertEquals(
+        ImageStreamProcessor.OutputFormat.rgba8888,
+        ImageStreamProcessor.OutputFormat.getValueForString("rgba8888"));
+    assertNull(ImageStreamProcessor.OutputFormat.getValueForString("bgra8888"));
+  }
+
+  @Test
+  public void fromArguments_shouldReturnNullWithoutArguments() {
+    assertNull(ImageStreamProcessor.fromArguments(null));
+  }
+
+  @Test
+  public void fromArguments_shouldParseArguments() {
+    Map<String, Object> crop = new HashMap<>();
+    crop.put("left", 1);
+    crop.put("top", 1);
+    crop.put("width", 2);
+    crop.put("height", 2);
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("outputFormat", "nv21");
+    arguments.put("crop", crop);
+    arguments.put("width", 2);
+    arguments.put("rotate", true);
+
+    ImageStreamProcessor processor = ImageStreamProcessor.fromArguments(arguments);
+    processor.configure(4, 4);
+
+    assertTrue(processor.isRotationEnabled());
+    assertEquals(ImageFormat.NV21, processor.getOutputFormat());
+    assertEquals(2, processor.getOutputWidth());
+    assertEquals(2, processor.getOutputHeight());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromArguments_shouldThrowForUnknownOutputFormat() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("outputFormat", "bgra8888");
+
+    ImageStreamProcessor.fromArguments(arguments);
+  }
+
+  @Test
+  public void canProcess_shouldOnlyAcceptYuvImages() {
+    ImageStreamProcessor processor = processor(ImageStreamProcessor.OutputFormat.rgba8888, false);
+    Image mockJpeg = mock(Image.class);
+    when(mockJpeg.getFormat()).thenReturn(ImageFormat.JPEG);
+
+    assertTrue(processor.canProcess(mockYuvImage(4, 4)));
+    assertFalse(processor.canProcess(mockJpeg));
+  }
+
+  @Test
+  public void process_shouldConvertToRgba() {
+    ImageStreamProcessor processor = processor(ImageStreamProcessor.OutputFormat.rgba8888, false);
+    // Neutral gray.
+    Image image = mockImage(2, 2, new byte[] {(byte) 128, 0, 0, 0}, (byte) 128, (byte) 128);
+    processor.configure(2, 2);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    assertEquals(PixelFormat.RGBA_8888, processor.getOutputFormat());
+    assertEquals(8, processor.getOutputRowStride());
+    assertEquals(16, output.position());
+    assertEquals(128, output.get(0) & 0xff);
+    assertEquals(128, output.get(1) & 0xff);
+    assertEquals(128, output.get(2) & 0xff);
+    assertEquals(255, output.get(3) & 0xff);
+    assertEquals(0, output.get(4) & 0xff);
+    assertEquals(255, output.get(7) & 0xff);
+  }
+
+  @Test
+  public void process_shouldConvertColorsToRgba() {
+    ImageStreamProcessor processor = processor(ImageStreamProcessor.OutputFormat.rgba8888, false);
+    // Pure red in full range BT.601.
+    Image image = mockImage(2, 2, new byte[] {76, 76, 76, 76}, (byte) 85, (byte) 255);
+    processor.configure(2, 2);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    assertEquals(255, output.get(0) & 0xff, 1);
+    assertEquals(0, output.get(1) & 0xff, 1);
+    assertEquals(0, output.get(2) & 0xff, 1);
+  }
+
+  @Test
+  public void process_shouldConvertToNv21() {
+    ImageStreamProcessor processor = processor(ImageStreamProcessor.OutputFormat.nv21, false);
+    Image image = mockYuvImage(4, 4);
+    processor.configure(4, 4);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    assertEquals(24, output.position());
+    for (int i = 0; i < 16; i++) {
+      assertEquals(i, output.get(i));
+    }
+    // Interleaved V and U samples, see mockYuvImage.
+    for (int i = 0; i < 4; i++) {
+      assertEquals(100 + i, output.get(16 + i * 2));
+      assertEquals(50 + i, output.get(17 + i * 2));
+    }
+  }
+
+  @Test
+  public void process_shouldRotateClockwise() {
+    ImageStreamProcessor processor = processor(ImageStreamProcessor.OutputFormat.nv21, true);
+    Image image = mockYuvImage(4, 4);
+    processor.setRotationDegrees(90);
+    processor.configure(4, 4);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    // The first output row is the first source column, read from bottom to top.
+    assertEquals(12, output.get(0));
+    assertEquals(8, output.get(1));
+    assertEquals(4, output.get(2));
+    assertEquals(0, output.get(3));
+    // The last output row is the last source column.
+    assertEquals(15, output.get(12));
+    assertEquals(3, output.get(15));
+    // Chroma is rotated the same way.
+    assertEquals(102, output.get(16));
+    assertEquals(100, output.get(18));
+  }
+
+  @Test
+  public void process_shouldRotateUpsideDown() {
+    ImageStreamProcessor processor = processor(ImageStreamProcessor.OutputFormat.nv21, true);
+    Image image = mockYuvImage(4, 4);
+    processor.setRotationDegrees(180);
+    processor.configure(4, 4);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    for (int i = 0; i < 16; i++) {
+      assertEquals(15 - i, output.get(i));
+    }
+  }
+
+  @Test
+  public void setRotationDegrees_shouldBeIgnoredWhenRotationIsDisabled() {
+    ImageStreamProcessor processor = processor(ImageStreamProcessor.OutputFormat.nv21, false);
+    Image image = mockYuvImage(4, 4);
+    processor.setRotationDegrees(270);
+    processor.configure(4, 4);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    assertEquals(0, output.get(0));
+    assertEquals(1, output.get(1));
+  }
+
+  @Test
+  public void process_shouldCrop() {
+    ImageStreamProcessor processor =
+        new ImageStreamProcessor(ImageStreamProcessor.OutputFormat.nv21, 2, 2, 2, 2, 0, 0, false);
+    Image image = mockYuvImage(4, 4);
+    processor.configure(4, 4);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    assertEquals(2, processor.getOutputWidth());
+    assertEquals(2, processor.getOutputHeight());
+    assertEquals(10, output.get(0));
+    assertEquals(11, output.get(1));
+    assertEquals(14, output.get(2));
+    assertEquals(15, output.get(3));
+    assertEquals(103, output.get(4));
+    assertEquals(53, output.get(5));
+  }
+
+  @Test
+  public void process_shouldDownscaleKeepingAspectRatio() {
+    ImageStreamProcessor processor =
+        new ImageStreamProcessor(ImageStreamProcessor.OutputFormat.nv21, 0, 0, 0, 0, 2, 0, false);
+    Image image = mockYuvImage(4, 4);
+    processor.configure(4, 4);
+    ByteBuffer output = ByteBuffer.allocate(processor.getOutputSize());
+
+    processor.process(image, output);
+
+    assertEquals(2, processor.getOutputWidth());
+    assertEquals(2, processor.getOutputHeight());
+    // The center of each 2x2 block is sampled.
+    assertEquals(5, output.get(0));
+    assertEquals(7, output.get(1));
+    assertEquals(13, output.get(2));
+    assertEquals(15, output.get(3));
+  }
+
+  @Test
+  public void configure_shouldSwapDimensionsWhenRotated() {
+    ImageStreamProcessor processor =
+        new ImageStreamProcessor(ImageStreamProcessor.OutputFormat.nv21, 0, 0, 4, 2, 0, 0, true);
+    processor.setRotationDegrees(270);
+
+    processor.configure(8, 8);
+
+    assertEquals(2, processor.getOutputWidth());
+    assertEquals(4, processor.getOutputHeight());
+    assertEquals(12, processor.getOutputSize());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void ctor_shouldThrowForNegativeCrop() {
+    new ImageStreamProcessor(ImageStreamProcessor.OutputFormat.nv21, -1, 0, 0, 0, 0, 0, false);
+  }
+
+  private static ImageStreamProcessor processor(
+      ImageStreamProcessor.OutputFormat format, boolean rotate) {
+    return new ImageStreamProcessor(format, 0, 0, 0, 0, 0, 0, rotate);
+  }
+
+  /**
+   * Creates an image whose luma samples count up from 0, with U samples counting up from 50 and V
+   * samples counting up from 100.
+   */
+  private static Image mockYuvImage(int width, int height) {
+    byte[] luma = new byte[width * height];
+    for (int i = 0; i < luma.length; i++) {
+      luma[i] = (byte) i;
+    }
+    int chromaSize = (width / 2) * (height / 2);
+    byte[] u = new byte[chromaSize];
+    byte[] v = new byte[chromaSize];
+    for (int i = 0; i < chromaSize; i++) {
+      u[i] = (byte) (50 + i);
+      v[i] = (byte) (100 + i);
+    }
+    return mockImage(width, height, luma, u, v);
+  }
+
+  private static Image mockImage(int width, int height, byte[] luma, byte u, byte v) {
+    int chromaSize = (width / 2) * (height / 2);
+    byte[] uBytes = new byte[chromaSize];
+    byte[] vBytes = new byte[chromaSize];
+    Arrays.fill(uBytes, u);
+    Arrays.fill(vBytes, v);
+    return mockImage(width, height, luma, uBytes, vBytes);
+  }
+
+  private static Image mockImage(int width, int height, byte[] luma, byte[] u, byte[] v) {
+    Image.Plane yPlane = mockPlane(luma, width, 1);
+    Image.Plane uPlane = mockPlane(u, width / 2, 1);
+    Image.Plane vPlane = mockPlane(v, width / 2, 1);
+    Image mockImage = mock(Image.class);
+    when(mockImage.getWidth()).thenReturn(width);
+    when(mockImage.getHeight()).thenReturn(height);
+    when(mockImage.getFormat()).thenReturn(ImageFormat.YUV_420_888);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {yPlane, uPlane, vPlane});
+    return mockImage;
+  }
+
+  private static Image.Plane mockPlane(byte[] bytes, int rowStride, int pixelStride) {
+    Image.Plane mockPlane = mock(Image.Plane.class);
+    when(mockPlane.getBuffer()).thenReturn(ByteBuffer.wrap(bytes));
+    when(mockPlane.getRowStride()).thenReturn(rowStride);
+    when(mockPlane.getPixelStride()).thenReturn(pixelStride);
+    return mockPlane;
+  }
+}
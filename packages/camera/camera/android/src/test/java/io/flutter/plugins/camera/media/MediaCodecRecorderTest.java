@@ -0,0 +1,129 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.view.Surface;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class MediaCodecRecorderTest {
+  private MockedStatic<MediaFormat> mockMediaFormatStatic;
+  private MediaFormat mockVideoFormat;
+  private MediaCodecRecorder.CodecFactory mockFactory;
+  private MediaCodec mockVideoEncoder;
+  private MediaMuxer mockMuxer;
+  private Surface mockSurface;
+
+  @Before
+  public void before() throws IOException {
+    mockVideoFormat = mock(MediaFormat.class);
+    mockMediaFormatStatic = mockStatic(MediaFormat.class);
+    mockMediaFormatStatic
+        .when(() -> MediaFormat.createVideoFormat(anyString(), anyInt(), anyInt()))
+        .thenReturn(mockVideoFormat);
+
+    mockFactory = mock(MediaCodecRecorder.CodecFactory.class);
+    mockVideoEncoder = mock(MediaCodec.class);
+    mockMuxer = mock(MediaMuxer.class);
+    mockSurface = mock(Surface.class);
+    when(mockFactory.createEncoder(anyString())).thenReturn(mockVideoEncoder);
+    when(mockFactory.createMuxer(anyString())).thenReturn(mockMuxer);
+    when(mockVideoEncoder.createInputSurface()).thenReturn(mockSurface);
+  }
+
+  @After
+  public void after() {
+    mockMediaFormatStatic.close();
+  }
+
+  @Test
+  public void prepare_shouldConfigureTheVideoEncoderFromTheSettings() throws IOException {
+    VideoEncoderSettings settings =
+        new VideoEncoderSettings(
+            VideoEncoderSettings.Codec.h264,
+            VideoEncoderSettings.BitrateMode.cbr,
+            5_000_000,
+            0,
+            1.5f);
+    MediaCodecRecorder recorder =
+        new MediaCodecRecorder("video.mp4", settings, 1920, 1080, 30, 12_000_000, mockFactory)
+            .setOrientationHint(90);
+
+    recorder.prepare();
+
+    mockMediaFormatStatic.verify(
+        () -> MediaFormat.createVideoFormat(MediaFormat.MIMETYPE_VIDEO_AVC, 1920, 1080));
+    verify(mockVideoFormat).setInteger(MediaFormat.KEY_BIT_RATE, 5_000_000);
+    verify(mockVideoFormat).setInteger(MediaFormat.KEY_FRAME_RATE, 30);
+    verify(mockVideoFormat)
+        .setInteger(
+            MediaFormat.KEY_BITRATE_MODE, MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CBR);
+    // Before API 25 the key frame interval is rounded up to whole seconds.
+    verify(mockVideoFormat).setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, 2);
+    verify(mockVideoEncoder)
+        .configure(mockVideoFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+    verify(mockFactory).createMuxer("video.mp4");
+    verify(mockMuxer).setOrientationHint(90);
+    assertEquals(mockSurface, recorder.getSurface());
+  }
+
+  @Test
+  public void prepare_shouldThrowAndReleaseWhenTheBitrateModeIsNotSupported() throws IOException {
+    MediaCodecInfo mockCodecInfo = mock(MediaCodecInfo.class);
+    MediaCodecInfo.CodecCapabilities mockCapabilities =
+        mock(MediaCodecInfo.CodecCapabilities.class);
+    MediaCodecInfo.EncoderCapabilities mockEncoderCapabilities =
+        mock(MediaCodecInfo.EncoderCapabilities.class);
+    when(mockVideoEncoder.getCodecInfo()).thenReturn(mockCodecInfo);
+    when(mockCodecInfo.getCapabilitiesForType(anyString())).thenReturn(mockCapabilities);
+    when(mockCapabilities.getEncoderCapabilities()).thenReturn(mockEncoderCapabilities);
+    when(mockEncoderCapabilities.isBitrateModeSupported(anyInt())).thenReturn(false);
+    VideoEncoderSettings settings =
+        new VideoEncoderSettings(
+            VideoEncoderSettings.Codec.hevc, VideoEncoderSettings.BitrateMode.cq, 0, 0, 1);
+    MediaCodecRecorder recorder =
+        new MediaCodecRecorder("video.mp4", settings, 1920, 1080, 30, 12_000_000, mockFactory);
+
+    try {
+      recorder.prepare();
+      fail("Expected an IllegalArgumentException.");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+
+    verify(mockFactory).createEncoder(MediaFormat.MIMETYPE_VIDEO_HEVC);
+    verify(mockVideoEncoder, never()).configure(any(MediaFormat.class), any(), any(), anyInt());
+    verify(mockVideoEncoder, times(1)).release();
+    verify(mockFactory, never()).createMuxer(anyString());
+  }
+
+  @Test
+  public void getAudioPresentationTimeUs_shouldFollowTheSampleCount() {
+    assertEquals(0, MediaCodecRecorder.getAudioPresentationTimeUs(0, 48_000));
+    // 1024 frames of 48 kHz audio last 21333 us, whatever time they were read at.
+    assertEquals(21_333, MediaCodecRecorder.getAudioPresentationTimeUs(1024, 48_000));
+    assertEquals(
+        3_600_000_000L, MediaCodecRecorder.getAudioPresentationTimeUs(158_760_000L, 44_100));
+  }
+}
@@ -0,0 +1,83 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PictureOptionsTest {
+  @Test
+  public void getValueForString_returnsCorrectValues() {
+    assertEquals(PictureOptions.Format.jpeg, PictureOptions.Format.getValueForString("jpeg"));
+    assertEquals(PictureOptions.Format.webp, PictureOptions.Format.getValueForString("webp"));
+    assertNull(PictureOptions.Format.getValueForString("heic"));
+    assertEquals(".webp", PictureOptions.Format.webp.getFileExtension());
+  }
+
+  @Test
+  public void fromArguments_shouldDefaultToFullSizeJpeg() {
+    PictureOptions options = PictureOptions.fromArguments(null, null, null);
+
+    assertEquals(PictureOptions.Format.jpeg, options.getFormat());
+    assertFalse(options.hasQuality());
+    assertEquals(PictureOptions.DEFAULT_QUALITY, options.getQuality());
+    assertEquals(0, options.getMaxDimension());
+  }
+
+  @Test
+  public void fromArguments_shouldParseAllValues() {
+    PictureOptions options = PictureOptions.fromArguments("webp", 70, 1080);
+
+    assertEquals(PictureOptions.Format.webp, options.getFormat());
+    assertTrue(options.hasQuality());
+    assertEquals(70, options.getQuality());
+    assertEquals(1080, options.getMaxDimension());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromArguments_shouldThrowForUnknownFormat() {
+    PictureOptions.fromArguments("heic", null, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromArguments_shouldThrowForZeroQuality() {
+    PictureOptions.fromArguments(null, 0, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void ctor_shouldThrowForQualityAbove100() {
+    new PictureOptions(PictureOptions.Format.jpeg, 101, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void ctor_shouldThrowForNegativeMaxDimension() {
+    new PictureOptions(PictureOptions.Format.jpeg, 0, -1);
+  }
+
+  @Test
+  public void getScale_shouldFitTheLargestSide() {
+    PictureOptions options = new PictureOptions(PictureOptions.Format.jpeg, 0, 1000);
+
+    assertEquals(0.25, options.getScale(4000, 3000), 0);
+    assertEquals(0.25, options.getScale(3000, 4000), 0);
+    assertEquals(1, options.getScale(800, 600), 0);
+    assertEquals(1, PictureOptions.DEFAULT.getScale(4000, 3000), 0);
+  }
+
+  @Test
+  public void needsTranscoding_shouldOnlyBeTrueForOtherFormatsOrDownscaling() {
+    assertFalse(PictureOptions.DEFAULT.needsTranscoding(4000, 3000));
+    assertFalse(new PictureOptions(PictureOptions.Format.jpeg, 80, 0).needsTranscoding(4000, 3000));
+    assertFalse(
+        new PictureOptions(PictureOptions.Format.jpeg, 0, 4000).needsTranscoding(4000, 3000));
+    assertTrue(
+        new PictureOptions(PictureOptions.Format.jpeg, 0, 1920).needsTranscoding(4000, 3000));
+    assertTrue(new PictureOptions(PictureOptions.Format.webp, 0, 0).needsTranscoding(4000, 3000));
+  }
+}
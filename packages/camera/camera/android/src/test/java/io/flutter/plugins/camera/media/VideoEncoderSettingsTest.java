@@ -0,0 +1,62 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class VideoEncoderSettingsTest {
+  @Test
+  public void getValueForString_returnsCorrectValues() {
+    assertEquals(
+        VideoEncoderSettings.Codec.h264, VideoEncoderSettings.Codec.getValueForString("h264"));
+    assertEquals(
+        VideoEncoderSettings.Codec.hevc, VideoEncoderSettings.Codec.getValueForString("hevc"));
+    assertNull(VideoEncoderSettings.Codec.getValueForString("vp9"));
+    assertEquals(
+        VideoEncoderSettings.BitrateMode.cbr,
+        VideoEncoderSettings.BitrateMode.getValueForString("cbr"));
+    assertNull(VideoEncoderSettings.BitrateMode.getValueForString("unknown"));
+  }
+
+  @Test
+  public void fromArguments_shouldDefaultToH264WithProfileValues() {
+    VideoEncoderSettings settings =
+        VideoEncoderSettings.fromArguments(null, null, null, null, null);
+
+    assertEquals(VideoEncoderSettings.Codec.h264, settings.getCodec());
+    assertNull(settings.getBitrateMode());
+    assertEquals(0, settings.getBitrate());
+    assertEquals(0, settings.getFrameRate());
+    assertEquals(
+        VideoEncoderSettings.DEFAULT_KEY_FRAME_INTERVAL_SECONDS,
+        settings.getKeyFrameIntervalSeconds(),
+        0);
+  }
+
+  @Test
+  public void fromArguments_shouldParseAllValues() {
+    VideoEncoderSettings settings =
+        VideoEncoderSettings.fromArguments("hevc", "vbr", 8_000_000, 60, 0.5);
+
+    assertEquals(VideoEncoderSettings.Codec.hevc, settings.getCodec());
+    assertEquals(VideoEncoderSettings.BitrateMode.vbr, settings.getBitrateMode());
+    assertEquals(8_000_000, settings.getBitrate());
+    assertEquals(60, settings.getFrameRate());
+    assertEquals(0.5f, settings.getKeyFrameIntervalSeconds(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromArguments_shouldThrowForUnknownCodec() {
+    VideoEncoderSettings.fromArguments("vp9", null, null, null, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void ctor_shouldThrowForNegativeBitrate() {
+    new VideoEncoderSettings(VideoEncoderSettings.Codec.h264, null, -1, 0, 1);
+  }
+}
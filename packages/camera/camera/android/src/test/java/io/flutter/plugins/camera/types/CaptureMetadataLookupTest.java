@@ -0,0 +1,52 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.types;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class CaptureMetadataLookupTest {
+  @Test
+  public void get_shouldReturnThePropertiesWithTheSameTimestamp() {
+    CaptureMetadataLookup lookup = new CaptureMetadataLookup(4);
+    CameraCaptureProperties first = createProperties(1000L);
+    CameraCaptureProperties second = createProperties(2000L);
+
+    lookup.put(first);
+    lookup.put(second);
+
+    assertSame(first, lookup.get(1000L));
+    assertSame(second, lookup.get(2000L));
+    assertNull(lookup.get(1500L));
+  }
+
+  @Test
+  public void put_shouldOverwriteTheOldestEntryWhenFull() {
+    CaptureMetadataLookup lookup = new CaptureMetadataLookup(2);
+    CameraCaptureProperties second = createProperties(2000L);
+    CameraCaptureProperties third = createProperties(3000L);
+
+    lookup.put(createProperties(1000L));
+    lookup.put(second);
+    lookup.put(third);
+
+    assertNull(lookup.get(1000L));
+    assertSame(second, lookup.get(2000L));
+    assertSame(third, lookup.get(3000L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void ctor_shouldThrowForEmptyCapacity() {
+    new CaptureMetadataLookup(0);
+  }
+
+  private static CameraCaptureProperties createProperties(long timestamp) {
+    CameraCaptureProperties properties = new CameraCaptureProperties();
+    properties.setLastSensorTimestamp(timestamp);
+    return properties;
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import org.junit.Assert;
+
+/**
+ * Measures the average latency and heap allocation of an operation.
+ *
+ * <p>The benchmarks of the plugin's hot paths use this class to fail when an operation allocates
+ * more than its budget, or takes longer than its latency bound. Allocation is measured with the
+ * per-thread allocation counters of the JVM, which are deterministic enough to be asserted on
+ * tightly. The latency depends on the machine, so its bounds are loose and only catch operations
+ * that became far slower. Every result is printed, so the numbers can be followed over time.
+ *
+ * <p>The benchmarks are left out of the unit tests, they run on their own with {@code ./gradlew
+ * testDebugUnitTest -Pbenchmarks}, which CI does after the unit tests.
+ */
+public final class Benchmark {
+  /** The outcome of a benchmark. */
+  public static final class Result {
+    public final String name;
+    public final int iterations;
+    public final double nanosPerOp;
+    /** The bytes allocated per operation, or -1 if the JVM does not support measuring it. */
+    public final long bytesPerOp;
+
+    private Result(String name, int iterations, double nanosPerOp, long bytesPerOp) {
+      this.name = name;
+      this.iterations = iterations;
+      this.nanosPerOp = nanosPerOp;
+      this.bytesPerOp = bytesPerOp;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ROOT,
+          "Benchmark %s: %.1f us/op, %s over %d iterations",
+          name,
+          nanosPerOp / 1000,
+          bytesPerOp < 0 ? "allocation unknown" : bytesPerOp + " B/op",
+          iterations);
+    }
+  }
+
+  private Benchmark() {}
+
+  /**
+   * Runs the operation until it is warmed up, then measures the supplied number of iterations on
+   * the calling thread.
+   *
+   * @param name the name reported for the benchmark.
+   * @param warmupIterations the number of iterations that are run before measuring.
+   * @param iterations the number of measured iterations.
+   * @param operation the operation to measure.
+   * @return the measured result, which is also printed.
+   */
+  public static Result run(String name, int warmupIterations, int iterations, Runnable operation) {
+    for (int i = 0; i < warmupIterations; i++) {
+      operation.run();
+    }
+
+    long startBytes = getAllocatedBytes();
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      operation.run();
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    long endBytes = getAllocatedBytes();
+
+    Result result =
+        new Result(
+            name,
+            iterations,
+            (double) elapsedNanos / iterations,
+            startBytes < 0 || endBytes < 0 ? -1 : (endBytes - startBytes) / iterations);
+    System.out.println(result);
+    return result;
+  }
+
+  /**
+   * Fails when the benchmarked operation allocated more than the supplied budget.
+   *
+   * <p>Does nothing when the JVM running the tests cannot measure allocation.
+   *
+   * @param result the result of the benchmark.
+   * @param maxBytesPerOp the allocation budget of a single operation.
+   */
+  public static void assertBytesPerOpAtMost(Result result, long maxBytesPerOp) {
+    if (result.bytesPerOp < 0) {
+      return;
+    }
+    Assert.assertTrue(
+        result + " exceeds its allocation budget of " + maxBytesPerOp + " B/op",
+        result.bytesPerOp <= maxBytesPerOp);
+  }
+
+  /**
+   * Fails when the benchmarked operation took longer than the supplied bound on average.
+   *
+   * @param result the result of the benchmark.
+   * @param maxNanosPerOp the latency bound of a single operation, loose enough for slow machines.
+   */
+  public static void assertNanosPerOpAtMost(Result result, long maxNanosPerOp) {
+    Assert.assertTrue(
+        result + " exceeds its latency bound of " + maxNanosPerOp / 1000 + " us/op",
+        result.nanosPerOp <= maxNanosPerOp);
+  }
+
+  private static long getAllocatedBytes() {
+    java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+    if (!allocationBean.isThreadAllocatedMemorySupported()
+        || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
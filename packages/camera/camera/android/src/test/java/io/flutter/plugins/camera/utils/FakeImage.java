@@ -0,0 +1,145 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.utils;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Image} backed by direct buffers, like the images of an {@link
+ * android.media.ImageReader}.
+ *
+ * <p>Unlike a mock, calling the fake does not allocate, so it can be used to measure the
+ * allocations of the code consuming the image.
+ */
+public class FakeImage extends Image {
+  private final int format;
+  private final int width;
+  private final int height;
+  private final Plane[] planes;
+  private long timestamp;
+
+  private FakeImage(int format, int width, int height, Plane[] planes) {
+    this.format = format;
+    this.width = width;
+    this.height = height;
+    this.planes = planes;
+  }
+
+  /**
+   * Creates a YUV_420_888 image laid out like the semi-planar images most camera HALs produce, with
+   * interleaved chroma planes.
+   */
+  public static FakeImage yuv420(int width, int height) {
+    int chromaSize = width * height / 2 - 1;
+    return new FakeImage(
+        ImageFormat.YUV_420_888,
+        width,
+        height,
+        new Plane[] {
+          new FakePlane(ByteBuffer.allocateDirect(width * height), width, 1),
+          new FakePlane(ByteBuffer.allocateDirect(chromaSize), width, 2),
+          new FakePlane(ByteBuffer.allocateDirect(chromaSize), width, 2)
+        });
+  }
+
+  /** Creates a JPEG image holding the supplied number of encoded bytes. */
+  public static FakeImage jpeg(int width, int height, int encodedSize) {
+    return new FakeImage(
+        ImageFormat.JPEG,
+        width,
+        height,
+        new Plane[] {new FakePlane(ByteBuffer.allocateDirect(encodedSize), 0, 0)});
+  }
+
+  /** Rewinds the buffers of all planes, so the image can be consumed again. */
+  public void rewind() {
+    for (Plane plane : planes) {
+      plane.getBuffer().rewind();
+    }
+  }
+
+  /** Gets the total number of bytes in the planes of the image. */
+  public int getByteCount() {
+    int byteCount = 0;
+    for (Plane plane : planes) {
+      byteCount += plane.getBuffer().capacity();
+    }
+    return byteCount;
+  }
+
+  @Override
+  public int getFormat() {
+    return format;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public void setTimestamp(long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  @Override
+  public int getTransform() {
+    return 0;
+  }
+
+  @Override
+  public int getScalingMode() {
+    return 0;
+  }
+
+  @Override
+  public Plane[] getPlanes() {
+    return planes;
+  }
+
+  @Override
+  public void close() {
+    // The buffers are reused by the next iteration of a benchmark.
+  }
+
+  private static class FakePlane extends Image.Plane {
+    private final ByteBuffer buffer;
+    private final int rowStride;
+    private final int pixelStride;
+
+    private FakePlane(ByteBuffer buffer, int rowStride, int pixelStride) {
+      this.buffer = buffer;
+      this.rowStride = rowStride;
+      this.pixelStride = pixelStride;
+    }
+
+    @Override
+    public int getRowStride() {
+      return rowStride;
+    }
+
+    @Override
+    public int getPixelStride() {
+      return pixelStride;
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+      return buffer;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the marker icons that were decoded, so that markers sharing an icon don't decode it again.
+ *
+ * <p>Icons are kept in least recently used order until their total size exceeds the memory budget
+ * of the cache. Icons registered under an id are kept until they are unregistered, and don't count
+ * towards the budget.
+ */
+class BitmapDescriptorCache {
+  /** The size accounted for icons loaded from assets, which are decoded by the map itself. */
+  static final int ASSET_ICON_SIZE = 1024;
+
+  private static class Entry {
+    final BitmapDescriptor bitmapDescriptor;
+    final int size;
+
+    Entry(BitmapDescriptor bitmapDescriptor, int size) {
+      this.bitmapDescriptor = bitmapDescriptor;
+      this.size = size;
+    }
+  }
+
+  /** Compares image bytes by content, so that the same image sent twice is decoded once. */
+  private static class BytesKey {
+    private final byte[] bytes;
+    private final int hashCode;
+
+    BytesKey(byte[] bytes) {
+      this.bytes = bytes;
+      this.hashCode = Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof BytesKey && Arrays.equals(bytes, ((BytesKey) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private final long maxSize;
+  private long size;
+  private final LinkedHashMap<Object, Entry> keyToEntry = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, BitmapDescriptor> iconIdToBitmapDescriptor = new HashMap<>();
+
+  /** Creates a cache with a budget of a 32nd of the memory available to the app. */
+  BitmapDescriptorCache() {
+    this(Runtime.getRuntime().maxMemory() / 32);
+  }
+
+  /** @param maxSize the memory budget of the cache, in bytes. */
+  BitmapDescriptorCache(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /** Returns the key of an icon decoded from {@code bytes}. */
+  static Object bytesKey(byte[] bytes) {
+    return new BytesKey(bytes);
+  }
+
+  /** Returns the icon cached for {@code key}, or null, marking it as the most recently used. */
+  BitmapDescriptor get(Object key) {
+    Entry entry = keyToEntry.get(key);
+    return entry != null ? entry.bitmapDescriptor : null;
+  }
+
+  /**
+   * Caches an icon, evicting the least recently used ones when over budget.
+   *
+   * @param key the key of the icon, the asset it is loaded from or {@link #bytesKey}.
+   * @param bitmapDescriptor the icon.
+   * @param size the memory used by the icon, in bytes.
+   */
+  void put(Object key, BitmapDescriptor bitmapDescriptor, int size) {
+    Entry previous = keyToEntry.put(key, new Entry(bitmapDescriptor, size));
+    if (previous != null) {
+      this.size -= previous.size;
+    }
+    this.size += size;
+    Iterator<Entry> entries = keyToEntry.values().iterator();
+    // The icon just added is always kept, even when it is over budget on its own.
+    while (this.size > maxSize && keyToEntry.size() > 1) {
+      this.size -= entries.next().size;
+      entries.remove();
+    }
+  }
+
+  /**
+   * Registers an icon that markers can reference by {@code iconId}.
+   *
+   * <p>Registering an id again replaces the icon for the markers added or changed afterwards.
+   */
+  void register(String iconId, BitmapDescriptor bitmapDescriptor) {
+    iconIdToBitmapDescriptor.put(iconId, bitmapDescriptor);
+  }
+
+  void unregister(String iconId) {
+    iconIdToBitmapDescriptor.remove(iconId);
+  }
+
+  BitmapDescriptor getRegistered(String iconId) {
+    BitmapDescriptor bitmapDescriptor = iconIdToBitmapDescriptor.get(iconId);
+    if (bitmapDescriptor == null) {
+      throw new IllegalArgumentException("No icon registered with id " + iconId);
+    }
+    return bitmapDescriptor;
+  }
+}
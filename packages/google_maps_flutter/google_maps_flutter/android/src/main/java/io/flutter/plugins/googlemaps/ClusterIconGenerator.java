@@ -0,0 +1,95 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws the icons of marker clusters, a filled circle with the number of markers of the cluster.
+ *
+ * <p>Counts of 10 and above are rounded down to a bucket and shown as for example "50+", so that
+ * only a handful of icons are ever drawn. Icons are cached by their bucket.
+ */
+class ClusterIconGenerator {
+  private static final int[] BUCKETS = {10, 20, 50, 100, 200, 500, 1000};
+  private static final int[] COLORS = {
+    0xFF0099CC, 0xFF0099CC, 0xFF669900, 0xFFFF8800, 0xFFCC0000, 0xFF9933CC, 0xFF9933CC, 0xFF9933CC
+  };
+  private static final float SIZE = 40;
+  private static final float OUTLINE_WIDTH = 3;
+  private static final float TEXT_SIZE = 14;
+
+  private final float density;
+  private final Map<Integer, BitmapDescriptor> bucketToIcon = new HashMap<>();
+
+  ClusterIconGenerator(float density) {
+    this.density = density;
+  }
+
+  /** Gets the icon of a cluster of {@code count} markers. */
+  BitmapDescriptor getIcon(int count) {
+    int bucket = getBucket(count);
+    BitmapDescriptor icon = bucketToIcon.get(bucket);
+    if (icon == null) {
+      icon = BitmapDescriptorFactory.fromBitmap(drawIcon(bucket));
+      bucketToIcon.put(bucket, icon);
+    }
+    return icon;
+  }
+
+  /** Rounds {@code count} down to the largest bucket it reaches, or keeps it below 10. */
+  static int getBucket(int count) {
+    if (count < BUCKETS[0]) {
+      return count;
+    }
+    for (int i = BUCKETS.length - 1; i > 0; i--) {
+      if (count >= BUCKETS[i]) {
+        return BUCKETS[i];
+      }
+    }
+    return BUCKETS[0];
+  }
+
+  static String getText(int bucket) {
+    return bucket < BUCKETS[0] ? String.valueOf(bucket) : bucket + "+";
+  }
+
+  private Bitmap drawIcon(int bucket) {
+    int size = Math.round(SIZE * density);
+    Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(bitmap);
+    float center = size / 2f;
+
+    Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    paint.setColor(Color.WHITE);
+    canvas.drawCircle(center, center, center, paint);
+    paint.setColor(getColor(bucket));
+    canvas.drawCircle(center, center, center - OUTLINE_WIDTH * density, paint);
+
+    paint.setColor(Color.WHITE);
+    paint.setTextSize(TEXT_SIZE * density);
+    paint.setTypeface(Typeface.DEFAULT_BOLD);
+    paint.setTextAlign(Paint.Align.CENTER);
+    float baseline = center - (paint.descent() + paint.ascent()) / 2;
+    canvas.drawText(getText(bucket), center, baseline, paint);
+    return bitmap;
+  }
+
+  private static int getColor(int bucket) {
+    int index = 0;
+    while (index < BUCKETS.length && bucket >= BUCKETS[index]) {
+      index++;
+    }
+    return COLORS[index];
+  }
+}
@@ -70,10 +70,13 @@ class Convert {
   }
 
   private static BitmapDescriptor getBitmapFromBytes(List<?> data) {
+    return BitmapDescriptorFactory.fromBitmap(getBitmapFromBytesData(data));
+  }
+
+  private static Bitmap getBitmapFromBytesData(List<?> data) {
     if (data.size() == 2) {
       try {
-        Bitmap bitmap = toBitmap(data.get(1));
-        return BitmapDescriptorFactory.fromBitmap(bitmap);
+        return toBitmap(data.get(1));
       } catch (Exception e) {
         throw new IllegalArgumentException("Unable to interpret bytes as a valid image.", e);
       }
@@ -84,6 +87,51 @@ class Convert {
     }
   }
 
+  /**
+   * Interprets a marker icon, looking up registered icons and the icons decoded before in {@code
+   * cache}.
+   */
+  private static BitmapDescriptor toBitmapDescriptor(Object o, BitmapDescriptorCache cache) {
+    final List<?> data = toList(o);
+    switch (toString(data.get(0))) {
+      case "fromRegisteredIcon":
+        return cache.getRegistered(toString(data.get(1)));
+      case "fromAsset":
+      case "fromAssetImage":
+        {
+          BitmapDescriptor bitmapDescriptor = cache.get(data);
+          if (bitmapDescriptor == null) {
+            bitmapDescriptor = toBitmapDescriptor(o);
+            cache.put(data, bitmapDescriptor, BitmapDescriptorCache.ASSET_ICON_SIZE);
+          }
+          return bitmapDescriptor;
+        }
+      case "fromBytes":
+        {
+          if (data.size() != 2) {
+            return getBitmapFromBytes(data);
+          }
+          Object key = BitmapDescriptorCache.bytesKey((byte[]) data.get(1));
+          BitmapDescriptor bitmapDescriptor = cache.get(key);
+          if (bitmapDescriptor == null) {
+            Bitmap bitmap = getBitmapFromBytesData(data);
+            bitmapDescriptor = BitmapDescriptorFactory.fromBitmap(bitmap);
+            cache.put(key, bitmapDescriptor, bitmap.getByteCount());
+          }
+          return bitmapDescriptor;
+        }
+      default:
+        return toBitmapDescriptor(o);
+    }
+  }
+
+  /** Registers the icons of a map of icon ids to icons in {@code cache}. */
+  static void interpretIcons(Object o, BitmapDescriptorCache cache) {
+    for (Map.Entry<?, ?> entry : toMap(o).entrySet()) {
+      cache.register(toString(entry.getKey()), toBitmapDescriptor(entry.getValue()));
+    }
+  }
+
   private static boolean toBoolean(Object o) {
     return (Boolean) o;
   }
@@ -376,10 +424,19 @@ class Convert {
     if (buildingsEnabled != null) {
       sink.setBuildingsEnabled(toBoolean(buildingsEnabled));
     }
+    final Object clusterMarkers = data.get("clusterMarkers");
+    if (clusterMarkers != null) {
+      sink.setClusterMarkers(toBoolean(clusterMarkers));
+    }
+    final Object viewportCulling = data.get("viewportCulling");
+    if (viewportCulling != null) {
+      sink.setViewportCulling(toBoolean(viewportCulling));
+    }
   }
 
   /** Returns the dartMarkerId of the interpreted marker. */
-  static String interpretMarkerOptions(Object o, MarkerOptionsSink sink) {
+  static String interpretMarkerOptions(
+      Object o, MarkerOptionsSink sink, BitmapDescriptorCache bitmapDescriptorCache) {
     final Map<?, ?> data = toMap(o);
     final Object alpha = data.get("alpha");
     if (alpha != null) {
@@ -404,7 +461,7 @@ class Convert {
     }
     final Object icon = data.get("icon");
     if (icon != null) {
-      sink.setIcon(toBitmapDescriptor(icon));
+      sink.setIcon(toBitmapDescriptor(icon, bitmapDescriptorCache));
     }
 
     final Object infoWindow = data.get("infoWindow");
@@ -534,6 +591,10 @@ class Convert {
     if (zIndex != null) {
       sink.setZIndex(toFloat(zIndex));
     }
+    final Object simplificationTolerance = data.get("simplificationTolerance");
+    if (simplificationTolerance != null) {
+      sink.setSimplificationTolerance(toFloat(simplificationTolerance));
+    }
     final Object points = data.get("points");
     if (points != null) {
       sink.setPoints(toPoints(points));
@@ -592,13 +653,46 @@ class Convert {
     }
   }
 
+  /**
+   * Converts points sent either as a list of [latitude, longitude] lists, as a Float64List of
+   * interleaved latitudes and longitudes, or as an Int32List of interleaved latitudes and
+   * longitudes in degrees multiplied by 10^7.
+   */
   private static List<LatLng> toPoints(Object o) {
+    if (o instanceof double[]) {
+      return toPoints((double[]) o);
+    }
+    if (o instanceof int[]) {
+      return toPointsE7((int[]) o);
+    }
     final List<?> data = toList(o);
     final List<LatLng> points = new ArrayList<>(data.size());
 
     for (Object rawPoint : data) {
       final List<?> point = toList(rawPoint);
-      points.add(new LatLng(toFloat(point.get(0)), toFloat(point.get(1))));
+      points.add(new LatLng(toDouble(point.get(0)), toDouble(point.get(1))));
+    }
+    return points;
+  }
+
+  private static List<LatLng> toPoints(double[] data) {
+    if (data.length % 2 != 0) {
+      throw new IllegalArgumentException("Packed points need an even number of coordinates");
+    }
+    final List<LatLng> points = new ArrayList<>(data.length / 2);
+    for (int i = 0; i < data.length; i += 2) {
+      points.add(new LatLng(data[i], data[i + 1]));
+    }
+    return points;
+  }
+
+  private static List<LatLng> toPointsE7(int[] data) {
+    if (data.length % 2 != 0) {
+      throw new IllegalArgumentException("Packed points need an even number of coordinates");
+    }
+    final List<LatLng> points = new ArrayList<>(data.length / 2);
+    for (int i = 0; i < data.length; i += 2) {
+      points.add(new LatLng(data[i] / 1e7, data[i + 1] / 1e7));
     }
     return points;
   }
@@ -679,6 +773,15 @@ class Convert {
     if (visible != null) {
       sink.setVisible(toBoolean(visible));
     }
+    // A null key turns the disk cache off, so it is applied whenever it is sent.
+    if (data.containsKey("diskCacheKey")) {
+      final Object diskCacheKey = data.get("diskCacheKey");
+      sink.setDiskCacheKey(diskCacheKey == null ? null : toString(diskCacheKey));
+    }
+    final Object prefetchTiles = data.get("prefetchTiles");
+    if (prefetchTiles != null) {
+      sink.setPrefetchTiles(toBoolean(prefetchTiles));
+    }
     final String tileOverlayId = (String) data.get("tileOverlayId");
     if (tileOverlayId == null) {
       throw new IllegalArgumentException("tileOverlayId was null");
@@ -21,6 +21,8 @@ class GoogleMapBuilder implements GoogleMapOptionsSink {
   private boolean indoorEnabled = true;
   private boolean trafficEnabled = false;
   private boolean buildingsEnabled = true;
+  private boolean clusterMarkers = false;
+  private boolean viewportCulling = false;
   private Object initialMarkers;
   private Object initialPolygons;
   private Object initialPolylines;
@@ -42,6 +44,8 @@ class GoogleMapBuilder implements GoogleMapOptionsSink {
     controller.setTrafficEnabled(trafficEnabled);
     controller.setBuildingsEnabled(buildingsEnabled);
     controller.setTrackCameraPosition(trackCameraPosition);
+    controller.setClusterMarkers(clusterMarkers);
+    controller.setViewportCulling(viewportCulling);
     controller.setInitialMarkers(initialMarkers);
     controller.setInitialPolygons(initialPolygons);
     controller.setInitialPolylines(initialPolylines);
@@ -150,6 +154,16 @@ class GoogleMapBuilder implements GoogleMapOptionsSink {
     this.myLocationButtonEnabled = myLocationButtonEnabled;
   }
 
+  @Override
+  public void setClusterMarkers(boolean clusterMarkers) {
+    this.clusterMarkers = clusterMarkers;
+  }
+
+  @Override
+  public void setViewportCulling(boolean viewportCulling) {
+    this.viewportCulling = viewportCulling;
+  }
+
   @Override
   public void setInitialMarkers(Object initialMarkers) {
     this.initialMarkers = initialMarkers;
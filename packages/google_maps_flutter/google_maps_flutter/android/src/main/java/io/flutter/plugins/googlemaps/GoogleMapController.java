@@ -38,6 +38,7 @@ import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.platform.PlatformView;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -55,6 +56,7 @@ final class GoogleMapController
         PlatformView {
 
   private static final String TAG = "GoogleMapController";
+  private static final String TILE_CACHE_DIRECTORY = "google_maps_flutter_tiles";
   private final int id;
   private final MethodChannel methodChannel;
   private final GoogleMapOptions options;
@@ -97,11 +99,15 @@ final class GoogleMapController
     methodChannel = new MethodChannel(binaryMessenger, "plugins.flutter.io/google_maps_" + id);
     methodChannel.setMethodCallHandler(this);
     this.lifecycleProvider = lifecycleProvider;
-    this.markersController = new MarkersController(methodChannel);
+    this.markersController =
+        new MarkersController(
+            methodChannel, new ClusterIconGenerator(density), new BitmapDescriptorCache());
     this.polygonsController = new PolygonsController(methodChannel, density);
     this.polylinesController = new PolylinesController(methodChannel, density);
     this.circlesController = new CirclesController(methodChannel, density);
-    this.tileOverlaysController = new TileOverlaysController(methodChannel);
+    this.tileOverlaysController =
+        new TileOverlaysController(
+            methodChannel, new TileCache(new File(context.getCacheDir(), TILE_CACHE_DIRECTORY)));
   }
 
   @Override
@@ -144,6 +150,10 @@ final class GoogleMapController
     polylinesController.setGoogleMap(googleMap);
     circlesController.setGoogleMap(googleMap);
     tileOverlaysController.setGoogleMap(googleMap);
+    CameraPosition cameraPosition = googleMap.getCameraPosition();
+    if (cameraPosition != null) {
+      polylinesController.setZoom(cameraPosition.zoom);
+    }
     updateInitialMarkers();
     updateInitialPolygons();
     updateInitialPolylines();
@@ -253,6 +263,15 @@ final class GoogleMapController
           result.success(null);
           break;
         }
+      case "icons#update":
+        {
+          Object iconsToAdd = call.argument("iconsToAdd");
+          markersController.registerIcons(iconsToAdd);
+          List<Object> iconIdsToRemove = call.argument("iconIdsToRemove");
+          markersController.unregisterIcons(iconIdsToRemove);
+          result.success(null);
+          break;
+        }
       case "markers#showInfoWindow":
         {
           Object markerId = call.argument("markerId");
@@ -458,6 +477,14 @@ final class GoogleMapController
 
   @Override
   public void onCameraIdle() {
+    float zoom = googleMap.getCameraPosition().zoom;
+    polylinesController.setZoom(zoom);
+    if (markersController.isLazy() || polylinesController.isLazy() || polygonsController.isLazy()) {
+      LatLngBounds visibleBounds = googleMap.getProjection().getVisibleRegion().latLngBounds;
+      markersController.onCameraIdle(zoom, visibleBounds);
+      polylinesController.onCameraIdle(visibleBounds);
+      polygonsController.onCameraIdle(visibleBounds);
+    }
     methodChannel.invokeMethod("camera#onIdle", Collections.singletonMap("map", id));
   }
 
@@ -717,6 +744,20 @@ final class GoogleMapController
     }
   }
 
+  /** This call will have no effect on a map that already has markers. */
+  @Override
+  public void setClusterMarkers(boolean clusterMarkers) {
+    markersController.setClusteringEnabled(clusterMarkers);
+  }
+
+  /** This call will have no effect on the elements of a map that already has some. */
+  @Override
+  public void setViewportCulling(boolean viewportCulling) {
+    markersController.setViewportCullingEnabled(viewportCulling);
+    polylinesController.setViewportCullingEnabled(viewportCulling);
+    polygonsController.setViewportCullingEnabled(viewportCulling);
+  }
+
   @Override
   public void setInitialMarkers(Object initialMarkers) {
     ArrayList<?> markers = (ArrayList<?>) initialMarkers;
@@ -46,6 +46,10 @@ interface GoogleMapOptionsSink {
 
   void setBuildingsEnabled(boolean buildingsEnabled);
 
+  void setClusterMarkers(boolean clusterMarkers);
+
+  void setViewportCulling(boolean viewportCulling);
+
   void setInitialMarkers(Object initialMarkers);
 
   void setInitialPolygons(Object initialPolygons);
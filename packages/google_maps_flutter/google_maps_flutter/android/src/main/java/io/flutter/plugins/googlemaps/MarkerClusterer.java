@@ -0,0 +1,210 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups markers that are close to each other on screen into clusters.
+ *
+ * <p>The world is projected with the Web Mercator projection of the map at the integer zoom level
+ * of the camera, and divided into square cells of {@link #GRID_SIZE} density independent pixels.
+ * The markers of a cell form a cluster when there are at least {@link #MIN_CLUSTER_SIZE} of them,
+ * and are shown on their own otherwise. Only the cells within the visible region and the cells
+ * surrounding it are computed, so the cost of clustering grows with the number of markers, not with
+ * the size of the world.
+ */
+class MarkerClusterer {
+  /** The size of a cell of the grid, in density independent pixels. */
+  static final int GRID_SIZE = 100;
+
+  /** The least number of markers in a cell that are shown as a cluster. */
+  static final int MIN_CLUSTER_SIZE = 4;
+
+  /** The size of the world at zoom level 0, in density independent pixels. */
+  private static final double WORLD_SIZE = 256;
+
+  /** The zoom level above which markers are never clustered. */
+  private static final int MAX_CLUSTER_ZOOM = 20;
+
+  /** A group of markers of a single cell of the grid. */
+  static class Cluster {
+    private final String key;
+    private final LatLng position;
+    private final LatLngBounds bounds;
+    private final List<String> markerIds;
+
+    Cluster(String key, LatLng position, LatLngBounds bounds, List<String> markerIds) {
+      this.key = key;
+      this.position = position;
+      this.bounds = bounds;
+      this.markerIds = markerIds;
+    }
+
+    /** Identifies the cell of the cluster, it is the same for every clustering at a zoom level. */
+    String getKey() {
+      return key;
+    }
+
+    /** The average position of the markers of the cluster. */
+    LatLng getPosition() {
+      return position;
+    }
+
+    /** The smallest bounds including all the markers of the cluster. */
+    LatLngBounds getBounds() {
+      return bounds;
+    }
+
+    List<String> getMarkerIds() {
+      return markerIds;
+    }
+  }
+
+  /** The result of a clustering, the clusters and the markers that are shown on their own. */
+  static class Result {
+    private final List<Cluster> clusters;
+    private final List<String> markerIds;
+
+    Result(List<Cluster> clusters, List<String> markerIds) {
+      this.clusters = clusters;
+      this.markerIds = markerIds;
+    }
+
+    List<Cluster> getClusters() {
+      return clusters;
+    }
+
+    List<String> getMarkerIds() {
+      return markerIds;
+    }
+  }
+
+  private final Map<String, LatLng> markerIdToPosition = new LinkedHashMap<>();
+
+  /** Adds a marker, or moves it when it has been added before. */
+  void setMarker(String markerId, LatLng position) {
+    markerIdToPosition.put(markerId, position);
+  }
+
+  void removeMarker(String markerId) {
+    markerIdToPosition.remove(markerId);
+  }
+
+  void clear() {
+    markerIdToPosition.clear();
+  }
+
+  /**
+   * Clusters the markers within the visible region.
+   *
+   * @param zoom the zoom level of the camera.
+   * @param visibleBounds the visible region of the map.
+   * @return the clusters and the markers shown on their own, in or close to the visible region.
+   */
+  Result cluster(float zoom, LatLngBounds visibleBounds) {
+    int zoomLevel = (int) Math.max(0, Math.floor(zoom));
+    double worldSize = WORLD_SIZE * Math.pow(2, zoomLevel);
+    long cellCount = (long) Math.ceil(worldSize / GRID_SIZE);
+
+    // The visible cells and one cell around them, so that markers entering the visible region on
+    // the next pan are already in place.
+    long minCellY = toCellY(visibleBounds.northeast.latitude, worldSize) - 1;
+    long maxCellY = toCellY(visibleBounds.southwest.latitude, worldSize) + 1;
+    long minCellX = toCellX(visibleBounds.southwest.longitude, worldSize) - 1;
+    long maxCellX = toCellX(visibleBounds.northeast.longitude, worldSize) + 1;
+    if (visibleBounds.southwest.longitude > visibleBounds.northeast.longitude) {
+      // The visible region crosses the antimeridian.
+      maxCellX += cellCount;
+    }
+    boolean wholeWidth = maxCellX - minCellX + 1 >= cellCount;
+    minCellX = wrap(minCellX, cellCount);
+    maxCellX = wrap(maxCellX, cellCount);
+
+    Map<Long, List<String>> cellToMarkerIds = new LinkedHashMap<>();
+    for (Map.Entry<String, LatLng> entry : markerIdToPosition.entrySet()) {
+      LatLng position = entry.getValue();
+      long cellY = toCellY(position.latitude, worldSize);
+      if (cellY < minCellY || cellY > maxCellY) {
+        continue;
+      }
+      long cellX = toCellX(position.longitude, worldSize);
+      if (!wholeWidth && !isWithin(cellX, minCellX, maxCellX)) {
+        continue;
+      }
+      long cell = cellX * cellCount + cellY;
+      List<String> markerIds = cellToMarkerIds.get(cell);
+      if (markerIds == null) {
+        markerIds = new ArrayList<>();
+        cellToMarkerIds.put(cell, markerIds);
+      }
+      markerIds.add(entry.getKey());
+    }
+
+    List<Cluster> clusters = new ArrayList<>();
+    List<String> singleMarkerIds = new ArrayList<>();
+    for (Map.Entry<Long, List<String>> entry : cellToMarkerIds.entrySet()) {
+      List<String> markerIds = entry.getValue();
+      if (zoomLevel > MAX_CLUSTER_ZOOM || markerIds.size() < MIN_CLUSTER_SIZE) {
+        singleMarkerIds.addAll(markerIds);
+      } else {
+        clusters.add(createCluster(zoomLevel + ":" + entry.getKey(), markerIds));
+      }
+    }
+    return new Result(clusters, singleMarkerIds);
+  }
+
+  private Cluster createCluster(String key, List<String> markerIds) {
+    double latitudeSum = 0;
+    double longitudeSum = 0;
+    double south = Double.MAX_VALUE;
+    double west = Double.MAX_VALUE;
+    double north = -Double.MAX_VALUE;
+    double east = -Double.MAX_VALUE;
+    for (String markerId : markerIds) {
+      LatLng position = markerIdToPosition.get(markerId);
+      latitudeSum += position.latitude;
+      longitudeSum += position.longitude;
+      south = Math.min(south, position.latitude);
+      west = Math.min(west, position.longitude);
+      north = Math.max(north, position.latitude);
+      east = Math.max(east, position.longitude);
+    }
+    LatLng position = new LatLng(latitudeSum / markerIds.size(), longitudeSum / markerIds.size());
+    LatLngBounds bounds = new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    return new Cluster(key, position, bounds, Collections.unmodifiableList(markerIds));
+  }
+
+  private static long wrap(long cellX, long cellCount) {
+    return ((cellX % cellCount) + cellCount) % cellCount;
+  }
+
+  private static boolean isWithin(long cellX, long minCellX, long maxCellX) {
+    if (minCellX <= maxCellX) {
+      return cellX >= minCellX && cellX <= maxCellX;
+    }
+    // The range wraps around the antimeridian.
+    return cellX >= minCellX || cellX <= maxCellX;
+  }
+
+  private static long toCellX(double longitude, double worldSize) {
+    double x = (longitude / 360 + 0.5) * worldSize;
+    return (long) Math.floor(Math.min(x, worldSize - 1) / GRID_SIZE);
+  }
+
+  private static long toCellY(double latitude, double worldSize) {
+    double sin = Math.sin(Math.toRadians(latitude));
+    // Clamp to the latitudes shown by the map, the projection diverges at the poles.
+    sin = Math.max(-0.9999, Math.min(0.9999, sin));
+    double y = (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * worldSize;
+    return (long) Math.floor(Math.max(0, Math.min(y, worldSize - 1)) / GRID_SIZE);
+  }
+}
@@ -4,37 +4,126 @@
 
 package io.flutter.plugins.googlemaps;
 
+import android.util.Log;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import io.flutter.plugin.common.MethodChannel;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 class MarkersController {
+  private static final String TAG = "MarkersController";
 
   private final Map<String, MarkerController> markerIdToController;
   private final Map<String, String> googleMapsMarkerIdToDartMarkerId;
   private final MethodChannel methodChannel;
+  private final ClusterIconGenerator clusterIconGenerator;
+  private final BitmapDescriptorCache bitmapDescriptorCache;
   private GoogleMap googleMap;
 
-  MarkersController(MethodChannel methodChannel) {
+  // Only used when clustering or culling, the options of all the markers, including those not on
+  // the map.
+  private MarkerClusterer clusterer;
+  private RTree markerIndex;
+  private final Map<String, MarkerBuilder> markerIdToBuilder;
+  private final Map<String, Marker> clusterKeyToMarker;
+  private final Map<String, MarkerClusterer.Cluster> googleMapsMarkerIdToCluster;
+  private float zoom;
+  private LatLngBounds visibleBounds;
+
+  MarkersController(
+      MethodChannel methodChannel,
+      ClusterIconGenerator clusterIconGenerator,
+      BitmapDescriptorCache bitmapDescriptorCache) {
     this.markerIdToController = new HashMap<>();
     this.googleMapsMarkerIdToDartMarkerId = new HashMap<>();
     this.methodChannel = methodChannel;
+    this.clusterIconGenerator = clusterIconGenerator;
+    this.bitmapDescriptorCache = bitmapDescriptorCache;
+    this.markerIdToBuilder = new LinkedHashMap<>();
+    this.clusterKeyToMarker = new HashMap<>();
+    this.googleMapsMarkerIdToCluster = new HashMap<>();
   }
 
   void setGoogleMap(GoogleMap googleMap) {
     this.googleMap = googleMap;
   }
 
+  /**
+   * Sets whether markers that are close to each other are shown as a single cluster marker.
+   *
+   * <p>While clustering, only the clusters and the markers within the visible region are added to
+   * the map, and they are updated every time the camera becomes idle. Clustering can only be
+   * changed while there are no markers.
+   */
+  void setClusteringEnabled(boolean clusteringEnabled) {
+    if (clusteringEnabled == (clusterer != null)) {
+      return;
+    }
+    if (hasMarkers()) {
+      Log.w(TAG, "Marker clustering can only be changed before markers are added.");
+      return;
+    }
+    clusterer = clusteringEnabled ? new MarkerClusterer() : null;
+  }
+
+  /**
+   * Sets whether only the markers within or close to the visible region are added to the map.
+   *
+   * <p>While culling, the markers are added and removed every time the camera becomes idle. Culling
+   * can only be changed while there are no markers, and has no effect while clustering.
+   */
+  void setViewportCullingEnabled(boolean viewportCullingEnabled) {
+    if (viewportCullingEnabled == (markerIndex != null)) {
+      return;
+    }
+    if (hasMarkers()) {
+      Log.w(TAG, "Marker culling can only be changed before markers are added.");
+      return;
+    }
+    markerIndex = viewportCullingEnabled ? new RTree() : null;
+  }
+
+  /**
+   * Updates the clusters and culled markers for the current camera position.
+   *
+   * @param zoom the zoom level of the camera.
+   * @param visibleBounds the visible region of the map.
+   */
+  void onCameraIdle(float zoom, LatLngBounds visibleBounds) {
+    this.zoom = zoom;
+    this.visibleBounds = visibleBounds;
+    updateVisibleMarkers();
+  }
+
+  boolean isClusteringEnabled() {
+    return clusterer != null;
+  }
+
+  /** Whether markers are only added to the map when they are in or close to the visible region. */
+  boolean isLazy() {
+    return clusterer != null || markerIndex != null;
+  }
+
+  private boolean hasMarkers() {
+    return !markerIdToController.isEmpty() || !markerIdToBuilder.isEmpty();
+  }
+
   void addMarkers(List<Object> markersToAdd) {
     if (markersToAdd != null) {
       for (Object markerToAdd : markersToAdd) {
         addMarker(markerToAdd);
       }
+      updateVisibleMarkers();
     }
   }
 
@@ -43,6 +132,7 @@ class MarkersController {
       for (Object markerToChange : markersToChange) {
         changeMarker(markerToChange);
       }
+      updateVisibleMarkers();
     }
   }
 
@@ -60,6 +150,38 @@ class MarkersController {
         markerController.remove();
         googleMapsMarkerIdToDartMarkerId.remove(markerController.getGoogleMapsMarkerId());
       }
+      if (isLazy()) {
+        markerIdToBuilder.remove(markerId);
+        if (clusterer != null) {
+          clusterer.removeMarker(markerId);
+        } else {
+          markerIndex.remove(markerId);
+        }
+      }
+    }
+    updateVisibleMarkers();
+  }
+
+  /**
+   * Registers icons that markers can use with a {@code fromRegisteredIcon} icon, so that they are
+   * decoded once for all the markers.
+   *
+   * <p>Markers keep the icon they were given when an icon is registered again or unregistered.
+   */
+  void registerIcons(Object icons) {
+    if (icons != null) {
+      Convert.interpretIcons(icons, bitmapDescriptorCache);
+    }
+  }
+
+  void unregisterIcons(List<Object> iconIdsToRemove) {
+    if (iconIdsToRemove == null) {
+      return;
+    }
+    for (Object rawIconId : iconIdsToRemove) {
+      if (rawIconId != null) {
+        bitmapDescriptorCache.unregister((String) rawIconId);
+      }
     }
   }
 
@@ -95,7 +217,7 @@ class MarkersController {
   boolean onMarkerTap(String googleMarkerId) {
     String markerId = googleMapsMarkerIdToDartMarkerId.get(googleMarkerId);
     if (markerId == null) {
-      return false;
+      return onClusterTap(googleMarkerId);
     }
     methodChannel.invokeMethod("marker#onTap", Convert.markerIdToJson(markerId));
     MarkerController markerController = markerIdToController.get(markerId);
@@ -132,6 +254,14 @@ class MarkersController {
     if (markerId == null) {
       return;
     }
+    // The marker is added again from its options when it comes back into view, and is indexed or
+    // clustered at its position.
+    MarkerBuilder markerBuilder = markerIdToBuilder.get(markerId);
+    if (markerBuilder != null) {
+      markerBuilder.setPosition(latLng);
+      updateIndex(markerId, markerBuilder.build());
+      updateVisibleMarkers();
+    }
     final Map<String, Object> data = new HashMap<>();
     data.put("markerId", markerId);
     data.put("position", Convert.latLngToJson(latLng));
@@ -146,12 +276,31 @@ class MarkersController {
     methodChannel.invokeMethod("infoWindow#onTap", Convert.markerIdToJson(markerId));
   }
 
+  private boolean onClusterTap(String googleMarkerId) {
+    MarkerClusterer.Cluster cluster = googleMapsMarkerIdToCluster.get(googleMarkerId);
+    if (cluster == null) {
+      return false;
+    }
+    final Map<String, Object> data = new HashMap<>();
+    data.put("markerIds", cluster.getMarkerIds());
+    data.put("position", Convert.latLngToJson(cluster.getPosition()));
+    data.put("bounds", Convert.latlngBoundsToJson(cluster.getBounds()));
+    methodChannel.invokeMethod("cluster#onTap", data);
+    // The tap is handled by Dart, the map doesn't center on the cluster or show an info window.
+    return true;
+  }
+
   private void addMarker(Object marker) {
     if (marker == null) {
       return;
     }
     MarkerBuilder markerBuilder = new MarkerBuilder();
-    String markerId = Convert.interpretMarkerOptions(marker, markerBuilder);
+    String markerId = Convert.interpretMarkerOptions(marker, markerBuilder, bitmapDescriptorCache);
+    if (isLazy()) {
+      markerIdToBuilder.put(markerId, markerBuilder);
+      updateIndex(markerId, markerBuilder.build());
+      return;
+    }
     MarkerOptions options = markerBuilder.build();
     addMarker(markerId, options, markerBuilder.consumeTapEvents());
   }
@@ -170,7 +319,97 @@ class MarkersController {
     String markerId = getMarkerId(marker);
     MarkerController markerController = markerIdToController.get(markerId);
     if (markerController != null) {
-      Convert.interpretMarkerOptions(marker, markerController);
+      Convert.interpretMarkerOptions(marker, markerController, bitmapDescriptorCache);
+    }
+    MarkerBuilder markerBuilder = markerIdToBuilder.get(markerId);
+    if (markerBuilder != null) {
+      Convert.interpretMarkerOptions(marker, markerBuilder, bitmapDescriptorCache);
+      updateIndex(markerId, markerBuilder.build());
+    }
+  }
+
+  private void updateIndex(String markerId, MarkerOptions options) {
+    LatLng position = options.getPosition();
+    if (clusterer == null) {
+      markerIndex.put(
+          markerId,
+          position != null ? Collections.singletonList(position) : Collections.<LatLng>emptyList());
+    } else if (position != null && options.isVisible()) {
+      clusterer.setMarker(markerId, position);
+    } else {
+      clusterer.removeMarker(markerId);
+    }
+  }
+
+  /**
+   * Adds the clusters and markers of the visible region to the map, and removes those that are no
+   * longer visible. Markers and clusters that stay visible are kept as they are.
+   */
+  private void updateVisibleMarkers() {
+    if (!isLazy() || googleMap == null || visibleBounds == null) {
+      return;
+    }
+    if (clusterer == null) {
+      showMarkers(markerIndex.searchAround(visibleBounds));
+      return;
+    }
+    MarkerClusterer.Result result = clusterer.cluster(zoom, visibleBounds);
+    showMarkers(new HashSet<>(result.getMarkerIds()));
+    showClusters(result.getClusters());
+  }
+
+  /** Adds the supplied markers to the map, and removes the other ones. */
+  private void showMarkers(Set<String> visibleMarkerIds) {
+    Iterator<String> markerIds = markerIdToController.keySet().iterator();
+    while (markerIds.hasNext()) {
+      String markerId = markerIds.next();
+      if (!visibleMarkerIds.contains(markerId)) {
+        MarkerController markerController = markerIdToController.get(markerId);
+        markerController.remove();
+        googleMapsMarkerIdToDartMarkerId.remove(markerController.getGoogleMapsMarkerId());
+        markerIds.remove();
+      }
+    }
+    for (String markerId : visibleMarkerIds) {
+      if (!markerIdToController.containsKey(markerId)) {
+        MarkerBuilder markerBuilder = markerIdToBuilder.get(markerId);
+        addMarker(markerId, markerBuilder.build(), markerBuilder.consumeTapEvents());
+      }
+    }
+  }
+
+  /** Adds or updates the markers of the supplied clusters, and removes the other ones. */
+  private void showClusters(List<MarkerClusterer.Cluster> clusters) {
+    Map<String, Marker> previousClusterMarkers = new HashMap<>(clusterKeyToMarker);
+    Map<String, MarkerClusterer.Cluster> previousClusters =
+        new HashMap<>(googleMapsMarkerIdToCluster);
+    clusterKeyToMarker.clear();
+    googleMapsMarkerIdToCluster.clear();
+    for (MarkerClusterer.Cluster cluster : clusters) {
+      int size = cluster.getMarkerIds().size();
+      Marker clusterMarker = previousClusterMarkers.remove(cluster.getKey());
+      if (clusterMarker == null) {
+        clusterMarker =
+            googleMap.addMarker(
+                new MarkerOptions()
+                    .position(cluster.getPosition())
+                    .icon(clusterIconGenerator.getIcon(size))
+                    .anchor(0.5f, 0.5f));
+      } else {
+        MarkerClusterer.Cluster previousCluster = previousClusters.get(clusterMarker.getId());
+        if (!cluster.getPosition().equals(previousCluster.getPosition())) {
+          clusterMarker.setPosition(cluster.getPosition());
+        }
+        int previousSize = previousCluster.getMarkerIds().size();
+        if (ClusterIconGenerator.getBucket(size) != ClusterIconGenerator.getBucket(previousSize)) {
+          clusterMarker.setIcon(clusterIconGenerator.getIcon(size));
+        }
+      }
+      clusterKeyToMarker.put(cluster.getKey(), clusterMarker);
+      googleMapsMarkerIdToCluster.put(clusterMarker.getId(), cluster);
+    }
+    for (Marker clusterMarker : previousClusterMarkers.values()) {
+      clusterMarker.remove();
     }
   }
 
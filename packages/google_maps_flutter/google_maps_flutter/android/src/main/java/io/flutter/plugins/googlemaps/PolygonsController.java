@@ -4,15 +4,20 @@
 
 package io.flutter.plugins.googlemaps;
 
+import android.util.Log;
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Polygon;
 import com.google.android.gms.maps.model.PolygonOptions;
 import io.flutter.plugin.common.MethodChannel;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 class PolygonsController {
+  private static final String TAG = "PolygonsController";
 
   private final Map<String, PolygonController> polygonIdToController;
   private final Map<String, String> googleMapsPolygonIdToDartPolygonId;
@@ -20,22 +25,60 @@ class PolygonsController {
   private final float density;
   private GoogleMap googleMap;
 
+  // Only used when culling, the options of all the polygons, including those not on the map.
+  private RTree polygonIndex;
+  private final Map<String, PolygonBuilder> polygonIdToBuilder;
+  private LatLngBounds visibleBounds;
+
   PolygonsController(MethodChannel methodChannel, float density) {
     this.polygonIdToController = new HashMap<>();
     this.googleMapsPolygonIdToDartPolygonId = new HashMap<>();
     this.methodChannel = methodChannel;
     this.density = density;
+    this.polygonIdToBuilder = new HashMap<>();
   }
 
   void setGoogleMap(GoogleMap googleMap) {
     this.googleMap = googleMap;
   }
 
+  /**
+   * Sets whether only the polygons within or close to the visible region are added to the map.
+   *
+   * <p>While culling, the polygons are added and removed every time the camera becomes idle.
+   * Culling can only be changed while there are no polygons.
+   */
+  void setViewportCullingEnabled(boolean viewportCullingEnabled) {
+    if (viewportCullingEnabled == (polygonIndex != null)) {
+      return;
+    }
+    if (!polygonIdToController.isEmpty() || !polygonIdToBuilder.isEmpty()) {
+      Log.w(TAG, "Polygon culling can only be changed before polygons are added.");
+      return;
+    }
+    polygonIndex = viewportCullingEnabled ? new RTree() : null;
+  }
+
+  /**
+   * Updates the culled polygons for the current camera position.
+   *
+   * @param visibleBounds the visible region of the map.
+   */
+  void onCameraIdle(LatLngBounds visibleBounds) {
+    this.visibleBounds = visibleBounds;
+    updateVisiblePolygons();
+  }
+
+  boolean isLazy() {
+    return polygonIndex != null;
+  }
+
   void addPolygons(List<Object> polygonsToAdd) {
     if (polygonsToAdd != null) {
       for (Object polygonToAdd : polygonsToAdd) {
         addPolygon(polygonToAdd);
       }
+      updateVisiblePolygons();
     }
   }
 
@@ -44,6 +87,7 @@ class PolygonsController {
       for (Object polygonToChange : polygonsToChange) {
         changePolygon(polygonToChange);
       }
+      updateVisiblePolygons();
     }
   }
 
@@ -61,7 +105,12 @@ class PolygonsController {
         polygonController.remove();
         googleMapsPolygonIdToDartPolygonId.remove(polygonController.getGoogleMapsPolygonId());
       }
+      if (polygonIndex != null) {
+        polygonIdToBuilder.remove(polygonId);
+        polygonIndex.remove(polygonId);
+      }
     }
+    updateVisiblePolygons();
   }
 
   boolean onPolygonTap(String googlePolygonId) {
@@ -83,6 +132,11 @@ class PolygonsController {
     }
     PolygonBuilder polygonBuilder = new PolygonBuilder(density);
     String polygonId = Convert.interpretPolygonOptions(polygon, polygonBuilder);
+    if (polygonIndex != null) {
+      polygonIdToBuilder.put(polygonId, polygonBuilder);
+      polygonIndex.put(polygonId, polygonBuilder.build().getPoints());
+      return;
+    }
     PolygonOptions options = polygonBuilder.build();
     addPolygon(polygonId, options, polygonBuilder.consumeTapEvents());
   }
@@ -104,6 +158,38 @@ class PolygonsController {
     if (polygonController != null) {
       Convert.interpretPolygonOptions(polygon, polygonController);
     }
+    if (polygonIdToBuilder.containsKey(polygonId)) {
+      // Changes carry all the options of the polygon, and the points of a builder can only be
+      // appended to.
+      PolygonBuilder polygonBuilder = new PolygonBuilder(density);
+      Convert.interpretPolygonOptions(polygon, polygonBuilder);
+      polygonIdToBuilder.put(polygonId, polygonBuilder);
+      polygonIndex.put(polygonId, polygonBuilder.build().getPoints());
+    }
+  }
+
+  /** Adds the polygons close to the visible region to the map, and removes the other ones. */
+  private void updateVisiblePolygons() {
+    if (polygonIndex == null || googleMap == null || visibleBounds == null) {
+      return;
+    }
+    Set<String> visiblePolygonIds = polygonIndex.searchAround(visibleBounds);
+    Iterator<String> polygonIds = polygonIdToController.keySet().iterator();
+    while (polygonIds.hasNext()) {
+      String polygonId = polygonIds.next();
+      if (!visiblePolygonIds.contains(polygonId)) {
+        PolygonController polygonController = polygonIdToController.get(polygonId);
+        polygonController.remove();
+        googleMapsPolygonIdToDartPolygonId.remove(polygonController.getGoogleMapsPolygonId());
+        polygonIds.remove();
+      }
+    }
+    for (String polygonId : visiblePolygonIds) {
+      if (!polygonIdToController.containsKey(polygonId)) {
+        PolygonBuilder polygonBuilder = polygonIdToBuilder.get(polygonId);
+        addPolygon(polygonId, polygonBuilder.build(), polygonBuilder.consumeTapEvents());
+      }
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -8,12 +8,15 @@ import com.google.android.gms.maps.model.Cap;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.PatternItem;
 import com.google.android.gms.maps.model.PolylineOptions;
+import java.util.Collections;
 import java.util.List;
 
 class PolylineBuilder implements PolylineOptionsSink {
   private final PolylineOptions polylineOptions;
   private boolean consumeTapEvents;
   private final float density;
+  private List<LatLng> points = Collections.emptyList();
+  private float simplificationTolerance;
 
   PolylineBuilder(float density) {
     this.polylineOptions = new PolylineOptions();
@@ -28,6 +31,15 @@ class PolylineBuilder implements PolylineOptionsSink {
     return consumeTapEvents;
   }
 
+  /** The points of the polyline, which are left out of the built options when simplifying. */
+  List<LatLng> getPoints() {
+    return points;
+  }
+
+  float getSimplificationTolerance() {
+    return simplificationTolerance;
+  }
+
   @Override
   public void setColor(int color) {
     polylineOptions.color(color);
@@ -50,7 +62,15 @@ class PolylineBuilder implements PolylineOptionsSink {
 
   @Override
   public void setPoints(List<LatLng> points) {
-    polylineOptions.addAll(points);
+    this.points = points;
+    if (simplificationTolerance <= 0) {
+      polylineOptions.addAll(points);
+    }
+  }
+
+  @Override
+  public void setSimplificationTolerance(float simplificationTolerance) {
+    this.simplificationTolerance = simplificationTolerance;
   }
 
   @Override
@@ -8,6 +8,7 @@ import com.google.android.gms.maps.model.Cap;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.PatternItem;
 import com.google.android.gms.maps.model.Polyline;
+import java.util.Collections;
 import java.util.List;
 
 /** Controller of a single Polyline on the map. */
@@ -16,6 +17,9 @@ class PolylineController implements PolylineOptionsSink {
   private final String googleMapsPolylineId;
   private boolean consumeTapEvents;
   private final float density;
+  private List<LatLng> points = Collections.emptyList();
+  private float simplificationTolerance;
+  private int zoomLevel;
 
   PolylineController(Polyline polyline, boolean consumeTapEvents, float density) {
     this.polyline = polyline;
@@ -61,7 +65,26 @@ class PolylineController implements PolylineOptionsSink {
 
   @Override
   public void setPoints(List<LatLng> points) {
-    polyline.setPoints(points);
+    this.points = points;
+    polyline.setPoints(PolylineSimplifier.simplify(points, simplificationTolerance, zoomLevel));
+  }
+
+  /** Takes effect on the next call to {@link #setPoints}, which follows it in every change. */
+  @Override
+  public void setSimplificationTolerance(float simplificationTolerance) {
+    this.simplificationTolerance = simplificationTolerance;
+  }
+
+  /** Simplifies the polyline again when the integer zoom level of the camera changes. */
+  void setZoom(float zoom) {
+    int zoomLevel = (int) Math.max(0, Math.floor(zoom));
+    if (this.zoomLevel == zoomLevel) {
+      return;
+    }
+    this.zoomLevel = zoomLevel;
+    if (simplificationTolerance > 0) {
+      setPoints(points);
+    }
   }
 
   @Override
@@ -26,6 +26,12 @@ interface PolylineOptionsSink {
 
   void setPoints(List<LatLng> points);
 
+  /**
+   * Sets the largest distance, in density independent pixels, of the points dropped when
+   * simplifying the polyline for the zoom level of the map, 0 to keep all the points.
+   */
+  void setSimplificationTolerance(float simplificationTolerance);
+
   void setStartCap(Cap startCap);
 
   void setVisible(boolean visible);
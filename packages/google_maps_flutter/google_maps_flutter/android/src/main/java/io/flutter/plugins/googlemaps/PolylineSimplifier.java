@@ -0,0 +1,110 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import com.google.android.gms.maps.model.LatLng;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simplifies polylines with the Douglas-Peucker algorithm, dropping the points that are closer to
+ * the simplified line than a tolerance at the zoom level of the map.
+ *
+ * <p>Distances are measured in the Web Mercator projection of the map, so a tolerance of 1 drops
+ * the points that are less than one density independent pixel away from the line on screen.
+ */
+class PolylineSimplifier {
+  /** The size of the world at zoom level 0, in density independent pixels. */
+  private static final double WORLD_SIZE = 256;
+
+  private PolylineSimplifier() {}
+
+  /**
+   * Simplifies a polyline for a zoom level.
+   *
+   * @param points the points of the polyline.
+   * @param tolerance the largest distance of a dropped point to the simplified line, in density
+   *     independent pixels.
+   * @param zoomLevel the integer zoom level the polyline is shown at.
+   * @return the points that are kept, in order, always including the first and the last one.
+   */
+  static List<LatLng> simplify(List<LatLng> points, float tolerance, int zoomLevel) {
+    int count = points.size();
+    if (count <= 2 || tolerance <= 0) {
+      return points;
+    }
+    double scale = WORLD_SIZE * Math.pow(2, zoomLevel);
+    double[] x = new double[count];
+    double[] y = new double[count];
+    for (int i = 0; i < count; i++) {
+      LatLng point = points.get(i);
+      x[i] = (point.longitude / 360 + 0.5) * scale;
+      double sin = Math.sin(Math.toRadians(point.latitude));
+      sin = Math.max(-0.9999, Math.min(0.9999, sin));
+      y[i] = (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * scale;
+    }
+
+    boolean[] kept = new boolean[count];
+    kept[0] = true;
+    kept[count - 1] = true;
+    double squaredTolerance = (double) tolerance * tolerance;
+    // The ranges still to simplify, as pairs of first and last index, so that long tracks don't
+    // overflow the stack.
+    int[] stack = new int[64];
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    stack[stackSize++] = count - 1;
+    int keptCount = 2;
+    while (stackSize > 0) {
+      int last = stack[--stackSize];
+      int first = stack[--stackSize];
+      double maxSquaredDistance = 0;
+      int farthest = -1;
+      for (int i = first + 1; i < last; i++) {
+        double squaredDistance = squaredSegmentDistance(x, y, i, first, last);
+        if (squaredDistance > maxSquaredDistance) {
+          maxSquaredDistance = squaredDistance;
+          farthest = i;
+        }
+      }
+      if (farthest < 0 || maxSquaredDistance <= squaredTolerance) {
+        continue;
+      }
+      kept[farthest] = true;
+      keptCount++;
+      if (stackSize + 4 > stack.length) {
+        int[] grown = new int[stack.length * 2];
+        System.arraycopy(stack, 0, grown, 0, stackSize);
+        stack = grown;
+      }
+      stack[stackSize++] = first;
+      stack[stackSize++] = farthest;
+      stack[stackSize++] = farthest;
+      stack[stackSize++] = last;
+    }
+
+    List<LatLng> simplified = new ArrayList<>(keptCount);
+    for (int i = 0; i < count; i++) {
+      if (kept[i]) {
+        simplified.add(points.get(i));
+      }
+    }
+    return simplified;
+  }
+
+  private static double squaredSegmentDistance(double[] x, double[] y, int i, int a, int b) {
+    double dx = x[b] - x[a];
+    double dy = y[b] - y[a];
+    double px = x[i] - x[a];
+    double py = y[i] - y[a];
+    double lengthSquared = dx * dx + dy * dy;
+    if (lengthSquared > 0) {
+      double t = Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+      px -= t * dx;
+      py -= t * dy;
+    }
+    return px * px + py * py;
+  }
+}
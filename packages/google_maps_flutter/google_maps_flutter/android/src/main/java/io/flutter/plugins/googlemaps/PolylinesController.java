@@ -4,38 +4,92 @@
 
 package io.flutter.plugins.googlemaps;
 
+import android.util.Log;
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Polyline;
-import com.google.android.gms.maps.model.PolylineOptions;
 import io.flutter.plugin.common.MethodChannel;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 class PolylinesController {
+  private static final String TAG = "PolylinesController";
 
   private final Map<String, PolylineController> polylineIdToController;
   private final Map<String, String> googleMapsPolylineIdToDartPolylineId;
   private final MethodChannel methodChannel;
   private GoogleMap googleMap;
   private final float density;
+  private float zoom;
+
+  // Only used when culling, the options of all the polylines, including those not on the map.
+  private RTree polylineIndex;
+  private final Map<String, PolylineBuilder> polylineIdToBuilder;
+  private LatLngBounds visibleBounds;
 
   PolylinesController(MethodChannel methodChannel, float density) {
     this.polylineIdToController = new HashMap<>();
     this.googleMapsPolylineIdToDartPolylineId = new HashMap<>();
     this.methodChannel = methodChannel;
     this.density = density;
+    this.polylineIdToBuilder = new HashMap<>();
   }
 
   void setGoogleMap(GoogleMap googleMap) {
     this.googleMap = googleMap;
   }
 
+  /**
+   * Sets whether only the polylines within or close to the visible region are added to the map.
+   *
+   * <p>While culling, the polylines are added and removed every time the camera becomes idle.
+   * Culling can only be changed while there are no polylines.
+   */
+  void setViewportCullingEnabled(boolean viewportCullingEnabled) {
+    if (viewportCullingEnabled == (polylineIndex != null)) {
+      return;
+    }
+    if (!polylineIdToController.isEmpty() || !polylineIdToBuilder.isEmpty()) {
+      Log.w(TAG, "Polyline culling can only be changed before polylines are added.");
+      return;
+    }
+    polylineIndex = viewportCullingEnabled ? new RTree() : null;
+  }
+
+  /**
+   * Updates the culled polylines for the current camera position.
+   *
+   * @param visibleBounds the visible region of the map.
+   */
+  void onCameraIdle(LatLngBounds visibleBounds) {
+    this.visibleBounds = visibleBounds;
+    updateVisiblePolylines();
+  }
+
+  boolean isLazy() {
+    return polylineIndex != null;
+  }
+
+  /**
+   * Sets the zoom level of the camera, the polylines with a simplification tolerance are simplified
+   * again when its integer part changes.
+   */
+  void setZoom(float zoom) {
+    this.zoom = zoom;
+    for (PolylineController polylineController : polylineIdToController.values()) {
+      polylineController.setZoom(zoom);
+    }
+  }
+
   void addPolylines(List<Object> polylinesToAdd) {
     if (polylinesToAdd != null) {
       for (Object polylineToAdd : polylinesToAdd) {
         addPolyline(polylineToAdd);
       }
+      updateVisiblePolylines();
     }
   }
 
@@ -44,6 +98,7 @@ class PolylinesController {
       for (Object polylineToChange : polylinesToChange) {
         changePolyline(polylineToChange);
       }
+      updateVisiblePolylines();
     }
   }
 
@@ -61,7 +116,12 @@ class PolylinesController {
         polylineController.remove();
         googleMapsPolylineIdToDartPolylineId.remove(polylineController.getGoogleMapsPolylineId());
       }
+      if (polylineIndex != null) {
+        polylineIdToBuilder.remove(polylineId);
+        polylineIndex.remove(polylineId);
+      }
     }
+    updateVisiblePolylines();
   }
 
   boolean onPolylineTap(String googlePolylineId) {
@@ -83,14 +143,24 @@ class PolylinesController {
     }
     PolylineBuilder polylineBuilder = new PolylineBuilder(density);
     String polylineId = Convert.interpretPolylineOptions(polyline, polylineBuilder);
-    PolylineOptions options = polylineBuilder.build();
-    addPolyline(polylineId, options, polylineBuilder.consumeTapEvents());
+    if (polylineIndex != null) {
+      polylineIdToBuilder.put(polylineId, polylineBuilder);
+      polylineIndex.put(polylineId, polylineBuilder.getPoints());
+      return;
+    }
+    addPolyline(polylineId, polylineBuilder);
   }
 
-  private void addPolyline(
-      String polylineId, PolylineOptions polylineOptions, boolean consumeTapEvents) {
-    final Polyline polyline = googleMap.addPolyline(polylineOptions);
-    PolylineController controller = new PolylineController(polyline, consumeTapEvents, density);
+  private void addPolyline(String polylineId, PolylineBuilder polylineBuilder) {
+    final Polyline polyline = googleMap.addPolyline(polylineBuilder.build());
+    PolylineController controller =
+        new PolylineController(polyline, polylineBuilder.consumeTapEvents(), density);
+    if (polylineBuilder.getSimplificationTolerance() > 0) {
+      // The points are left out of the options, only the simplified ones are set.
+      controller.setZoom(zoom);
+      controller.setSimplificationTolerance(polylineBuilder.getSimplificationTolerance());
+      controller.setPoints(polylineBuilder.getPoints());
+    }
     polylineIdToController.put(polylineId, controller);
     googleMapsPolylineIdToDartPolylineId.put(polyline.getId(), polylineId);
   }
@@ -104,6 +174,37 @@ class PolylinesController {
     if (polylineController != null) {
       Convert.interpretPolylineOptions(polyline, polylineController);
     }
+    if (polylineIdToBuilder.containsKey(polylineId)) {
+      // Changes carry all the options of the polyline, and the points of a builder can only be
+      // appended to.
+      PolylineBuilder polylineBuilder = new PolylineBuilder(density);
+      Convert.interpretPolylineOptions(polyline, polylineBuilder);
+      polylineIdToBuilder.put(polylineId, polylineBuilder);
+      polylineIndex.put(polylineId, polylineBuilder.getPoints());
+    }
+  }
+
+  /** Adds the polylines close to the visible region to the map, and removes the other ones. */
+  private void updateVisiblePolylines() {
+    if (polylineIndex == null || googleMap == null || visibleBounds == null) {
+      return;
+    }
+    Set<String> visiblePolylineIds = polylineIndex.searchAround(visibleBounds);
+    Iterator<String> polylineIds = polylineIdToController.keySet().iterator();
+    while (polylineIds.hasNext()) {
+      String polylineId = polylineIds.next();
+      if (!visiblePolylineIds.contains(polylineId)) {
+        PolylineController polylineController = polylineIdToController.get(polylineId);
+        polylineController.remove();
+        googleMapsPolylineIdToDartPolylineId.remove(polylineController.getGoogleMapsPolylineId());
+        polylineIds.remove();
+      }
+    }
+    for (String polylineId : visiblePolylineIds) {
+      if (!polylineIdToController.containsKey(polylineId)) {
+        addPolyline(polylineId, polylineIdToBuilder.get(polylineId));
+      }
+    }
   }
 
   @SuppressWarnings("unchecked")
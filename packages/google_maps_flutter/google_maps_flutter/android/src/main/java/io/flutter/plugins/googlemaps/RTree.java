@@ -0,0 +1,219 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spatial index of the bounds of map elements, used to find the elements close to the visible
+ * region.
+ *
+ * <p>The index is an R-tree packed with the Sort-Tile-Recursive algorithm. Elements are usually
+ * added and changed in batches by Dart and looked up when the camera becomes idle, so the tree is
+ * rebuilt on the first search after a change rather than updated in place.
+ */
+class RTree {
+  /** The share of the width and height of the visible region added around it when searching. */
+  static final double MARGIN = 0.5;
+
+  private static final int NODE_CAPACITY = 16;
+
+  private static class Node {
+    final double south;
+    final double west;
+    final double north;
+    final double east;
+    // The id of the element for the entries of the leaves, null for the other nodes.
+    final String id;
+    final List<Node> children;
+
+    Node(double south, double west, double north, double east, String id) {
+      this.south = south;
+      this.west = west;
+      this.north = north;
+      this.east = east;
+      this.id = id;
+      this.children = null;
+    }
+
+    Node(List<Node> children) {
+      double south = Double.MAX_VALUE;
+      double west = Double.MAX_VALUE;
+      double north = -Double.MAX_VALUE;
+      double east = -Double.MAX_VALUE;
+      for (Node child : children) {
+        south = Math.min(south, child.south);
+        west = Math.min(west, child.west);
+        north = Math.max(north, child.north);
+        east = Math.max(east, child.east);
+      }
+      this.south = south;
+      this.west = west;
+      this.north = north;
+      this.east = east;
+      this.id = null;
+      this.children = children;
+    }
+
+    boolean intersects(double south, double west, double north, double east) {
+      return this.south <= north && this.north >= south && this.west <= east && this.east >= west;
+    }
+  }
+
+  private static final Comparator<Node> BY_LONGITUDE =
+      new Comparator<Node>() {
+        @Override
+        public int compare(Node a, Node b) {
+          return Double.compare(a.west + a.east, b.west + b.east);
+        }
+      };
+
+  private static final Comparator<Node> BY_LATITUDE =
+      new Comparator<Node>() {
+        @Override
+        public int compare(Node a, Node b) {
+          return Double.compare(a.south + a.north, b.south + b.north);
+        }
+      };
+
+  private final Map<String, Node> idToEntry = new HashMap<>();
+  private Node root;
+  private boolean dirty;
+
+  /**
+   * Adds an element covering the supplied points, or updates it when it has been added before.
+   *
+   * <p>Elements without points are removed, since they can't be shown.
+   */
+  void put(String id, Iterable<LatLng> points) {
+    double south = Double.MAX_VALUE;
+    double west = Double.MAX_VALUE;
+    double north = -Double.MAX_VALUE;
+    double east = -Double.MAX_VALUE;
+    for (LatLng point : points) {
+      south = Math.min(south, point.latitude);
+      west = Math.min(west, point.longitude);
+      north = Math.max(north, point.latitude);
+      east = Math.max(east, point.longitude);
+    }
+    if (south > north) {
+      remove(id);
+      return;
+    }
+    idToEntry.put(id, new Node(south, west, north, east, id));
+    dirty = true;
+  }
+
+  void remove(String id) {
+    if (idToEntry.remove(id) != null) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Finds the elements within the visible region or within {@link #MARGIN} of it.
+   *
+   * @param visibleBounds the visible region of the map.
+   * @return the ids of the elements whose bounds intersect the region.
+   */
+  Set<String> searchAround(LatLngBounds visibleBounds) {
+    double south = visibleBounds.southwest.latitude;
+    double north = visibleBounds.northeast.latitude;
+    double west = visibleBounds.southwest.longitude;
+    double east = visibleBounds.northeast.longitude;
+    double latitudeMargin = (north - south) * MARGIN;
+    double longitudeSpan = east >= west ? east - west : east + 360 - west;
+    double longitudeMargin = longitudeSpan * MARGIN;
+
+    south = Math.max(-90, south - latitudeMargin);
+    north = Math.min(90, north + latitudeMargin);
+    Set<String> ids = new HashSet<>();
+    if (longitudeSpan + 2 * longitudeMargin >= 360) {
+      search(south, -180, north, 180, ids);
+      return ids;
+    }
+    west = normalizeLongitude(west - longitudeMargin);
+    east = normalizeLongitude(east + longitudeMargin);
+    if (west <= east) {
+      search(south, west, north, east, ids);
+    } else {
+      // The region crosses the antimeridian.
+      search(south, west, north, 180, ids);
+      search(south, -180, north, east, ids);
+    }
+    return ids;
+  }
+
+  private void search(double south, double west, double north, double east, Set<String> ids) {
+    if (dirty) {
+      root = build();
+      dirty = false;
+    }
+    if (root != null && root.intersects(south, west, north, east)) {
+      search(root, south, west, north, east, ids);
+    }
+  }
+
+  private static void search(
+      Node node, double south, double west, double north, double east, Set<String> ids) {
+    for (Node child : node.children) {
+      if (!child.intersects(south, west, north, east)) {
+        continue;
+      }
+      if (child.id != null) {
+        ids.add(child.id);
+      } else {
+        search(child, south, west, north, east, ids);
+      }
+    }
+  }
+
+  private Node build() {
+    if (idToEntry.isEmpty()) {
+      return null;
+    }
+    List<Node> nodes = new ArrayList<>(idToEntry.values());
+    do {
+      nodes = pack(nodes);
+    } while (nodes.size() > 1);
+    return nodes.get(0);
+  }
+
+  /** Groups the nodes into parents of at most {@link #NODE_CAPACITY} children each. */
+  private static List<Node> pack(List<Node> nodes) {
+    int parentCount = (nodes.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+    int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+    int sliceSize = sliceCount * NODE_CAPACITY;
+
+    Collections.sort(nodes, BY_LONGITUDE);
+    List<Node> parents = new ArrayList<>(parentCount);
+    for (int sliceStart = 0; sliceStart < nodes.size(); sliceStart += sliceSize) {
+      List<Node> slice =
+          new ArrayList<>(
+              nodes.subList(sliceStart, Math.min(nodes.size(), sliceStart + sliceSize)));
+      Collections.sort(slice, BY_LATITUDE);
+      for (int start = 0; start < slice.size(); start += NODE_CAPACITY) {
+        parents.add(
+            new Node(
+                new ArrayList<>(
+                    slice.subList(start, Math.min(slice.size(), start + NODE_CAPACITY)))));
+      }
+    }
+    return parents;
+  }
+
+  private static double normalizeLongitude(double longitude) {
+    return ((longitude + 180) % 360 + 360) % 360 - 180;
+  }
+}
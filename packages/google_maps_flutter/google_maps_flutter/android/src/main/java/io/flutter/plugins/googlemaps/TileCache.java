@@ -0,0 +1,396 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import com.google.android.gms.maps.model.Tile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the tiles of the tile overlays of a map, so that tiles shown before are not requested from
+ * Dart again.
+ *
+ * <p>Tiles are kept in memory in least recently used order until their total size exceeds the
+ * memory budget of the cache. Like the tiles on disk, they are only found again with the disk cache
+ * key they were cached with. The tiles of the overlays with a disk cache key are also written to a
+ * directory, one file per tile, on a background thread. Tiles are read from disk by the threads of
+ * the map that request them.
+ *
+ * <p>The directory outlives the map and the app process, so tiles on disk are only found again with
+ * the disk cache key they were written with. The app changes the key when the tiles of an overlay
+ * change, and the tiles written with other keys are then deleted. Once the files exceed the disk
+ * budget of the cache, the least recently used ones are deleted.
+ *
+ * <p>Clearing an overlay moves its directory out of the way before deleting it in the background,
+ * so the tiles are gone right away. Tiles read or written by other threads while an overlay is
+ * cleared are dropped.
+ *
+ * <p>The cache is used from the tile threads of the map and from the main thread.
+ */
+class TileCache {
+  private static final String TAG = "TileCache";
+
+  /** The disk budget of the caches created by {@link #TileCache(File)}, in bytes. */
+  private static final long DEFAULT_MAX_DISK_SIZE = 64 * 1024 * 1024;
+
+  /** The prefix of the directories of cleared overlays, which overlay directories never have. */
+  private static final String CLEARED_DIRECTORY_PREFIX = "cleared-";
+
+  private final File directory;
+  private final Executor diskExecutor;
+  private final long maxMemorySize;
+  private final long maxDiskSize;
+  private long memorySize;
+  private final LinkedHashMap<String, Tile> keyToTile = new LinkedHashMap<>(16, 0.75f, true);
+  // The number of times each overlay was cleared, tiles read or written meanwhile are dropped.
+  private final Map<String, Integer> overlayIdToClearCount = new HashMap<>();
+  // Only accessed on the disk executor. The size of the files in the directory, or -1 when it has
+  // to be measured again.
+  private long diskSize = -1;
+
+  /**
+   * Creates a cache with a memory budget of a 16th of the memory available to the app, and a disk
+   * budget of 64 MB.
+   *
+   * @param directory the directory the tiles cached on disk are written to.
+   */
+  TileCache(File directory) {
+    this(
+        directory,
+        Runtime.getRuntime().maxMemory() / 16,
+        DEFAULT_MAX_DISK_SIZE,
+        new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>()));
+  }
+
+  TileCache(File directory, long maxMemorySize, long maxDiskSize, Executor diskExecutor) {
+    this.directory = directory;
+    this.maxMemorySize = maxMemorySize;
+    this.maxDiskSize = maxDiskSize;
+    this.diskExecutor = diskExecutor;
+  }
+
+  /**
+   * Gets a tile from memory, or from disk when {@code diskCacheKey} is not null.
+   *
+   * <p>Tiles read from disk are kept in memory. This call may read a file, it must not be made on
+   * the main thread.
+   *
+   * @return the tile, or null when it is not cached.
+   */
+  Tile get(String tileOverlayId, int x, int y, int zoom, @Nullable String diskCacheKey) {
+    String key = getKey(tileOverlayId, diskCacheKey, x, y, zoom);
+    int clearCount;
+    synchronized (this) {
+      Tile tile = keyToTile.get(key);
+      if (tile != null || diskCacheKey == null) {
+        return tile;
+      }
+      clearCount = getClearCount(tileOverlayId);
+    }
+    Tile tile = readTile(getFile(tileOverlayId, diskCacheKey, x, y, zoom));
+    if (tile == null) {
+      return null;
+    }
+    synchronized (this) {
+      if (clearCount != getClearCount(tileOverlayId)) {
+        return null;
+      }
+      putInMemory(key, tile);
+    }
+    return tile;
+  }
+
+  /**
+   * Checks whether a tile is in memory, or on disk when {@code diskCacheKey} is not null, without
+   * reading it.
+   */
+  boolean contains(String tileOverlayId, int x, int y, int zoom, @Nullable String diskCacheKey) {
+    synchronized (this) {
+      if (keyToTile.containsKey(getKey(tileOverlayId, diskCacheKey, x, y, zoom))) {
+        return true;
+      }
+    }
+    return diskCacheKey != null && getFile(tileOverlayId, diskCacheKey, x, y, zoom).isFile();
+  }
+
+  /**
+   * Caches a tile in memory, and on disk when {@code diskCacheKey} is not null.
+   *
+   * <p>Tiles without data are not cached, so that they are requested again.
+   */
+  void put(String tileOverlayId, int x, int y, int zoom, Tile tile, @Nullable String diskCacheKey) {
+    if (tile == null || tile.data == null) {
+      return;
+    }
+    final int clearCount;
+    synchronized (this) {
+      putInMemory(getKey(tileOverlayId, diskCacheKey, x, y, zoom), tile);
+      clearCount = getClearCount(tileOverlayId);
+    }
+    if (diskCacheKey != null) {
+      final File file = getFile(tileOverlayId, diskCacheKey, x, y, zoom);
+      diskExecutor.execute(() -> writeTile(file, tile, tileOverlayId, clearCount));
+    }
+  }
+
+  /** Deletes the tiles of an overlay written to disk with another disk cache key. */
+  void retainDiskCacheKey(String tileOverlayId, String diskCacheKey) {
+    final File overlayDirectory = getOverlayDirectory(tileOverlayId);
+    final String keyDirectoryName = toFileName(diskCacheKey);
+    diskExecutor.execute(
+        () -> {
+          File[] keyDirectories = overlayDirectory.listFiles();
+          if (keyDirectories == null) {
+            return;
+          }
+          for (File keyDirectory : keyDirectories) {
+            if (!keyDirectory.getName().equals(keyDirectoryName)) {
+              delete(keyDirectory);
+              diskSize = -1;
+            }
+          }
+        });
+  }
+
+  /**
+   * Removes the tiles of an overlay from memory, and from disk for all disk cache keys when {@code
+   * onDisk} is true.
+   */
+  void clear(String tileOverlayId, boolean onDisk) {
+    String prefix = getKey(tileOverlayId, "");
+    synchronized (this) {
+      Iterator<Map.Entry<String, Tile>> entries = keyToTile.entrySet().iterator();
+      while (entries.hasNext()) {
+        Map.Entry<String, Tile> entry = entries.next();
+        if (entry.getKey().startsWith(prefix)) {
+          memorySize -= entry.getValue().data.length;
+          entries.remove();
+        }
+      }
+      overlayIdToClearCount.put(tileOverlayId, getClearCount(tileOverlayId) + 1);
+      if (!onDisk) {
+        return;
+      }
+      // Moved within the lock, so that no tile is written to the directory meanwhile.
+      File overlayDirectory = getOverlayDirectory(tileOverlayId);
+      File clearedDirectory = new File(directory, CLEARED_DIRECTORY_PREFIX + System.nanoTime());
+      if (overlayDirectory.exists() && !overlayDirectory.renameTo(clearedDirectory)) {
+        Log.w(TAG, "Can't move tile cache directory " + overlayDirectory + ", deleting it");
+        delete(overlayDirectory);
+      }
+    }
+    // Also deletes the directories left over when the app was stopped before they were deleted.
+    diskExecutor.execute(
+        () -> {
+          File[] files = directory.listFiles();
+          if (files == null) {
+            return;
+          }
+          for (File file : files) {
+            if (file.getName().startsWith(CLEARED_DIRECTORY_PREFIX)) {
+              delete(file);
+            }
+          }
+          diskSize = -1;
+        });
+  }
+
+  private int getClearCount(String tileOverlayId) {
+    Integer clearCount = overlayIdToClearCount.get(tileOverlayId);
+    return clearCount == null ? 0 : clearCount;
+  }
+
+  private synchronized void putInMemory(String key, Tile tile) {
+    Tile previous = keyToTile.put(key, tile);
+    if (previous != null) {
+      memorySize -= previous.data.length;
+    }
+    memorySize += tile.data.length;
+    Iterator<Tile> tiles = keyToTile.values().iterator();
+    while (memorySize > maxMemorySize && keyToTile.size() > 1) {
+      memorySize -= tiles.next().data.length;
+      tiles.remove();
+    }
+  }
+
+  private static String getKey(
+      String tileOverlayId, @Nullable String diskCacheKey, int x, int y, int zoom) {
+    String tile = zoom + "/" + x + "/" + y;
+    return getKey(
+        tileOverlayId,
+        diskCacheKey == null
+            ? "/" + tile
+            : diskCacheKey.length() + ":" + diskCacheKey + "/" + tile);
+  }
+
+  private static String getKey(String tileOverlayId, String tile) {
+    // The length keeps the ids apart from each other when one is a prefix of another one.
+    return tileOverlayId.length() + ":" + tileOverlayId + "/" + tile;
+  }
+
+  private static String toFileName(String id) {
+    // Overlay ids and disk cache keys are chosen by the app, they are hex encoded to be valid file
+    // names.
+    StringBuilder name = new StringBuilder();
+    for (byte b : id.getBytes(Charset.forName("UTF-8"))) {
+      name.append(String.format("%02x", b));
+    }
+    return name.toString();
+  }
+
+  private File getOverlayDirectory(String tileOverlayId) {
+    return new File(directory, toFileName(tileOverlayId));
+  }
+
+  private File getFile(String tileOverlayId, String diskCacheKey, int x, int y, int zoom) {
+    File keyDirectory = new File(getOverlayDirectory(tileOverlayId), toFileName(diskCacheKey));
+    return new File(keyDirectory, zoom + "_" + x + "_" + y);
+  }
+
+  private static Tile readTile(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      int width = input.readInt();
+      int height = input.readInt();
+      byte[] data = new byte[input.readInt()];
+      input.readFully(data);
+      // Marks the tile as recently used, so it is deleted last when over budget.
+      file.setLastModified(System.currentTimeMillis());
+      return new Tile(width, height, data);
+    } catch (IOException e) {
+      Log.e(TAG, "Can't read cached tile " + file, e);
+      return null;
+    }
+  }
+
+  private void writeTile(File file, Tile tile, String tileOverlayId, int clearCount) {
+    File directory = file.getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      Log.e(TAG, "Can't create tile cache directory " + directory);
+      return;
+    }
+    // Written to a temporary file first so that readers never see a partial tile.
+    File temporaryFile = new File(directory, file.getName() + ".tmp");
+    try (DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+      output.writeInt(tile.width);
+      output.writeInt(tile.height);
+      output.writeInt(tile.data.length);
+      output.write(tile.data);
+    } catch (IOException e) {
+      Log.e(TAG, "Can't write cached tile " + file, e);
+      temporaryFile.delete();
+      return;
+    }
+    synchronized (this) {
+      if (clearCount != getClearCount(tileOverlayId) || !temporaryFile.renameTo(file)) {
+        temporaryFile.delete();
+        return;
+      }
+    }
+    trimDisk(file.length());
+  }
+
+  /** Deletes the least recently used files once the files exceed the disk budget. */
+  private void trimDisk(long writtenSize) {
+    if (diskSize < 0) {
+      diskSize = measure(directory);
+    } else {
+      diskSize += writtenSize;
+    }
+    if (diskSize <= maxDiskSize) {
+      return;
+    }
+    List<CachedFile> files = new ArrayList<>();
+    collectFiles(directory, files);
+    long size = 0;
+    for (CachedFile file : files) {
+      size += file.length;
+    }
+    // Sorted on the times read above, files may be read and touched while they are being sorted.
+    Collections.sort(files, (a, b) -> Long.compare(a.lastModified, b.lastModified));
+    // Trims below the budget, so that the files are not listed again on every write.
+    long targetSize = maxDiskSize / 4 * 3;
+    for (CachedFile file : files) {
+      if (size <= targetSize) {
+        break;
+      }
+      if (file.file.delete()) {
+        size -= file.length;
+      }
+    }
+    diskSize = size;
+  }
+
+  private static long measure(File file) {
+    File[] children = file.listFiles();
+    if (children == null) {
+      return file.length();
+    }
+    long size = 0;
+    for (File child : children) {
+      size += measure(child);
+    }
+    return size;
+  }
+
+  private static void collectFiles(File file, List<CachedFile> files) {
+    File[] children = file.listFiles();
+    if (children == null) {
+      if (file.isFile()) {
+        files.add(new CachedFile(file));
+      }
+      return;
+    }
+    for (File child : children) {
+      collectFiles(child, files);
+    }
+  }
+
+  private static class CachedFile {
+    final File file;
+    final long length;
+    final long lastModified;
+
+    CachedFile(File file) {
+      this.file = file;
+      this.length = file.length();
+      this.lastModified = file.lastModified();
+    }
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
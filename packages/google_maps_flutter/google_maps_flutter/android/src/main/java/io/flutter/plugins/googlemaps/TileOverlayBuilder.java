@@ -10,6 +10,8 @@ import com.google.android.gms.maps.model.TileProvider;
 class TileOverlayBuilder implements TileOverlaySink {
 
   private final TileOverlayOptions tileOverlayOptions;
+  private String diskCacheKey;
+  private boolean prefetchTiles;
 
   TileOverlayBuilder() {
     this.tileOverlayOptions = new TileOverlayOptions();
@@ -19,6 +21,14 @@ class TileOverlayBuilder implements TileOverlaySink {
     return tileOverlayOptions;
   }
 
+  String diskCacheKey() {
+    return diskCacheKey;
+  }
+
+  boolean prefetchTiles() {
+    return prefetchTiles;
+  }
+
   @Override
   public void setFadeIn(boolean fadeIn) {
     tileOverlayOptions.fadeIn(fadeIn);
@@ -43,4 +53,14 @@ class TileOverlayBuilder implements TileOverlaySink {
   public void setTileProvider(TileProvider tileProvider) {
     tileOverlayOptions.tileProvider(tileProvider);
   }
+
+  @Override
+  public void setDiskCacheKey(String diskCacheKey) {
+    this.diskCacheKey = diskCacheKey;
+  }
+
+  @Override
+  public void setPrefetchTiles(boolean prefetchTiles) {
+    this.prefetchTiles = prefetchTiles;
+  }
 }
@@ -12,9 +12,11 @@ import java.util.Map;
 class TileOverlayController implements TileOverlaySink {
 
   private final TileOverlay tileOverlay;
+  private final TileProviderController tileProviderController;
 
-  TileOverlayController(TileOverlay tileOverlay) {
+  TileOverlayController(TileOverlay tileOverlay, TileProviderController tileProviderController) {
     this.tileOverlay = tileOverlay;
+    this.tileProviderController = tileProviderController;
   }
 
   void remove() {
@@ -22,6 +24,8 @@ class TileOverlayController implements TileOverlaySink {
   }
 
   void clearTileCache() {
+    // The cached tiles are cleared first, the map requests the tiles again right away.
+    tileProviderController.clearTileCache();
     tileOverlay.clearTileCache();
   }
 
@@ -59,4 +63,14 @@ class TileOverlayController implements TileOverlaySink {
   public void setTileProvider(TileProvider tileProvider) {
     // You can not change tile provider after creation
   }
+
+  @Override
+  public void setDiskCacheKey(String diskCacheKey) {
+    tileProviderController.setDiskCacheKey(diskCacheKey);
+  }
+
+  @Override
+  public void setPrefetchTiles(boolean prefetchTiles) {
+    tileProviderController.setPrefetchTiles(prefetchTiles);
+  }
 }
@@ -17,4 +17,8 @@ interface TileOverlaySink {
   void setVisible(boolean visible);
 
   void setTileProvider(TileProvider tileProvider);
+
+  void setDiskCacheKey(String diskCacheKey);
+
+  void setPrefetchTiles(boolean prefetchTiles);
 }
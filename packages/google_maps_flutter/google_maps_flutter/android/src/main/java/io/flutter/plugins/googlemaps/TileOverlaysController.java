@@ -16,11 +16,13 @@ class TileOverlaysController {
 
   private final Map<String, TileOverlayController> tileOverlayIdToController;
   private final MethodChannel methodChannel;
+  private final TileCache tileCache;
   private GoogleMap googleMap;
 
-  TileOverlaysController(MethodChannel methodChannel) {
+  TileOverlaysController(MethodChannel methodChannel, TileCache tileCache) {
     this.tileOverlayIdToController = new HashMap<>();
     this.methodChannel = methodChannel;
+    this.tileCache = tileCache;
   }
 
   void setGoogleMap(GoogleMap googleMap) {
@@ -86,11 +88,14 @@ class TileOverlaysController {
     String tileOverlayId =
         Convert.interpretTileOverlayOptions(tileOverlayOptions, tileOverlayOptionsBuilder);
     TileProviderController tileProviderController =
-        new TileProviderController(methodChannel, tileOverlayId);
+        new TileProviderController(methodChannel, tileOverlayId, tileCache);
+    tileProviderController.setDiskCacheKey(tileOverlayOptionsBuilder.diskCacheKey());
+    tileProviderController.setPrefetchTiles(tileOverlayOptionsBuilder.prefetchTiles());
     tileOverlayOptionsBuilder.setTileProvider(tileProviderController);
     TileOverlayOptions options = tileOverlayOptionsBuilder.build();
     TileOverlay tileOverlay = googleMap.addTileOverlay(options);
-    TileOverlayController tileOverlayController = new TileOverlayController(tileOverlay);
+    TileOverlayController tileOverlayController =
+        new TileOverlayController(tileOverlay, tileProviderController);
     tileOverlayIdToController.put(tileOverlayId, tileOverlayController);
   }
 
@@ -110,6 +115,8 @@ class TileOverlaysController {
     if (tileOverlayController != null) {
       tileOverlayController.remove();
       tileOverlayIdToController.remove(tileOverlayId);
+      // Tiles cached on disk are kept for when the overlay is added again.
+      tileCache.clear(tileOverlayId, false);
     }
   }
 
@@ -7,57 +7,193 @@ package io.flutter.plugins.googlemaps;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
-import androidx.annotation.NonNull;
 import com.google.android.gms.maps.model.Tile;
 import com.google.android.gms.maps.model.TileProvider;
 import io.flutter.plugin.common.MethodChannel;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Provides the tiles of a tile overlay, requesting them from Dart when they are not in the {@link
+ * TileCache}.
+ *
+ * <p>Concurrent requests for the same tile share a single request to Dart. When prefetching, the
+ * neighbours of every tile requested from Dart are requested as well, without waiting for them.
+ * Answers to requests made before the cached tiles were cleared are dropped.
+ */
 class TileProviderController implements TileProvider {
 
   private static final String TAG = "TileProviderController";
 
+  /** How long a tile thread of the map waits for Dart to answer. */
+  private static final long TILE_TIMEOUT_MS = 10000;
+
   private final String tileOverlayId;
   private final MethodChannel methodChannel;
-  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final TileCache tileCache;
+  private final Handler handler;
+  private final long tileTimeoutMs;
+  // The tiles requested from Dart and not answered yet, keyed by zoom, x and y.
+  private final Map<String, Worker> keyToWorker = new HashMap<>();
+  // The number of times the cached tiles were cleared, guarded by keyToWorker.
+  private int clearCount;
+  private volatile String diskCacheKey;
+  private volatile boolean prefetchTiles;
+
+  TileProviderController(MethodChannel methodChannel, String tileOverlayId, TileCache tileCache) {
+    this(
+        methodChannel,
+        tileOverlayId,
+        tileCache,
+        new Handler(Looper.getMainLooper()),
+        TILE_TIMEOUT_MS);
+  }
 
-  TileProviderController(MethodChannel methodChannel, String tileOverlayId) {
+  TileProviderController(
+      MethodChannel methodChannel,
+      String tileOverlayId,
+      TileCache tileCache,
+      Handler handler,
+      long tileTimeoutMs) {
     this.tileOverlayId = tileOverlayId;
     this.methodChannel = methodChannel;
+    this.tileCache = tileCache;
+    this.handler = handler;
+    this.tileTimeoutMs = tileTimeoutMs;
+  }
+
+  /**
+   * Sets the key the tiles are cached on disk with, or null to only cache them in memory.
+   *
+   * <p>Tiles cached in memory with another key are removed, and tiles cached on disk with another
+   * key are deleted.
+   */
+  void setDiskCacheKey(String diskCacheKey) {
+    if (Objects.equals(diskCacheKey, this.diskCacheKey)) {
+      return;
+    }
+    String previousDiskCacheKey = this.diskCacheKey;
+    this.diskCacheKey = diskCacheKey;
+    if (previousDiskCacheKey != null) {
+      tileCache.clear(tileOverlayId, false);
+    }
+    if (diskCacheKey != null) {
+      tileCache.retainDiskCacheKey(tileOverlayId, diskCacheKey);
+    }
+  }
+
+  /**
+   * Removes the tiles of the overlay from the cache, in memory and on disk.
+   *
+   * <p>Tiles requested from Dart before are not cached, and are requested again.
+   */
+  void clearTileCache() {
+    synchronized (keyToWorker) {
+      clearCount++;
+      keyToWorker.clear();
+    }
+    tileCache.clear(tileOverlayId, true);
+  }
+
+  void setPrefetchTiles(boolean prefetchTiles) {
+    this.prefetchTiles = prefetchTiles;
   }
 
   @Override
   public Tile getTile(final int x, final int y, final int zoom) {
-    Worker worker = new Worker(x, y, zoom);
+    Tile tile = tileCache.get(tileOverlayId, x, y, zoom, diskCacheKey);
+    if (tile != null) {
+      return tile;
+    }
+    Worker worker = requestTile(x, y, zoom);
+    if (prefetchTiles) {
+      prefetchNeighbours(x, y, zoom);
+    }
     return worker.getTile();
   }
 
+  /** Requests a tile from Dart, unless it has already been requested and not answered yet. */
+  private Worker requestTile(int x, int y, int zoom) {
+    String key = zoom + "/" + x + "/" + y;
+    Worker worker;
+    synchronized (keyToWorker) {
+      worker = keyToWorker.get(key);
+      if (worker != null) {
+        return worker;
+      }
+      worker = new Worker(key, x, y, zoom, clearCount);
+      keyToWorker.put(key, worker);
+    }
+    worker.request();
+    return worker;
+  }
+
+  private void prefetchNeighbours(int x, int y, int zoom) {
+    int tileCount = 1 << zoom;
+    for (int dy = -1; dy <= 1; dy++) {
+      int neighbourY = y + dy;
+      if (neighbourY < 0 || neighbourY >= tileCount) {
+        continue;
+      }
+      for (int dx = -1; dx <= 1; dx++) {
+        // Tiles wrap around the antimeridian.
+        int neighbourX = (x + dx + tileCount) % tileCount;
+        if ((dx != 0 || dy != 0)
+            && !tileCache.contains(tileOverlayId, neighbourX, neighbourY, zoom, diskCacheKey)) {
+          requestTile(neighbourX, neighbourY, zoom);
+        }
+      }
+    }
+  }
+
   private final class Worker implements MethodChannel.Result {
 
     private final CountDownLatch countDownLatch = new CountDownLatch(1);
+    private final String key;
     private final int x;
     private final int y;
     private final int zoom;
-    private Map<String, ?> result;
+    // The tile is cached with the key it was requested with, the key may change before Dart
+    // answers.
+    private final String diskCacheKey;
+    private final int clearCount;
+    private Tile tile;
 
-    Worker(int x, int y, int zoom) {
+    Worker(String key, int x, int y, int zoom, int clearCount) {
+      this.key = key;
       this.x = x;
       this.y = y;
       this.zoom = zoom;
+      this.clearCount = clearCount;
+      this.diskCacheKey = TileProviderController.this.diskCacheKey;
     }
 
-    @NonNull
-    Tile getTile() {
+    void request() {
       handler.post(
           () ->
               methodChannel.invokeMethod(
                   "tileOverlay#getTile",
                   Convert.tileOverlayArgumentsToJson(tileOverlayId, x, y, zoom),
                   this));
+    }
+
+    /**
+     * Waits for Dart to answer.
+     *
+     * @return the tile, or null when Dart doesn't answer in time or the cached tiles were cleared
+     *     meanwhile, so that the map requests the tile again later.
+     */
+    Tile getTile() {
       try {
-        // Because `methodChannel.invokeMethod` is async, we use a `countDownLatch` make it synchronized.
-        countDownLatch.await();
+        // Because `methodChannel.invokeMethod` is async, we use a `countDownLatch` make it
+        // synchronized.
+        if (!countDownLatch.await(tileTimeoutMs, TimeUnit.MILLISECONDS)) {
+          Log.w(TAG, String.format("Timed out getting tile: x = %d, y= %d, zoom = %d", x, y, zoom));
+          return null;
+        }
       } catch (InterruptedException e) {
         Log.e(
             TAG,
@@ -65,19 +201,33 @@ class TileProviderController implements TileProvider {
             e);
         return TileProvider.NO_TILE;
       }
-      try {
-        return Convert.interpretTile(result);
-      } catch (Exception e) {
-        Log.e(TAG, "Can't parse tile data", e);
-        return TileProvider.NO_TILE;
+      return tile;
+    }
+
+    private void finish(Tile tile) {
+      synchronized (keyToWorker) {
+        // Cached within the lock, so that the tile is either cached before the cache is cleared,
+        // or dropped.
+        if (clearCount == TileProviderController.this.clearCount) {
+          this.tile = tile;
+          tileCache.put(tileOverlayId, x, y, zoom, tile, diskCacheKey);
+          keyToWorker.remove(key);
+        }
       }
+      countDownLatch.countDown();
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void success(Object data) {
-      result = (Map<String, ?>) data;
-      countDownLatch.countDown();
+      Tile tile;
+      try {
+        tile = Convert.interpretTile((Map<String, ?>) data);
+      } catch (Exception e) {
+        Log.e(TAG, "Can't parse tile data", e);
+        tile = TileProvider.NO_TILE;
+      }
+      finish(tile);
     }
 
     @Override
@@ -87,15 +237,13 @@ class TileProviderController implements TileProvider {
           String.format(
               "Can't get tile: errorCode = %s, errorMessage = %s, date = %s",
               errorCode, errorCode, data));
-      result = null;
-      countDownLatch.countDown();
+      finish(TileProvider.NO_TILE);
     }
 
     @Override
     public void notImplemented() {
       Log.e(TAG, "Can't get tile: notImplemented");
-      result = null;
-      countDownLatch.countDown();
+      finish(TileProvider.NO_TILE);
     }
   }
 }
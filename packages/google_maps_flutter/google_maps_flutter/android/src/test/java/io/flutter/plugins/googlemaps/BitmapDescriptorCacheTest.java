@@ -0,0 +1,79 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import org.junit.Test;
+
+public class BitmapDescriptorCacheTest {
+
+  @Test
+  public void put_evictsLeastRecentlyUsedOverBudget() {
+    final BitmapDescriptorCache cache = new BitmapDescriptorCache(250);
+    final BitmapDescriptor a = mock(BitmapDescriptor.class);
+    final BitmapDescriptor b = mock(BitmapDescriptor.class);
+    final BitmapDescriptor c = mock(BitmapDescriptor.class);
+    cache.put("a", a, 100);
+    cache.put("b", b, 100);
+    // Makes b the least recently used.
+    cache.get("a");
+
+    cache.put("c", c, 100);
+
+    assertSame(a, cache.get("a"));
+    assertNull(cache.get("b"));
+    assertSame(c, cache.get("c"));
+  }
+
+  @Test
+  public void put_keepsIconOverBudget() {
+    final BitmapDescriptorCache cache = new BitmapDescriptorCache(100);
+    final BitmapDescriptor large = mock(BitmapDescriptor.class);
+    cache.put("small", mock(BitmapDescriptor.class), 10);
+
+    cache.put("large", large, 1000);
+
+    assertNull(cache.get("small"));
+    assertSame(large, cache.get("large"));
+  }
+
+  @Test
+  public void bytesKey_comparesContent() {
+    final BitmapDescriptorCache cache = new BitmapDescriptorCache(100);
+    final BitmapDescriptor icon = mock(BitmapDescriptor.class);
+    cache.put(BitmapDescriptorCache.bytesKey(new byte[] {1, 2, 3}), icon, 10);
+
+    assertEquals(
+        BitmapDescriptorCache.bytesKey(new byte[] {1, 2, 3}),
+        BitmapDescriptorCache.bytesKey(new byte[] {1, 2, 3}));
+    assertSame(icon, cache.get(BitmapDescriptorCache.bytesKey(new byte[] {1, 2, 3})));
+    assertNull(cache.get(BitmapDescriptorCache.bytesKey(new byte[] {1, 2, 4})));
+  }
+
+  @Test
+  public void registeredIcons_areNotEvicted() {
+    final BitmapDescriptorCache cache = new BitmapDescriptorCache(0);
+    final BitmapDescriptor icon = mock(BitmapDescriptor.class);
+    cache.register("pin", icon);
+    cache.put("a", mock(BitmapDescriptor.class), 100);
+    cache.put("b", mock(BitmapDescriptor.class), 100);
+
+    assertSame(icon, cache.getRegistered("pin"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getRegistered_unknownIdThrows() {
+    final BitmapDescriptorCache cache = new BitmapDescriptorCache();
+    cache.register("pin", mock(BitmapDescriptor.class));
+    cache.unregister("pin");
+
+    cache.getRegistered("pin");
+  }
+}
@@ -0,0 +1,30 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ClusterIconGeneratorTest {
+  @Test
+  public void getBucket_keepsSmallCounts() {
+    assertEquals(4, ClusterIconGenerator.getBucket(4));
+    assertEquals(9, ClusterIconGenerator.getBucket(9));
+  }
+
+  @Test
+  public void getBucket_roundsDownLargeCounts() {
+    assertEquals(10, ClusterIconGenerator.getBucket(19));
+    assertEquals(50, ClusterIconGenerator.getBucket(99));
+    assertEquals(1000, ClusterIconGenerator.getBucket(20000));
+  }
+
+  @Test
+  public void getText() {
+    assertEquals("7", ClusterIconGenerator.getText(7));
+    assertEquals("100+", ClusterIconGenerator.getText(100));
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.google.android.gms.maps.model.LatLng;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ConvertTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void interpretPolylineOptions_readsPackedPoints() {
+    final PolylineOptionsSink sink = mock(PolylineOptionsSink.class);
+    final Map<String, Object> polyline = new HashMap<>();
+    polyline.put("polylineId", "polyline");
+    polyline.put("points", new double[] {1.5, 2.5, -3.25, 4.75});
+
+    Convert.interpretPolylineOptions(polyline, sink);
+
+    final ArgumentCaptor<List<LatLng>> points = ArgumentCaptor.forClass(List.class);
+    verify(sink).setPoints(points.capture());
+    assertEquals(Arrays.asList(new LatLng(1.5, 2.5), new LatLng(-3.25, 4.75)), points.getValue());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void interpretPolylineOptions_scalesE7Points() {
+    final PolylineOptionsSink sink = mock(PolylineOptionsSink.class);
+    final Map<String, Object> polyline = new HashMap<>();
+    polyline.put("polylineId", "polyline");
+    polyline.put("points", new int[] {515_000_000, -1_275_000, -337_500_000, 1_512_500_000});
+
+    Convert.interpretPolylineOptions(polyline, sink);
+
+    final ArgumentCaptor<List<LatLng>> points = ArgumentCaptor.forClass(List.class);
+    verify(sink).setPoints(points.capture());
+    assertLatLngEquals(new LatLng(51.5, -0.1275), points.getValue().get(0));
+    assertLatLngEquals(new LatLng(-33.75, 151.25), points.getValue().get(1));
+  }
+
+  @Test
+  public void interpretPolylineOptions_rejectsOddPackedPoints() {
+    assertRejectsOddPoints(new double[] {1, 2, 3});
+    assertRejectsOddPoints(new int[] {10_000_000, 20_000_000, 30_000_000});
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void interpretPolygonOptions_readsPackedHoles() {
+    final PolygonOptionsSink sink = mock(PolygonOptionsSink.class);
+    final Map<String, Object> polygon = new HashMap<>();
+    polygon.put("polygonId", "polygon");
+    polygon.put(
+        "holes",
+        Arrays.asList(
+            new double[] {1, 2, 3, 4},
+            new int[] {10_000_000, 20_000_000},
+            Arrays.asList(Arrays.asList(5.0, 6.0))));
+
+    Convert.interpretPolygonOptions(polygon, sink);
+
+    final ArgumentCaptor<List<List<LatLng>>> holes = ArgumentCaptor.forClass(List.class);
+    verify(sink).setHoles(holes.capture());
+    assertEquals(
+        Arrays.asList(
+            Arrays.asList(new LatLng(1, 2), new LatLng(3, 4)),
+            Arrays.asList(new LatLng(1, 2)),
+            Arrays.asList(new LatLng(5, 6))),
+        holes.getValue());
+  }
+
+  @Test
+  public void interpretPolygonOptions_rejectsOddPackedHoles() {
+    final Map<String, Object> polygon = new HashMap<>();
+    polygon.put("polygonId", "polygon");
+    polygon.put("holes", Arrays.asList(new int[] {10_000_000}));
+
+    try {
+      Convert.interpretPolygonOptions(polygon, mock(PolygonOptionsSink.class));
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Packed points need an even number of coordinates", e.getMessage());
+    }
+  }
+
+  private static void assertRejectsOddPoints(Object points) {
+    final Map<String, Object> polyline = new HashMap<>();
+    polyline.put("polylineId", "polyline");
+    polyline.put("points", points);
+
+    try {
+      Convert.interpretPolylineOptions(polyline, mock(PolylineOptionsSink.class));
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Packed points need an even number of coordinates", e.getMessage());
+    }
+  }
+
+  private static void assertLatLngEquals(LatLng expected, LatLng actual) {
+    assertEquals(expected.latitude, actual.latitude, 1e-9);
+    assertEquals(expected.longitude, actual.longitude, 1e-9);
+  }
+}
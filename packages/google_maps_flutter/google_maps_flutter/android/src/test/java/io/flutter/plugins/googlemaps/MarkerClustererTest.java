@@ -0,0 +1,114 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class MarkerClustererTest {
+  private static final LatLngBounds VISIBLE_BOUNDS =
+      new LatLngBounds(new LatLng(9, 9), new LatLng(11, 11));
+
+  @Test
+  public void cluster_groupsCloseMarkers() {
+    final MarkerClusterer clusterer = new MarkerClusterer();
+    clusterer.setMarker("a", new LatLng(10.0, 10.0));
+    clusterer.setMarker("b", new LatLng(10.01, 10.0));
+    clusterer.setMarker("c", new LatLng(10.0, 10.01));
+    clusterer.setMarker("d", new LatLng(10.01, 10.01));
+
+    final MarkerClusterer.Result result = clusterer.cluster(8, VISIBLE_BOUNDS);
+
+    assertEquals(1, result.getClusters().size());
+    assertEquals(Collections.emptyList(), result.getMarkerIds());
+    final MarkerClusterer.Cluster cluster = result.getClusters().get(0);
+    assertEquals(Arrays.asList("a", "b", "c", "d"), cluster.getMarkerIds());
+    assertEquals(10.005, cluster.getPosition().latitude, 1e-9);
+    assertEquals(10.005, cluster.getPosition().longitude, 1e-9);
+    assertEquals(new LatLng(10.0, 10.0), cluster.getBounds().southwest);
+    assertEquals(new LatLng(10.01, 10.01), cluster.getBounds().northeast);
+  }
+
+  @Test
+  public void cluster_keepsSmallGroupsAsMarkers() {
+    final MarkerClusterer clusterer = new MarkerClusterer();
+    clusterer.setMarker("a", new LatLng(10.0, 10.0));
+    clusterer.setMarker("b", new LatLng(10.01, 10.0));
+
+    final MarkerClusterer.Result result = clusterer.cluster(8, VISIBLE_BOUNDS);
+
+    assertTrue(result.getClusters().isEmpty());
+    assertEquals(Arrays.asList("a", "b"), result.getMarkerIds());
+  }
+
+  @Test
+  public void cluster_skipsMarkersFarFromVisibleRegion() {
+    final MarkerClusterer clusterer = new MarkerClusterer();
+    clusterer.setMarker("visible", new LatLng(10.0, 10.0));
+    clusterer.setMarker("far", new LatLng(-40.0, 100.0));
+
+    final MarkerClusterer.Result result = clusterer.cluster(8, VISIBLE_BOUNDS);
+
+    assertEquals(Collections.singletonList("visible"), result.getMarkerIds());
+  }
+
+  @Test
+  public void cluster_includesMarkersAcrossAntimeridian() {
+    final MarkerClusterer clusterer = new MarkerClusterer();
+    clusterer.setMarker("east", new LatLng(0.0, 179.5));
+    clusterer.setMarker("west", new LatLng(0.0, -179.5));
+    clusterer.setMarker("far", new LatLng(0.0, 0.0));
+
+    final MarkerClusterer.Result result =
+        clusterer.cluster(6, new LatLngBounds(new LatLng(-1, 179), new LatLng(1, -179)));
+
+    assertEquals(Arrays.asList("east", "west"), result.getMarkerIds());
+  }
+
+  @Test
+  public void cluster_splitsClustersWhenZoomingIn() {
+    final MarkerClusterer clusterer = new MarkerClusterer();
+    for (int i = 0; i < 4; i++) {
+      clusterer.setMarker("a" + i, new LatLng(10.0, 10.0 + i * 0.0001));
+      clusterer.setMarker("b" + i, new LatLng(10.5, 10.5 + i * 0.0001));
+    }
+
+    assertEquals(1, clusterer.cluster(4, VISIBLE_BOUNDS).getClusters().size());
+    assertEquals(2, clusterer.cluster(10, VISIBLE_BOUNDS).getClusters().size());
+    assertEquals(8, clusterer.cluster(21, VISIBLE_BOUNDS).getMarkerIds().size());
+  }
+
+  @Test
+  public void cluster_usesStableKeys() {
+    final MarkerClusterer clusterer = new MarkerClusterer();
+    for (int i = 0; i < 4; i++) {
+      clusterer.setMarker("a" + i, new LatLng(10.0, 10.0 + i * 0.0001));
+    }
+    final String key = clusterer.cluster(8, VISIBLE_BOUNDS).getClusters().get(0).getKey();
+    clusterer.setMarker("a4", new LatLng(10.0, 10.0));
+
+    final MarkerClusterer.Result result = clusterer.cluster(8.5f, VISIBLE_BOUNDS);
+
+    assertEquals(key, result.getClusters().get(0).getKey());
+    assertEquals(5, result.getClusters().get(0).getMarkerIds().size());
+  }
+
+  @Test
+  public void removeMarker() {
+    final MarkerClusterer clusterer = new MarkerClusterer();
+    clusterer.setMarker("a", new LatLng(10.0, 10.0));
+    clusterer.removeMarker("a");
+
+    final MarkerClusterer.Result result = clusterer.cluster(8, VISIBLE_BOUNDS);
+
+    assertTrue(result.getMarkerIds().isEmpty());
+  }
+}
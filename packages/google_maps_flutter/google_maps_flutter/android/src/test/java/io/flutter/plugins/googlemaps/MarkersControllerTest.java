@@ -4,13 +4,22 @@
 
 package io.flutter.plugins.googlemaps;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import io.flutter.plugin.common.BinaryMessenger;
@@ -22,6 +31,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class MarkersControllerTest {
@@ -30,7 +40,9 @@ public class MarkersControllerTest {
   public void controller_OnMarkerDragStart() {
     final MethodChannel methodChannel =
         spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
-    final MarkersController controller = new MarkersController(methodChannel);
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
     final GoogleMap googleMap = mock(GoogleMap.class);
     controller.setGoogleMap(googleMap);
 
@@ -63,7 +75,9 @@ public class MarkersControllerTest {
   public void controller_OnMarkerDragEnd() {
     final MethodChannel methodChannel =
         spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
-    final MarkersController controller = new MarkersController(methodChannel);
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
     final GoogleMap googleMap = mock(GoogleMap.class);
     controller.setGoogleMap(googleMap);
 
@@ -96,7 +110,9 @@ public class MarkersControllerTest {
   public void controller_OnMarkerDrag() {
     final MethodChannel methodChannel =
         spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
-    final MarkersController controller = new MarkersController(methodChannel);
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
     final GoogleMap googleMap = mock(GoogleMap.class);
     controller.setGoogleMap(googleMap);
 
@@ -124,4 +140,211 @@ public class MarkersControllerTest {
     data.put("position", points);
     Mockito.verify(methodChannel).invokeMethod("marker#onDrag", data);
   }
+
+  @Test
+  public void clustering_addsOnlyVisibleClustersAndMarkers() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
+    final GoogleMap googleMap = mockGoogleMap();
+    controller.setGoogleMap(googleMap);
+    controller.setClusteringEnabled(true);
+
+    controller.addMarkers(createClusteredMarkers());
+    Mockito.verify(googleMap, never()).addMarker(any(MarkerOptions.class));
+
+    controller.onCameraIdle(8, VISIBLE_BOUNDS);
+    // One cluster of four markers and the single marker, the far marker is not added.
+    Mockito.verify(googleMap, times(2)).addMarker(any(MarkerOptions.class));
+
+    controller.onCameraIdle(8.5f, VISIBLE_BOUNDS);
+    Mockito.verify(googleMap, times(2)).addMarker(any(MarkerOptions.class));
+  }
+
+  @Test
+  public void clustering_removesMarkersLeavingVisibleRegion() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
+    final GoogleMap googleMap = mock(GoogleMap.class);
+    final Marker singleMarker = mock(Marker.class);
+    when(singleMarker.getId()).thenReturn("single");
+    when(googleMap.addMarker(any(MarkerOptions.class))).thenReturn(singleMarker);
+    controller.setGoogleMap(googleMap);
+    controller.setClusteringEnabled(true);
+    controller.addMarkers(Arrays.<Object>asList(createMarker("marker", 10.5, 10.5)));
+
+    controller.onCameraIdle(8, VISIBLE_BOUNDS);
+    controller.onCameraIdle(8, new LatLngBounds(new LatLng(-41, 99), new LatLng(-39, 101)));
+
+    Mockito.verify(singleMarker).remove();
+  }
+
+  @Test
+  public void clustering_onClusterTap() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
+    final GoogleMap googleMap = mock(GoogleMap.class);
+    final Marker clusterMarker = mock(Marker.class);
+    when(clusterMarker.getId()).thenReturn("cluster");
+    when(googleMap.addMarker(any(MarkerOptions.class))).thenReturn(clusterMarker);
+    controller.setGoogleMap(googleMap);
+    controller.setClusteringEnabled(true);
+    final List<Object> markers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      markers.add(createMarker("m" + i, 10.0, 10.0 + i * 0.001));
+    }
+    controller.addMarkers(markers);
+    controller.onCameraIdle(8, VISIBLE_BOUNDS);
+
+    assertTrue(controller.onMarkerTap("cluster"));
+
+    final ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+    Mockito.verify(methodChannel).invokeMethod(eq("cluster#onTap"), data.capture());
+    final Map<?, ?> arguments = (Map<?, ?>) data.getValue();
+    assertEquals(Arrays.asList("m0", "m1", "m2", "m3"), arguments.get("markerIds"));
+  }
+
+  @Test
+  public void clustering_cannotBeChangedWithMarkers() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
+    final GoogleMap googleMap = mockGoogleMap();
+    controller.setGoogleMap(googleMap);
+    controller.addMarkers(Arrays.<Object>asList(createMarker("marker", 10.0, 10.0)));
+
+    controller.setClusteringEnabled(true);
+
+    assertFalse(controller.isClusteringEnabled());
+  }
+
+  @Test
+  public void viewportCulling_addsMarkersCloseToVisibleRegion() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
+    final GoogleMap googleMap = mockGoogleMap();
+    controller.setGoogleMap(googleMap);
+    controller.setViewportCullingEnabled(true);
+
+    controller.addMarkers(createClusteredMarkers());
+    Mockito.verify(googleMap, never()).addMarker(any(MarkerOptions.class));
+
+    controller.onCameraIdle(8, VISIBLE_BOUNDS);
+    // All markers but the far one.
+    Mockito.verify(googleMap, times(5)).addMarker(any(MarkerOptions.class));
+
+    controller.removeMarkers(Arrays.<Object>asList("single"));
+    controller.onCameraIdle(8, new LatLngBounds(new LatLng(-41, 99), new LatLng(-39, 101)));
+    Mockito.verify(googleMap, times(6)).addMarker(any(MarkerOptions.class));
+    controller.onCameraIdle(8, VISIBLE_BOUNDS);
+    Mockito.verify(googleMap, times(10)).addMarker(any(MarkerOptions.class));
+  }
+
+  @Test
+  public void viewportCulling_keepsThePositionMarkersAreDraggedTo() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), new BitmapDescriptorCache());
+    final GoogleMap googleMap = mockGoogleMap();
+    controller.setGoogleMap(googleMap);
+    controller.setViewportCullingEnabled(true);
+    controller.addMarkers(Arrays.<Object>asList(createMarker("marker", 10.5, 10.5)));
+    controller.onCameraIdle(8, VISIBLE_BOUNDS);
+
+    final LatLng draggedPosition = new LatLng(10.2, 10.2);
+    controller.onMarkerDragEnd("m0", draggedPosition);
+    controller.onCameraIdle(8, new LatLngBounds(new LatLng(-41, 99), new LatLng(-39, 101)));
+    controller.onCameraIdle(8, new LatLngBounds(new LatLng(10.1, 10.1), new LatLng(10.3, 10.3)));
+
+    final ArgumentCaptor<MarkerOptions> options = ArgumentCaptor.forClass(MarkerOptions.class);
+    Mockito.verify(googleMap, times(2)).addMarker(options.capture());
+    assertEquals(draggedPosition, options.getValue().getPosition());
+  }
+
+  @Test
+  public void registeredIcons_areUsedByMarkers() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final BitmapDescriptorCache bitmapDescriptorCache = new BitmapDescriptorCache();
+    final BitmapDescriptor icon = mock(BitmapDescriptor.class);
+    bitmapDescriptorCache.register("pin", icon);
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), bitmapDescriptorCache);
+    final GoogleMap googleMap = mockGoogleMap();
+    controller.setGoogleMap(googleMap);
+
+    final Map<String, Object> marker = createMarker("marker", 10.0, 10.0);
+    marker.put("icon", Arrays.asList("fromRegisteredIcon", "pin"));
+    controller.addMarkers(Arrays.<Object>asList(marker));
+
+    final ArgumentCaptor<MarkerOptions> options = ArgumentCaptor.forClass(MarkerOptions.class);
+    Mockito.verify(googleMap).addMarker(options.capture());
+    assertSame(icon, options.getValue().getIcon());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unregisteredIcons_cannotBeUsed() {
+    final MethodChannel methodChannel =
+        spy(new MethodChannel(mock(BinaryMessenger.class), "no-name", mock(MethodCodec.class)));
+    final BitmapDescriptorCache bitmapDescriptorCache = new BitmapDescriptorCache();
+    bitmapDescriptorCache.register("pin", mock(BitmapDescriptor.class));
+    final MarkersController controller =
+        new MarkersController(
+            methodChannel, mock(ClusterIconGenerator.class), bitmapDescriptorCache);
+    controller.setGoogleMap(mockGoogleMap());
+
+    controller.unregisterIcons(Arrays.<Object>asList("pin"));
+    final Map<String, Object> marker = createMarker("marker", 10.0, 10.0);
+    marker.put("icon", Arrays.asList("fromRegisteredIcon", "pin"));
+    controller.addMarkers(Arrays.<Object>asList(marker));
+  }
+
+  private static final LatLngBounds VISIBLE_BOUNDS =
+      new LatLngBounds(new LatLng(9, 9), new LatLng(11, 11));
+
+  private static GoogleMap mockGoogleMap() {
+    final GoogleMap googleMap = mock(GoogleMap.class);
+    final int[] nextId = {0};
+    when(googleMap.addMarker(any(MarkerOptions.class)))
+        .thenAnswer(
+            invocation -> {
+              final Marker marker = mock(Marker.class);
+              when(marker.getId()).thenReturn("m" + nextId[0]++);
+              return marker;
+            });
+    return googleMap;
+  }
+
+  private static List<Object> createClusteredMarkers() {
+    final List<Object> markers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      markers.add(createMarker("cluster" + i, 10.0, 10.0 + i * 0.001));
+    }
+    markers.add(createMarker("single", 10.8, 10.8));
+    markers.add(createMarker("far", -40.0, 100.0));
+    return markers;
+  }
+
+  private static Map<String, Object> createMarker(String markerId, double lat, double lng) {
+    final Map<String, Object> marker = new HashMap<>();
+    marker.put("markerId", markerId);
+    marker.put("position", Arrays.asList(lat, lng));
+    return marker;
+  }
 }
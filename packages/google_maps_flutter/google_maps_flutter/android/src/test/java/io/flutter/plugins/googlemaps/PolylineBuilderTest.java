@@ -5,8 +5,12 @@
 package io.flutter.plugins.googlemaps;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 
+import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.PolylineOptions;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Test;
 
 public class PolylineBuilderTest {
@@ -24,4 +28,16 @@ public class PolylineBuilderTest {
 
     assertEquals(density * strokeWidth, width);
   }
+
+  @Test
+  public void simplificationTolerance_LeavesPointsOutOfOptions() {
+    final List<LatLng> points = Arrays.asList(new LatLng(0, 0), new LatLng(1, 1));
+
+    final PolylineBuilder builder = new PolylineBuilder(1);
+    builder.setSimplificationTolerance(1);
+    builder.setPoints(points);
+
+    assertTrue(builder.build().getPoints().isEmpty());
+    assertEquals(points, builder.getPoints());
+  }
 }
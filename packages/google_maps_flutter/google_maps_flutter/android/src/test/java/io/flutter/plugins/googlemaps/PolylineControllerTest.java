@@ -8,7 +8,10 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
 import com.google.android.gms.internal.maps.zzz;
+import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Polyline;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -26,4 +29,20 @@ public class PolylineControllerTest {
 
     Mockito.verify(polyline).setWidth(density * strokeWidth);
   }
+
+  @Test
+  public void controller_SimplifiesPointsForZoomLevel() {
+    final zzz z = mock(zzz.class);
+    final Polyline polyline = spy(new Polyline(z));
+    final List<LatLng> points =
+        Arrays.asList(new LatLng(0, 0), new LatLng(0.001, 10), new LatLng(0, 20));
+
+    final PolylineController controller = new PolylineController(polyline, false, 1);
+    controller.setSimplificationTolerance(1);
+    controller.setPoints(points);
+    Mockito.verify(polyline).setPoints(Arrays.asList(points.get(0), points.get(2)));
+
+    controller.setZoom(20.5f);
+    Mockito.verify(polyline).setPoints(points);
+  }
 }
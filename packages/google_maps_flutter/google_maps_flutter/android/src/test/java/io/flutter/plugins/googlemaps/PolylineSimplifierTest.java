@@ -0,0 +1,52 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.google.android.gms.maps.model.LatLng;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class PolylineSimplifierTest {
+  private static final List<LatLng> POINTS =
+      Arrays.asList(new LatLng(0, 0), new LatLng(0.001, 10), new LatLng(0, 20));
+
+  @Test
+  public void simplify_dropsPointsWithinTolerance() {
+    final List<LatLng> simplified = PolylineSimplifier.simplify(POINTS, 1, 0);
+
+    assertEquals(Arrays.asList(POINTS.get(0), POINTS.get(2)), simplified);
+  }
+
+  @Test
+  public void simplify_keepsPointsAtHigherZoom() {
+    final List<LatLng> simplified = PolylineSimplifier.simplify(POINTS, 1, 20);
+
+    assertEquals(POINTS, simplified);
+  }
+
+  @Test
+  public void simplify_withoutToleranceKeepsPoints() {
+    assertSame(POINTS, PolylineSimplifier.simplify(POINTS, 0, 0));
+  }
+
+  @Test
+  public void simplify_longPolyline() {
+    final List<LatLng> points = new ArrayList<>();
+    for (int i = 0; i <= 100000; i++) {
+      // A zigzag with one point every ten meters, which is a straight line at low zoom levels.
+      points.add(new LatLng(i % 2 == 0 ? 0 : 0.0001, i * 0.0001));
+    }
+
+    final List<LatLng> simplified = PolylineSimplifier.simplify(points, 1, 5);
+
+    assertEquals(Arrays.asList(points.get(0), points.get(100000)), simplified);
+    assertEquals(points.size(), PolylineSimplifier.simplify(points, 1, 21).size());
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class RTreeTest {
+  private static final LatLngBounds VISIBLE_BOUNDS =
+      new LatLngBounds(new LatLng(10, 10), new LatLng(12, 12));
+
+  @Test
+  public void searchAround_findsElementsWithinMargin() {
+    final RTree tree = new RTree();
+    tree.put("inside", Collections.singletonList(new LatLng(11, 11)));
+    // Within half the visible region of its edge.
+    tree.put("margin", Collections.singletonList(new LatLng(12.9, 11)));
+    tree.put("outside", Collections.singletonList(new LatLng(13.5, 11)));
+
+    assertEquals(
+        new HashSet<>(Arrays.asList("inside", "margin")), tree.searchAround(VISIBLE_BOUNDS));
+  }
+
+  @Test
+  public void searchAround_findsElementsCrossingRegion() {
+    final RTree tree = new RTree();
+    tree.put("line", Arrays.asList(new LatLng(0, 0), new LatLng(20, 20)));
+
+    assertEquals(Collections.singleton("line"), tree.searchAround(VISIBLE_BOUNDS));
+  }
+
+  @Test
+  public void searchAround_acrossAntimeridian() {
+    final RTree tree = new RTree();
+    tree.put("east", Collections.singletonList(new LatLng(0, 179.5)));
+    tree.put("west", Collections.singletonList(new LatLng(0, -179.5)));
+    tree.put("far", Collections.singletonList(new LatLng(0, 0)));
+
+    final Set<String> ids =
+        tree.searchAround(new LatLngBounds(new LatLng(-1, 179), new LatLng(1, -179)));
+
+    assertEquals(new HashSet<>(Arrays.asList("east", "west")), ids);
+  }
+
+  @Test
+  public void searchAround_manyElements() {
+    final RTree tree = new RTree();
+    for (int lat = -80; lat < 80; lat++) {
+      for (int lng = -180; lng < 180; lng++) {
+        tree.put(lat + "," + lng, Collections.singletonList(new LatLng(lat + 0.5, lng + 0.5)));
+      }
+    }
+
+    final Set<String> ids = tree.searchAround(VISIBLE_BOUNDS);
+
+    // The visible region and a margin of one degree around it.
+    assertEquals(16, ids.size());
+    assertTrue(ids.contains("9,9"));
+    assertTrue(ids.contains("12,12"));
+  }
+
+  @Test
+  public void putAndRemove() {
+    final RTree tree = new RTree();
+    tree.put("moved", Collections.singletonList(new LatLng(11, 11)));
+    tree.put("removed", Collections.singletonList(new LatLng(11, 11)));
+    tree.searchAround(VISIBLE_BOUNDS);
+
+    tree.put("moved", Collections.singletonList(new LatLng(-40, 100)));
+    tree.remove("removed");
+
+    assertTrue(tree.searchAround(VISIBLE_BOUNDS).isEmpty());
+  }
+
+  @Test
+  public void put_withoutPointsRemoves() {
+    final RTree tree = new RTree();
+    tree.put("a", Collections.singletonList(new LatLng(11, 11)));
+    tree.put("a", Collections.<LatLng>emptyList());
+
+    assertTrue(tree.searchAround(VISIBLE_BOUNDS).isEmpty());
+  }
+}
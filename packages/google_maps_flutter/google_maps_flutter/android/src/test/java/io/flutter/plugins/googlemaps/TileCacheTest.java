@@ -0,0 +1,220 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TileCacheTest {
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
+  private static final long MAX_DISK_SIZE = 1024 * 1024;
+  private static final String KEY = "v1";
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File directory;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot();
+  }
+
+  @Test
+  public void put_evictsLeastRecentlyUsedOverBudget() {
+    final TileCache cache = new TileCache(directory, 250, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+    final Tile a = createTile(100);
+    final Tile b = createTile(100);
+    final Tile c = createTile(100);
+    cache.put("overlay", 0, 0, 1, a, null);
+    cache.put("overlay", 1, 0, 1, b, null);
+    // Makes b the least recently used.
+    cache.get("overlay", 0, 0, 1, null);
+
+    cache.put("overlay", 0, 1, 1, c, null);
+
+    assertSame(a, cache.get("overlay", 0, 0, 1, null));
+    assertNull(cache.get("overlay", 1, 0, 1, null));
+    assertSame(c, cache.get("overlay", 0, 1, 1, null));
+  }
+
+  @Test
+  public void put_doesNotCacheMissingTiles() {
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+
+    cache.put("overlay", 0, 0, 0, TileProvider.NO_TILE, KEY);
+
+    assertFalse(cache.contains("overlay", 0, 0, 0, KEY));
+  }
+
+  @Test
+  public void get_readsTilesCachedOnDisk() {
+    final Tile tile = new Tile(256, 512, new byte[] {1, 2, 3});
+    new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR)
+        .put("overlay", 3, 4, 5, tile, KEY);
+
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+    assertNull(cache.get("overlay", 3, 4, 5, null));
+    assertTrue(cache.contains("overlay", 3, 4, 5, KEY));
+    final Tile cachedTile = cache.get("overlay", 3, 4, 5, KEY);
+
+    assertEquals(256, cachedTile.width);
+    assertEquals(512, cachedTile.height);
+    assertArrayEquals(tile.data, cachedTile.data);
+    assertNull(cache.get("other", 3, 4, 5, KEY));
+  }
+
+  @Test
+  public void clear_removesTilesOfOverlay() {
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+    cache.put("overlay", 0, 0, 0, createTile(10), KEY);
+    cache.put("overlay2", 0, 0, 0, createTile(10), null);
+    cache.put("overlay2", 1, 0, 1, createTile(10), KEY);
+
+    cache.clear("overlay", true);
+
+    assertFalse(cache.contains("overlay", 0, 0, 0, KEY));
+    assertTrue(cache.contains("overlay2", 0, 0, 0, null));
+    assertTrue(cache.contains("overlay2", 1, 0, 1, KEY));
+  }
+
+  @Test
+  public void clear_removesTilesOnDiskBeforeTheyAreDeleted() {
+    final List<Runnable> diskTasks = new ArrayList<>();
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, diskTasks::add);
+    cache.put("overlay", 0, 0, 0, createTile(10), KEY);
+    runAll(diskTasks);
+
+    cache.clear("overlay", true);
+
+    assertFalse(cache.contains("overlay", 0, 0, 0, KEY));
+    assertNull(cache.get("overlay", 0, 0, 0, KEY));
+    runAll(diskTasks);
+    assertArrayEquals(new String[0], directory.list());
+  }
+
+  @Test
+  public void clear_dropsTilesWrittenAfterwards() {
+    final List<Runnable> diskTasks = new ArrayList<>();
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, diskTasks::add);
+    cache.put("overlay", 0, 0, 0, createTile(10), KEY);
+
+    cache.clear("overlay", true);
+    runAll(diskTasks);
+
+    assertFalse(cache.contains("overlay", 0, 0, 0, KEY));
+  }
+
+  @Test
+  public void clear_canKeepTilesOnDisk() {
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+    cache.put("overlay", 0, 0, 0, createTile(10), KEY);
+
+    cache.clear("overlay", false);
+
+    assertFalse(cache.contains("overlay", 0, 0, 0, null));
+    assertTrue(cache.contains("overlay", 0, 0, 0, KEY));
+  }
+
+  @Test
+  public void get_doesNotReadTilesCachedWithAnotherKey() {
+    new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR)
+        .put("overlay", 0, 0, 0, createTile(10), KEY);
+
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+
+    assertFalse(cache.contains("overlay", 0, 0, 0, "v2"));
+    assertNull(cache.get("overlay", 0, 0, 0, "v2"));
+    assertTrue(cache.contains("overlay", 0, 0, 0, KEY));
+  }
+
+  @Test
+  public void get_doesNotReturnTilesCachedInMemoryWithAnotherKey() {
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+    final Tile tile = createTile(10);
+    cache.put("overlay", 0, 0, 0, tile, KEY);
+
+    assertNull(cache.get("overlay", 0, 0, 0, "v2"));
+    assertNull(cache.get("overlay", 0, 0, 0, null));
+    assertSame(tile, cache.get("overlay", 0, 0, 0, KEY));
+  }
+
+  @Test
+  public void retainDiskCacheKey_deletesTilesCachedWithOtherKeys() {
+    final TileCache cache = new TileCache(directory, 1000, MAX_DISK_SIZE, DIRECT_EXECUTOR);
+    cache.put("overlay", 0, 0, 0, createTile(10), KEY);
+    cache.put("overlay", 1, 0, 1, createTile(10), "v2");
+    cache.put("overlay2", 0, 0, 0, createTile(10), KEY);
+    cache.clear("overlay", false);
+
+    cache.retainDiskCacheKey("overlay", "v2");
+
+    assertFalse(cache.contains("overlay", 0, 0, 0, KEY));
+    assertTrue(cache.contains("overlay", 1, 0, 1, "v2"));
+    assertTrue(cache.contains("overlay2", 0, 0, 0, KEY));
+  }
+
+  @Test
+  public void put_deletesLeastRecentlyUsedFilesOverDiskBudget() {
+    // Each file holds 12 bytes of dimensions and length besides the tile data.
+    final TileCache cache = new TileCache(directory, 1000, 280, DIRECT_EXECUTOR);
+    cache.put("overlay", 0, 0, 1, createTile(88), KEY);
+    cache.put("overlay", 1, 0, 1, createTile(88), KEY);
+    setLastModified(0, 0, 1, 1000);
+    setLastModified(1, 0, 1, 2000);
+    cache.clear("overlay", false);
+
+    cache.put("overlay", 0, 1, 1, createTile(88), KEY);
+
+    assertFalse(cache.contains("overlay", 0, 0, 1, KEY));
+    assertTrue(cache.contains("overlay", 1, 0, 1, KEY));
+    assertTrue(cache.contains("overlay", 0, 1, 1, KEY));
+  }
+
+  private void setLastModified(int x, int y, int zoom, long time) {
+    final File file = findFile(directory, zoom + "_" + x + "_" + y);
+    assertTrue(file.setLastModified(time));
+  }
+
+  private static File findFile(File directory, String name) {
+    for (File child : directory.listFiles()) {
+      if (child.getName().equals(name)) {
+        return child;
+      }
+      if (child.isDirectory()) {
+        final File file = findFile(child, name);
+        if (file != null) {
+          return file;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static void runAll(List<Runnable> tasks) {
+    for (Runnable task : new ArrayList<>(tasks)) {
+      tasks.remove(task);
+      task.run();
+    }
+  }
+
+  private static Tile createTile(int size) {
+    return new Tile(256, 256, new byte[size]);
+  }
+}
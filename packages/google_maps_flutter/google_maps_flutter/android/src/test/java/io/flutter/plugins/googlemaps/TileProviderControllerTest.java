@@ -0,0 +1,204 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.os.Handler;
+import com.google.android.gms.maps.model.Tile;
+import io.flutter.plugin.common.MethodChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+public class TileProviderControllerTest {
+  private static final long TIMEOUT_MS = 10000;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private MethodChannel mockMethodChannel;
+  private Handler mockHandler;
+  private List<Runnable> postedRunnables;
+  private TileCache tileCache;
+
+  @Before
+  public void setUp() {
+    mockMethodChannel = mock(MethodChannel.class);
+    mockHandler = mock(Handler.class);
+    postedRunnables = new ArrayList<>();
+    when(mockHandler.post(any(Runnable.class)))
+        .thenAnswer(
+            invocation -> {
+              synchronized (postedRunnables) {
+                postedRunnables.add(invocation.getArgument(0));
+              }
+              return true;
+            });
+    tileCache = new TileCache(temporaryFolder.getRoot(), 1000, 1000, Runnable::run);
+  }
+
+  @Test
+  public void getTile_concurrentRequestsForATileShareOneCall() throws InterruptedException {
+    final TileProviderController controller = createController(TIMEOUT_MS);
+    final Tile[] tiles = new Tile[2];
+    final Thread thread1 = new Thread(() -> tiles[0] = controller.getTile(1, 2, 3));
+    final Thread thread2 = new Thread(() -> tiles[1] = controller.getTile(1, 2, 3));
+
+    thread1.start();
+    waitUntilWaiting(thread1);
+    thread2.start();
+    waitUntilWaiting(thread2);
+    runPosted();
+    answerTiles(new byte[] {1, 2, 3});
+    thread1.join();
+    thread2.join();
+
+    verify(mockMethodChannel, times(1))
+        .invokeMethod(eq("tileOverlay#getTile"), any(), any(MethodChannel.Result.class));
+    assertArrayEquals(new byte[] {1, 2, 3}, tiles[0].data);
+    assertSame(tiles[0], tiles[1]);
+  }
+
+  @Test
+  public void getTile_returnsNullWhenDartDoesNotAnswerInTime() {
+    final TileProviderController controller = createController(10);
+
+    final Tile tile = controller.getTile(1, 2, 3);
+
+    assertNull(tile);
+    assertEquals(1, postedRunnables.size());
+  }
+
+  @Test
+  public void getTile_prefetchesNeighboursAcrossTheAntimeridian() {
+    doAnswer(
+            invocation -> {
+              invocation.<MethodChannel.Result>getArgument(2).success(createTileData());
+              return null;
+            })
+        .when(mockMethodChannel)
+        .invokeMethod(anyString(), any(), any(MethodChannel.Result.class));
+    final TileProviderController controller = createController(TIMEOUT_MS);
+    controller.setPrefetchTiles(true);
+
+    controller.getTile(0, 0, 2);
+    runPosted();
+
+    // The tile, and the neighbours below and on both sides, as the 4 columns of zoom 2 wrap around.
+    verify(mockMethodChannel, times(6))
+        .invokeMethod(anyString(), any(), any(MethodChannel.Result.class));
+    for (int x : new int[] {3, 0, 1}) {
+      for (int y : new int[] {0, 1}) {
+        verifyRequested(x, y, 2);
+      }
+    }
+  }
+
+  @Test
+  public void getTile_cachesTheAnswerWithTheKeyTheTileWasRequestedWith()
+      throws InterruptedException {
+    final TileProviderController controller = createController(TIMEOUT_MS);
+    controller.setDiskCacheKey("v1");
+    final Thread thread = new Thread(() -> controller.getTile(1, 2, 3));
+
+    thread.start();
+    waitUntilWaiting(thread);
+    runPosted();
+    controller.setDiskCacheKey("v2");
+    answerTiles(new byte[] {1, 2, 3});
+    thread.join();
+
+    assertNull(tileCache.get("overlay", 1, 2, 3, "v2"));
+    assertArrayEquals(new byte[] {1, 2, 3}, tileCache.get("overlay", 1, 2, 3, "v1").data);
+  }
+
+  @Test
+  public void getTile_dropsAnswersRequestedBeforeTheCacheWasCleared() throws InterruptedException {
+    final TileProviderController controller = createController(TIMEOUT_MS);
+    final Tile[] tiles = new Tile[1];
+    final Thread thread = new Thread(() -> tiles[0] = controller.getTile(1, 2, 3));
+
+    thread.start();
+    waitUntilWaiting(thread);
+    runPosted();
+    controller.clearTileCache();
+    answerTiles(new byte[] {1, 2, 3});
+    thread.join();
+
+    assertNull(tiles[0]);
+    assertNull(tileCache.get("overlay", 1, 2, 3, null));
+  }
+
+  private TileProviderController createController(long tileTimeoutMs) {
+    return new TileProviderController(
+        mockMethodChannel, "overlay", tileCache, mockHandler, tileTimeoutMs);
+  }
+
+  private void verifyRequested(int x, int y, int zoom) {
+    verify(mockMethodChannel, times(1))
+        .invokeMethod(
+            anyString(),
+            argThat(
+                (Object arguments) -> {
+                  final Map<?, ?> map = (Map<?, ?>) arguments;
+                  return map.get("x").equals(x)
+                      && map.get("y").equals(y)
+                      && map.get("zoom").equals(zoom);
+                }),
+            any(MethodChannel.Result.class));
+  }
+
+  private void runPosted() {
+    final List<Runnable> runnables;
+    synchronized (postedRunnables) {
+      runnables = new ArrayList<>(postedRunnables);
+      postedRunnables.clear();
+    }
+    for (Runnable runnable : runnables) {
+      runnable.run();
+    }
+  }
+
+  private void answerTiles(byte[] data) {
+    final ArgumentCaptor<MethodChannel.Result> resultCaptor =
+        ArgumentCaptor.forClass(MethodChannel.Result.class);
+    verify(mockMethodChannel).invokeMethod(anyString(), any(), resultCaptor.capture());
+    final Map<String, Object> tileData = createTileData();
+    tileData.put("data", data);
+    resultCaptor.getValue().success(tileData);
+  }
+
+  private static Map<String, Object> createTileData() {
+    final Map<String, Object> data = new HashMap<>();
+    data.put("width", 256);
+    data.put("height", 256);
+    data.put("data", new byte[] {0});
+    return data;
+  }
+
+  private static void waitUntilWaiting(Thread thread) throws InterruptedException {
+    while (thread.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+  }
+}